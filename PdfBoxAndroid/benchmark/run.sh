@@ -0,0 +1,67 @@
+#!/bin/sh
+#
+# Compiles the library and the benchmarks and runs them with JMH, see README.md.
+#
+# usage: run.sh [regexp]
+#
+# ANDROID_JAR     an implementation of the android classes, e.g. the android-all jar of
+#                 Robolectric (required)
+# JMH_CLASSPATH   the JMH jars; if it isn't set, JMH_VERSION of JMH and its dependencies are
+#                 downloaded from Maven Central into build/lib
+# JAVA_HOME       the JDK to use, else javac and java from the PATH
+
+set -e
+
+cd "$(dirname "$0")"
+BUILD=build
+JMH_VERSION=${JMH_VERSION:-1.37}
+MAVEN=https://repo1.maven.org/maven2
+
+if [ -z "$ANDROID_JAR" ] || [ ! -f "$ANDROID_JAR" ]; then
+    echo "ANDROID_JAR must be set to a jar with the android classes, e.g. android-all of Robolectric" >&2
+    exit 1
+fi
+
+if [ -n "$JAVA_HOME" ]; then
+    JAVAC="$JAVA_HOME/bin/javac"
+    JAVA="$JAVA_HOME/bin/java"
+else
+    JAVAC=javac
+    JAVA=java
+fi
+
+# downloads a jar from Maven Central unless it has been downloaded before
+fetch()
+{
+    jar="$BUILD/lib/$2-$3.jar"
+    if [ ! -f "$jar" ]; then
+        mkdir -p "$BUILD/lib"
+        curl -fsSL -o "$jar.part" "$MAVEN/$(echo "$1" | tr . /)/$2/$3/$2-$3.jar"
+        mv "$jar.part" "$jar"
+    fi
+    JMH_CLASSPATH="$JMH_CLASSPATH${JMH_CLASSPATH:+:}$jar"
+}
+
+if [ -z "$JMH_CLASSPATH" ]; then
+    fetch org.openjdk.jmh jmh-core "$JMH_VERSION"
+    fetch org.openjdk.jmh jmh-generator-annprocess "$JMH_VERSION"
+    fetch net.sf.jopt-simple jopt-simple 5.0.4
+    fetch org.apache.commons commons-math3 3.6.1
+fi
+
+LIBS=$(ls ../libs/*.jar | tr '\n' ':')
+
+# the library, with its resources
+rm -rf "$BUILD/library" "$BUILD/benchmarks"
+mkdir -p "$BUILD/library" "$BUILD/benchmarks"
+find ../src -name '*.java' > "$BUILD/library-sources.txt"
+"$JAVAC" -nowarn -encoding ISO-8859-1 -d "$BUILD/library" -cp "$LIBS$ANDROID_JAR" \
+    @"$BUILD/library-sources.txt"
+(cd ../src && find . -type f ! -name '*.java' | tar -cf - -T -) | (cd "$BUILD/library" && tar -xf -)
+
+# the benchmarks, the annotation processor of JMH generates the benchmark stubs
+CLASSPATH="$BUILD/library:$LIBS$ANDROID_JAR:$JMH_CLASSPATH"
+find src -name '*.java' > "$BUILD/benchmark-sources.txt"
+"$JAVAC" -encoding UTF-8 -d "$BUILD/benchmarks" -cp "$CLASSPATH" @"$BUILD/benchmark-sources.txt"
+
+"$JAVA" -cp "$BUILD/benchmarks:$CLASSPATH" org.apache.pdfbox.benchmark.BenchmarkRunner "$@"
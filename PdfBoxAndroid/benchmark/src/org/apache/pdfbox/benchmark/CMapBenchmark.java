@@ -0,0 +1,125 @@
+package org.apache.pdfbox.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.fontbox.cmap.CMap;
+import org.apache.fontbox.cmap.CMapParser;
+import org.apache.fontbox.ttf.CmapSubtable;
+import org.apache.fontbox.ttf.CmapTable;
+import org.apache.fontbox.ttf.TTFParser;
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Character code lookups of a Chinese string of 1000 characters, like the text of a page of a
+ * CJK document with a UniGB-UCS2-H encoded font: reading the codes, mapping them to CIDs and the
+ * CIDs to Unicode. The TrueType cmap lookup maps 1000 Latin characters to glyph ids.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CMapBenchmark
+{
+    private static final int LENGTH = 1000;
+
+    private CMap encoding;
+    private CMap toUnicode;
+    private CmapSubtable cmap;
+    private byte[] string;
+    private int[] codes;
+    private int[] cids;
+    private int[] latin;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        encoding = new CMapParser().parsePredefined("UniGB-UCS2-H");
+        toUnicode = new CMapParser().parsePredefined("Adobe-GB1-UCS2");
+        TrueTypeFont font = new TTFParser().parse(new ByteArrayInputStream(
+                Fixtures.readResource("/org/apache/pdfbox/resources/ttf/LiberationSans-Regular.ttf")));
+        cmap = font.getCmap().getSubtable(CmapTable.PLATFORM_WINDOWS,
+                CmapTable.ENCODING_WIN_UNICODE);
+
+        // CJK unified ideographs, as two byte codes
+        Random random = new Random(42);
+        string = new byte[LENGTH * 2];
+        codes = new int[LENGTH];
+        cids = new int[LENGTH];
+        latin = new int[LENGTH];
+        for (int i = 0; i < LENGTH; i++)
+        {
+            int code = 0x4E00 + random.nextInt(0x5200);
+            string[i * 2] = (byte) (code >> 8);
+            string[i * 2 + 1] = (byte) code;
+            codes[i] = code;
+            cids[i] = encoding.toCID(code);
+            latin[i] = 0x20 + random.nextInt(0x160);
+        }
+    }
+
+    @Benchmark
+    public void readCode(Blackhole blackhole) throws IOException
+    {
+        InputStream in = new ByteArrayInputStream(string);
+        while (in.available() > 0)
+        {
+            blackhole.consume(encoding.readCode(in));
+        }
+    }
+
+    @Benchmark
+    public void readCodeFromArray(Blackhole blackhole) throws IOException
+    {
+        int offset = 0;
+        while (offset < string.length)
+        {
+            int length = encoding.readCodeLength(string, offset);
+            blackhole.consume(encoding.readCode(string, offset));
+            offset += length;
+        }
+    }
+
+    @Benchmark
+    public void toCID(Blackhole blackhole)
+    {
+        for (int code : codes)
+        {
+            blackhole.consume(encoding.toCID(code));
+        }
+    }
+
+    @Benchmark
+    public void toUnicode(Blackhole blackhole)
+    {
+        for (int cid : cids)
+        {
+            blackhole.consume(toUnicode.toUnicode(cid));
+        }
+    }
+
+    @Benchmark
+    public void getGlyphId(Blackhole blackhole)
+    {
+        for (int code : latin)
+        {
+            blackhole.consume(cmap.getGlyphId(code));
+        }
+    }
+}
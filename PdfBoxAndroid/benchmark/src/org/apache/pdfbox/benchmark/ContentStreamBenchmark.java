@@ -0,0 +1,64 @@
+package org.apache.pdfbox.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.cos.COSNumber;
+import org.apache.pdfbox.pdfparser.PDFStreamParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tokenizing of 1 MB of a number heavy content stream, the paths of vector graphics with real
+ * coordinates, so that the parsing of the numbers dominates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ContentStreamBenchmark
+{
+    private byte[] content;
+
+    @Setup
+    public void setUp()
+    {
+        content = Fixtures.createPathData(1024 * 1024);
+    }
+
+    @Benchmark
+    public float parse() throws IOException
+    {
+        PDFStreamParser parser = new PDFStreamParser(new ByteArrayInputStream(content));
+        try
+        {
+            float sum = 0;
+            Iterator<Object> tokens = parser.getTokenIterator();
+            while (tokens.hasNext())
+            {
+                Object token = tokens.next();
+                if (token instanceof COSNumber)
+                {
+                    sum += ((COSNumber) token).floatValue();
+                }
+            }
+            return sum;
+        }
+        finally
+        {
+            parser.close();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.apache.pdfbox.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.filter.Filter;
+import org.apache.pdfbox.filter.FilterFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Decoding of 1 MB of content stream like data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FilterBenchmark
+{
+    private static final int LENGTH = 1024 * 1024;
+
+    @Param({"FlateDecode", "LZWDecode"})
+    public String filterName;
+
+    private Filter filter;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        COSName name = COSName.getPDFName(filterName);
+        filter = FilterFactory.INSTANCE.getFilter(name);
+        encoded = Fixtures.encode(name, Fixtures.createData(LENGTH));
+        // don't measure a broken round trip
+        if (decode() != LENGTH)
+        {
+            throw new IllegalStateException("Error: " + filterName + " doesn't decode its own output");
+        }
+    }
+
+    @Benchmark
+    public int decode() throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(LENGTH);
+        filter.decode(new ByteArrayInputStream(encoded), out, new COSDictionary(), 0);
+        return out.size();
+    }
+}
@@ -0,0 +1,291 @@
+package org.apache.pdfbox.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSFloat;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.filter.Filter;
+import org.apache.pdfbox.filter.FilterFactory;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.function.PDFunction;
+import org.apache.pdfbox.pdmodel.edit.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDTrueTypeFont;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+
+/**
+ * Creates the input data of the benchmarks. Everything is generated with a fixed seed,
+ * so all runs measure the same work.
+ */
+final class Fixtures
+{
+    private static final String[] WORDS = {
+        "the", "document", "page", "stream", "object", "font", "text", "parser", "writer",
+        "filter", "glyph", "content", "resource", "dictionary", "array", "number", "name",
+        "reference", "catalog", "outline", "annotation", "form", "image", "pattern", "shading"
+    };
+
+    private Fixtures()
+    {
+    }
+
+    /**
+     * Creates a document with pages full of text, the content streams are compressed. The
+     * font is embedded, so the text can be extracted without any system fonts.
+     *
+     * @param pages the number of pages
+     * @return the saved document
+     * @throws IOException if the document can't be created
+     */
+    static byte[] createTextDocument(int pages) throws IOException
+    {
+        Random random = new Random(pages);
+        PDDocument doc = new PDDocument();
+        try
+        {
+            PDFont font = PDTrueTypeFont.loadTTF(doc, new ByteArrayInputStream(
+                    readResource("/org/apache/pdfbox/resources/ttf/LiberationSans-Regular.ttf")));
+            for (int i = 0; i < pages; i++)
+            {
+                PDPage page = new PDPage();
+                doc.addPage(page);
+                PDPageContentStream contents = new PDPageContentStream(doc, page);
+                contents.beginText();
+                contents.setFont(font, 10);
+                contents.moveTextPositionByAmount(50, 740);
+                for (int line = 0; line < 60; line++)
+                {
+                    contents.drawString(createLine(random));
+                    contents.moveTextPositionByAmount(0, -12);
+                }
+                contents.endText();
+                contents.close();
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            doc.save(out);
+            return out.toByteArray();
+        }
+        finally
+        {
+            doc.close();
+        }
+    }
+
+    /**
+     * Creates a document with pages full of text in a Type 0 font, which isn't saved yet.
+     *
+     * @param pages the number of pages
+     * @param embedSubset true if only the glyphs which are used are embedded when the
+     * document is saved
+     * @return the document
+     * @throws IOException if the document can't be created
+     */
+    static PDDocument createType0Document(int pages, boolean embedSubset) throws IOException
+    {
+        Random random = new Random(pages);
+        PDDocument doc = new PDDocument();
+        PDFont font = PDType0Font.load(doc, new ByteArrayInputStream(
+                readResource("/org/apache/pdfbox/resources/ttf/LiberationSans-Regular.ttf")),
+                embedSubset);
+        for (int i = 0; i < pages; i++)
+        {
+            PDPage page = new PDPage();
+            doc.addPage(page);
+            PDPageContentStream contents = new PDPageContentStream(doc, page);
+            contents.beginText();
+            contents.setFont(font, 10);
+            contents.moveTextPositionByAmount(50, 740);
+            for (int line = 0; line < 60; line++)
+            {
+                contents.drawString(createLine(random));
+                contents.moveTextPositionByAmount(0, -12);
+            }
+            contents.endText();
+            contents.close();
+        }
+        return doc;
+    }
+
+    /**
+     * Creates text like data which compresses about as well as content streams do.
+     *
+     * @param length the number of bytes
+     * @return the data
+     */
+    static byte[] createData(int length)
+    {
+        Random random = new Random(length);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length + 100);
+        while (out.size() < length)
+        {
+            String op = random.nextInt(64) + " " + random.nextInt(800) + "." + random.nextInt(100)
+                    + " Td (" + createLine(random) + ") Tj\n";
+            byte[] bytes = op.getBytes();
+            out.write(bytes, 0, bytes.length);
+        }
+        byte[] data = new byte[length];
+        System.arraycopy(out.toByteArray(), 0, data, 0, length);
+        return data;
+    }
+
+    /**
+     * Creates the content of a page of vector graphics, like a map or a chart: paths with
+     * real coordinates, so that the content stream consists of numbers more than anything else.
+     *
+     * @param length the minimum number of bytes
+     * @return the content stream
+     */
+    static byte[] createPathData(int length)
+    {
+        Random random = new Random(length);
+        StringBuilder content = new StringBuilder(length + 200);
+        while (content.length() < length)
+        {
+            content.append(createNumber(random)).append(' ').append(createNumber(random))
+                    .append(" m\n");
+            for (int i = 0; i < 8; i++)
+            {
+                for (int j = 0; j < 6; j++)
+                {
+                    content.append(createNumber(random)).append(' ');
+                }
+                content.append("c\n");
+            }
+            content.append("h f\n");
+        }
+        return content.toString().getBytes();
+    }
+
+    /**
+     * Creates the samples of an 8 bit RGB image with gradients and some noise, like a scanned
+     * or rendered picture in a TIFF file.
+     *
+     * @param width the width of the image
+     * @param height the height of the image
+     * @return the samples, row by row
+     */
+    static byte[] createImageData(int width, int height)
+    {
+        Random random = new Random(width * 31 + height);
+        byte[] data = new byte[width * height * 3];
+        int i = 0;
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                int value = x * 255 / width + y / 7;
+                if (random.nextInt(8) == 0)
+                {
+                    value += random.nextInt(4);
+                }
+                data[i++] = (byte) value;
+                data[i++] = (byte) (value / 2);
+                data[i++] = (byte) (255 - value);
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Encodes data with a filter.
+     *
+     * @param filterName the name of the filter
+     * @param data the data to encode
+     * @return the encoded data
+     * @throws IOException if the data can't be encoded
+     */
+    static byte[] encode(COSName filterName, byte[] data) throws IOException
+    {
+        Filter filter = FilterFactory.INSTANCE.getFilter(filterName);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        filter.encode(new ByteArrayInputStream(data), out, new COSDictionary(), 0);
+        return out.toByteArray();
+    }
+
+    /**
+     * Creates a type 4 function like the tint transforms of separation color spaces, with
+     * one input and four outputs.
+     *
+     * @return the function
+     * @throws IOException if the function can't be created
+     */
+    static PDFunction createType4Function() throws IOException
+    {
+        COSStream stream = new COSStream();
+        stream.setInt(COSName.FUNCTION_TYPE, 4);
+        stream.setItem(COSName.DOMAIN, createRange(1));
+        stream.setItem(COSName.RANGE, createRange(4));
+        OutputStream out = stream.createUnfilteredStream();
+        out.write(("{ dup 0.5 gt { 1 exch sub } if dup 0.8 mul exch dup 0.6 mul exch "
+                + "0.4 mul 0 }").getBytes("ISO-8859-1"));
+        out.close();
+        return PDFunction.create(stream);
+    }
+
+    /**
+     * Reads a resource of the library.
+     *
+     * @param name the name of the resource
+     * @return the content of the resource
+     * @throws IOException if the resource can't be read
+     */
+    static byte[] readResource(String name) throws IOException
+    {
+        InputStream input = Fixtures.class.getResourceAsStream(name);
+        if (input == null)
+        {
+            throw new IOException("Error: missing resource " + name);
+        }
+        try
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = input.read(buffer)) != -1)
+            {
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        }
+        finally
+        {
+            input.close();
+        }
+    }
+
+    private static String createLine(Random random)
+    {
+        StringBuilder line = new StringBuilder();
+        while (line.length() < 90)
+        {
+            line.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        return line.toString();
+    }
+
+    private static String createNumber(Random random)
+    {
+        return random.nextInt(800) + "." + random.nextInt(1000);
+    }
+
+    private static COSArray createRange(int dimensions)
+    {
+        COSArray range = new COSArray();
+        for (int i = 0; i < dimensions; i++)
+        {
+            range.add(COSInteger.ZERO);
+            range.add(new COSFloat(1));
+        }
+        return range;
+    }
+}
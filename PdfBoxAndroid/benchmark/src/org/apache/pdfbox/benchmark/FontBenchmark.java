@@ -0,0 +1,60 @@
+package org.apache.pdfbox.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.fontbox.cmap.CMap;
+import org.apache.fontbox.cmap.CMapParser;
+import org.apache.fontbox.ttf.TTFParser;
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing of a TrueType font and of a large predefined CMap, both from the resources of the
+ * library.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FontBenchmark
+{
+    private byte[] ttf;
+    private byte[] cmap;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        ttf = Fixtures.readResource("/org/apache/pdfbox/resources/ttf/LiberationSans-Regular.ttf");
+        cmap = Fixtures.readResource("/org/apache/fontbox/resources/cmap/UniGB-UCS2-H");
+    }
+
+    @Benchmark
+    public TrueTypeFont parseTrueType() throws IOException
+    {
+        TrueTypeFont font = new TTFParser().parse(new ByteArrayInputStream(ttf));
+        // the tables are read on demand, so read the ones every font needs
+        font.getHorizontalMetrics();
+        font.getCmap();
+        font.getGlyph();
+        return font;
+    }
+
+    @Benchmark
+    public CMap parseCMap() throws IOException
+    {
+        return new CMapParser().parse(new ByteArrayInputStream(cmap));
+    }
+}
@@ -0,0 +1,65 @@
+package org.apache.pdfbox.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.pdmodel.common.function.LookupTable;
+import org.apache.pdfbox.pdmodel.common.function.PDFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Evaluation of a type 4 (PostScript calculator) function for 256 input values, like
+ * converting one row of a separation image, and interpolation of its lookup table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FunctionBenchmark
+{
+    private PDFunction function;
+    private LookupTable lookupTable;
+    private float[][] inputs;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        function = Fixtures.createType4Function();
+        lookupTable = function.getLookupTable(256);
+        inputs = new float[256][];
+        for (int i = 0; i < inputs.length; i++)
+        {
+            inputs[i] = new float[] { i / 255f };
+        }
+    }
+
+    @Benchmark
+    public void eval(Blackhole blackhole) throws IOException
+    {
+        for (float[] input : inputs)
+        {
+            blackhole.consume(function.eval(input));
+        }
+    }
+
+    @Benchmark
+    public void lookupTable(Blackhole blackhole)
+    {
+        for (float[] input : inputs)
+        {
+            blackhole.consume(lookupTable.eval(input));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.apache.pdfbox.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.filter.Filter;
+import org.apache.pdfbox.filter.FilterFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * LZW encoding and decoding of the samples of a 1200 x 1000 RGB image (3.6 MB).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class LZWBenchmark
+{
+    private Filter filter;
+    private byte[] samples;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        filter = FilterFactory.INSTANCE.getFilter(COSName.LZW_DECODE);
+        samples = Fixtures.createImageData(1200, 1000);
+        encoded = Fixtures.encode(COSName.LZW_DECODE, samples);
+    }
+
+    @Benchmark
+    public int encode() throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(encoded.length);
+        filter.encode(new ByteArrayInputStream(samples), out, new COSDictionary(), 0);
+        return out.size();
+    }
+
+    @Benchmark
+    public int decode() throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(samples.length);
+        filter.decode(new ByteArrayInputStream(encoded), out, new COSDictionary(), 0);
+        return out.size();
+    }
+}
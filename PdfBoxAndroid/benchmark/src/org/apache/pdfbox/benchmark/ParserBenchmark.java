@@ -0,0 +1,60 @@
+package org.apache.pdfbox.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loading of a document with the non sequential parser, including the lookup of all pages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ParserBenchmark
+{
+    @Param({"10", "100"})
+    public int pages;
+
+    private byte[] pdf;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        pdf = Fixtures.createTextDocument(pages);
+    }
+
+    @Benchmark
+    public int load() throws IOException
+    {
+        PDDocument doc = PDDocument.load(new ByteArrayInputStream(pdf));
+        try
+        {
+            int count = 0;
+            for (int i = 0; i < doc.getNumberOfPages(); i++)
+            {
+                count += doc.getPage(i).getCOSObject().size();
+            }
+            return count;
+        }
+        finally
+        {
+            doc.close();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.apache.pdfbox.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Saving of a new 10 page document with an embedded TrueType font, with the whole font and
+ * with a subset. The size of the saved document is printed at the end of the trial. Every
+ * invocation gets a freshly created document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SubsetBenchmark
+{
+    @Param({"false", "true"})
+    public boolean embedSubset;
+
+    private PDDocument doc;
+    private int size;
+
+    @Setup(Level.Invocation)
+    public void create() throws IOException
+    {
+        doc = Fixtures.createType0Document(10, embedSubset);
+    }
+
+    @TearDown(Level.Invocation)
+    public void close() throws IOException
+    {
+        doc.close();
+    }
+
+    @TearDown
+    public void printSize()
+    {
+        System.out.println("saved document: " + size + " bytes");
+    }
+
+    @Benchmark
+    public int save() throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        doc.save(out);
+        size = out.size();
+        return size;
+    }
+}
@@ -0,0 +1,55 @@
+package org.apache.pdfbox.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.util.PDFTextStripper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Text extraction of a loaded document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TextBenchmark
+{
+    @Param({"10", "100"})
+    public int pages;
+
+    private PDDocument doc;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        doc = PDDocument.load(new ByteArrayInputStream(Fixtures.createTextDocument(pages)));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        doc.close();
+    }
+
+    @Benchmark
+    public String getText() throws IOException
+    {
+        return new PDFTextStripper().getText(doc);
+    }
+}
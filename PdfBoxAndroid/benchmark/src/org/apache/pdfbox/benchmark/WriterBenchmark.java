@@ -0,0 +1,79 @@
+package org.apache.pdfbox.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.pdfwriter.COSWriter;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Saving of a loaded document, with and without object streams. Writing changes the state of the document, so every
+ * invocation gets a freshly loaded one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class WriterBenchmark
+{
+    @Param({"10", "100"})
+    public int pages;
+
+    @Param({"false", "true"})
+    public boolean compress;
+
+    private byte[] pdf;
+    private PDDocument doc;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        pdf = Fixtures.createTextDocument(pages);
+    }
+
+    @Setup(Level.Invocation)
+    public void load() throws IOException
+    {
+        doc = PDDocument.load(new ByteArrayInputStream(pdf));
+    }
+
+    @TearDown(Level.Invocation)
+    public void close() throws IOException
+    {
+        doc.close();
+    }
+
+    @Benchmark
+    public int write() throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(pdf.length);
+        COSWriter writer = new COSWriter(out);
+        writer.setCompress(compress);
+        try
+        {
+            writer.write(doc);
+        }
+        finally
+        {
+            writer.close();
+        }
+        return out.size();
+    }
+}
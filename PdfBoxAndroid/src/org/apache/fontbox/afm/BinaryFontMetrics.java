@@ -0,0 +1,609 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.fontbox.afm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.fontbox.util.BoundingBox;
+
+/**
+ * A compact binary form of {@link FontMetrics}, which can be read much faster than an AFM
+ * file. The metrics of the characters are stored column by column in primitive arrays and
+ * every string is stored once in a string table. Reading a binary file gives a
+ * {@link FontMetrics} with exactly the same content as parsing the AFM file it was created
+ * from.
+ *
+ * The binary files of the Standard 14 fonts are created from their AFM files with
+ * {@link #main(String[])}, which must be run again when the AFM files change.
+ */
+public final class BinaryFontMetrics
+{
+    private static final int MAGIC = 0x41464D42; // "AFMB"
+    private static final int VERSION = 1;
+
+    // the index of a null string
+    private static final int NO_STRING = 0xFFFF;
+
+    // the flags of the rarely used character metrics
+    private static final int WY = 1;
+    private static final int W0X = 1 << 1;
+    private static final int W0Y = 1 << 2;
+    private static final int W1X = 1 << 3;
+    private static final int W1Y = 1 << 4;
+    private static final int W = 1 << 5;
+    private static final int W0 = 1 << 6;
+    private static final int W1 = 1 << 7;
+    private static final int VV = 1 << 8;
+    private static final int LIGATURES = 1 << 9;
+
+    private BinaryFontMetrics()
+    {
+    }
+
+    /**
+     * Creates the binary file of every given AFM file next to it, with the extension
+     * ".afmb" instead of ".afm".
+     *
+     * @param args The AFM files.
+     * @throws IOException If a file can't be read or written.
+     */
+    public static void main(String[] args) throws IOException
+    {
+        for (String arg : args)
+        {
+            File afmFile = new File(arg);
+            String name = afmFile.getName();
+            if (name.endsWith(".afm"))
+            {
+                name = name.substring(0, name.length() - 4);
+            }
+            File binaryFile = new File(afmFile.getParentFile(), name + ".afmb");
+            FontMetrics metrics;
+            InputStream in = new FileInputStream(afmFile);
+            try
+            {
+                metrics = new AFMParser(in).parse();
+            }
+            finally
+            {
+                in.close();
+            }
+            OutputStream out = new BufferedOutputStream(new FileOutputStream(binaryFile));
+            try
+            {
+                write(metrics, out);
+            }
+            finally
+            {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Writes font metrics in the binary form.
+     *
+     * @param metrics The font metrics.
+     * @param output The stream to write to, it isn't closed.
+     * @throws IOException If the stream can't be written.
+     */
+    public static void write(FontMetrics metrics, OutputStream output) throws IOException
+    {
+        StringTable strings = new StringTable();
+        List<CharMetric> chars = metrics.getCharMetrics();
+        int count = chars.size();
+
+        // collect all strings first, so the string table can be read before everything else
+        strings.add(metrics.getFontName());
+        strings.add(metrics.getFullName());
+        strings.add(metrics.getFamilyName());
+        strings.add(metrics.getWeight());
+        strings.add(metrics.getFontVersion());
+        strings.add(metrics.getNotice());
+        strings.add(metrics.getEncodingScheme());
+        strings.add(metrics.getCharacterSet());
+        for (String comment : metrics.getComments())
+        {
+            strings.add(comment);
+        }
+        for (CharMetric metric : chars)
+        {
+            strings.add(metric.getName());
+            for (Ligature ligature : metric.getLigatures())
+            {
+                strings.add(ligature.getSuccessor());
+                strings.add(ligature.getLigature());
+            }
+        }
+        for (List<KernPair> pairs : kernPairLists(metrics))
+        {
+            for (KernPair pair : pairs)
+            {
+                strings.add(pair.getFirstKernCharacter());
+                strings.add(pair.getSecondKernCharacter());
+            }
+        }
+        for (Composite composite : metrics.getComposites())
+        {
+            strings.add(composite.getName());
+            for (CompositePart part : composite.getParts())
+            {
+                strings.add(part.getName());
+            }
+        }
+
+        DataOutputStream out = new DataOutputStream(output);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(strings.list.size());
+        for (String string : strings.list)
+        {
+            out.writeUTF(string);
+        }
+
+        // header
+        out.writeFloat(metrics.getAFMVersion());
+        out.writeInt(metrics.getMetricSets());
+        strings.write(out, metrics.getFontName());
+        strings.write(out, metrics.getFullName());
+        strings.write(out, metrics.getFamilyName());
+        strings.write(out, metrics.getWeight());
+        writeBoundingBox(out, metrics.getFontBBox());
+        strings.write(out, metrics.getFontVersion());
+        strings.write(out, metrics.getNotice());
+        strings.write(out, metrics.getEncodingScheme());
+        out.writeInt(metrics.getMappingScheme());
+        out.writeInt(metrics.getEscChar());
+        strings.write(out, metrics.getCharacterSet());
+        out.writeInt(metrics.getCharacters());
+        out.writeBoolean(metrics.isBaseFont());
+        writeFloats(out, metrics.getVVector());
+        out.writeBoolean(metrics.isFixedV());
+        out.writeFloat(metrics.getCapHeight());
+        out.writeFloat(metrics.getXHeight());
+        out.writeFloat(metrics.getAscender());
+        out.writeFloat(metrics.getDescender());
+        out.writeInt(metrics.getComments().size());
+        for (String comment : metrics.getComments())
+        {
+            strings.write(out, comment);
+        }
+        out.writeFloat(metrics.getUnderlinePosition());
+        out.writeFloat(metrics.getUnderlineThickness());
+        out.writeFloat(metrics.getItalicAngle());
+        writeFloats(out, metrics.getCharWidth());
+        out.writeBoolean(metrics.isFixedPitch());
+        out.writeFloat(metrics.getStandardHorizontalWidth());
+        out.writeFloat(metrics.getStandardVerticalWidth());
+
+        // character metrics, column by column
+        out.writeInt(count);
+        for (CharMetric metric : chars)
+        {
+            out.writeInt(metric.getCharacterCode());
+        }
+        for (CharMetric metric : chars)
+        {
+            strings.write(out, metric.getName());
+        }
+        for (CharMetric metric : chars)
+        {
+            out.writeFloat(metric.getWx());
+        }
+        for (CharMetric metric : chars)
+        {
+            writeBoundingBox(out, metric.getBoundingBox());
+        }
+        for (CharMetric metric : chars)
+        {
+            // the rarely used metrics, only those which are set are written
+            int flags = 0;
+            flags |= isSet(metric.getWy()) ? WY : 0;
+            flags |= isSet(metric.getW0x()) ? W0X : 0;
+            flags |= isSet(metric.getW0y()) ? W0Y : 0;
+            flags |= isSet(metric.getW1x()) ? W1X : 0;
+            flags |= isSet(metric.getW1y()) ? W1Y : 0;
+            flags |= metric.getW() != null ? W : 0;
+            flags |= metric.getW0() != null ? W0 : 0;
+            flags |= metric.getW1() != null ? W1 : 0;
+            flags |= metric.getVv() != null ? VV : 0;
+            flags |= !metric.getLigatures().isEmpty() ? LIGATURES : 0;
+            out.writeShort(flags);
+            writeFloat(out, flags, WY, metric.getWy());
+            writeFloat(out, flags, W0X, metric.getW0x());
+            writeFloat(out, flags, W0Y, metric.getW0y());
+            writeFloat(out, flags, W1X, metric.getW1x());
+            writeFloat(out, flags, W1Y, metric.getW1y());
+            writeFloats(out, flags, W, metric.getW());
+            writeFloats(out, flags, W0, metric.getW0());
+            writeFloats(out, flags, W1, metric.getW1());
+            writeFloats(out, flags, VV, metric.getVv());
+            if ((flags & LIGATURES) != 0)
+            {
+                out.writeShort(metric.getLigatures().size());
+                for (Ligature ligature : metric.getLigatures())
+                {
+                    strings.write(out, ligature.getSuccessor());
+                    strings.write(out, ligature.getLigature());
+                }
+            }
+        }
+
+        // kerning
+        out.writeInt(metrics.getTrackKern().size());
+        for (TrackKern kern : metrics.getTrackKern())
+        {
+            out.writeInt(kern.getDegree());
+            out.writeFloat(kern.getMinPointSize());
+            out.writeFloat(kern.getMinKern());
+            out.writeFloat(kern.getMaxPointSize());
+            out.writeFloat(kern.getMaxKern());
+        }
+        for (List<KernPair> pairs : kernPairLists(metrics))
+        {
+            out.writeInt(pairs.size());
+            for (KernPair pair : pairs)
+            {
+                strings.write(out, pair.getFirstKernCharacter());
+            }
+            for (KernPair pair : pairs)
+            {
+                strings.write(out, pair.getSecondKernCharacter());
+            }
+            for (KernPair pair : pairs)
+            {
+                out.writeFloat(pair.getX());
+            }
+            // the y of kern pairs is usually 0
+            boolean hasY = false;
+            for (KernPair pair : pairs)
+            {
+                hasY |= isSet(pair.getY());
+            }
+            out.writeBoolean(hasY);
+            for (int i = 0; hasY && i < pairs.size(); i++)
+            {
+                out.writeFloat(pairs.get(i).getY());
+            }
+        }
+
+        // composites
+        out.writeInt(metrics.getComposites().size());
+        for (Composite composite : metrics.getComposites())
+        {
+            strings.write(out, composite.getName());
+            out.writeShort(composite.getParts().size());
+            for (CompositePart part : composite.getParts())
+            {
+                strings.write(out, part.getName());
+                out.writeInt(part.getXDisplacement());
+                out.writeInt(part.getYDisplacement());
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads font metrics in the binary form.
+     *
+     * @param input The stream to read from, it isn't closed.
+     * @return The font metrics.
+     * @throws IOException If the stream can't be read or isn't in the binary form.
+     */
+    public static FontMetrics read(InputStream input) throws IOException
+    {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(input));
+        if (in.readInt() != MAGIC)
+        {
+            throw new IOException("Error: not a binary font metrics file");
+        }
+        int version = in.readInt();
+        if (version != VERSION)
+        {
+            throw new IOException("Error: unsupported binary font metrics version " + version);
+        }
+        String[] strings = new String[in.readInt()];
+        for (int i = 0; i < strings.length; i++)
+        {
+            strings[i] = in.readUTF();
+        }
+
+        FontMetrics metrics = new FontMetrics();
+        metrics.setAFMVersion(in.readFloat());
+        metrics.setMetricSets(in.readInt());
+        metrics.setFontName(readString(in, strings));
+        metrics.setFullName(readString(in, strings));
+        metrics.setFamilyName(readString(in, strings));
+        metrics.setWeight(readString(in, strings));
+        metrics.setFontBBox(readBoundingBox(in));
+        metrics.setFontVersion(readString(in, strings));
+        metrics.setNotice(readString(in, strings));
+        metrics.setEncodingScheme(readString(in, strings));
+        metrics.setMappingScheme(in.readInt());
+        metrics.setEscChar(in.readInt());
+        metrics.setCharacterSet(readString(in, strings));
+        metrics.setCharacters(in.readInt());
+        metrics.setIsBaseFont(in.readBoolean());
+        metrics.setVVector(readFloats(in));
+        metrics.setIsFixedV(in.readBoolean());
+        metrics.setCapHeight(in.readFloat());
+        metrics.setXHeight(in.readFloat());
+        metrics.setAscender(in.readFloat());
+        metrics.setDescender(in.readFloat());
+        int commentCount = in.readInt();
+        for (int i = 0; i < commentCount; i++)
+        {
+            metrics.addComment(readString(in, strings));
+        }
+        metrics.setUnderlinePosition(in.readFloat());
+        metrics.setUnderlineThickness(in.readFloat());
+        metrics.setItalicAngle(in.readFloat());
+        metrics.setCharWidth(readFloats(in));
+        metrics.setFixedPitch(in.readBoolean());
+        metrics.setStandardHorizontalWidth(in.readFloat());
+        metrics.setStandardVerticalWidth(in.readFloat());
+
+        int count = in.readInt();
+        int[] codes = new int[count];
+        for (int i = 0; i < count; i++)
+        {
+            codes[i] = in.readInt();
+        }
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++)
+        {
+            names[i] = readString(in, strings);
+        }
+        float[] wx = new float[count];
+        for (int i = 0; i < count; i++)
+        {
+            wx[i] = in.readFloat();
+        }
+        BoundingBox[] boxes = new BoundingBox[count];
+        for (int i = 0; i < count; i++)
+        {
+            boxes[i] = readBoundingBox(in);
+        }
+        for (int i = 0; i < count; i++)
+        {
+            CharMetric metric = new CharMetric();
+            metric.setCharacterCode(codes[i]);
+            metric.setName(names[i]);
+            metric.setWx(wx[i]);
+            metric.setBoundingBox(boxes[i]);
+            int flags = in.readShort();
+            metric.setWy(readFloat(in, flags, WY));
+            metric.setW0x(readFloat(in, flags, W0X));
+            metric.setW0y(readFloat(in, flags, W0Y));
+            metric.setW1x(readFloat(in, flags, W1X));
+            metric.setW1y(readFloat(in, flags, W1Y));
+            metric.setW(readFloats(in, flags, W));
+            metric.setW0(readFloats(in, flags, W0));
+            metric.setW1(readFloats(in, flags, W1));
+            metric.setVv(readFloats(in, flags, VV));
+            int ligatureCount = (flags & LIGATURES) != 0 ? in.readShort() : 0;
+            for (int j = 0; j < ligatureCount; j++)
+            {
+                Ligature ligature = new Ligature();
+                ligature.setSuccessor(readString(in, strings));
+                ligature.setLigature(readString(in, strings));
+                metric.addLigature(ligature);
+            }
+            metrics.addCharMetric(metric);
+        }
+
+        int trackKernCount = in.readInt();
+        for (int i = 0; i < trackKernCount; i++)
+        {
+            TrackKern kern = new TrackKern();
+            kern.setDegree(in.readInt());
+            kern.setMinPointSize(in.readFloat());
+            kern.setMinKern(in.readFloat());
+            kern.setMaxPointSize(in.readFloat());
+            kern.setMaxKern(in.readFloat());
+            metrics.addTrackKern(kern);
+        }
+        for (List<KernPair> pairs : kernPairLists(metrics))
+        {
+            int pairCount = in.readInt();
+            KernPair[] read = new KernPair[pairCount];
+            for (int i = 0; i < pairCount; i++)
+            {
+                read[i] = new KernPair();
+                read[i].setFirstKernCharacter(readString(in, strings));
+            }
+            for (int i = 0; i < pairCount; i++)
+            {
+                read[i].setSecondKernCharacter(readString(in, strings));
+            }
+            for (int i = 0; i < pairCount; i++)
+            {
+                read[i].setX(in.readFloat());
+            }
+            boolean hasY = in.readBoolean();
+            for (int i = 0; i < pairCount; i++)
+            {
+                if (hasY)
+                {
+                    read[i].setY(in.readFloat());
+                }
+                pairs.add(read[i]);
+            }
+        }
+
+        int compositeCount = in.readInt();
+        for (int i = 0; i < compositeCount; i++)
+        {
+            Composite composite = new Composite();
+            composite.setName(readString(in, strings));
+            int partCount = in.readShort();
+            for (int j = 0; j < partCount; j++)
+            {
+                CompositePart part = new CompositePart();
+                part.setName(readString(in, strings));
+                part.setXDisplacement(in.readInt());
+                part.setYDisplacement(in.readInt());
+                composite.addPart(part);
+            }
+            metrics.addComposite(composite);
+        }
+        return metrics;
+    }
+
+    /**
+     * The three kern pair lists, in the order they are stored.
+     */
+    private static List<List<KernPair>> kernPairLists(FontMetrics metrics)
+    {
+        List<List<KernPair>> lists = new ArrayList<List<KernPair>>(3);
+        lists.add(metrics.getKernPairs());
+        lists.add(metrics.getKernPairs0());
+        lists.add(metrics.getKernPairs1());
+        return lists;
+    }
+
+    private static void writeBoundingBox(DataOutputStream out, BoundingBox box) throws IOException
+    {
+        out.writeBoolean(box != null);
+        if (box != null)
+        {
+            out.writeFloat(box.getLowerLeftX());
+            out.writeFloat(box.getLowerLeftY());
+            out.writeFloat(box.getUpperRightX());
+            out.writeFloat(box.getUpperRightY());
+        }
+    }
+
+    private static BoundingBox readBoundingBox(DataInputStream in) throws IOException
+    {
+        if (!in.readBoolean())
+        {
+            return null;
+        }
+        return new BoundingBox(in.readFloat(), in.readFloat(), in.readFloat(), in.readFloat());
+    }
+
+    private static void writeFloats(DataOutputStream out, float[] values) throws IOException
+    {
+        out.writeInt(values == null ? -1 : values.length);
+        if (values != null)
+        {
+            for (float value : values)
+            {
+                out.writeFloat(value);
+            }
+        }
+    }
+
+    private static float[] readFloats(DataInputStream in) throws IOException
+    {
+        int length = in.readInt();
+        if (length < 0)
+        {
+            return null;
+        }
+        float[] values = new float[length];
+        for (int i = 0; i < length; i++)
+        {
+            values[i] = in.readFloat();
+        }
+        return values;
+    }
+
+    /**
+     * Tells whether a value differs from the default 0, which isn't written.
+     */
+    private static boolean isSet(float value)
+    {
+        // -0 is kept as it is
+        return Float.floatToIntBits(value) != 0;
+    }
+
+    private static void writeFloat(DataOutputStream out, int flags, int flag, float value)
+            throws IOException
+    {
+        if ((flags & flag) != 0)
+        {
+            out.writeFloat(value);
+        }
+    }
+
+    private static float readFloat(DataInputStream in, int flags, int flag) throws IOException
+    {
+        return (flags & flag) != 0 ? in.readFloat() : 0;
+    }
+
+    private static void writeFloats(DataOutputStream out, int flags, int flag, float[] values)
+            throws IOException
+    {
+        if ((flags & flag) != 0)
+        {
+            writeFloats(out, values);
+        }
+    }
+
+    private static float[] readFloats(DataInputStream in, int flags, int flag) throws IOException
+    {
+        return (flags & flag) != 0 ? readFloats(in) : null;
+    }
+
+    private static String readString(DataInputStream in, String[] strings) throws IOException
+    {
+        int index = in.readUnsignedShort();
+        return index == NO_STRING ? null : strings[index];
+    }
+
+    /**
+     * The strings of a file, every string is written once and referenced by its index.
+     */
+    private static final class StringTable
+    {
+        private final List<String> list = new ArrayList<String>();
+        private final Map<String, Integer> indexes = new HashMap<String, Integer>();
+
+        private void add(String string) throws IOException
+        {
+            if (string != null && !indexes.containsKey(string))
+            {
+                if (list.size() == NO_STRING)
+                {
+                    throw new IOException("Error: too many strings for binary font metrics");
+                }
+                indexes.put(string, list.size());
+                list.add(string);
+            }
+        }
+
+        private void write(DataOutputStream out, String string) throws IOException
+        {
+            out.writeShort(string == null ? NO_STRING : indexes.get(string));
+        }
+    }
+}
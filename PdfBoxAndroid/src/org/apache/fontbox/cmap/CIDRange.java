@@ -34,6 +34,33 @@ class CIDRange {
         this.cid = cid;
     }
 
+    /**
+     * Returns the first character of this range.
+     *
+     * @return first character
+     */
+    public char getFrom() {
+        return from;
+    }
+
+    /**
+     * Returns the last character of this range.
+     *
+     * @return last character
+     */
+    public char getTo() {
+        return to;
+    }
+
+    /**
+     * Returns the CID of the first character of this range.
+     *
+     * @return CID of the first character
+     */
+    public int getCid() {
+        return cid;
+    }
+
     /**
      * Maps the given Unicode character to the corresponding CID in this range.
      *
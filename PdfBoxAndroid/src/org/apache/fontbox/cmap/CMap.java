@@ -19,10 +19,11 @@ package org.apache.fontbox.cmap;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
+
+import org.apache.fontbox.util.IntIntMap;
 
 /**
  * This class represents a CMap file.
@@ -43,13 +44,17 @@ public class CMap
     // code lengths
     private final List<CodespaceRange> codespaceRanges = new ArrayList<CodespaceRange>();
 
-    // Unicode mappings
-    private final Map<Integer,String> charToUnicode = new HashMap<Integer,String>();
+    // Unicode mappings, the values are indices into the list of Unicode strings
+    private final IntIntMap charToUnicode = new IntIntMap();
+    private final List<String> unicodes = new ArrayList<String>();
 
     // CID mappings
-    private final Map<Integer,Integer> codeToCid = new HashMap<Integer,Integer>();
+    private final IntIntMap codeToCid = new IntIntMap();
     private final List<CIDRange> codeToCidRanges = new LinkedList<CIDRange>();
 
+    // lookup table of the CID ranges, built on first use
+    private volatile CIDRangeTable cidRangeTable;
+
     private static final String SPACE = " ";
     private int spaceMapping = -1;
 
@@ -88,7 +93,8 @@ public class CMap
      */
     public String toUnicode(int code)
     {
-        return charToUnicode.get(code);
+        int index = charToUnicode.get(code, -1);
+        return index == -1 ? null : unicodes.get(index);
     }
 
     /**
@@ -104,17 +110,14 @@ public class CMap
         // save the position in the string
         in.mark(4);
 
-        // mapping algorithm
-        List<Byte> bytes = new ArrayList<Byte>(4);
+        // mapping algorithm, the bytes read so far are packed into the code
+        int code = 0;
         for (int i = 0; i < 4; i++)
         {
-            bytes.add((byte)in.read());
-            for (CodespaceRange range : codespaceRanges)
+            code = code << 8 | in.read() & 0xff;
+            if (isFullMatch(code, i + 1))
             {
-                if (range.isFullMatch(bytes))
-                {
-                    return toInt(bytes);
-                }
+                return code;
             }
         }
 
@@ -122,62 +125,135 @@ public class CMap
         in.reset();
 
         // modified mapping algorithm
-        bytes = new ArrayList<Byte>(4);
+        code = 0;
         for (int i = 0; i < 4; i++)
         {
-            bytes.add((byte)in.read());
-            CodespaceRange match = null;
-            CodespaceRange shortest = null;
-            for (CodespaceRange range : codespaceRanges)
-            {
-                if (range.isPartialMatch(bytes.get(i), i))
-                {
-                    if (match == null)
-                    {
-                        match = range;
-                    }
-                    else if (range.getStart().length < match.getStart().length)
-                    {
-                        // for multiple matches, choose the codespace with the shortest codes
-                        match = range;
-                    }
-                }
+            int b = in.read() & 0xff;
+            code = code << 8 | b;
 
-                // find shortest range
-                if (shortest == null || range.getStart().length < shortest.getStart().length)
-                {
-                    shortest = range;
-                }
+            // we're done when we have enough bytes for the matched range
+            if (getMatchedCodeLength(b, i) == i + 1)
+            {
+                return code;
             }
+        }
+
+        throw new IOException("CMap is invalid");
+    }
+
+    /**
+     * Reads a character code from a string in the content stream, like
+     * {@link #readCode(InputStream)} but without a stream. Bytes past the end of the string are
+     * read as 0xFF, like the end of a stream.
+     *
+     * @param string the bytes of the string
+     * @param offset the offset of the character code in the string
+     * @return character code
+     * @throws IOException if the CMap is invalid
+     */
+    public int readCode(byte[] string, int offset) throws IOException
+    {
+        int length = readCodeLength(string, offset);
+        int code = 0;
+        for (int i = 0; i < length; i++)
+        {
+            code = code << 8 | getByte(string, offset + i);
+        }
+        return code;
+    }
 
-            // if there are no matches, the range with the shortest codes is chosen
-            if (match == null)
+    /**
+     * Returns the number of bytes of the character code at the given offset of a string, which
+     * is the number of bytes {@link #readCode(InputStream)} would read.
+     *
+     * @param string the bytes of the string
+     * @param offset the offset of the character code in the string
+     * @return the length of the character code, 1 to 4
+     * @throws IOException if the CMap is invalid
+     */
+    public int readCodeLength(byte[] string, int offset) throws IOException
+    {
+        // mapping algorithm
+        int code = 0;
+        for (int i = 0; i < 4; i++)
+        {
+            code = code << 8 | getByte(string, offset + i);
+            if (isFullMatch(code, i + 1))
             {
-                match = shortest;
+                return i + 1;
             }
+        }
 
-            // we're done when we have enough bytes for the matched range
-            if (match.getStart().length == bytes.size())
+        // modified mapping algorithm
+        for (int i = 0; i < 4; i++)
+        {
+            if (getMatchedCodeLength(getByte(string, offset + i), i) == i + 1)
             {
-                return toInt(bytes);
+                return i + 1;
             }
         }
 
         throw new IOException("CMap is invalid");
     }
 
+    private static int getByte(byte[] string, int index)
+    {
+        return index < string.length ? string[index] & 0xff : 0xff;
+    }
+
     /**
-     * Returns an int given a List<Byte>
+     * Returns true if the given code matches one of the codespace ranges.
      */
-    private int toInt(List<Byte> data)
+    private boolean isFullMatch(int code, int length)
     {
-        int code = 0;
-        for (byte b : data)
+        // indexed loop, an iterator would be allocated for every byte of the string
+        for (int i = 0, size = codespaceRanges.size(); i < size; i++)
         {
-            code <<= 8;
-            code |= (b + 256) % 256;
+            if (codespaceRanges.get(i).isFullMatch(code, length))
+            {
+                return true;
+            }
         }
-        return code;
+        return false;
+    }
+
+    /**
+     * Returns the code length of the codespace range matched by the given byte at the given index
+     * of a code, using the modified mapping algorithm.
+     */
+    private int getMatchedCodeLength(int b, int index)
+    {
+        CodespaceRange match = null;
+        CodespaceRange shortest = null;
+        for (int i = 0, size = codespaceRanges.size(); i < size; i++)
+        {
+            CodespaceRange range = codespaceRanges.get(i);
+            if (range.isPartialMatch((byte) b, index))
+            {
+                if (match == null)
+                {
+                    match = range;
+                }
+                else if (range.getStart().length < match.getStart().length)
+                {
+                    // for multiple matches, choose the codespace with the shortest codes
+                    match = range;
+                }
+            }
+
+            // find shortest range
+            if (shortest == null || range.getStart().length < shortest.getStart().length)
+            {
+                shortest = range;
+            }
+        }
+
+        // if there are no matches, the range with the shortest codes is chosen
+        if (match == null)
+        {
+            match = shortest;
+        }
+        return match == null ? 0 : match.getStart().length;
     }
 
     /**
@@ -190,19 +266,21 @@ public class CMap
     {
         if (codeToCid.containsKey(code))
         {
-            return codeToCid.get(code);
+            return codeToCid.get(code, 0);
+        }
+        else if (codeToCidRanges.isEmpty())
+        {
+            return 0;
         }
         else
         {
-            for (CIDRange range : codeToCidRanges)
+            CIDRangeTable table = cidRangeTable;
+            if (table == null)
             {
-                int ch = range.map((char)code);
-                if (ch != -1)
-                {
-                    return ch;
-                }
+                table = new CIDRangeTable(codeToCidRanges);
+                cidRangeTable = table;
             }
-            return 0;
+            return table.map((char)code);
         }
     }
     
@@ -233,7 +311,7 @@ public class CMap
     void addCharMapping(byte[] codes, String unicode)
     {
         int code = getCodeFromArray(codes, 0, codes.length);
-        charToUnicode.put(code, unicode);
+        putUnicode(code, unicode);
 
         // fixme: ugly little hack
         if (SPACE.equals(unicode))
@@ -242,6 +320,20 @@ public class CMap
         }
     }
 
+    private void putUnicode(int code, String unicode)
+    {
+        int index = charToUnicode.get(code, -1);
+        if (index == -1)
+        {
+            charToUnicode.put(code, unicodes.size());
+            unicodes.add(unicode);
+        }
+        else
+        {
+            unicodes.set(index, unicode);
+        }
+    }
+
     /**
      * This will add a CID mapping.
      *
@@ -264,6 +356,7 @@ public class CMap
     void addCIDRange(char from, char to, int cid)
     {
         codeToCidRanges.add(0, new CIDRange(from, to, cid));
+        cidRangeTable = null;
     }
 
     /**
@@ -285,9 +378,13 @@ public class CMap
     void useCmap( CMap cmap )
     {
         this.codespaceRanges.addAll(cmap.codespaceRanges);
-        this.charToUnicode.putAll(cmap.charToUnicode);
+        for (int code : cmap.charToUnicode.keys())
+        {
+            putUnicode(code, cmap.toUnicode(code));
+        }
         this.codeToCid.putAll(cmap.codeToCid);
         this.codeToCidRanges.addAll(cmap.codeToCidRanges);
+        cidRangeTable = null;
     }
     
     /**
@@ -447,4 +544,96 @@ public class CMap
     {
         return cmapName;
     }
+
+    /**
+     * The CID ranges in arrays. Ranges which don't overlap are sorted by their first character
+     * and searched with a binary search, otherwise they are searched in the order of the list,
+     * where the first match wins.
+     */
+    private static final class CIDRangeTable
+    {
+        private final int[] from;
+        private final int[] to;
+        private final int[] cid;
+        private final boolean sorted;
+
+        private CIDRangeTable(List<CIDRange> ranges)
+        {
+            // ranges which end before they start never match
+            List<CIDRange> valid = new ArrayList<CIDRange>(ranges.size());
+            for (CIDRange range : ranges)
+            {
+                if (range.getFrom() <= range.getTo())
+                {
+                    valid.add(range);
+                }
+            }
+            int count = valid.size();
+
+            // sort by the first character, the index of the range in the low bits
+            long[] order = new long[count];
+            for (int i = 0; i < count; i++)
+            {
+                order[i] = (long) valid.get(i).getFrom() << 32 | i;
+            }
+            Arrays.sort(order);
+            boolean overlap = false;
+            int last = -1;
+            for (int i = 0; i < count && !overlap; i++)
+            {
+                CIDRange range = valid.get((int) order[i]);
+                overlap = range.getFrom() <= last;
+                last = range.getTo();
+            }
+
+            from = new int[count];
+            to = new int[count];
+            cid = new int[count];
+            for (int i = 0; i < count; i++)
+            {
+                CIDRange range = valid.get(overlap ? i : (int) order[i]);
+                from[i] = range.getFrom();
+                to[i] = range.getTo();
+                cid[i] = range.getCid();
+            }
+            sorted = !overlap;
+        }
+
+        private int map(char ch)
+        {
+            if (sorted)
+            {
+                // find the last range which starts at or before the character
+                int low = 0;
+                int high = from.length - 1;
+                while (low <= high)
+                {
+                    int mid = (low + high) >>> 1;
+                    if (from[mid] <= ch)
+                    {
+                        low = mid + 1;
+                    }
+                    else
+                    {
+                        high = mid - 1;
+                    }
+                }
+                if (high >= 0 && ch <= to[high])
+                {
+                    return cid[high] + (ch - from[high]);
+                }
+            }
+            else
+            {
+                for (int i = 0; i < from.length; i++)
+                {
+                    if (from[i] <= ch && ch <= to[i])
+                    {
+                        return cid[i] + (ch - from[i]);
+                    }
+                }
+            }
+            return 0;
+        }
+    }
 }
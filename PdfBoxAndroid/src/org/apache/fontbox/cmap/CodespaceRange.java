@@ -121,6 +121,35 @@ public class CodespaceRange
         return false;
     }
 
+    /**
+     * Returns true if the given code matches this codespace range. This is the same as
+     * {@link #isFullMatch(List)} for the code bytes packed into an int, most significant first.
+     *
+     * @param code the code bytes
+     * @param length the number of code bytes, at most 4
+     */
+    public boolean isFullMatch(int code, int length)
+    {
+        // code must be the same length as the bounding codes
+        if (length >= start.length && length <= end.length)
+        {
+            // each of it bytes must lie between the corresponding bytes of the upper & lower bounds
+            for (int i = 0; i < length; i++)
+            {
+                int startNum = start[i] & 0xff;
+                int endNum = end[i] & 0xff;
+                int codeNum = (code >>> (8 * (length - 1 - i))) & 0xff;
+
+                if (codeNum > endNum || codeNum < startNum)
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Returns true if the given byte matches the byte at the given index of this codespace range.
      */
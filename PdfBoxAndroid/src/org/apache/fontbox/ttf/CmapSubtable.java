@@ -25,6 +25,7 @@ import java.util.Map.Entry;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.fontbox.util.IntIntMap;
 
 /**
  * A "cmap" subtable.
@@ -42,7 +43,7 @@ public class CmapSubtable
 	private int platformEncodingId;
 	private long subTableOffset;
 	private int[] glyphIdToCharacterCode;
-	private Map<Integer, Integer> characterCodeToGlyphId = new HashMap<Integer, Integer>();
+	private IntIntMap characterCodeToGlyphId = new IntIntMap();
 
 	/**
 	 * This will read the required data from the stream.
@@ -539,8 +540,7 @@ public class CmapSubtable
 	 */
 	public int getGlyphId(int characterCode)
 	{
-		Integer glyphId = characterCodeToGlyphId.get(characterCode);
-		return glyphId == null ? 0 : glyphId;
+		return characterCodeToGlyphId.get(characterCode, 0);
 	}
 
 	/**
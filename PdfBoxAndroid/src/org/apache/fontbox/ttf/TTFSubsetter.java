@@ -67,27 +67,41 @@ public class TTFSubsetter
 	 * 
 	 */
 	public TTFSubsetter(TrueTypeFont baseFont, String suffix) throws IOException
+	{
+		this(baseFont, suffix, getUnicodeCmap(baseFont));
+	}
+
+	/**
+	 * Constructs a subfont based on the given font using the given suffix, the glyphs of the
+	 * added characters are found with the given cmap.
+	 * 
+	 * @param baseFont the base font of the subfont
+	 * @param suffix suffix used for the naming
+	 * @param cmap the Unicode cmap of the base font
+	 * 
+	 */
+	public TTFSubsetter(TrueTypeFont baseFont, String suffix, CmapSubtable cmap)
 	{
 		baseTTF = baseFont;
 		nameSuffix = suffix;
 		characters = new TreeMap<Integer, Integer>();
 		glyphIds = new TreeSet<Integer>();
+		baseCmap = cmap;
+		// add notdef character.
+		addCharCode(0);
+	}
 
-		CmapSubtable[] cmaps = this.baseTTF.getCmap().getCmaps();
-		CmapSubtable unicodeCmap = null;
-
-		for (CmapSubtable cmap : cmaps)
+	private static CmapSubtable getUnicodeCmap(TrueTypeFont baseFont) throws IOException
+	{
+		for (CmapSubtable cmap : baseFont.getCmap().getCmaps())
 		{
 			// take first unicode map.
 			if (cmap.getPlatformId() == 0 || (cmap.getPlatformId() == 3 && cmap.getPlatformEncodingId() == 1)) 
 			{
-				unicodeCmap = cmap;
-				break;
+				return cmap;
 			}
 		}
-		baseCmap = unicodeCmap;
-		// add notdef character.
-		addCharCode(0);
+		return null;
 	}
 
 	/**
@@ -101,11 +115,36 @@ public class TTFSubsetter
 		Integer gid = baseCmap.getGlyphId(charCode);
 		if (charCode == 0 || gid != 0) 
 		{
-			characters.put(charCode,gid);
+			// the 'cmap' of the subfont only maps the BMP, the glyph is kept anyway
+			if (charCode <= 0xFFFF)
+			{
+				characters.put(charCode,gid);
+			}
 			glyphIds.add(gid);
 		}
 	}
 
+	/**
+	 * Returns the glyph IDs of the base font by the glyph IDs of the subfont. This includes
+	 * the glyphs which are referenced by compound glyphs.
+	 * 
+	 * @return the map of new glyph IDs to old glyph IDs
+	 * @throws IOException if the glyphs can't be read
+	 */
+	public Map<Integer, Integer> getGIDMap() throws IOException
+	{
+		while (!addCompoundReferences()) 
+		{
+		}
+		Map<Integer, Integer> newToOld = new HashMap<Integer, Integer>();
+		int newGid = 0;
+		for (Integer oldGid : glyphIds)
+		{
+			newToOld.put(newGid++, oldGid);
+		}
+		return newToOld;
+	}
+
 	private static int log2i(int i) 
 	{
 		int ret = -1;
@@ -518,12 +557,13 @@ public class TTFSubsetter
 
 		dos.write(os2.getAchVendId().getBytes("ISO-8859-1"));
 
-		Iterator<Entry<Integer, Integer>> it = characters.entrySet().iterator();
+		// the first character after notdef, if there is one
+		Iterator<Integer> it = characters.keySet().iterator();
 		it.next();
-		Entry<Integer, Integer> first = it.next();
+		int firstChar = it.hasNext() ? it.next() : 0;
 
 		writeUint16(dos,os2.getFsSelection());
-		writeUint16(dos,first.getKey());
+		writeUint16(dos,firstChar);
 		writeUint16(dos,characters.lastKey());
 		/*
 		 * The mysterious Microsoft additions.
@@ -816,49 +856,53 @@ public class TTFSubsetter
 		// mapping of type 4.
 		Iterator<Entry<Integer, Integer>> it = this.characters.entrySet().iterator();
 		it.next();
-		Entry<Integer, Integer> lastChar = it.next();
-		Entry<Integer, Integer> prevChar = lastChar;
-		int lastGid = this.getNewGlyphId(lastChar.getValue());
 
 		int[] startCode = new int[this.characters.size()];
 		int[] endCode = new int[this.characters.size()];
 		int[] idDelta = new int[this.characters.size()];
 		int nseg = 0;
-		while(it.hasNext()) 
+		// there is only the notdef segment if no character of the BMP was added
+		if (it.hasNext())
 		{
-			Entry<Integer, Integer> curChar = it.next();
-			int curGid = this.getNewGlyphId(curChar.getValue());
-
-			if (curChar.getKey() != prevChar.getKey()+1 ||
-					curGid - lastGid != curChar.getKey() - lastChar.getKey()) 
+			Entry<Integer, Integer> lastChar = it.next();
+			Entry<Integer, Integer> prevChar = lastChar;
+			int lastGid = this.getNewGlyphId(lastChar.getValue());
+			while(it.hasNext()) 
 			{
-				// Don't emit ranges, which map to the undef glyph, the
-				// undef glyph is emitted a the very last segment.
-				if (lastGid != 0) 
-				{
-					startCode[nseg] = lastChar.getKey();
-					endCode[nseg] = prevChar.getKey();
-					idDelta[nseg] = lastGid - lastChar.getKey();
-					++nseg;
-				}
-				// shorten ranges which start with undef by one.
-				else if (!lastChar.getKey().equals(prevChar.getKey())) 
+				Entry<Integer, Integer> curChar = it.next();
+				int curGid = this.getNewGlyphId(curChar.getValue());
+
+				if (curChar.getKey() != prevChar.getKey()+1 ||
+						curGid - lastGid != curChar.getKey() - lastChar.getKey()) 
 				{
-					startCode[nseg] = lastChar.getKey()+1;
-					endCode[nseg] = prevChar.getKey();
-					idDelta[nseg] = lastGid - lastChar.getKey();
-					++nseg;
+					// Don't emit ranges, which map to the undef glyph, the
+					// undef glyph is emitted a the very last segment.
+					if (lastGid != 0) 
+					{
+						startCode[nseg] = lastChar.getKey();
+						endCode[nseg] = prevChar.getKey();
+						idDelta[nseg] = lastGid - lastChar.getKey();
+						++nseg;
+					}
+					// shorten ranges which start with undef by one.
+					else if (!lastChar.getKey().equals(prevChar.getKey())) 
+					{
+						startCode[nseg] = lastChar.getKey()+1;
+						endCode[nseg] = prevChar.getKey();
+						idDelta[nseg] = lastGid - lastChar.getKey();
+						++nseg;
+					}
+					lastGid = curGid;
+					lastChar = curChar;
 				}
-				lastGid = curGid;
-				lastChar = curChar;
+				prevChar = curChar;
 			}
-			prevChar = curChar;
+			// trailing segment
+			startCode[nseg] = lastChar.getKey();
+			endCode[nseg] = prevChar.getKey();
+			idDelta[nseg] = lastGid -lastChar.getKey();
+			++nseg;
 		}
-		// trailing segment
-		startCode[nseg] = lastChar.getKey();
-		endCode[nseg] = prevChar.getKey();
-		idDelta[nseg] = lastGid -lastChar.getKey();
-		++nseg;
 		// notdef character.
 		startCode[nseg] = 0xffff;
 		endCode[nseg] = 0xffff;
@@ -941,7 +985,8 @@ public class TTFSubsetter
             This is not an offset.
             Pascal string    names[numberNewGlyphs]  glyph names with length bytes [variable] (a Pascal string)
 		 */
-		writeFixed(dos,2.0);
+		// format 3.0 has no glyph names
+		writeFixed(dos,glyphNames != null ? 2.0 : 3.0);
 		writeFixed(dos,p.getItalicAngle());
 		writeSint16(dos,p.getUnderlinePosition());
 		writeSint16(dos,p.getUnderlineThickness());
@@ -950,13 +995,13 @@ public class TTFSubsetter
 		writeUint32(dos,p.getMaxMemType42());
 		writeUint32(dos,p.getMimMemType1());
 		writeUint32(dos,p.getMaxMemType1());
-		writeUint16(dos,baseTTF.getHorizontalHeader().getNumberOfHMetrics());
 
 		List<String> additionalNames = new ArrayList<String>();
 		Map<String,Integer> additionalNamesIndices = new HashMap<String,Integer>();
 
 		if (glyphNames != null) 
 		{
+			writeUint16(dos,glyphIds.size());
 			for (Integer glyphId : this.glyphIds) 
 			{
 				String name = glyphNames[glyphId];
@@ -0,0 +1,273 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.fontbox.util;
+
+import java.util.Arrays;
+
+/**
+ * A map of int keys to int values which doesn't box its entries. Small non-negative keys, like
+ * the character codes of most fonts, are stored in an array indexed by the key as long as the
+ * array isn't much larger than the number of entries, all other keys in an open addressing hash
+ * table.
+ *
+ * The map isn't synchronized, but it may be read by several threads once it is filled.
+ */
+public class IntIntMap
+{
+    // keys below this limit may be stored in the array
+    private static final int MAX_DIRECT_LENGTH = 0x10000;
+    private static final int MIN_DIRECT_LENGTH = 256;
+    private static final int MIN_HASH_LENGTH = 16;
+
+    private int[] directValues = new int[0];
+    private boolean[] directUsed = new boolean[0];
+    private int directSize;
+
+    private int[] hashKeys;
+    private int[] hashValues;
+    private boolean[] hashUsed;
+    private int hashSize;
+
+    /**
+     * Returns the value of the given key.
+     *
+     * @param key the key
+     * @param defaultValue the value to return if there is no entry for the key
+     * @return the value of the key or the default value
+     */
+    public int get(int key, int defaultValue)
+    {
+        if (key >= 0 && key < directUsed.length)
+        {
+            return directUsed[key] ? directValues[key] : defaultValue;
+        }
+        if (hashSize > 0)
+        {
+            int slot = findSlot(hashKeys, hashUsed, key);
+            if (hashUsed[slot])
+            {
+                return hashValues[slot];
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Tells if there is an entry for the given key.
+     *
+     * @param key the key
+     * @return true if there is an entry for the key
+     */
+    public boolean containsKey(int key)
+    {
+        if (key >= 0 && key < directUsed.length)
+        {
+            return directUsed[key];
+        }
+        return hashSize > 0 && hashUsed[findSlot(hashKeys, hashUsed, key)];
+    }
+
+    /**
+     * Adds an entry, the value of an existing entry of the key is replaced.
+     *
+     * @param key the key
+     * @param value the value
+     */
+    public void put(int key, int value)
+    {
+        if (key >= directUsed.length && key < MAX_DIRECT_LENGTH && !containsKey(key))
+        {
+            growDirect(key);
+        }
+        if (key >= 0 && key < directUsed.length)
+        {
+            if (!directUsed[key])
+            {
+                directUsed[key] = true;
+                directSize++;
+            }
+            directValues[key] = value;
+        }
+        else
+        {
+            putHashed(key, value);
+        }
+    }
+
+    /**
+     * Adds all entries of the given map, existing entries of the same keys are replaced.
+     *
+     * @param map the map to copy the entries from
+     */
+    public void putAll(IntIntMap map)
+    {
+        for (int i = 0; i < map.directUsed.length; i++)
+        {
+            if (map.directUsed[i])
+            {
+                put(i, map.directValues[i]);
+            }
+        }
+        if (map.hashSize > 0)
+        {
+            for (int i = 0; i < map.hashUsed.length; i++)
+            {
+                if (map.hashUsed[i])
+                {
+                    put(map.hashKeys[i], map.hashValues[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the keys of all entries, in no particular order.
+     *
+     * @return a new array with the keys
+     */
+    public int[] keys()
+    {
+        int[] keys = new int[size()];
+        int count = 0;
+        for (int i = 0; i < directUsed.length; i++)
+        {
+            if (directUsed[i])
+            {
+                keys[count++] = i;
+            }
+        }
+        if (hashSize > 0)
+        {
+            for (int i = 0; i < hashUsed.length; i++)
+            {
+                if (hashUsed[i])
+                {
+                    keys[count++] = hashKeys[i];
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return the number of entries
+     */
+    public int size()
+    {
+        return directSize + hashSize;
+    }
+
+    /**
+     * Tells if the map has no entries.
+     *
+     * @return true if there are no entries
+     */
+    public boolean isEmpty()
+    {
+        return size() == 0;
+    }
+
+    /**
+     * Grows the array so that it holds the given key, unless it would get too sparse. Entries
+     * of the hash table which fit into the grown array are moved.
+     */
+    private void growDirect(int key)
+    {
+        int length = Math.max(MIN_DIRECT_LENGTH, Integer.highestOneBit(key) << 1);
+        if (length > Math.max(MIN_DIRECT_LENGTH, 4 * (size() + 1)))
+        {
+            return;
+        }
+        directValues = Arrays.copyOf(directValues, length);
+        directUsed = Arrays.copyOf(directUsed, length);
+        if (hashSize > 0)
+        {
+            int[] oldKeys = hashKeys;
+            int[] oldValues = hashValues;
+            boolean[] oldUsed = hashUsed;
+            hashKeys = null;
+            hashValues = null;
+            hashUsed = null;
+            hashSize = 0;
+            for (int i = 0; i < oldUsed.length; i++)
+            {
+                if (oldUsed[i])
+                {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+    }
+
+    private void putHashed(int key, int value)
+    {
+        if (hashUsed == null)
+        {
+            hashKeys = new int[MIN_HASH_LENGTH];
+            hashValues = new int[MIN_HASH_LENGTH];
+            hashUsed = new boolean[MIN_HASH_LENGTH];
+        }
+        int slot = findSlot(hashKeys, hashUsed, key);
+        if (hashUsed[slot])
+        {
+            hashValues[slot] = value;
+            return;
+        }
+        hashKeys[slot] = key;
+        hashValues[slot] = value;
+        hashUsed[slot] = true;
+        hashSize++;
+        // keep the table at most half full
+        if (hashSize * 2 > hashUsed.length)
+        {
+            int[] oldKeys = hashKeys;
+            int[] oldValues = hashValues;
+            boolean[] oldUsed = hashUsed;
+            int length = oldUsed.length * 2;
+            hashKeys = new int[length];
+            hashValues = new int[length];
+            hashUsed = new boolean[length];
+            for (int i = 0; i < oldUsed.length; i++)
+            {
+                if (oldUsed[i])
+                {
+                    int newSlot = findSlot(hashKeys, hashUsed, oldKeys[i]);
+                    hashKeys[newSlot] = oldKeys[i];
+                    hashValues[newSlot] = oldValues[i];
+                    hashUsed[newSlot] = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the slot of the given key, or the free slot where it would be added.
+     */
+    private static int findSlot(int[] keys, boolean[] used, int key)
+    {
+        int mask = used.length - 1;
+        int hash = key * 0x9E3779B1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (used[slot] && keys[slot] != key)
+        {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
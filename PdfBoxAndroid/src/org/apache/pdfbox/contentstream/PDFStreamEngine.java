@@ -19,9 +19,7 @@ package org.apache.pdfbox.contentstream;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
@@ -29,13 +27,13 @@ import java.util.Stack;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.pdfbox.contentstream.operator.MissingOperandException;
+import org.apache.pdfbox.contentstream.operator.OperandBuffer;
 import org.apache.pdfbox.contentstream.operator.Operator;
 import org.apache.pdfbox.contentstream.operator.OperatorProcessor;
 import org.apache.pdfbox.contentstream.operator.state.EmptyGraphicsStackException;
 import org.apache.pdfbox.cos.COSArray;
 import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.cos.COSNumber;
-import org.apache.pdfbox.cos.COSObject;
 import org.apache.pdfbox.cos.COSString;
 import org.apache.pdfbox.filter.MissingImageReaderException;
 import org.apache.pdfbox.pdfparser.PDFStreamParser;
@@ -454,27 +452,15 @@ public class PDFStreamEngine
 	 */
 	private void processStreamOperators(PDContentStream contentStream) throws IOException
 	{
-		List<COSBase> arguments = new ArrayList<COSBase>();
+		// the operands are reused for all operators of the stream
+		OperandBuffer arguments = new OperandBuffer();
 		PDFStreamParser parser = new PDFStreamParser(contentStream.getContentStream());
 		try
 		{
-			Iterator<Object> iter = parser.getTokenIterator();
-			while (iter.hasNext())
+			Operator operator;
+			while ((operator = parser.nextOperator(arguments)) != null)
 			{
-				Object token = iter.next();
-				if (token instanceof COSObject)
-				{
-					arguments.add(((COSObject) token).getObject());
-				}
-				else if (token instanceof Operator)
-				{
-					processOperator((Operator) token, arguments);
-					arguments = new ArrayList<COSBase>();
-				}
-				else
-				{
-					arguments.add((COSBase) token);
-				}
+				processOperator(operator, arguments);
 			}
 		}
 		finally
@@ -0,0 +1,273 @@
+package org.apache.pdfbox.contentstream.operator;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSFloat;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSNumber;
+
+/**
+ * The operands of a content stream operator. The buffer is reused for all operators of a
+ * stream, see {@link org.apache.pdfbox.pdfparser.PDFStreamParser#nextOperator(OperandBuffer)}.
+ * Numbers are kept as primitive values and can be read with {@link #getFloat(int)} and
+ * {@link #getDouble(int)} without creating a {@link COSNumber}; the COS object of a number is
+ * only created if it is requested with {@link #get(int)}.
+ *
+ * The content of the buffer is only valid until the next operator is read, so it must not
+ * be kept by the operator processors.
+ */
+public final class OperandBuffer extends AbstractList<COSBase>
+{
+    private static final byte OBJECT = 0;
+    private static final byte INTEGER = 1;
+    private static final byte REAL = 2;
+
+    // mantissas below this value and the powers of ten in the tables are exact in a float
+    private static final long MAX_EXACT_FLOAT = 1L << 24;
+    private static final float[] FLOAT_POW10 = new float[11];
+    private static final double[] DOUBLE_POW10 = new double[11];
+    static
+    {
+        FLOAT_POW10[0] = 1;
+        for (int i = 1; i < FLOAT_POW10.length; i++)
+        {
+            FLOAT_POW10[i] = FLOAT_POW10[i - 1] * 10;
+        }
+        DOUBLE_POW10[0] = 1;
+        for (int i = 1; i < DOUBLE_POW10.length; i++)
+        {
+            DOUBLE_POW10[i] = DOUBLE_POW10[i - 1] * 10;
+        }
+    }
+
+    private int size;
+    private byte[] kinds = new byte[8];
+    private long[] longs = new long[8];
+    private float[] floats = new float[8];
+    private double[] doubles = new double[8];
+    private COSBase[] objects = new COSBase[8];
+
+    // the text of the real numbers, needed to create their COSFloat
+    private int[] textOffsets = new int[8];
+    private int[] textLengths = new int[8];
+    private char[] text = new char[64];
+    private int textLength;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public COSBase get(int index)
+    {
+        checkIndex(index);
+        COSBase object = objects[index];
+        if (object == null && kinds[index] != OBJECT)
+        {
+            if (kinds[index] == INTEGER)
+            {
+                object = COSInteger.get(longs[index]);
+            }
+            else
+            {
+                try
+                {
+                    object = new COSFloat(new String(text, textOffsets[index], textLengths[index]));
+                }
+                catch (IOException e)
+                {
+                    // can't happen, the text was checked when it was added
+                    throw new IllegalStateException(e);
+                }
+            }
+            objects[index] = object;
+        }
+        return object;
+    }
+
+    /**
+     * Returns the value of a number operand as float, this is the same as
+     * <code>((COSNumber)get(index)).floatValue()</code>.
+     *
+     * @param index the index of the operand
+     * @return the value of the operand
+     * @throws ClassCastException if the operand isn't a number
+     */
+    public float getFloat(int index)
+    {
+        checkIndex(index);
+        switch (kinds[index])
+        {
+            case INTEGER:
+                return longs[index];
+            case REAL:
+                return floats[index];
+            default:
+                return ((COSNumber)objects[index]).floatValue();
+        }
+    }
+
+    /**
+     * Returns the value of a number operand as double, this is the same as
+     * <code>((COSNumber)get(index)).doubleValue()</code>.
+     *
+     * @param index the index of the operand
+     * @return the value of the operand
+     * @throws ClassCastException if the operand isn't a number
+     */
+    public double getDouble(int index)
+    {
+        checkIndex(index);
+        switch (kinds[index])
+        {
+            case INTEGER:
+                return longs[index];
+            case REAL:
+                return doubles[index];
+            default:
+                return ((COSNumber)objects[index]).doubleValue();
+        }
+    }
+
+    /**
+     * Adds an operand.
+     *
+     * @param object the operand, may be null
+     * @return always true
+     */
+    @Override
+    public boolean add(COSBase object)
+    {
+        int index = grow();
+        kinds[index] = OBJECT;
+        objects[index] = object;
+        return true;
+    }
+
+    /**
+     * Adds a number operand given by its text, see {@link COSNumber#get(String)}. The value is
+     * parsed without creating a COS object if possible.
+     *
+     * @param chars the characters of the number
+     * @param offset the offset of the number
+     * @param length the length of the number
+     * @throws IOException if the text isn't a number
+     */
+    public void addNumber(char[] chars, int offset, int length) throws IOException
+    {
+        int end = offset + length;
+        int pos = offset;
+        boolean negative = length > 0 && chars[pos] == '-';
+        if (negative)
+        {
+            pos++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; pos < end; pos++)
+        {
+            char c = chars[pos];
+            if (c >= '0' && c <= '9')
+            {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (scale >= 0)
+                {
+                    scale++;
+                }
+            }
+            else if (c == '.' && scale < 0)
+            {
+                scale = 0;
+            }
+            else
+            {
+                break;
+            }
+        }
+        if (pos < end || digits == 0 || digits > 18)
+        {
+            // signs other than '-', lonely signs and dots or huge numbers
+            add(COSNumber.get(new String(chars, offset, length)));
+        }
+        else if (scale < 0)
+        {
+            int index = grow();
+            kinds[index] = INTEGER;
+            longs[index] = negative ? -mantissa : mantissa;
+            objects[index] = null;
+        }
+        else if (mantissa < MAX_EXACT_FLOAT && scale < FLOAT_POW10.length)
+        {
+            // both the mantissa and the power of ten are exact, so the divisions are rounded
+            // like the parsing of the text is
+            int index = grow();
+            kinds[index] = REAL;
+            float floatValue = mantissa / FLOAT_POW10[scale];
+            double doubleValue = mantissa / DOUBLE_POW10[scale];
+            // a BigDecimal has no negative zero
+            floats[index] = negative && mantissa != 0 ? -floatValue : floatValue;
+            doubles[index] = negative && mantissa != 0 ? -doubleValue : doubleValue;
+            objects[index] = null;
+            if (textLength + length > text.length)
+            {
+                text = Arrays.copyOf(text, Math.max(text.length * 2, textLength + length));
+            }
+            System.arraycopy(chars, offset, text, textLength, length);
+            textOffsets[index] = textLength;
+            textLengths[index] = length;
+            textLength += length;
+        }
+        else
+        {
+            add(COSNumber.get(new String(chars, offset, length)));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear()
+    {
+        Arrays.fill(objects, 0, size, null);
+        size = 0;
+        textLength = 0;
+    }
+
+    private int grow()
+    {
+        if (size == kinds.length)
+        {
+            int capacity = size * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            longs = Arrays.copyOf(longs, capacity);
+            floats = Arrays.copyOf(floats, capacity);
+            doubles = Arrays.copyOf(doubles, capacity);
+            objects = Arrays.copyOf(objects, capacity);
+            textOffsets = Arrays.copyOf(textOffsets, capacity);
+            textLengths = Arrays.copyOf(textLengths, capacity);
+        }
+        return size++;
+    }
+
+    private void checkIndex(int index)
+    {
+        if (index < 0 || index >= size)
+        {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
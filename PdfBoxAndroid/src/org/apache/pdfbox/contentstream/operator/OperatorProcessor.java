@@ -1,6 +1,7 @@
 package org.apache.pdfbox.contentstream.operator;
 
 import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSNumber;
 import org.apache.pdfbox.contentstream.PDFStreamEngine;
 import java.util.List;
 import java.io.IOException;
@@ -48,6 +49,38 @@ public abstract class OperatorProcessor
      */
     public abstract void process(Operator operator, List<COSBase> operands) throws IOException;
 
+    /**
+     * Returns the value of a number operand as float. No COS object is created for the number
+     * if the operands are an {@link OperandBuffer}.
+     * @param operands the operands of the operator
+     * @param index the index of the operand
+     * @return the value of the operand
+     */
+    protected static float floatValue(List<COSBase> operands, int index)
+    {
+        if (operands instanceof OperandBuffer)
+        {
+            return ((OperandBuffer)operands).getFloat(index);
+        }
+        return ((COSNumber)operands.get(index)).floatValue();
+    }
+
+    /**
+     * Returns the value of a number operand as double. No COS object is created for the number
+     * if the operands are an {@link OperandBuffer}.
+     * @param operands the operands of the operator
+     * @param index the index of the operand
+     * @return the value of the operand
+     */
+    protected static double doubleValue(List<COSBase> operands, int index)
+    {
+        if (operands instanceof OperandBuffer)
+        {
+            return ((OperandBuffer)operands).getDouble(index);
+        }
+        return ((COSNumber)operands.get(index)).doubleValue();
+    }
+
     /**
      * Returns the name of this operator, e.g. "BI".
      */
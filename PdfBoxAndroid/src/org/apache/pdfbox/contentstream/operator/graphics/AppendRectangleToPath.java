@@ -5,7 +5,6 @@ import java.util.List;
 
 import org.apache.pdfbox.contentstream.operator.Operator;
 import org.apache.pdfbox.cos.COSBase;
-import org.apache.pdfbox.cos.COSNumber;
 
 import android.graphics.PointF;
 
@@ -19,17 +18,12 @@ public final class AppendRectangleToPath extends GraphicsOperatorProcessor
     @Override
     public void process(Operator operator, List<COSBase> operands) throws IOException
     {
-        COSNumber x = (COSNumber) operands.get(0);
-        COSNumber y = (COSNumber) operands.get(1);
-        COSNumber w = (COSNumber) operands.get(2);
-        COSNumber h = (COSNumber) operands.get(3);
-
-        double x1 = x.doubleValue();
-        double y1 = y.doubleValue();
+        double x1 = doubleValue(operands, 0);
+        double y1 = doubleValue(operands, 1);
 
         // create a pair of coordinates for the transformation
-        double x2 = w.doubleValue() + x1;
-        double y2 = h.doubleValue() + y1;
+        double x2 = doubleValue(operands, 2) + x1;
+        double y2 = doubleValue(operands, 3) + y1;
 
         PointF p0 = context.transformedPoint(x1, y1);
         PointF p1 = context.transformedPoint(x2, y1);
@@ -5,7 +5,6 @@ import java.util.List;
 
 import org.apache.pdfbox.contentstream.operator.Operator;
 import org.apache.pdfbox.cos.COSBase;
-import org.apache.pdfbox.cos.COSNumber;
 
 import android.graphics.PointF;
 
@@ -19,16 +18,9 @@ public class CurveTo extends GraphicsOperatorProcessor
     @Override
     public void process(Operator operator, List<COSBase> operands) throws IOException
     {
-        COSNumber x1 = (COSNumber)operands.get(0);
-        COSNumber y1 = (COSNumber)operands.get(1);
-        COSNumber x2 = (COSNumber)operands.get(2);
-        COSNumber y2 = (COSNumber)operands.get(3);
-        COSNumber x3 = (COSNumber)operands.get(4);
-        COSNumber y3 = (COSNumber)operands.get(5);
-
-        PointF point1 = context.transformedPoint(x1.doubleValue(), y1.doubleValue());
-        PointF point2 = context.transformedPoint(x2.doubleValue(), y2.doubleValue());
-        PointF point3 = context.transformedPoint(x3.doubleValue(), y3.doubleValue());
+        PointF point1 = context.transformedPoint(doubleValue(operands, 0), doubleValue(operands, 1));
+        PointF point2 = context.transformedPoint(doubleValue(operands, 2), doubleValue(operands, 3));
+        PointF point3 = context.transformedPoint(doubleValue(operands, 4), doubleValue(operands, 5));
 
         context.curveTo( point1.x, point1.y,
                          point2.x, point2.y,
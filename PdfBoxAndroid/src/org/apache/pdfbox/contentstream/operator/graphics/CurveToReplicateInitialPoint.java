@@ -5,7 +5,6 @@ import java.util.List;
 
 import org.apache.pdfbox.contentstream.operator.Operator;
 import org.apache.pdfbox.cos.COSBase;
-import org.apache.pdfbox.cos.COSNumber;
 
 import android.graphics.PointF;
 
@@ -19,15 +18,10 @@ public class CurveToReplicateInitialPoint extends GraphicsOperatorProcessor
     @Override
     public void process(Operator operator, List<COSBase> operands) throws IOException
     {
-        COSNumber x2 = (COSNumber)operands.get(0 );
-        COSNumber y2 = (COSNumber)operands.get(1);
-        COSNumber x3 = (COSNumber)operands.get(2);
-        COSNumber y3 = (COSNumber)operands.get(3);
-
         PointF currentPoint = context.getCurrentPoint();
 
-        PointF point2 = context.transformedPoint(x2.doubleValue(), y2.doubleValue());
-        PointF point3 = context.transformedPoint(x3.doubleValue(), y3.doubleValue());
+        PointF point2 = context.transformedPoint(doubleValue(operands, 0), doubleValue(operands, 1));
+        PointF point3 = context.transformedPoint(doubleValue(operands, 2), doubleValue(operands, 3));
 
         context.curveTo((float) currentPoint.x, (float) currentPoint.y,
                         (float) point2.x, (float) point2.y,
@@ -5,7 +5,6 @@ import java.util.List;
 
 import org.apache.pdfbox.contentstream.operator.Operator;
 import org.apache.pdfbox.cos.COSBase;
-import org.apache.pdfbox.cos.COSNumber;
 
 import android.graphics.PointF;
 
@@ -20,10 +19,7 @@ public class LineTo extends GraphicsOperatorProcessor
     public void process(Operator operator, List<COSBase> operands) throws IOException
     {
         // append straight line segment from the current point to the point
-        COSNumber x = (COSNumber)operands.get(0);
-        COSNumber y = (COSNumber)operands.get(1);
-
-        PointF pos = context.transformedPoint(x.doubleValue(), y.doubleValue());
+        PointF pos = context.transformedPoint(doubleValue(operands, 0), doubleValue(operands, 1));
         context.lineTo((float) pos.x, (float) pos.y);
     }
 
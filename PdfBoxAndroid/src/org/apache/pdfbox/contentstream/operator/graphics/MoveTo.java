@@ -5,7 +5,6 @@ import java.util.List;
 
 import org.apache.pdfbox.contentstream.operator.Operator;
 import org.apache.pdfbox.cos.COSBase;
-import org.apache.pdfbox.cos.COSNumber;
 
 import android.graphics.PointF;
 
@@ -19,9 +18,7 @@ public final class MoveTo extends GraphicsOperatorProcessor
     @Override
     public void process(Operator operator, List<COSBase> operands) throws IOException
     {
-        COSNumber x = (COSNumber)operands.get(0);
-        COSNumber y = (COSNumber)operands.get(1);
-        PointF pos = context.transformedPoint(x.doubleValue(), y.doubleValue());
+        PointF pos = context.transformedPoint(doubleValue(operands, 0), doubleValue(operands, 1));
         context.moveTo((float) pos.x, (float) pos.y);
     }
 
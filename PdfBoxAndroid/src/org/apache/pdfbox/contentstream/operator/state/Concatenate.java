@@ -6,7 +6,6 @@ import java.io.IOException;
 import org.apache.pdfbox.contentstream.operator.Operator;
 import org.apache.pdfbox.contentstream.operator.OperatorProcessor;
 import org.apache.pdfbox.cos.COSBase;
-import org.apache.pdfbox.cos.COSNumber;
 import org.apache.pdfbox.util.Matrix;
 
 /**
@@ -20,20 +19,13 @@ public class Concatenate extends OperatorProcessor
     public void process(Operator operator, List<COSBase> arguments) throws IOException
     {
         // concatenate matrix to current transformation matrix
-        COSNumber a = (COSNumber) arguments.get(0);
-        COSNumber b = (COSNumber) arguments.get(1);
-        COSNumber c = (COSNumber) arguments.get(2);
-        COSNumber d = (COSNumber) arguments.get(3);
-        COSNumber e = (COSNumber) arguments.get(4);
-        COSNumber f = (COSNumber) arguments.get(5);
-
         Matrix newMatrix = new Matrix();
-        newMatrix.setValue(0, 0, a.floatValue());
-        newMatrix.setValue(0, 1, b.floatValue());
-        newMatrix.setValue(1, 0, c.floatValue());
-        newMatrix.setValue(1, 1, d.floatValue());
-        newMatrix.setValue(2, 0, e.floatValue());
-        newMatrix.setValue(2, 1, f.floatValue());
+        newMatrix.setValue(0, 0, floatValue(arguments, 0));
+        newMatrix.setValue(0, 1, floatValue(arguments, 1));
+        newMatrix.setValue(1, 0, floatValue(arguments, 2));
+        newMatrix.setValue(1, 1, floatValue(arguments, 3));
+        newMatrix.setValue(2, 0, floatValue(arguments, 4));
+        newMatrix.setValue(2, 1, floatValue(arguments, 5));
 
         // this line has changed
         context.getGraphicsState().setCurrentTransformationMatrix(
@@ -7,7 +7,6 @@ import org.apache.pdfbox.contentstream.operator.MissingOperandException;
 import org.apache.pdfbox.contentstream.operator.Operator;
 import org.apache.pdfbox.contentstream.operator.OperatorProcessor;
 import org.apache.pdfbox.cos.COSBase;
-import org.apache.pdfbox.cos.COSNumber;
 
 /**
  * w: Set line width.
@@ -23,8 +22,7 @@ public class SetLineWidth extends OperatorProcessor
     	{
     		throw new MissingOperandException(operator, arguments);
     	}
-        COSNumber width = (COSNumber) arguments.get(0);
-        context.getGraphicsState().setLineWidth(width.floatValue());
+        context.getGraphicsState().setLineWidth(floatValue(arguments, 0));
     }
 
     @Override
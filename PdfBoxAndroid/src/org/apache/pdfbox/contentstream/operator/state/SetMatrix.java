@@ -5,7 +5,6 @@ import java.util.List;
 import org.apache.pdfbox.contentstream.operator.Operator;
 import org.apache.pdfbox.contentstream.operator.OperatorProcessor;
 import org.apache.pdfbox.cos.COSBase;
-import org.apache.pdfbox.cos.COSNumber;
 import org.apache.pdfbox.util.Matrix;
 
 /**
@@ -19,20 +18,13 @@ public class SetMatrix extends OperatorProcessor
     public void process(Operator operator, List<COSBase> arguments)
     {
         //Set text matrix and text line matrix
-        COSNumber a = (COSNumber)arguments.get( 0 );
-        COSNumber b = (COSNumber)arguments.get( 1 );
-        COSNumber c = (COSNumber)arguments.get( 2 );
-        COSNumber d = (COSNumber)arguments.get( 3 );
-        COSNumber e = (COSNumber)arguments.get( 4 );
-        COSNumber f = (COSNumber)arguments.get( 5 );
-
         Matrix textMatrix = new Matrix();
-        textMatrix.setValue( 0, 0, a.floatValue() );
-        textMatrix.setValue( 0, 1, b.floatValue() );
-        textMatrix.setValue( 1, 0, c.floatValue() );
-        textMatrix.setValue( 1, 1, d.floatValue() );
-        textMatrix.setValue( 2, 0, e.floatValue() );
-        textMatrix.setValue( 2, 1, f.floatValue() );
+        textMatrix.setValue( 0, 0, floatValue( arguments, 0 ) );
+        textMatrix.setValue( 0, 1, floatValue( arguments, 1 ) );
+        textMatrix.setValue( 1, 0, floatValue( arguments, 2 ) );
+        textMatrix.setValue( 1, 1, floatValue( arguments, 3 ) );
+        textMatrix.setValue( 2, 0, floatValue( arguments, 4 ) );
+        textMatrix.setValue( 2, 1, floatValue( arguments, 5 ) );
         context.setTextMatrix( textMatrix );
         context.setTextLineMatrix( textMatrix.clone() );
     }
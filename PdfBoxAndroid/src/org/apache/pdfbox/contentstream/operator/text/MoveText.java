@@ -5,7 +5,6 @@ import java.util.List;
 import org.apache.pdfbox.contentstream.operator.Operator;
 import org.apache.pdfbox.contentstream.operator.OperatorProcessor;
 import org.apache.pdfbox.cos.COSBase;
-import org.apache.pdfbox.cos.COSNumber;
 import org.apache.pdfbox.util.Matrix;
 
 /**
@@ -18,11 +17,9 @@ public class MoveText extends OperatorProcessor
     @Override
     public void process(Operator operator, List<COSBase> arguments)
     {
-        COSNumber x = (COSNumber)arguments.get( 0 );
-        COSNumber y = (COSNumber)arguments.get( 1 );
         Matrix td = new Matrix();
-        td.setValue( 2, 0, x.floatValue() );
-        td.setValue( 2, 1, y.floatValue() );
+        td.setValue( 2, 0, floatValue( arguments, 0 ) );
+        td.setValue( 2, 1, floatValue( arguments, 1 ) );
         context.setTextLineMatrix( td.multiply( context.getTextLineMatrix() ) );
         context.setTextMatrix( context.getTextLineMatrix().clone() );
     }
@@ -12,6 +12,8 @@ import java.util.Map;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.ScratchFile;
 import org.apache.pdfbox.pdfparser.NonSequentialPDFParser;
 import org.apache.pdfbox.pdfparser.PDFObjectStreamParser;
 import org.apache.pdfbox.pdmodel.interactive.digitalsignature.SignatureInterface;
@@ -73,9 +75,21 @@ public class COSDocument extends COSBase implements Closeable
 
 	private boolean isXRefStream;
 
-	private final File scratchDirectory;
+	/**
+	 * Provides the buffers of all streams of this document.
+	 */
+	private final ScratchFile scratchFile;
 
-	private final boolean useScratchFile;
+	/**
+	 * The source streams of this document may still be reading from, it is closed
+	 * together with this document.
+	 */
+	private Closeable streamSource;
+
+	/**
+	 * Signals that the document is read-only and may be shared between threads.
+	 */
+	private volatile boolean frozen = false;
 
 	/**
 	 * Constructor.
@@ -100,8 +114,20 @@ public class COSDocument extends COSBase implements Closeable
 	 */
 	public COSDocument(File scratchDir, boolean useScratchFiles) 
 	{
-		scratchDirectory = scratchDir;
-		useScratchFile = useScratchFiles;
+		this(useScratchFiles ? MemoryUsageSetting.setupTempFileOnly().setTempDir(scratchDir)
+				: MemoryUsageSetting.setupMainMemoryOnly());
+	}
+
+	/**
+	 * Constructor. All streams of this document share a single scratch file
+	 * configured with the given memory usage setting. A temporary file is only
+	 * created if the setting allows it and is removed when this document gets closed.
+	 *
+	 * @param memUsageSetting defines how memory and temporary files are used to buffer streams
+	 */
+	public COSDocument(MemoryUsageSetting memUsageSetting)
+	{
+		scratchFile = new ScratchFile(memUsageSetting);
 	}
 
 	/**
@@ -113,17 +139,17 @@ public class COSDocument extends COSBase implements Closeable
 	}
 
 	/**
-	 * Creates a new COSStream using the current configuration for scratch files.
+	 * Creates a new COSStream using the scratch file of this document.
 	 * 
 	 * @return the new COSStream
 	 */
 	public COSStream createCOSStream()
 	{
-		return new COSStream( useScratchFile, scratchDirectory);
+		return new COSStream( scratchFile );
 	}
 
 	/**
-	 * Creates a new COSStream using the current configuration for scratch files.
+	 * Creates a new COSStream using the scratch file of this document.
 	 *
 	 * @param dictionary the corresponding dictionary
 	 * 
@@ -131,7 +157,7 @@ public class COSDocument extends COSBase implements Closeable
 	 */
 	public COSStream createCOSStream(COSDictionary dictionary)
 	{
-		return new COSStream( dictionary, useScratchFile, scratchDirectory );
+		return new COSStream( dictionary, scratchFile );
 	}
 
 	/**
@@ -144,7 +170,7 @@ public class COSDocument extends COSBase implements Closeable
 	 */
 	public COSObject getObjectByType( COSName type ) throws IOException
 	{
-		for( COSObject object : objectPool.values() )
+		for( COSObject object : getObjects() )
 		{
 			COSBase realObject = object.getObject();
 			if( realObject instanceof COSDictionary )
@@ -199,7 +225,7 @@ public class COSDocument extends COSBase implements Closeable
 	public List<COSObject> getObjectsByType( COSName type ) throws IOException
 	{
 		List<COSObject> retval = new ArrayList<COSObject>();
-		for( COSObject object : objectPool.values() )
+		for( COSObject object : getObjects() )
 		{
 			COSBase realObject = object.getObject();
 			if( realObject instanceof COSDictionary )
@@ -235,7 +261,7 @@ public class COSDocument extends COSBase implements Closeable
 	 */
 	public void print()
 	{
-		for( COSObject object : objectPool.values() )
+		for( COSObject object : getObjects() )
 		{
 			System.out.println( object);
 		}
@@ -248,6 +274,7 @@ public class COSDocument extends COSBase implements Closeable
 	 */
 	public void setVersion( float versionValue )
 	{
+		checkFrozen();
 		// update header string
 		if (versionValue != version) 
 		{
@@ -330,6 +357,7 @@ public class COSDocument extends COSBase implements Closeable
 	 */
 	public void setEncryptionDictionary( COSDictionary encDictionary )
 	{
+		checkFrozen();
 		trailer.setItem( COSName.ENCRYPT, encDictionary );
 	}
 
@@ -410,6 +438,7 @@ public class COSDocument extends COSBase implements Closeable
 	 */
 	public void setDocumentID( COSArray id )
 	{
+		checkFrozen();
 		getTrailer().setItem(COSName.ID, id);
 	}
 
@@ -419,6 +448,7 @@ public class COSDocument extends COSBase implements Closeable
 	 */
 	public void setSignatureInterface(SignatureInterface sigInterface) 
 	{
+		checkFrozen();
 		signatureInterface = sigInterface;
 	}
 
@@ -448,7 +478,10 @@ public class COSDocument extends COSBase implements Closeable
 	 */
 	public List<COSObject> getObjects()
 	{
-		return new ArrayList<COSObject>(objectPool.values());
+		synchronized (objectPool)
+		{
+			return new ArrayList<COSObject>(objectPool.values());
+		}
 	}
 
 	/**
@@ -469,6 +502,7 @@ public class COSDocument extends COSBase implements Closeable
 	 */
 	public void setTrailer(COSDictionary newTrailer)
 	{
+		checkFrozen();
 		trailer = newTrailer;
 	}
 
@@ -524,9 +558,33 @@ public class COSDocument extends COSBase implements Closeable
 				list.clear();
 			}
 			closed = true;
+			try
+			{
+				if (streamSource != null)
+				{
+					streamSource.close();
+					streamSource = null;
+				}
+			}
+			finally
+			{
+				scratchFile.close();
+			}
 		}
 	}
 
+	/**
+	 * Sets the source the streams of this document are reading their data from, see
+	 * {@link COSStream#setFilteredStreamSource}. The source will be closed when this
+	 * document gets closed.
+	 *
+	 * @param source the source of the stream data
+	 */
+	public void setStreamSource(Closeable source)
+	{
+		streamSource = source;
+	}
+
 	/**
 	 * Warn the user in the finalizer if he didn't close the PDF document. The method also
 	 * closes the document just in case, to avoid abandoned temporary files. It's still a good
@@ -570,6 +628,7 @@ public class COSDocument extends COSBase implements Closeable
 	 */
 	public void setHeaderString(String header)
 	{
+		checkFrozen();
 		headerString = header;
 	}
 
@@ -590,12 +649,15 @@ public class COSDocument extends COSBase implements Closeable
 			for( COSObject next : parser.getObjects() )
 			{
 				COSObjectKey key = new COSObjectKey( next );
-				if ( objectPool.get(key) == null || objectPool.get(key).getObject() == null ||
-						// xrefTable stores negated objNr of objStream for objects in objStreams
-						(xrefTable.containsKey(key) && xrefTable.get(key) == -objStream.getObjectNumber().longValue()) )
+				synchronized (objectPool)
 				{
-					COSObject obj = getObjectFromPool(key);
-					obj.setObject(next.getObject());
+					if ( objectPool.get(key) == null || objectPool.get(key).getObject() == null ||
+							// xrefTable stores negated objNr of objStream for objects in objStreams
+							(xrefTable.containsKey(key) && xrefTable.get(key) == -objStream.getObjectNumber().longValue()) )
+					{
+						COSObject obj = getObjectFromPool(key);
+						obj.setObject(next.getObject());
+					}
 				}
 			}
 		}
@@ -612,23 +674,26 @@ public class COSDocument extends COSBase implements Closeable
 	 */
 	public COSObject getObjectFromPool(COSObjectKey key) throws IOException
 	{
-		COSObject obj = null;
-		if( key != null )
-		{
-			obj = objectPool.get(key);
-		}
-		if (obj == null)
+		synchronized (objectPool)
 		{
-			// this was a forward reference, make "proxy" object
-			obj = new COSObject(null);
+			COSObject obj = null;
 			if( key != null )
 			{
-				obj.setObjectNumber( COSInteger.get( key.getNumber() ) );
-				obj.setGenerationNumber( COSInteger.get( key.getGeneration() ) );
-				objectPool.put(key, obj);
+				obj = objectPool.get(key);
 			}
+			if (obj == null)
+			{
+				// this was a forward reference, make "proxy" object
+				obj = new COSObject(null);
+				if( key != null )
+				{
+					obj.setObjectNumber( COSInteger.get( key.getNumber() ) );
+					obj.setGenerationNumber( COSInteger.get( key.getGeneration() ) );
+					objectPool.put(key, obj);
+				}
+			}
+			return obj;
 		}
-		return obj;
 	}
 
 	/**
@@ -638,7 +703,11 @@ public class COSDocument extends COSBase implements Closeable
 	 */
 	public COSObject removeObject(COSObjectKey key)
 	{
-		return objectPool.remove(key);
+		checkFrozen();
+		synchronized (objectPool)
+		{
+			return objectPool.remove(key);
+		}
 	}
 
 	/**
@@ -648,6 +717,7 @@ public class COSDocument extends COSBase implements Closeable
 	 */
 	public void addXRefTable( Map<COSObjectKey, Long> xrefTableValues )
 	{
+		checkFrozen();
 		xrefTable.putAll( xrefTableValues );
 	}
 
@@ -669,6 +739,7 @@ public class COSDocument extends COSBase implements Closeable
 	 */
 	public void setStartXref(long startXrefValue)
 	{
+		checkFrozen();
 		startXref = startXrefValue;
 	}
 
@@ -699,6 +770,39 @@ public class COSDocument extends COSBase implements Closeable
 	 */
 	public void setIsXRefStream(boolean isXRefStreamValue)
 	{
+		checkFrozen();
 		isXRefStream = isXRefStreamValue;
 	}
+
+	/**
+	 * Makes this document read-only. A frozen document can be read by several threads
+	 * at the same time, e.g. to render or to extract the text of different pages: the
+	 * object pool is synchronized, objects which are resolved lazily are resolved only
+	 * once while the source is locked, and streams are decoded only once. The methods
+	 * of this class which change the document throw an {@link IllegalStateException}
+	 * once it is frozen. The dictionaries and arrays of the document aren't
+	 * checked, they simply must not be changed anymore.
+	 */
+	public void freeze()
+	{
+		frozen = true;
+	}
+
+	/**
+	 * Indicates if this document is read-only, see {@link #freeze()}.
+	 *
+	 * @return true if the document can't be modified anymore
+	 */
+	public boolean isFrozen()
+	{
+		return frozen;
+	}
+
+	private void checkFrozen()
+	{
+		if (frozen)
+		{
+			throw new IllegalStateException("The document is frozen and can't be modified");
+		}
+	}
 }
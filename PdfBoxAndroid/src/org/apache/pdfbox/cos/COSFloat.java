@@ -12,7 +12,32 @@ import java.math.BigDecimal;
  */
 public class COSFloat extends COSNumber
 {
-    private BigDecimal value;
+    // mantissas below these values and the powers of ten in the tables are exact
+    private static final long MAX_EXACT_FLOAT = 1L << 24;
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+    private static final float[] FLOAT_POW10 = new float[11];
+    private static final double[] DOUBLE_POW10 = new double[23];
+    static
+    {
+        FLOAT_POW10[0] = 1;
+        for (int i = 1; i < FLOAT_POW10.length; i++)
+        {
+            FLOAT_POW10[i] = FLOAT_POW10[i - 1] * 10;
+        }
+        DOUBLE_POW10[0] = 1;
+        for (int i = 1; i < DOUBLE_POW10.length; i++)
+        {
+            DOUBLE_POW10[i] = DOUBLE_POW10[i - 1] * 10;
+        }
+    }
+
+    private float value;
+    private double doubleValue;
+
+    /**
+     * The text of the number as it was read from the document, or null if the value was
+     * set as float; the text is then created when it is needed.
+     */
     private String valueAsString;
 
     /**
@@ -34,14 +59,116 @@ public class COSFloat extends COSNumber
      */
     public COSFloat( String aFloat ) throws IOException
     {
-        try
+        valueAsString = aFloat;
+        parse( aFloat );
+    }
+
+    /**
+     * Parses the text of a number like a {@link BigDecimal} does, i.e. an optional sign,
+     * digits with an optional decimal point and an optional exponent. Numbers which
+     * are exact in a float and a double are converted without parsing them a second time,
+     * the values are the same as the ones of a BigDecimal.
+     *
+     * @param text the text of the number
+     * @throws IOException if the text isn't a number
+     */
+    private void parse( String text ) throws IOException
+    {
+        int length = text.length();
+        int pos = 0;
+        boolean negative = false;
+        if( length > 0 && (text.charAt( 0 ) == '-' || text.charAt( 0 ) == '+') )
+        {
+            negative = text.charAt( 0 ) == '-';
+            pos++;
+        }
+        long mantissa = 0;
+        boolean hasDigits = false;
+        int digits = 0;
+        int scale = -1;
+        for( ; pos < length; pos++ )
+        {
+            char c = text.charAt( pos );
+            if( c >= '0' && c <= '9' )
+            {
+                hasDigits = true;
+                // leading zeros don't count, they can't overflow the mantissa
+                if( mantissa != 0 || c != '0' )
+                {
+                    digits++;
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if( scale >= 0 )
+                {
+                    scale++;
+                }
+            }
+            else if( c == '.' && scale < 0 )
+            {
+                scale = 0;
+            }
+            else
+            {
+                break;
+            }
+        }
+        boolean exponent = false;
+        if( hasDigits && pos < length && (text.charAt( pos ) == 'e' || text.charAt( pos ) == 'E') )
+        {
+            exponent = true;
+            pos++;
+            if( pos < length && (text.charAt( pos ) == '-' || text.charAt( pos ) == '+') )
+            {
+                pos++;
+            }
+            int exponentStart = pos;
+            while( pos < length && text.charAt( pos ) >= '0' && text.charAt( pos ) <= '9' )
+            {
+                pos++;
+            }
+            hasDigits = pos > exponentStart;
+        }
+        if( !hasDigits || pos < length )
+        {
+            throw new IOException( "Error expected floating point number actual='" + text + "'" );
+        }
+        if( scale < 0 )
         {
-            valueAsString = aFloat; 
-            value = new BigDecimal( valueAsString );
+            scale = 0;
         }
-        catch( NumberFormatException e )
+        if( !exponent && digits <= 18 && mantissa < MAX_EXACT_DOUBLE && scale < DOUBLE_POW10.length )
         {
-            throw new IOException( "Error expected floating point number actual='" +aFloat + "'" );
+            doubleValue = mantissa / DOUBLE_POW10[scale];
+            if( negative )
+            {
+                doubleValue = -doubleValue;
+            }
+            if( mantissa < MAX_EXACT_FLOAT && scale < FLOAT_POW10.length )
+            {
+                value = mantissa / FLOAT_POW10[scale];
+                if( negative )
+                {
+                    value = -value;
+                }
+            }
+            else
+            {
+                value = Float.parseFloat( text );
+            }
+        }
+        else
+        {
+            doubleValue = Double.parseDouble( text );
+            value = Float.parseFloat( text );
+        }
+        // like a BigDecimal there is no negative zero
+        if( value == 0 )
+        {
+            value = 0;
+        }
+        if( doubleValue == 0 )
+        {
+            doubleValue = 0;
         }
     }
 
@@ -52,10 +179,24 @@ public class COSFloat extends COSNumber
      */
     public void setValue( float floatValue )
     {
-        // use a BigDecimal as intermediate state to avoid 
-        // a floating point string representation of the float value
-        value = new BigDecimal(String.valueOf(floatValue));
-        valueAsString = removeNullDigits(value.toPlainString());
+        value = floatValue;
+        // the double value is the one of the shortest decimal representation of the float
+        doubleValue = Double.parseDouble( String.valueOf( floatValue ) );
+        valueAsString = null;
+    }
+
+    /**
+     * Returns the text of this number, see {@link #valueAsString}.
+     */
+    private String getValueAsString()
+    {
+        if( valueAsString == null )
+        {
+            // use a BigDecimal as intermediate state to avoid 
+            // a floating point string representation of the float value
+            valueAsString = removeNullDigits( new BigDecimal( String.valueOf( value ) ).toPlainString() );
+        }
+        return valueAsString;
     }
 
     private String removeNullDigits(String value)
@@ -78,7 +219,7 @@ public class COSFloat extends COSNumber
      */
     public float floatValue()
     {
-        return value.floatValue();
+        return value;
     }
 
     /**
@@ -88,27 +229,29 @@ public class COSFloat extends COSNumber
      */
     public double doubleValue()
     {
-        return value.doubleValue();
+        return doubleValue;
     }
 
     /**
-     * This will get the long value of this object.
+     * This will get the long value of this object. Like {@link BigDecimal#longValue()}
+     * the exact decimal value is truncated, not the rounded double value.
      *
      * @return The long value of this object,
      */
     public long longValue()
     {
-        return value.longValue();
+        return new BigDecimal( getValueAsString() ).longValue();
     }
 
     /**
-     * This will get the integer value of this object.
+     * This will get the integer value of this object. Like {@link BigDecimal#intValue()}
+     * the exact decimal value is truncated, not the rounded double value.
      *
      * @return The int value of this object,
      */
     public int intValue()
     {
-        return value.intValue();
+        return new BigDecimal( getValueAsString() ).intValue();
     }
 
     /**
@@ -116,7 +259,7 @@ public class COSFloat extends COSNumber
      */
     public boolean equals( Object o )
     {
-        return o instanceof COSFloat && Float.floatToIntBits(((COSFloat)o).value.floatValue()) == Float.floatToIntBits(value.floatValue());
+        return o instanceof COSFloat && Float.floatToIntBits(((COSFloat)o).value) == Float.floatToIntBits(value);
     }
 
     /**
@@ -124,7 +267,7 @@ public class COSFloat extends COSNumber
      */
     public int hashCode()
     {
-        return value.hashCode();
+        return Float.floatToIntBits(value);
     }
 
     /**
@@ -132,7 +275,7 @@ public class COSFloat extends COSNumber
      */
     public String toString()
     {
-        return "COSFloat{" + valueAsString + "}";
+        return "COSFloat{" + getValueAsString() + "}";
     }
 
     /**
@@ -155,6 +298,6 @@ public class COSFloat extends COSNumber
      */
     public void writePDF( OutputStream output ) throws IOException
     {
-        output.write(valueAsString.getBytes("ISO-8859-1"));
+        output.write(getValueAsString().getBytes("ISO-8859-1"));
     }
 }
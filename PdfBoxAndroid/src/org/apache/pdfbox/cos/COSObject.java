@@ -10,7 +10,8 @@ import java.io.IOException;
  */
 public class COSObject extends COSBase
 {
-    private COSBase baseObject;
+    // volatile as the object may be resolved by another thread, see COSDocument.freeze()
+    private volatile COSBase baseObject;
     private COSInteger objectNumber;
     private COSInteger generationNumber;
 
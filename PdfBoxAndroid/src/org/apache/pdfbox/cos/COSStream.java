@@ -21,6 +21,9 @@ import org.apache.pdfbox.io.RandomAccessBuffer;
 import org.apache.pdfbox.io.RandomAccessFile;
 import org.apache.pdfbox.io.RandomAccessFileInputStream;
 import org.apache.pdfbox.io.RandomAccessFileOutputStream;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.RandomAccessReadInputStream;
+import org.apache.pdfbox.io.ScratchFile;
 import org.apache.pdfbox.pdfparser.PDFStreamParser;
 
 /**
@@ -41,6 +44,10 @@ public class COSStream extends COSDictionary implements Closeable
      * internal buffer, either held in memory or within a scratch file.
      */
     private RandomAccess buffer;
+    /**
+     * The scratch file the internal buffer is created with, if any.
+     */
+    private ScratchFile scratchFile;
     /**
      * The stream with all of the filters applied.
      */
@@ -52,6 +59,21 @@ public class COSStream extends COSDictionary implements Closeable
     private RandomAccessFileOutputStream unFilteredStream;
     private DecodeResult decodeResult;
 
+    /**
+     * The source of the document holding the encoded stream data, if the data
+     * wasn't copied to the internal buffer. Only used as long as there is no
+     * filtered stream.
+     */
+    private RandomAccessRead source;
+    private long sourcePosition;
+    private long sourceLength;
+
+    /**
+     * Decrypts the encoded data while it is read, null if the data isn't encrypted.
+     */
+    private ICOSStreamDecryptor decryptor;
+    private long decryptedLength = -1;
+
     /**
      * Constructor.  Creates a new stream with an empty dictionary.
      *
@@ -113,6 +135,50 @@ public class COSStream extends COSDictionary implements Closeable
         }
     }
 
+    /**
+     * Constructor. Creates a new stream with an empty dictionary.
+     *
+     * @param scratchFile the scratch file providing the internal buffer, it is created
+     * when data is written to the stream for the first time.
+     */
+    public COSStream( ScratchFile scratchFile )
+    {
+        super();
+        this.scratchFile = scratchFile;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param dictionary The dictionary that is associated with this stream.
+     * @param scratchFile the scratch file providing the internal buffer, it is created
+     * when data is written to the stream for the first time.
+     */
+    public COSStream( COSDictionary dictionary, ScratchFile scratchFile )
+    {
+        super( dictionary );
+        this.scratchFile = scratchFile;
+    }
+
+    /**
+     * Returns the internal buffer, which is created by the scratch file on first use.
+     *
+     * @return the internal buffer
+     * @throws IOException If the scratch file can't provide a buffer.
+     */
+    private RandomAccess getBuffer() throws IOException
+    {
+        if (buffer == null)
+        {
+            if (scratchFile == null)
+            {
+                throw new IOException("COSStream has been closed and cannot be read or written");
+            }
+            buffer = scratchFile.createBuffer();
+        }
+        return buffer;
+    }
+
     /**
      * Create a scratch file to be used as buffer to decrease memory foot print.
      * 
@@ -155,8 +221,16 @@ public class COSStream extends COSDictionary implements Closeable
      *
      * @throws IOException when encoding/decoding causes an exception
      */
-    public InputStream getFilteredStream() throws IOException
+    public synchronized InputStream getFilteredStream() throws IOException
     {
+        if( decryptor != null )
+        {
+            return createDecryptedInputStream();
+        }
+        if( source != null )
+        {
+            return createEncodedInputStream( true, sourcePosition, sourceLength );
+        }
         if( filteredStream == null )
         {
             doEncode();
@@ -165,7 +239,7 @@ public class COSStream extends COSDictionary implements Closeable
         long length = filteredStream.getLengthWritten();
 
         RandomAccessFileInputStream input =
-            new RandomAccessFileInputStream( buffer, position, length );
+            new RandomAccessFileInputStream( getBuffer(), position, length );
         return new BufferedInputStream( input, BUFFER_SIZE );
     }
 
@@ -176,8 +250,16 @@ public class COSStream extends COSDictionary implements Closeable
      *
      * @throws IOException 
      */
-    public long getFilteredLength() throws IOException
+    public synchronized long getFilteredLength() throws IOException
     {
+        if (decryptor != null)
+        {
+            return getDecryptedLength();
+        }
+        if (source != null)
+        {
+            return sourceLength;
+        }
         if (filteredStream == null)
         {
             doEncode();
@@ -193,7 +275,14 @@ public class COSStream extends COSDictionary implements Closeable
      */
     public void setFilteredLength(long length)
     {
-        filteredStream.setExpectedLength(COSInteger.get(length));
+        if (source != null)
+        {
+            sourceLength = length;
+        }
+        else
+        {
+            filteredStream.setExpectedLength(COSInteger.get(length));
+        }
     }
 
     /**
@@ -205,6 +294,14 @@ public class COSStream extends COSDictionary implements Closeable
      */
     public long getFilteredLengthWritten() throws IOException
     {
+        if (decryptor != null)
+        {
+            return getDecryptedLength();
+        }
+        if (source != null)
+        {
+            return sourceLength;
+        }
         if (filteredStream == null)
         {
             doEncode();
@@ -219,9 +316,14 @@ public class COSStream extends COSDictionary implements Closeable
      *
      * @throws IOException when encoding/decoding causes an exception
      */
-    public InputStream getUnfilteredStream() throws IOException
+    public synchronized InputStream getUnfilteredStream() throws IOException
     {
         InputStream retval;
+        if( decryptor != null && getFilters() == null )
+        {
+            // there is nothing to decode, the data is decrypted while it is read
+            return createDecryptedInputStream();
+        }
         if( unFilteredStream == null )
         {
             doDecode();
@@ -234,9 +336,14 @@ public class COSStream extends COSDictionary implements Closeable
             long position = unFilteredStream.getPosition();
             long length = unFilteredStream.getLengthWritten();
             RandomAccessFileInputStream input =
-                new RandomAccessFileInputStream( buffer, position, length );
+                new RandomAccessFileInputStream( getBuffer(), position, length );
             retval = new BufferedInputStream( input, BUFFER_SIZE );
         }
+        else if( source != null )
+        {
+            // there are no filters, the data can be read from the source as it is
+            retval = createEncodedInputStream( true, sourcePosition, sourceLength );
+        }
         else
         {
             // We should check if the COSStream contains data, maybe it
@@ -266,14 +373,14 @@ public class COSStream extends COSDictionary implements Closeable
      * @return the repaired stream parameters dictionary
      * @throws IOException when encoding/decoding causes an exception
      */
-    public DecodeResult getDecodeResult() throws IOException
+    public synchronized DecodeResult getDecodeResult() throws IOException
     {
         if (unFilteredStream == null)
         {
             doDecode();
         }
 
-        if (unFilteredStream == null || decodeResult == null)
+        if ((unFilteredStream == null && source == null) || decodeResult == null)
         {
         	String filterInfo = "";
         	COSBase filters = getFilters();
@@ -361,10 +468,24 @@ public class COSStream extends COSDictionary implements Closeable
 
         boolean done = false;
         IOException exception = null;
-        long position = unFilteredStream.getPosition();
-        long length = unFilteredStream.getLength();
+        // the first filter reads from the source if the data wasn't copied
+        final boolean fromSource = unFilteredStream == null;
+        long position;
+        long length;
         // in case we need it later
-        long writtenLength = unFilteredStream.getLengthWritten();  
+        long writtenLength;
+        if (fromSource)
+        {
+            position = sourcePosition;
+            length = sourceLength;
+            writtenLength = sourceLength;
+        }
+        else
+        {
+            position = unFilteredStream.getPosition();
+            length = unFilteredStream.getLength();
+            writtenLength = unFilteredStream.getLengthWritten();
+        }
 
         if (length == 0 && writtenLength == 0)
         {
@@ -372,7 +493,7 @@ public class COSStream extends COSDictionary implements Closeable
             //some filters don't work when attempting to decode
             //with a zero length stream.  See zlib_error_01.pdf
             IOUtils.closeQuietly(unFilteredStream);
-            unFilteredStream = new RandomAccessFileOutputStream( buffer );
+            unFilteredStream = new RandomAccessFileOutputStream( getBuffer() );
             done = true;
         }
         else
@@ -385,10 +506,14 @@ public class COSStream extends COSDictionary implements Closeable
                 InputStream input = null;
                 try
                 {
-                    input = new BufferedInputStream(
-                        new RandomAccessFileInputStream( buffer, position, length ), BUFFER_SIZE );
+                    input = createEncodedInputStream( fromSource, position, length );
+                    if (filterIndex == 0 && decryptor != null)
+                    {
+                        // decrypt the data while the first filter decodes it
+                        input = decryptor.decrypt( input );
+                    }
                     IOUtils.closeQuietly(unFilteredStream);
-                    unFilteredStream = new RandomAccessFileOutputStream( buffer );
+                    unFilteredStream = new RandomAccessFileOutputStream( getBuffer() );
                     decodeResult = filter.decode( input, unFilteredStream, this, filterIndex );
                     done = true;
                 }
@@ -413,10 +538,13 @@ public class COSStream extends COSDictionary implements Closeable
                     InputStream input = null;
                     try
                     {
-                        input = new BufferedInputStream(
-                            new RandomAccessFileInputStream( buffer, position, length ), BUFFER_SIZE );
+                        input = createEncodedInputStream( fromSource, position, length );
+                        if (filterIndex == 0 && decryptor != null)
+                        {
+                            input = decryptor.decrypt( input );
+                        }
                         IOUtils.closeQuietly(unFilteredStream);
-                        unFilteredStream = new RandomAccessFileOutputStream( buffer );
+                        unFilteredStream = new RandomAccessFileOutputStream( getBuffer() );
                         decodeResult = filter.decode( input, unFilteredStream, this, filterIndex);
                         done = true;
                     }
@@ -438,6 +566,31 @@ public class COSStream extends COSDictionary implements Closeable
         }
     }
 
+    /**
+     * Creates a buffered stream reading encoded data either from the source of the
+     * document or from the internal buffer.
+     *
+     * @param fromSource read from the source instead of the internal buffer.
+     * @param position The position of the first byte to read.
+     * @param length The number of bytes to read.
+     * @return the buffered input stream
+     * @throws IOException If the internal buffer can't be created.
+     */
+    private InputStream createEncodedInputStream( boolean fromSource, long position, long length )
+            throws IOException
+    {
+        InputStream input;
+        if( fromSource )
+        {
+            input = new RandomAccessReadInputStream( source, position, length );
+        }
+        else
+        {
+            input = new RandomAccessFileInputStream( getBuffer(), position, length );
+        }
+        return new BufferedInputStream( input, BUFFER_SIZE );
+    }
+
     /**
      * This will encode the logical byte stream applying all of the filters to the stream.
      *
@@ -481,10 +634,10 @@ public class COSStream extends COSDictionary implements Closeable
         Filter filter = FilterFactory.INSTANCE.getFilter( filterName );
 
         InputStream input = new BufferedInputStream(
-            new RandomAccessFileInputStream( buffer, filteredStream.getPosition(),
+            new RandomAccessFileInputStream( getBuffer(), filteredStream.getPosition(),
                                                    filteredStream.getLength() ), BUFFER_SIZE );
         IOUtils.closeQuietly(filteredStream);
-        filteredStream = new RandomAccessFileOutputStream( buffer );
+        filteredStream = new RandomAccessFileOutputStream( getBuffer() );
         filter.encode( input, filteredStream, this, filterIndex );
         IOUtils.closeQuietly(input);
     }
@@ -514,10 +667,12 @@ public class COSStream extends COSDictionary implements Closeable
      */
     public OutputStream createFilteredStream() throws IOException
     {
+        source = null;
+        decryptor = null;
         IOUtils.closeQuietly(unFilteredStream);
         unFilteredStream = null;
         IOUtils.closeQuietly(filteredStream);
-        filteredStream = new RandomAccessFileOutputStream( buffer );
+        filteredStream = new RandomAccessFileOutputStream( getBuffer() );
         return new BufferedOutputStream( filteredStream, BUFFER_SIZE );
     }
 
@@ -548,6 +703,12 @@ public class COSStream extends COSDictionary implements Closeable
      */
     public void setFilters(COSBase filters) throws IOException
     {
+        decryptIfNeeded();
+        if (source != null)
+        {
+            // the encoded data has to be kept in the buffer if there are no filters to decode it
+            copySourceWindow();
+        }
         if (unFilteredStream == null)
         {
             // don't lose stream contents
@@ -559,6 +720,147 @@ public class COSStream extends COSDictionary implements Closeable
         filteredStream = null;
     }
 
+    /**
+     * This will use a window of the given source as the encoded stream data instead of
+     * copying the data to the internal buffer. The source has to stay open as long as
+     * this stream is used, the data is only read when the stream is accessed.
+     *
+     * @param raSource The source holding the encoded stream data.
+     * @param position The position of the stream data within the source.
+     * @param length The length of the stream data.
+     */
+    public void setFilteredStreamSource(RandomAccessRead raSource, long position, long length)
+    {
+        IOUtils.closeQuietly(unFilteredStream);
+        unFilteredStream = null;
+        IOUtils.closeQuietly(filteredStream);
+        filteredStream = null;
+        decryptor = null;
+        source = raSource;
+        sourcePosition = position;
+        sourceLength = length;
+    }
+
+    /**
+     * Sets the decryptor of the encoded data, which is decrypted while it is read. The data
+     * which is set afterwards isn't encrypted, so writing new data removes the decryptor.
+     *
+     * @param streamDecryptor The decryptor, or null if the data isn't encrypted.
+     */
+    public synchronized void setDecryptor(ICOSStreamDecryptor streamDecryptor)
+    {
+        decryptor = streamDecryptor;
+        decryptedLength = -1;
+    }
+
+    /**
+     * Creates a stream reading the decrypted encoded data.
+     *
+     * @return the decrypted data
+     * @throws IOException If the internal buffer can't be created.
+     */
+    private InputStream createDecryptedInputStream() throws IOException
+    {
+        InputStream input;
+        if (source != null)
+        {
+            input = createEncodedInputStream( true, sourcePosition, sourceLength );
+        }
+        else if (filteredStream != null)
+        {
+            input = createEncodedInputStream( false, filteredStream.getPosition(),
+                    filteredStream.getLengthWritten() );
+        }
+        else
+        {
+            return new ByteArrayInputStream( new byte[0] );
+        }
+        return decryptor.decrypt( input );
+    }
+
+    /**
+     * Returns the length of the decrypted encoded data, which is decrypted once without
+     * keeping it to find out.
+     *
+     * @return the length of the decrypted data
+     * @throws IOException If the data can't be decrypted.
+     */
+    private synchronized long getDecryptedLength() throws IOException
+    {
+        if (decryptedLength < 0)
+        {
+            InputStream input = createDecryptedInputStream();
+            try
+            {
+                byte[] skipBuffer = new byte[BUFFER_SIZE];
+                long length = 0;
+                int n;
+                while ((n = input.read(skipBuffer)) != -1)
+                {
+                    length += n;
+                }
+                decryptedLength = length;
+            }
+            finally
+            {
+                IOUtils.closeQuietly(input);
+            }
+        }
+        return decryptedLength;
+    }
+
+    /**
+     * This will replace the encrypted data with the decrypted data, which is needed before
+     * the data is changed.
+     *
+     * @throws IOException If the data can't be decrypted.
+     */
+    private synchronized void decryptIfNeeded() throws IOException
+    {
+        if (decryptor == null)
+        {
+            return;
+        }
+        InputStream input = createDecryptedInputStream();
+        decryptor = null;
+        // the decrypted data is appended to the buffer, the encrypted data isn't needed anymore
+        source = null;
+        IOUtils.closeQuietly(unFilteredStream);
+        unFilteredStream = null;
+        IOUtils.closeQuietly(filteredStream);
+        filteredStream = new RandomAccessFileOutputStream( getBuffer() );
+        try
+        {
+            IOUtils.copy( input, filteredStream );
+        }
+        finally
+        {
+            IOUtils.closeQuietly(input);
+        }
+    }
+
+    /**
+     * This will copy the window of the source to the internal buffer.
+     *
+     * @throws IOException If there is an error reading the source.
+     */
+    private void copySourceWindow() throws IOException
+    {
+        InputStream input = createEncodedInputStream( true, sourcePosition, sourceLength );
+        source = null;
+        IOUtils.closeQuietly(unFilteredStream);
+        unFilteredStream = null;
+        filteredStream = new RandomAccessFileOutputStream( getBuffer() );
+        try
+        {
+            IOUtils.copy( input, filteredStream );
+        }
+        finally
+        {
+            IOUtils.closeQuietly(input);
+        }
+    }
+
     /**
      * This will create an output stream that can be written to.
      *
@@ -568,16 +870,21 @@ public class COSStream extends COSDictionary implements Closeable
      */
     public OutputStream createUnfilteredStream() throws IOException
     {
+        source = null;
+        decryptor = null;
         IOUtils.closeQuietly(filteredStream);
         filteredStream = null;
         IOUtils.closeQuietly(unFilteredStream);
-        unFilteredStream = new RandomAccessFileOutputStream( buffer );
+        unFilteredStream = new RandomAccessFileOutputStream( getBuffer() );
         return new BufferedOutputStream( unFilteredStream, BUFFER_SIZE );
     }
     
     @Override
     public void close()
     {
+        // the source is shared with the document and closed by it
+        source = null;
+        decryptor = null;
         try
         {
             if (buffer != null)
@@ -585,6 +892,7 @@ public class COSStream extends COSDictionary implements Closeable
                 buffer.close();
                 buffer = null;
             }
+            scratchFile = null;
         }
         catch (IOException exception)
         {
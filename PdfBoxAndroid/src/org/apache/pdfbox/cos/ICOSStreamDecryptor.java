@@ -0,0 +1,24 @@
+package org.apache.pdfbox.cos;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decrypts the data of an encrypted stream. A decryptor is set on a stream when the stream is
+ * parsed, the data is only decrypted while it is read. It is the first stage of decoding the
+ * stream, before its filters.
+ *
+ * @see COSStream#setDecryptor(ICOSStreamDecryptor)
+ */
+public interface ICOSStreamDecryptor
+{
+    /**
+     * Returns a stream which decrypts the encoded data of a stream while it is read. Closing it
+     * closes the encrypted data.
+     *
+     * @param encrypted the encrypted data
+     * @return the decrypted data
+     * @throws IOException If the data can't be decrypted.
+     */
+    public InputStream decrypt( InputStream encrypted ) throws IOException;
+}
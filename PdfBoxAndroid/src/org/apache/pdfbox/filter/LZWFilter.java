@@ -17,14 +17,10 @@ package org.apache.pdfbox.filter;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.ArrayList;
 import java.util.Arrays;
-import org.apache.javax.imageio.stream.MemoryCacheImageInputStream;
-import org.apache.javax.imageio.stream.MemoryCacheImageOutputStream;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.pdfbox.cos.COSDictionary;
@@ -53,8 +49,25 @@ public class LZWFilter extends Filter
      * The LZW end of data code.
      */
     public static final long EOD = 257;
-    
-    //BEWARE: codeTable must be local to each method, because there is only
+
+    /**
+     * The maximum size of the code table, codes have at most 12 bits.
+     */
+    private static final int MAX_TABLE_SIZE = 4096;
+
+    /**
+     * The size of the code table after it was cleared: 256 single bytes, CLEAR_TABLE and EOD.
+     */
+    private static final int INITIAL_TABLE_SIZE = 258;
+
+    /**
+     * The size of the hash table of the encoder, a power of two with room for a full code table.
+     */
+    private static final int HASH_SIZE = 8192;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    //BEWARE: the code tables must be local to each method, because there is only
     // one instance of each filter
 
     /**
@@ -97,57 +110,90 @@ public class LZWFilter extends Filter
         return new DecodeResult(parameters);
     }
 
+    /**
+     * Decodes the codes with a code table of flat arrays. Every entry is the entry of its
+     * prefix plus one byte, so the bytes of a code are found by following the prefixes.
+     */
     private void doLZWDecode(InputStream encoded, OutputStream decoded, int earlyChange) throws IOException
     {
-        ArrayList<byte[]> codeTable = null;
+        int[] prefixes = new int[MAX_TABLE_SIZE];
+        byte[] suffixes = new byte[MAX_TABLE_SIZE];
+        byte[] firstBytes = new byte[MAX_TABLE_SIZE];
+        int[] lengths = new int[MAX_TABLE_SIZE];
+        for (int i = 0; i < 256; i++)
+        {
+            prefixes[i] = -1;
+            suffixes[i] = (byte) i;
+            firstBytes[i] = (byte) i;
+            lengths[i] = 1;
+        }
+        int tableSize = INITIAL_TABLE_SIZE;
         int chunk = 9;
-        MemoryCacheImageInputStream in = new MemoryCacheImageInputStream(encoded);
-        long nextCommand = 0;
-        long prevCommand = -1;
+        int prevCode = -1;
 
-        try
+        BitReader in = new BitReader(encoded);
+        // room for the longest possible entry when the buffer is flushed
+        byte[] out = new byte[BUFFER_SIZE + MAX_TABLE_SIZE];
+        int outLength = 0;
+        int nextCode;
+        while ((nextCode = in.readBits(chunk)) != EOD)
         {
-            while ((nextCommand = in.readBits(chunk)) != EOD)
+            if (nextCode == -1)
             {
-                if (nextCommand == CLEAR_TABLE)
-                {
-                    chunk = 9;
-                    codeTable = createCodeTable();
-                    prevCommand = -1;
-                }
-                else
-                {
-                    if (nextCommand < codeTable.size())
-                    {
-                        byte[] data = codeTable.get((int) nextCommand);
-                        byte firstByte = data[0];
-                        decoded.write(data);
-                        if (prevCommand != -1)
-                        {
-                            data = codeTable.get((int) prevCommand);
-                            byte[] newData = Arrays.copyOf(data, data.length + 1);
-                            newData[data.length] = firstByte;
-                            codeTable.add(newData);
-                        }
-                    }
-                    else
-                    {
-                        byte[] data = codeTable.get((int) prevCommand);
-                        byte[] newData = Arrays.copyOf(data, data.length + 1);
-                        newData[data.length] = data[0];
-                        decoded.write(newData);
-                        codeTable.add(newData);
-                    }
-                    
-                    chunk = calculateChunk(codeTable.size(), earlyChange);
-                    prevCommand = nextCommand;
-                }
+                LOG.warn("Premature EOF in LZW stream, EOD code missing");
+                break;
             }
+            if (nextCode == CLEAR_TABLE)
+            {
+                chunk = 9;
+                tableSize = INITIAL_TABLE_SIZE;
+                prevCode = -1;
+                continue;
+            }
+            int code = nextCode;
+            if (nextCode > tableSize || (nextCode == tableSize && prevCode == -1))
+            {
+                throw new IOException("Error: LZW code " + nextCode
+                        + " isn't in the code table");
+            }
+            if (nextCode == tableSize)
+            {
+                // the code of the entry that is about to be added, which is the previous
+                // entry plus its own first byte; the table can't be full here because
+                // codes have at most 12 bits
+                prefixes[tableSize] = prevCode;
+                suffixes[tableSize] = firstBytes[prevCode];
+                firstBytes[tableSize] = firstBytes[prevCode];
+                lengths[tableSize] = lengths[prevCode] + 1;
+                code = tableSize++;
+            }
+            else if (prevCode != -1 && tableSize < MAX_TABLE_SIZE)
+            {
+                prefixes[tableSize] = prevCode;
+                suffixes[tableSize] = firstBytes[code];
+                firstBytes[tableSize] = firstBytes[prevCode];
+                lengths[tableSize] = lengths[prevCode] + 1;
+                tableSize++;
+            }
+
+            // write the bytes of the entry back to front
+            int length = lengths[code];
+            for (int i = outLength + length - 1, c = code; i >= outLength; i--)
+            {
+                out[i] = suffixes[c];
+                c = prefixes[c];
+            }
+            outLength += length;
+            if (outLength >= BUFFER_SIZE)
+            {
+                decoded.write(out, 0, outLength);
+                outLength = 0;
+            }
+
+            chunk = calculateChunk(tableSize, earlyChange);
+            prevCode = code;
         }
-        catch (EOFException ex)
-        {
-            LOG.warn("Premature EOF in LZW stream, EOD code missing");
-        }
+        decoded.write(out, 0, outLength);
         decoded.flush();
     }
 
@@ -158,132 +204,75 @@ public class LZWFilter extends Filter
     protected final void encode(InputStream rawData, OutputStream encoded, COSDictionary parameters)
             throws IOException
     {
-        ArrayList<byte[]> codeTable = createCodeTable();
-        int chunk = 9;
+        // hash table of the entries longer than one byte, the key of an entry is its prefix
+        // code and its last byte
+        int[] hashKeys = new int[HASH_SIZE];
+        short[] hashCodes = new short[HASH_SIZE];
+        Arrays.fill(hashKeys, -1);
+        int tableSize = INITIAL_TABLE_SIZE;
 
-        byte[] inputPattern = null;
-        MemoryCacheImageOutputStream out = new MemoryCacheImageOutputStream(encoded);
-        out.writeBits(CLEAR_TABLE, chunk);
+        BitWriter out = new BitWriter(encoded);
+        out.writeBits((int) CLEAR_TABLE, 9);
         int foundCode = -1;
-        int r;
-        while ((r = rawData.read()) != -1)
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int count;
+        while ((count = rawData.read(buffer)) != -1)
         {
-            byte by = (byte) r;
-            if (inputPattern == null)
+            for (int i = 0; i < count; i++)
             {
-                inputPattern = new byte[]
+                int by = buffer[i] & 0xff;
+                if (foundCode == -1)
                 {
-                    by
-                };
-                foundCode = by & 0xff;
-            }
-            else
-            {
-                inputPattern = Arrays.copyOf(inputPattern, inputPattern.length + 1);
-                inputPattern[inputPattern.length - 1] = by;
-                int newFoundCode = findPatternCode(codeTable, inputPattern);
-                if (newFoundCode == -1)
+                    foundCode = by;
+                    continue;
+                }
+                int key = (foundCode << 8) | by;
+                int slot = hash(key);
+                while (hashKeys[slot] != -1 && hashKeys[slot] != key)
                 {
-                    // use previous
-                    chunk = calculateChunk(codeTable.size() - 1, 1);
-                    out.writeBits(foundCode, chunk);
-                    // create new table entry
-                    codeTable.add(inputPattern);
-
-                    if (codeTable.size() == 4096)
-                    {
-                        // code table is full
-                        out.writeBits(CLEAR_TABLE, chunk);
-                        chunk = 9;
-                        codeTable = createCodeTable();
-                    }
-
-                    inputPattern = new byte[]
-                    {
-                        by
-                    };
-                    foundCode = by & 0xff;
+                    slot = (slot + 1) & (HASH_SIZE - 1);
+                }
+                if (hashKeys[slot] == key)
+                {
+                    foundCode = hashCodes[slot];
+                    continue;
                 }
-                else
+                // use previous
+                int chunk = calculateChunk(tableSize - 1, 1);
+                out.writeBits(foundCode, chunk);
+                // create new table entry
+                hashKeys[slot] = key;
+                hashCodes[slot] = (short) tableSize++;
+
+                if (tableSize == MAX_TABLE_SIZE)
                 {
-                    foundCode = newFoundCode;
+                    // code table is full
+                    out.writeBits((int) CLEAR_TABLE, chunk);
+                    tableSize = INITIAL_TABLE_SIZE;
+                    Arrays.fill(hashKeys, -1);
                 }
+                foundCode = by;
             }
         }
         if (foundCode != -1)
         {
-            chunk = calculateChunk(codeTable.size() - 1, 1);
-            out.writeBits(foundCode, chunk);
+            out.writeBits(foundCode, calculateChunk(tableSize - 1, 1));
         }
 
-        // PPDFBOX-1977: the decoder wouldn't know that the encoder would output 
-        // an EOD as code, so he would have increased his own code table and 
-        // possibly adjusted the chunk. Therefore, the encoder must behave as 
+        // PPDFBOX-1977: the decoder wouldn't know that the encoder would output
+        // an EOD as code, so he would have increased his own code table and
+        // possibly adjusted the chunk. Therefore, the encoder must behave as
         // if the code table had just grown and thus it must be checked it is
         // needed to adjust the chunk, based on an increased table size parameter
-        chunk = calculateChunk(codeTable.size(), 1);
-
-        out.writeBits(EOD, chunk);
+        out.writeBits((int) EOD, calculateChunk(tableSize, 1));
         out.writeBits(0, 7); // pad with 0
-        out.flush(); // must do or file will be empty :-(
+        // and to a byte boundary
+        out.flush();
     }
 
-    /**
-     * Find the longest matching pattern in the code table.
-     *
-     * @param codeTable The LZW code table.
-     * @param pattern The pattern to be searched for.
-     * @return The index of the longest matching pattern or -1 if nothing is
-     * found.
-     */
-    private int findPatternCode(ArrayList<byte[]> codeTable, byte[] pattern)
+    private static int hash(int key)
     {
-        int foundCode = -1;
-        int foundLen = 0;
-        for (int i = codeTable.size() - 1; i >= 0; --i)
-        {
-            if (i <= EOD)
-            {
-                // we're in the single byte area
-                if (foundCode != -1)
-                {
-                    return foundCode; // we already found pattern with size > 1
-                }
-                else if (pattern.length > 1)
-                {
-                    return -1; // we won't find anything here anyway
-                }
-            }
-            byte[] tryPattern = codeTable.get(i);
-            if (foundCode != -1 || tryPattern.length > foundLen)
-            {
-                if (Arrays.equals(tryPattern, pattern))
-                {
-                    foundCode = i;
-                    foundLen = tryPattern.length;
-                }
-            }
-        }
-        return foundCode;
-    }
-
-    /**
-     * Init the code table with 1 byte entries and the EOD and CLEAR_TABLE
-     * markers.
-     */
-    private ArrayList<byte[]> createCodeTable()
-    {
-        ArrayList<byte[]> codeTable = new ArrayList<byte[]>(4096);
-        for (int i = 0; i < 256; ++i)
-        {
-            codeTable.add(new byte[]
-            {
-                (byte) (i & 0xFF)
-            });
-        }
-        codeTable.add(null); // 256 EOD
-        codeTable.add(null); // 257 CLEAR_TABLE
-        return codeTable;
+        return (key * 0x9E3779B1) >>> 19;
     }
 
     /**
@@ -310,4 +299,93 @@ public class LZWFilter extends Filter
         }
         return 9;
     }
+
+    /**
+     * Reads codes of up to 12 bits, most significant bit first.
+     */
+    private static final class BitReader
+    {
+        private final InputStream in;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int position;
+        private int length;
+        private int bits;
+        private int bitCount;
+
+        private BitReader(InputStream in)
+        {
+            this.in = in;
+        }
+
+        /**
+         * @return the code or -1 if the stream ends before the code
+         */
+        private int readBits(int count) throws IOException
+        {
+            while (bitCount < count)
+            {
+                if (position == length)
+                {
+                    length = in.read(buffer);
+                    position = 0;
+                    if (length <= 0)
+                    {
+                        length = 0;
+                        return -1;
+                    }
+                }
+                bits = (bits << 8) | (buffer[position++] & 0xff);
+                bitCount += 8;
+            }
+            bitCount -= count;
+            return (bits >>> bitCount) & ((1 << count) - 1);
+        }
+    }
+
+    /**
+     * Writes codes of up to 12 bits, most significant bit first.
+     */
+    private static final class BitWriter
+    {
+        private final OutputStream out;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int length;
+        private int bits;
+        private int bitCount;
+
+        private BitWriter(OutputStream out)
+        {
+            this.out = out;
+        }
+
+        private void writeBits(int code, int count) throws IOException
+        {
+            bits = (bits << count) | code;
+            bitCount += count;
+            while (bitCount >= 8)
+            {
+                bitCount -= 8;
+                if (length == buffer.length)
+                {
+                    out.write(buffer, 0, length);
+                    length = 0;
+                }
+                buffer[length++] = (byte) (bits >>> bitCount);
+            }
+        }
+
+        /**
+         * Writes the remaining bits padded with 0 and the buffer.
+         */
+        private void flush() throws IOException
+        {
+            if (bitCount > 0)
+            {
+                writeBits(0, 8 - bitCount);
+            }
+            out.write(buffer, 0, length);
+            length = 0;
+            out.flush();
+        }
+    }
 }
@@ -89,19 +89,24 @@ public class RandomAccessFileOutputStream extends OutputStream
      */
     public void write( byte[] b, int offset, int length ) throws IOException
     {
-        file.seek( position+lengthWritten );
-        lengthWritten += length;
-        file.write( b, offset, length );
-
+        synchronized(file)
+        {
+            file.seek( position+lengthWritten );
+            lengthWritten += length;
+            file.write( b, offset, length );
+        }
     }
     /**
      * {@inheritDoc}
      */
     public void write( int b ) throws IOException
     {
-        file.seek( position+lengthWritten );
-        lengthWritten++;
-        file.write( b );
+        synchronized(file)
+        {
+            file.seek( position+lengthWritten );
+            lengthWritten++;
+            file.write( b );
+        }
     }
 
     /**
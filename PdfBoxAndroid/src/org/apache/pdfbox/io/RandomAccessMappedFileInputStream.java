@@ -0,0 +1,174 @@
+package org.apache.pdfbox.io;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Provides {@link InputStream} access to a file which is mapped into memory
+ * using {@link FileChannel#map(FileChannel.MapMode, long, long)}. Start of next
+ * bytes to read can be set via seek method.
+ *
+ * A single mapped buffer can't address more than 2 GB, so the file is mapped
+ * in segments which are created on first access. Seeking only moves the read
+ * pointer and reading copies directly from the mapped segment, there is no
+ * intermediate page cache.
+ *
+ * The mapping itself is released by the garbage collector, closing this stream
+ * only closes the underlying file channel.
+ */
+public class RandomAccessMappedFileInputStream
+extends InputStream implements RandomAccessRead
+{
+
+    private static final int SEGMENT_SIZE_SHIFT = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SIZE_SHIFT;
+    private static final long SEGMENT_OFFSET_MASK = SEGMENT_SIZE - 1;
+
+    private final RandomAccessFile raFile;
+    private final FileChannel channel;
+    private final long fileLength;
+    private final MappedByteBuffer[] segments;
+
+    private MappedByteBuffer curSegment;
+    private int curSegmentIndex = -1;
+    private long fileOffset = 0;
+
+    // ------------------------------------------------------------------------
+    /** Create input stream instance for given file. */
+    public RandomAccessMappedFileInputStream( File _file )
+    throws FileNotFoundException, IOException
+    {
+        raFile = new RandomAccessFile(_file, "r");
+        channel = raFile.getChannel();
+        fileLength = channel.size();
+        segments = new MappedByteBuffer[(int) ( ( fileLength + SEGMENT_SIZE - 1 ) >>> SEGMENT_SIZE_SHIFT )];
+    }
+
+    // ------------------------------------------------------------------------
+    /** Returns offset in file at which next byte would be read. */
+    public long getPosition()
+    {
+        return fileOffset;
+    }
+
+    // ------------------------------------------------------------------------
+    /**
+     * Seeks to new position. The segment containing the new position is only
+     * mapped when the next byte is read.
+     */
+    public void seek( final long newOffset ) throws IOException
+    {
+        if ( newOffset < 0 )
+        {
+            throw new IOException( "Invalid position " + newOffset );
+        }
+        fileOffset = newOffset;
+    }
+
+    // ------------------------------------------------------------------------
+    /**
+     * Returns the segment containing the current file offset and positions it
+     * at that offset. The segment is mapped if it wasn't accessed before.
+     */
+    private MappedByteBuffer currentSegment() throws IOException
+    {
+        final int segmentIndex = (int) ( fileOffset >>> SEGMENT_SIZE_SHIFT );
+        if ( segmentIndex != curSegmentIndex )
+        {
+            MappedByteBuffer segment = segments[segmentIndex];
+            if ( segment == null )
+            {
+                final long segmentOffset = (long) segmentIndex << SEGMENT_SIZE_SHIFT;
+                final long segmentLength = Math.min( SEGMENT_SIZE, fileLength - segmentOffset );
+                segment = channel.map( FileChannel.MapMode.READ_ONLY, segmentOffset, segmentLength );
+                segments[segmentIndex] = segment;
+            }
+            curSegment = segment;
+            curSegmentIndex = segmentIndex;
+        }
+        curSegment.position( (int) ( fileOffset & SEGMENT_OFFSET_MASK ) );
+        return curSegment;
+    }
+
+    // ------------------------------------------------------------------------
+    @Override
+    public int read() throws IOException
+    {
+        if ( fileOffset >= fileLength )
+        {
+            return -1;
+        }
+
+        final int b = currentSegment().get() & 0xff;
+        fileOffset++;
+        return b;
+    }
+
+    // ------------------------------------------------------------------------
+    /**
+     * Reads up to <code>len</code> bytes. A read never crosses a segment boundary,
+     * so fewer bytes than requested may be returned before the end of the file.
+     */
+    @Override
+    public int read( byte[] b, int off, int len ) throws IOException
+    {
+        if ( fileOffset >= fileLength )
+        {
+            return -1;
+        }
+
+        final MappedByteBuffer segment = currentSegment();
+        final int commonLen = Math.min( segment.remaining(), len );
+        segment.get( b, off, commonLen );
+        fileOffset += commonLen;
+
+        return commonLen;
+    }
+
+    // ------------------------------------------------------------------------
+    @Override
+    public int available() throws IOException
+    {
+        return (int) Math.max( 0, Math.min( fileLength - fileOffset, Integer.MAX_VALUE ) );
+    }
+
+    // ------------------------------------------------------------------------
+    @Override
+    public long skip( long n ) throws IOException
+    {
+        // test if we have to reduce skip count because of EOF
+        long toSkip = Math.min( n, fileLength - fileOffset );
+        if ( toSkip <= 0 )
+        {
+            return 0;
+        }
+
+        fileOffset += toSkip;
+        return toSkip;
+    }
+
+    // ------------------------------------------------------------------------
+    public long length() throws IOException
+    {
+        return fileLength;
+    }
+
+    // ------------------------------------------------------------------------
+    @Override
+    public void close() throws IOException
+    {
+        curSegment = null;
+        curSegmentIndex = -1;
+        for ( int i = 0; i < segments.length; i++ )
+        {
+            segments[i] = null;
+        }
+        channel.close();
+        raFile.close();
+    }
+}
@@ -0,0 +1,128 @@
+package org.apache.pdfbox.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An InputStream which reads a window of a {@link RandomAccessRead} that is
+ * shared with other readers, e.g. the parser of the document. The position of
+ * the shared source is restored after every read, so this stream can be used
+ * while the source is being read by someone else.
+ */
+public class RandomAccessReadInputStream extends InputStream
+{
+    private final RandomAccessRead source;
+    private long currentPosition;
+    private final long endPosition;
+
+    /**
+     * Constructor.
+     *
+     * @param raRead The shared source to read from.
+     * @param startPosition The position of the first byte of the window.
+     * @param length The length of the window.
+     */
+    public RandomAccessReadInputStream( RandomAccessRead raRead, long startPosition, long length )
+    {
+        source = raRead;
+        currentPosition = startPosition;
+        endPosition = currentPosition+length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int available()
+    {
+        return (int)Math.min( endPosition - currentPosition, Integer.MAX_VALUE );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close()
+    {
+        //do nothing because the source is owned by someone else.
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read() throws IOException
+    {
+        if( currentPosition >= endPosition )
+        {
+            return -1;
+        }
+        synchronized(source)
+        {
+            long sourcePosition = source.getPosition();
+            try
+            {
+                source.seek( currentPosition );
+                int retval = source.read();
+                if( retval != -1 )
+                {
+                    currentPosition++;
+                }
+                return retval;
+            }
+            finally
+            {
+                source.seek( sourcePosition );
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read( byte[] b, int offset, int length ) throws IOException
+    {
+        //return -1 if the end of the window has been reached.
+        if( currentPosition >= endPosition )
+        {
+            return -1;
+        }
+        //only allow a read of the amount available.
+        if( length > available() )
+        {
+            length = available();
+        }
+        int amountRead;
+        synchronized(source)
+        {
+            long sourcePosition = source.getPosition();
+            try
+            {
+                source.seek( currentPosition );
+                amountRead = source.read( b, offset, length );
+            }
+            finally
+            {
+                source.seek( sourcePosition );
+            }
+        }
+        //update the current cursor position.
+        if( amountRead > 0 )
+        {
+            currentPosition += amountRead;
+        }
+        return amountRead;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long skip( long amountToSkip )
+    {
+        long amountSkipped = Math.max( 0, Math.min( amountToSkip, endPosition - currentPosition ) );
+        currentPosition += amountSkipped;
+        return amountSkipped;
+    }
+}
@@ -1,6 +1,7 @@
 package org.apache.pdfbox.pdfparser;
 
 import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -15,6 +16,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -37,8 +39,11 @@ import org.apache.pdfbox.cos.COSObject;
 import org.apache.pdfbox.cos.COSStream;
 import org.apache.pdfbox.cos.COSString;
 import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.io.PushBackInputStream;
 import org.apache.pdfbox.io.RandomAccessBufferedFileInputStream;
+import org.apache.pdfbox.io.RandomAccessMappedFileInputStream;
+import org.apache.pdfbox.io.RandomAccessRead;
 import org.apache.pdfbox.pdfparser.XrefTrailerResolver.XRefType;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
@@ -81,8 +86,29 @@ public class NonSequentialPDFParser extends PDFParser
 	public static final String SYSPROP_EOFLOOKUPRANGE =
 			"org.apache.pdfbox.pdfparser.nonSequentialPDFParser.eofLookupRange";
 
+	/**
+	 * Read files through a memory mapping instead of a page cache.
+	 * Only applies to parsers constructed from a {@link File}.
+	 */
+	public static final String SYSPROP_MEMORYMAPPING =
+			"org.apache.pdfbox.pdfparser.nonSequentialPDFParser.memoryMapping";
+
+	/**
+	 * Don't copy the data of streams while parsing, streams read their data from the
+	 * file when they are accessed. The file is kept open until the document is closed.
+	 */
+	public static final String SYSPROP_SHARESTREAMSOURCE =
+			"org.apache.pdfbox.pdfparser.nonSequentialPDFParser.shareStreamSource";
+
 	private static final InputStream EMPTY_INPUT_STREAM = new ByteArrayInputStream(new byte[0]);
 
+	/**
+	 * How many decoded object streams are kept for resolving their other objects. The objects of
+	 * an object stream are resolved together, so a few streams are enough and the decoded data of
+	 * the others doesn't stay in memory.
+	 */
+	private static final int OBJECT_STREAM_CACHE_SIZE = 8;
+
 	/**
 	 * How many trailing bytes to read for EOF marker.
 	 */
@@ -109,7 +135,7 @@ public class NonSequentialPDFParser extends PDFParser
 	private long trailerOffset;
 	private final File pdfFile;
 	private long fileLen;
-	private final RandomAccessBufferedFileInputStream raStream;
+	private final RandomAccessRead raStream;
 
 	/**
 	 * is parser using auto healing capacity ?
@@ -144,9 +170,32 @@ public class NonSequentialPDFParser extends PDFParser
 	 */
 	private final boolean parseMinimalCatalog = "true".equals(System.getProperty(SYSPROP_PARSEMINIMAL));
 
+	/**
+	 * If <code>true</code> the data of streams isn't copied while parsing, the streams keep a window of the file
+	 * instead, see {@link #setShareStreamSource(boolean)}.
+	 */
+	private boolean shareStreamSource = "true".equals(System.getProperty(SYSPROP_SHARESTREAMSOURCE));
+
 	private boolean initialParseDone = false;
 	private boolean allPagesParsed = false;
 
+	/**
+	 * The parsers of the recently used object streams, with their decoded data and offset tables.
+	 * The objects of an object stream are parsed when they are needed, usually many of them are
+	 * needed one after another.
+	 */
+	private final Map<Integer, PDFObjectStreamParser> objectStreamParsers =
+			new LinkedHashMap<Integer, PDFObjectStreamParser>(OBJECT_STREAM_CACHE_SIZE, 0.75f, true)
+	{
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, PDFObjectStreamParser> eldest)
+		{
+			return size() > OBJECT_STREAM_CACHE_SIZE;
+		}
+	};
+
 	private static final Log LOG = LogFactory.getLog(NonSequentialPDFParser.class);
 
 	/**
@@ -271,17 +320,82 @@ public class NonSequentialPDFParser extends PDFParser
 	 */
 	public NonSequentialPDFParser(File file, String decryptionPassword, InputStream keyStore, 
 			String alias, boolean useScratchFiles) throws IOException
+	{
+		this(file, decryptionPassword, keyStore, alias, useScratchFiles, false);
+	}
+
+	/**
+	 * Constructs parser for given file using given buffer for temporary storage.
+	 *
+	 * @param file the pdf to be parsed.
+	 * @param decryptionPassword password to be used for decryption.
+	 * @param keyStore key store to be used for decryption when using public key security
+	 * @param alias alias to be used for decryption when using public key security
+	 * @param useScratchFiles use a buffer for temporary storage.
+	 * @param useMemoryMapping read the file through a memory mapping instead of a page cache.
+	 *
+	 * @throws IOException If something went wrong.
+	 */
+	public NonSequentialPDFParser(File file, String decryptionPassword, InputStream keyStore,
+			String alias, boolean useScratchFiles, boolean useMemoryMapping) throws IOException
+	{
+		this(file, decryptionPassword, keyStore, alias, getMemoryUsageSetting(useScratchFiles), useMemoryMapping);
+	}
+
+	/**
+	 * Constructs parser for given file using the given memory usage setting for temporary storage.
+	 *
+	 * @param file the pdf to be parsed.
+	 * @param decryptionPassword password to be used for decryption.
+	 * @param keyStore key store to be used for decryption when using public key security
+	 * @param alias alias to be used for decryption when using public key security
+	 * @param memUsageSetting defines how memory and temporary files are used to buffer streams.
+	 *
+	 * @throws IOException If something went wrong.
+	 */
+	public NonSequentialPDFParser(File file, String decryptionPassword, InputStream keyStore,
+			String alias, MemoryUsageSetting memUsageSetting) throws IOException
+	{
+		this(file, decryptionPassword, keyStore, alias, memUsageSetting, false);
+	}
+
+	/**
+	 * Constructs parser for given file using the given memory usage setting for temporary storage.
+	 *
+	 * @param file the pdf to be parsed.
+	 * @param decryptionPassword password to be used for decryption.
+	 * @param keyStore key store to be used for decryption when using public key security
+	 * @param alias alias to be used for decryption when using public key security
+	 * @param memUsageSetting defines how memory and temporary files are used to buffer streams.
+	 * @param useMemoryMapping read the file through a memory mapping instead of a page cache.
+	 *
+	 * @throws IOException If something went wrong.
+	 */
+	public NonSequentialPDFParser(File file, String decryptionPassword, InputStream keyStore,
+			String alias, MemoryUsageSetting memUsageSetting, boolean useMemoryMapping) throws IOException
 	{
 		super(EMPTY_INPUT_STREAM, false);
 		pdfFile = file;
-		raStream = new RandomAccessBufferedFileInputStream(pdfFile);
+		if (useMemoryMapping || "true".equals(System.getProperty(SYSPROP_MEMORYMAPPING)))
+		{
+			raStream = new RandomAccessMappedFileInputStream(pdfFile);
+		}
+		else
+		{
+			raStream = new RandomAccessBufferedFileInputStream(pdfFile);
+		}
 		password = decryptionPassword;
 		keyStoreInputStream = keyStore;
 		keyAlias = alias;
-		init(file, useScratchFiles);
+		init(memUsageSetting);
+	}
+
+	private static MemoryUsageSetting getMemoryUsageSetting(boolean useScratchFiles)
+	{
+		return useScratchFiles ? MemoryUsageSetting.setupTempFileOnly() : MemoryUsageSetting.setupMainMemoryOnly();
 	}
 
-	private void init(File file, boolean useScratchFiles) throws IOException
+	private void init(MemoryUsageSetting memUsageSetting) throws IOException
 	{
 		String eofLookupRangeStr = System.getProperty(SYSPROP_EOFLOOKUPRANGE);
 		if (eofLookupRangeStr != null)
@@ -296,8 +410,8 @@ public class NonSequentialPDFParser extends PDFParser
 						+ " does not contain an integer value, but: '" + eofLookupRangeStr + "'");
 			}
 		}
-		setDocument(new COSDocument(useScratchFiles));
-		pdfSource = new PushBackInputStream(raStream, 4096);
+		setDocument(new COSDocument(memUsageSetting));
+		pdfSource = new PushBackInputStream((InputStream) raStream, 4096);
 	}
 
 	/**
@@ -381,6 +495,23 @@ public class NonSequentialPDFParser extends PDFParser
 	 */
 	public NonSequentialPDFParser(InputStream input, String decryptionPassword, InputStream keyStore,
 			String alias, boolean useScratchFiles) throws IOException
+	{
+		this(input, decryptionPassword, keyStore, alias, getMemoryUsageSetting(useScratchFiles));
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param input input stream representing the pdf.
+	 * @param decryptionPassword password to be used for decryption.
+	 * @param keyStore key store to be used for decryption when using public key security 
+	 * @param alias alias to be used for decryption when using public key security
+	 * @param memUsageSetting defines how memory and temporary files are used to buffer streams.
+	 *
+	 * @throws IOException If something went wrong.
+	 */
+	public NonSequentialPDFParser(InputStream input, String decryptionPassword, InputStream keyStore,
+			String alias, MemoryUsageSetting memUsageSetting) throws IOException
 	{
 		super(EMPTY_INPUT_STREAM, false);
 		pdfFile = createTmpFile(input);
@@ -388,7 +519,7 @@ public class NonSequentialPDFParser extends PDFParser
 		password = decryptionPassword;
 		keyStoreInputStream = keyStore;
 		keyAlias = alias;
-		init(pdfFile, useScratchFiles);
+		init(memUsageSetting);
 	}
 
 	/**
@@ -447,6 +578,23 @@ public class NonSequentialPDFParser extends PDFParser
 		}
 	}
 
+	/**
+	 * Sets whether the data of streams is copied while parsing. If not, the streams read their data from the
+	 * file when they are accessed, which lowers memory usage and load time of documents containing large
+	 * streams. In this case the file is kept open until the document is closed.
+	 * 
+	 * <p>
+	 * In case system property {@link #SYSPROP_SHARESTREAMSOURCE} is set to <code>true</code> this will be enabled
+	 * on initialization but can be overwritten later.
+	 * </p>
+	 * 
+	 * @param share <code>true</code> to share the file with the streams
+	 */
+	public void setShareStreamSource(boolean share)
+	{
+		shareStreamSource = share;
+	}
+
 	/**
 	 * The initial parse will first parse only the trailer, the xrefstart and all xref tables to have a pointer (offset)
 	 * to all the pdf's objects. It can handle linearized pdfs, which will have an xref at the end pointing to an xref
@@ -1017,9 +1165,42 @@ public class NonSequentialPDFParser extends PDFParser
 		}
 		finally
 		{
+			synchronized (raStream)
+			{
+				objectStreamParsers.clear();
+			}
+			if (shareStreamSource && !exceptionOccurred)
+			{
+				// the streams are still reading from the file, release it together with the document
+				document.setStreamSource(new Closeable()
+				{
+					public void close() throws IOException
+					{
+						try
+						{
+							closeFileStream();
+						}
+						finally
+						{
+							deleteTempFile();
+						}
+					}
+				});
+			}
+			else
+			{
+				try
+				{
+					closeFileStream();
+				}
+				catch (IOException ioe)
+				{
+				}
+
+				deleteTempFile();
+			}
 			try
 			{
-				closeFileStream();
 				if (keyStoreInputStream != null)
 				{
 					keyStoreInputStream.close();
@@ -1029,8 +1210,6 @@ public class NonSequentialPDFParser extends PDFParser
 			{
 			}
 
-			deleteTempFile();
-
 			if (exceptionOccurred && (document != null))
 			{
 				try
@@ -1133,36 +1312,39 @@ public class NonSequentialPDFParser extends PDFParser
 	 */
 	public PDPage getPage(int pageNr) throws IOException
 	{
-		getPagesObject();
+		synchronized (raStream)
+		{
+			getPagesObject();
 
-		// ---- get list of top level pages
-		COSArray kids = (COSArray) pagesDictionary.getDictionaryObject(COSName.KIDS);
+			// ---- get list of top level pages
+			COSArray kids = (COSArray) pagesDictionary.getDictionaryObject(COSName.KIDS);
 
-		if (kids == null)
-		{
-			throw new IOException("Missing 'Kids' entry in pages dictionary.");
-		}
+			if (kids == null)
+			{
+				throw new IOException("Missing 'Kids' entry in pages dictionary.");
+			}
 
-		// ---- get page we are looking for (possibly going recursively into
-		// subpages)
-		COSObject pageObj = getPageObject(pageNr, kids, 0);
+			// ---- get page we are looking for (possibly going recursively into
+			// subpages)
+			COSObject pageObj = getPageObject(pageNr, kids, 0);
 
-		if (pageObj == null)
-		{
-			throw new IOException("Page " + pageNr + " not found.");
-		}
+			if (pageObj == null)
+			{
+				throw new IOException("Page " + pageNr + " not found.");
+			}
 
-		// ---- parse all objects necessary to load page.
-		COSDictionary pageDict = (COSDictionary) pageObj.getObject();
+			// ---- parse all objects necessary to load page.
+			COSDictionary pageDict = (COSDictionary) pageObj.getObject();
 
-		if (parseMinimalCatalog && (!allPagesParsed))
-		{
-			// parse page resources since we did not do this on start
-			COSDictionary resDict = (COSDictionary) pageDict.getDictionaryObject(COSName.RESOURCES);
-			parseDictObjects(resDict);
-		}
+			if (parseMinimalCatalog && (!allPagesParsed))
+			{
+				// parse page resources since we did not do this on start
+				COSDictionary resDict = (COSDictionary) pageDict.getDictionaryObject(COSName.RESOURCES);
+				parseDictObjects(resDict);
+			}
 
-		return new PDPage(pageDict);
+			return new PDPage(pageDict);
+		}
 	}
 
 	/**
@@ -1443,6 +1625,21 @@ public class NonSequentialPDFParser extends PDFParser
 	 */
 	protected COSBase parseObjectDynamically(int objNr, int objGenNr,
 			boolean requireExistingNotCompressedObj) throws IOException
+	{
+		// objects may be resolved by several threads reading a frozen document; the source
+		// is shared with the streams reading their data from it, so they use the same lock
+		synchronized (raStream)
+		{
+			return resolveObject(objNr, objGenNr, requireExistingNotCompressedObj);
+		}
+	}
+
+	/**
+	 * Parses the given object if this wasn't done before, see
+	 * {@link #parseObjectDynamically(int, int, boolean)}. The caller must hold the lock of the source.
+	 */
+	private COSBase resolveObject(int objNr, int objGenNr,
+			boolean requireExistingNotCompressedObj) throws IOException
 	{
 		// ---- create object key and get object (container) from pool
 		final COSObjectKey objKey = new COSObjectKey(objNr, objGenNr);
@@ -1558,33 +1755,16 @@ public class NonSequentialPDFParser extends PDFParser
 			else
 			{
 				// xref value is object nr of object stream containing object to
-				// be parsed;
-				// since our object was not found it means object stream was not
-				// parsed so far
+				// be parsed; only this object is parsed, the other objects of the
+				// object stream are parsed when they are needed
 				final int objstmObjNr = (int) (-offsetOrObjstmObNr);
-				final COSBase objstmBaseObj = parseObjectDynamically(objstmObjNr, 0, true);
-				if (objstmBaseObj instanceof COSStream)
+				final PDFObjectStreamParser parser = getObjectStreamParser(objstmObjNr);
+				if (parser != null)
 				{
-					// parse object stream
-					PDFObjectStreamParser parser = new PDFObjectStreamParser(
-							(COSStream) objstmBaseObj, document);
-					parser.parse();
-
-					// get set of object numbers referenced for this object
-					// stream
-					final Set<Long> refObjNrs = xrefTrailerResolver
-							.getContainedObjectNumbers(objstmObjNr);
-
-					// register all objects which are referenced to be contained
-					// in object stream
-					for (COSObject next : parser.getObjects())
+					final COSBase stmObj = parser.parseObject(objNr);
+					if (stmObj != null)
 					{
-						COSObjectKey stmObjKey = new COSObjectKey(next);
-						if (refObjNrs.contains(stmObjKey.getNumber()))
-						{
-							COSObject stmObj = document.getObjectFromPool(stmObjKey);
-							stmObj.setObject(next.getObject());
-						}
+						pdfObject.setObject(stmObj);
 					}
 				}
 			}
@@ -1592,6 +1772,29 @@ public class NonSequentialPDFParser extends PDFParser
 		return pdfObject.getObject();
 	}
 
+	/**
+	 * Returns the parser of an object stream, the stream is decoded if it isn't in the cache.
+	 * The caller must hold the lock of the source.
+	 * 
+	 * @param objstmObjNr object number of the object stream
+	 * @return the parser or <code>null</code> if the object isn't a stream
+	 * @throws IOException if the object stream can't be read
+	 */
+	private PDFObjectStreamParser getObjectStreamParser(int objstmObjNr) throws IOException
+	{
+		PDFObjectStreamParser parser = objectStreamParsers.get(objstmObjNr);
+		if (parser == null)
+		{
+			final COSBase objstmBaseObj = resolveObject(objstmObjNr, 0, true);
+			if (objstmBaseObj instanceof COSStream)
+			{
+				parser = new PDFObjectStreamParser((COSStream) objstmBaseObj, document);
+				objectStreamParsers.put(objstmObjNr, parser);
+			}
+		}
+		return parser;
+	}
+
 	// ------------------------------------------------------------------------'
 	/**
      * 
@@ -1815,25 +2018,35 @@ public class NonSequentialPDFParser extends PDFParser
 			// ---- get output stream to copy data to
 			if (streamLengthObj != null && validateStreamLength(streamLengthObj.longValue()))
 			{
-				out = stream.createFilteredStream(streamLengthObj);
-				long remainBytes = streamLengthObj.longValue();
-				int bytesRead = 0;
-				while (remainBytes > 0)
+				if (shareStreamSource)
 				{
-					final int readBytes = pdfSource
-							.read(streamCopyBuf,
-									0,
-									(remainBytes > streamCopyBufLen) ? streamCopyBufLen : (int) remainBytes);
-					if (readBytes <= 0)
+					// keep a window of the file instead of copying the data
+					long streamOffset = pdfSource.getOffset();
+					stream.setFilteredStreamSource(raStream, streamOffset, streamLengthObj.longValue());
+					pdfSource.seek(streamOffset + streamLengthObj.longValue());
+				}
+				else
+				{
+					out = stream.createFilteredStream(streamLengthObj);
+					long remainBytes = streamLengthObj.longValue();
+					int bytesRead = 0;
+					while (remainBytes > 0)
 					{
-						useReadUntilEnd = true;
-						out.close();
-						pdfSource.unread(bytesRead);
-						break;
+						final int readBytes = pdfSource
+								.read(streamCopyBuf,
+										0,
+										(remainBytes > streamCopyBufLen) ? streamCopyBufLen : (int) remainBytes);
+						if (readBytes <= 0)
+						{
+							useReadUntilEnd = true;
+							out.close();
+							pdfSource.unread(bytesRead);
+							break;
+						}
+						out.write(streamCopyBuf, 0, readBytes);
+						remainBytes -= readBytes;
+						bytesRead += readBytes;
 					}
-					out.write(streamCopyBuf, 0, readBytes);
-					remainBytes -= readBytes;
-					bytesRead += readBytes;
 				}
 			}
 			else
@@ -1866,14 +2079,18 @@ public class NonSequentialPDFParser extends PDFParser
 						"Error reading stream, expected='endstream' actual='"
 								+ endStream + "' at offset " + pdfSource.getOffset());
 			}
-		}
-		finally
-		{
 			if (out != null)
 			{
 				out.close();
+				out = null;
 			}
 		}
+		finally
+		{
+			// only reached with an open stream if the stream couldn't be read, e.g. because the
+			// scratch file is full; closing it may fail then too, which mustn't hide that error
+			IOUtils.closeQuietly(out);
+		}
 		return stream;
 	}
 
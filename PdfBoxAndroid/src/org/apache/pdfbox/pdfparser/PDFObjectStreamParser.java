@@ -1,8 +1,11 @@
 package org.apache.pdfbox.pdfparser;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -10,10 +13,15 @@ import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.cos.COSDocument;
 import org.apache.pdfbox.cos.COSInteger;
 import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.io.PushBackInputStream;
+import org.apache.pdfbox.io.RandomAccessRead;
 
 /**
  * This will parse a PDF 1.5 object stream and extract all of the objects from the stream.
+ * The objects can also be parsed one by one with {@link #parseObject(long)}.
  *
  * @author <a href="mailto:ben@benlitchfield.com">Ben Litchfield</a>
  * @version $Revision: 1.6 $
@@ -26,8 +34,12 @@ public class PDFObjectStreamParser extends BaseParser
     private static final Log LOG =
         LogFactory.getLog(PDFObjectStreamParser.class);
 
+    // objects in object streams can't be streams, so there is no need for a big push back buffer
+    private static final int PUSHBACK_SIZE = 4096;
+
     private List<COSObject> streamObjects = null;
     private List<Long> objectNumbers = null;
+    private Map<Long, Integer> objectOffsets = null;
     private COSStream stream;
 
     /**
@@ -39,9 +51,10 @@ public class PDFObjectStreamParser extends BaseParser
      */
     public PDFObjectStreamParser(COSStream strm, COSDocument doc) throws IOException
     {
-        super(strm.getUnfilteredStream());
         setDocument(doc);
         stream = strm;
+        pdfSource = new PushBackInputStream(
+                new ByteArraySource(IOUtils.toByteArray(strm.getUnfilteredStream())), PUSHBACK_SIZE);
     }
 
     /**
@@ -93,6 +106,42 @@ public class PDFObjectStreamParser extends BaseParser
         }
     }
 
+    /**
+     * This will parse a single object of the stream. The offsets of the objects are read
+     * from the header of the stream when this is called the first time; the decoded data is
+     * kept, so the other objects of the stream can be parsed later on.
+     *
+     * @param objectNumber The number of the object.
+     * @return The object or null if the stream doesn't contain it.
+     * @throws IOException If there is an error while parsing the stream.
+     */
+    public COSBase parseObject(long objectNumber) throws IOException
+    {
+        if (objectOffsets == null)
+        {
+            int numberOfObjects = stream.getInt( "N" );
+            Map<Long, Integer> offsets = new HashMap<Long, Integer>( numberOfObjects * 2 );
+            for( int i=0; i<numberOfObjects; i++ )
+            {
+                long number = readObjectNumber();
+                int offset = readInt();
+                // the first entry wins if an object number is listed twice
+                if (!offsets.containsKey(number))
+                {
+                    offsets.put(number, offset);
+                }
+            }
+            objectOffsets = offsets;
+        }
+        Integer offset = objectOffsets.get(objectNumber);
+        if (offset == null)
+        {
+            return null;
+        }
+        pdfSource.seek(stream.getInt(COSName.FIRST) + offset);
+        return parseDirObject();
+    }
+
     /**
      * This will get the objects that were parsed from the stream.
      *
@@ -102,4 +151,34 @@ public class PDFObjectStreamParser extends BaseParser
     {
         return streamObjects;
     }
+
+    /**
+     * The decoded data of the stream, it can be seeked to read the objects in any order.
+     */
+    private static final class ByteArraySource extends ByteArrayInputStream implements RandomAccessRead
+    {
+        private ByteArraySource(byte[] data)
+        {
+            super(data);
+        }
+
+        public long getPosition()
+        {
+            return pos;
+        }
+
+        public void seek(long position) throws IOException
+        {
+            if (position < 0 || position > count)
+            {
+                throw new IOException("Error: offset " + position + " is outside of the object stream");
+            }
+            pos = (int)position;
+        }
+
+        public long length()
+        {
+            return count;
+        }
+    }
 }
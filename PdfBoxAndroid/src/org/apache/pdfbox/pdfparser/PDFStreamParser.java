@@ -11,6 +11,7 @@ import java.util.NoSuchElementException;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.pdfbox.contentstream.operator.OperandBuffer;
 import org.apache.pdfbox.contentstream.operator.Operator;
 import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.cos.COSBoolean;
@@ -38,6 +39,7 @@ public class PDFStreamParser extends BaseParser
 	//    private final RandomAccess file;
 	private final int    MAX_BIN_CHAR_TEST_LENGTH = 10;
 	private final byte[] binCharTestArr = new byte[MAX_BIN_CHAR_TEST_LENGTH];
+	private char[] numberChars = new char[32];
 
 	/**
 	 * Constructor that takes a stream to parse.
@@ -174,6 +176,87 @@ public class PDFStreamParser extends BaseParser
 				};
 	}
 
+	/**
+	 * This will parse the operands of the next operator into the given buffer and return the
+	 * operator. Other than {@link #getTokenIterator()} this doesn't create COS objects for
+	 * the numbers, so a content stream can be processed without creating objects for every
+	 * operator.
+	 *
+	 * @param operands the buffer for the operands, it is cleared first
+	 * @return the next operator or null if there are no more operators in the stream
+	 *
+	 * @throws IOException If an io error occurs while parsing the stream.
+	 */
+	public Operator nextOperator(OperandBuffer operands) throws IOException
+	{
+		operands.clear();
+		while (true)
+		{
+			skipSpaces();
+			int nextByte = pdfSource.peek();
+			if (((byte)nextByte) == -1)
+			{
+				return null;
+			}
+			char c = (char)nextByte;
+			if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.')
+			{
+				int length = readNumber();
+				operands.addNumber(numberChars, 0, length);
+				continue;
+			}
+			Object token = parseNextToken();
+			if (token == null)
+			{
+				return null;
+			}
+			if (token instanceof Operator)
+			{
+				return (Operator)token;
+			}
+			if (token instanceof COSObject)
+			{
+				operands.add(((COSObject)token).getObject());
+			}
+			else
+			{
+				operands.add((COSBase)token);
+			}
+		}
+	}
+
+	/**
+	 * Reads the characters of a number into {@link #numberChars}. Only 1 "." and "-" and "+"
+	 * at start of number are allowed, like in {@link #parseNextToken()}.
+	 *
+	 * @return the number of characters
+	 * @throws IOException If an io error occurs while reading the stream.
+	 */
+	private int readNumber() throws IOException
+	{
+		char c = (char)pdfSource.read();
+		numberChars[0] = c;
+		int length = 1;
+		boolean dotNotRead = c != '.';
+		while( Character.isDigit(c = (char)pdfSource.peek()) || dotNotRead && c == '.')
+		{
+			if (length == numberChars.length)
+			{
+				char[] newNumberChars = new char[length * 2];
+				System.arraycopy(numberChars, 0, newNumberChars, 0, length);
+				numberChars = newNumberChars;
+			}
+			numberChars[length++] = c;
+			pdfSource.read();
+
+			if (dotNotRead && c == '.')
+			{
+				dotNotRead = false;
+			}
+		}
+		return length;
+	}
+
 	/**
 	 * This will parse the next token in the stream.
 	 *
@@ -88,6 +88,12 @@ public class PDFXRefStream implements PDFXRef
         Set<COSName> keySet = stream.keySet();
         for ( COSName cosName : keySet )
         {
+            if (COSName.ROOT.equals(cosName) || COSName.INFO.equals(cosName)
+                    || COSName.ENCRYPT.equals(cosName))
+            {
+                // these are references to objects which are written on their own
+                continue;
+            }
             COSBase dictionaryObject = stream.getDictionaryObject(cosName);
             dictionaryObject.setDirect(true);
         }
@@ -129,10 +135,16 @@ public class PDFXRefStream implements PDFXRef
             value.nextFree = entry.getKey().getNumber();
             streamData.put((int)value.nextFree, value);
         }
+        else if (entry.isInObjectStream())
+        {
+            ObjectStreamReference value = new ObjectStreamReference();
+            value.objectNumberOfObjectStream = entry.getObjectStreamNumber();
+            value.index = entry.getObjectStreamIndex();
+            streamData.put((int)entry.getKey().getNumber(), value);
+        }
         else
         {
-            // we don't care for ObjectStreamReferences for now and only handle
-            // normal references that would be f-Entrys in the xref table.
+            // normal references that would be n-Entrys in the xref table.
             NormalReference value = new NormalReference();
             value.genNumber = entry.getKey().getGeneration();
             value.offset = entry.getOffset();
@@ -168,8 +180,8 @@ public class PDFXRefStream implements PDFXRef
             {
                 ObjectStreamReference objStream = (ObjectStreamReference)entry;
                 wMax[0] = Math.max(wMax[0], ENTRY_OBJSTREAM); // the type field for a objstm reference
-                wMax[1] = Math.max(wMax[1], objStream.offset);
-                wMax[2] = Math.max(wMax[2], objStream.objectNumberOfObjectStream);
+                wMax[1] = Math.max(wMax[1], objStream.objectNumberOfObjectStream);
+                wMax[2] = Math.max(wMax[2], objStream.index);
             }
             // TODO add here if new standard versions define new types
             else
@@ -274,8 +286,8 @@ public class PDFXRefStream implements PDFXRef
             {
                 ObjectStreamReference objStream = (ObjectStreamReference)entry;
                 writeNumber(os, ENTRY_OBJSTREAM, w[0]);
-                writeNumber(os, objStream.offset, w[1]);
-                writeNumber(os, objStream.objectNumberOfObjectStream, w[2]);
+                writeNumber(os, objStream.objectNumberOfObjectStream, w[1]);
+                writeNumber(os, objStream.index, w[2]);
             }
             // TODO add here if new standard versions define new types
             else
@@ -294,7 +306,7 @@ public class PDFXRefStream implements PDFXRef
     class ObjectStreamReference
     {
         long objectNumberOfObjectStream;
-        long offset;
+        long index;
     }
 
     /**
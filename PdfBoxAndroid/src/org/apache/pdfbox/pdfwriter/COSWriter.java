@@ -186,6 +186,16 @@ public class COSWriter implements ICOSVisitor, Closeable
     private PDDocument document = null;
     private boolean willEncrypt = false;
 
+    // object streams
+    private static final int OBJECT_STREAM_SIZE = 100;
+    private boolean compress = false;
+    private boolean writeObjectStreams = false;
+    private ByteArrayOutputStream objectStreamData = null;
+    private COSStandardOutputStream objectStreamOutput = null;
+    private List<COSObjectKey> objectStreamKeys = new ArrayList<COSObjectKey>();
+    private List<COSBase> objectStreamObjects = new ArrayList<COSBase>();
+    private List<Long> objectStreamOffsets = new ArrayList<Long>();
+
     // signing
     private boolean incrementalUpdate = false;
     private boolean reachedSignature = false;
@@ -397,6 +407,30 @@ public class COSWriter implements ICOSVisitor, Closeable
         startxref = newStartxref;
     }
 
+    /**
+     * Tells whether the objects are packed into object streams and a cross reference stream
+     * is written.
+     *
+     * @return true if the output is compressed.
+     */
+    public boolean isCompress()
+    {
+        return compress;
+    }
+
+    /**
+     * If set to true, all objects which aren't streams are packed into Flate compressed
+     * object streams and the cross reference section is written as a cross reference stream,
+     * which needs at least PDF 1.5. This is ignored for incremental updates and for encrypted
+     * documents, where the objects are written as usual. The default is false.
+     *
+     * @param compress true to write object streams and a cross reference stream.
+     */
+    public void setCompress(boolean compress)
+    {
+        this.compress = compress;
+    }
+
     /**
      * This will write the body of the document.
      *
@@ -440,6 +474,12 @@ public class COSWriter implements ICOSVisitor, Closeable
             objectsToWriteSet.remove(nextObject);
             doWriteObject( nextObject );
         }
+
+        if (writeObjectStreams)
+        {
+            // the stream lengths are direct, so this doesn't add new objects
+            doWriteObjectStream();
+        }
     }
 
     private void addObjectToWrite( COSBase object )
@@ -506,6 +546,11 @@ public class COSWriter implements ICOSVisitor, Closeable
 
         // find the physical reference
         currentObjectKey = getObjectKey( obj );
+        if (writeObjectStreams && canBeInObjectStream(obj, currentObjectKey))
+        {
+            doWriteObjectToObjectStream(obj);
+            return;
+        }
         // add a x ref entry
         addXRefEntry( new COSWriterXRefEntry(getStandardOutput().getPos(), obj, currentObjectKey));
         // write the object
@@ -521,6 +566,103 @@ public class COSWriter implements ICOSVisitor, Closeable
         getStandardOutput().writeEOL();
     }
 
+    /**
+     * Streams, objects with a generation other than 0, the encryption dictionary and
+     * missing objects must not be stored in an object stream.
+     */
+    private boolean canBeInObjectStream(COSBase obj, COSObjectKey key)
+    {
+        COSBase actual = obj;
+        if (actual instanceof COSObject)
+        {
+            actual = ((COSObject)actual).getObject();
+        }
+        return actual != null && !(actual instanceof COSStream) && key.getGeneration() == 0
+                && actual != document.getDocument().getTrailer().getDictionaryObject(COSName.ENCRYPT);
+    }
+
+    /**
+     * Writes an object to the buffer of the current object stream and writes the object
+     * stream when it is full.
+     */
+    private void doWriteObjectToObjectStream(COSBase obj) throws IOException
+    {
+        if (objectStreamOutput == null)
+        {
+            objectStreamData = new ByteArrayOutputStream();
+            objectStreamOutput = new COSStandardOutputStream(objectStreamData);
+        }
+        objectStreamKeys.add(currentObjectKey);
+        objectStreamObjects.add(obj);
+        objectStreamOffsets.add(objectStreamOutput.getPos());
+        COSStandardOutputStream previous = getStandardOutput();
+        setStandardOutput(objectStreamOutput);
+        try
+        {
+            obj.accept(this);
+            getStandardOutput().writeEOL();
+        }
+        finally
+        {
+            setStandardOutput(previous);
+        }
+        if (objectStreamKeys.size() >= OBJECT_STREAM_SIZE)
+        {
+            doWriteObjectStream();
+        }
+    }
+
+    /**
+     * Writes the buffered objects as a compressed object stream and adds their xref entries.
+     */
+    private void doWriteObjectStream() throws IOException
+    {
+        if (objectStreamKeys.isEmpty())
+        {
+            return;
+        }
+        StringBuilder header = new StringBuilder();
+        for (int i = 0; i < objectStreamKeys.size(); i++)
+        {
+            header.append(objectStreamKeys.get(i).getNumber());
+            header.append(' ');
+            header.append(objectStreamOffsets.get(i));
+            header.append(' ');
+        }
+        byte[] headerBytes = header.toString().getBytes("ISO-8859-1");
+
+        COSStream objectStream = document.getDocument().createCOSStream();
+        objectStream.setItem(COSName.TYPE, COSName.OBJ_STM);
+        objectStream.setInt(COSName.N, objectStreamKeys.size());
+        objectStream.setInt(COSName.FIRST, headerBytes.length);
+        objectStream.setFilters(COSName.FLATE_DECODE);
+        OutputStream out = objectStream.createUnfilteredStream();
+        try
+        {
+            out.write(headerBytes);
+            objectStreamData.writeTo(out);
+        }
+        finally
+        {
+            out.close();
+        }
+
+        List<COSObjectKey> keys = new ArrayList<COSObjectKey>(objectStreamKeys);
+        List<COSBase> objects = new ArrayList<COSBase>(objectStreamObjects);
+        objectStreamKeys.clear();
+        objectStreamObjects.clear();
+        objectStreamOffsets.clear();
+        objectStreamData = null;
+        objectStreamOutput = null;
+
+        doWriteObject(objectStream);
+        long objectStreamNumber = currentObjectKey.getNumber();
+        for (int i = 0; i < keys.size(); i++)
+        {
+            addXRefEntry(new COSWriterXRefEntry(objectStreamNumber, i, objects.get(i), keys.get(i)));
+        }
+    }
+
     /**
      * This will write the header to the PDF document.
      *
@@ -530,7 +672,13 @@ public class COSWriter implements ICOSVisitor, Closeable
      */
     protected void doWriteHeader(COSDocument doc) throws IOException
     {
-        getStandardOutput().write( doc.getHeaderString().getBytes("ISO-8859-1") );
+        String headerString = doc.getHeaderString();
+        if (writeObjectStreams && doc.getVersion() < 1.5f)
+        {
+            // object and cross reference streams were introduced with PDF 1.5
+            headerString = "%PDF-1.5";
+        }
+        getStandardOutput().write( headerString.getBytes("ISO-8859-1") );
         getStandardOutput().writeEOL();
         getStandardOutput().write(COMMENT);
         getStandardOutput().write(GARBAGE);
@@ -643,6 +791,34 @@ public class COSWriter implements ICOSVisitor, Closeable
         }
     }
 
+    /**
+     * Write the cross reference stream of a compressed document, which also contains the
+     * trailer entries.
+     */
+    private void doWriteXRefStream(COSDocument doc) throws IOException
+    {
+        PDFXRefStream pdfxRefStream = new PDFXRefStream();
+        pdfxRefStream.addEntry(COSWriterXRefEntry.getNullEntry());
+        for ( COSWriterXRefEntry cosWriterXRefEntry : getXRefEntries() )
+        {
+            pdfxRefStream.addEntry(cosWriterXRefEntry);
+        }
+
+        COSDictionary trailer = doc.getTrailer();
+        trailer.removeItem( COSName.PREV );
+        trailer.removeItem( COSName.XREF_STM );
+        trailer.removeItem( COSName.DOC_CHECKSUM );
+        pdfxRefStream.addTrailerInfo(trailer);
+        // the size is the highest object number+1. we add one more
+        // for the xref stream object we are going to write
+        pdfxRefStream.setSize(getNumber() + 2);
+
+        setStartxref(getStandardOutput().getPos());
+        // the xref stream itself must not be in an object stream
+        writeObjectStreams = false;
+        doWriteObject(pdfxRefStream.getStream());
+    }
+
     private void doWriteXRefInc(COSDocument doc, long hybridPrev) throws IOException
     {
         if (doc.isXRefStream() || hybridPrev != -1)
@@ -1082,17 +1258,22 @@ public class COSWriter implements ICOSVisitor, Closeable
             hybridPrev = trailer.getLong(COSName.XREF_STM);
         }
 
+        boolean xrefStream = writeObjectStreams;
         if(incrementalUpdate)
         {
             doWriteXRefInc(doc, hybridPrev);
         }
+        else if (xrefStream)
+        {
+            doWriteXRefStream(doc);
+        }
         else
         {
             doWriteXRef(doc);
         }
 
         // the trailer section should only be used for xref tables not for xref streams
-        if (!incrementalUpdate || !doc.isXRefStream() || hybridPrev != -1)
+        if (!xrefStream && (!incrementalUpdate || !doc.isXRefStream() || hybridPrev != -1))
         {
             doWriteTrailer(doc);
         }
@@ -1170,10 +1351,12 @@ public class COSWriter implements ICOSVisitor, Closeable
 
         COSObject lengthObject = null;
         // check if the length object is required to be direct, like in
-        // a cross reference stream dictionary
+        // a cross reference stream dictionary; with object streams all lengths are
+        // direct, as parsers can't read a length from an object stream while they parse it
         COSBase lengthEntry = obj.getDictionaryObject(COSName.LENGTH);
         String type = obj.getNameAsString(COSName.TYPE);
-        if (lengthEntry != null && lengthEntry.isDirect() || "XRef".equals(type))
+        if (lengthEntry != null && lengthEntry.isDirect() || "XRef".equals(type)
+                || writeObjectStreams)
         {
             // the length might be the non encoded length,
             // set the real one as direct object
@@ -1344,6 +1527,9 @@ public class COSWriter implements ICOSVisitor, Closeable
             idArray.add( secondID );
             trailer.setItem( COSName.ID, idArray );
         }
+        // the strings in an object stream are encrypted with the whole stream, which isn't
+        // supported, so encrypted documents are written without object streams
+        writeObjectStreams = compress && !incrementalUpdate && !willEncrypt;
         cosDoc.accept(this);
     }
 
@@ -1441,4 +1627,4 @@ public class COSWriter implements ICOSVisitor, Closeable
     		output.write('>');
     	}
     }
-}
\ No newline at end of file
+}
@@ -17,6 +17,8 @@ public class COSWriterXRefEntry implements Comparable<COSWriterXRefEntry>
     private COSBase object;
     private COSObjectKey key;
     private boolean free = false;
+    private long objectStreamNumber = -1;
+    private int objectStreamIndex = -1;
     private static COSWriterXRefEntry nullEntry;
 
 
@@ -125,6 +127,51 @@ public class COSWriterXRefEntry implements Comparable<COSWriterXRefEntry>
         setKey(keyValue);
     }
 
+    /**
+     * Constructor for an entry of an object which is stored in an object stream.
+     *
+     * @param objectStreamNumber The object number of the object stream.
+     * @param index The index of the object within the object stream.
+     * @param obj The COS object that this entry represents.
+     * @param keyValue The key to the COS object.
+     */
+    public COSWriterXRefEntry(long objectStreamNumber, int index, COSBase obj, COSObjectKey keyValue)
+    {
+        this(0, obj, keyValue);
+        this.objectStreamNumber = objectStreamNumber;
+        this.objectStreamIndex = index;
+    }
+
+    /**
+     * Tells whether the object is stored in an object stream instead of at an offset.
+     *
+     * @return true if the object is stored in an object stream.
+     */
+    public boolean isInObjectStream()
+    {
+        return objectStreamNumber >= 0;
+    }
+
+    /**
+     * This will get the object number of the object stream containing the object.
+     *
+     * @return The object number of the object stream or -1.
+     */
+    public long getObjectStreamNumber()
+    {
+        return objectStreamNumber;
+    }
+
+    /**
+     * This will get the index of the object within its object stream.
+     *
+     * @return The index of the object or -1.
+     */
+    public int getObjectStreamIndex()
+    {
+        return objectStreamIndex;
+    }
+
     /**
      * This will get the object.
      *
@@ -0,0 +1,522 @@
+package org.apache.pdfbox.pdfwriter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSBoolean;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSDocument;
+import org.apache.pdfbox.cos.COSFloat;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSNull;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.cos.ICOSVisitor;
+import org.apache.pdfbox.pdmodel.PDDocumentInformation;
+import org.apache.pdfbox.pdmodel.PDPage;
+
+/**
+ * Writes a PDF document page by page. Every page is written to the output together with all
+ * objects it references which weren't written before, as soon as it is added. The page tree,
+ * the catalog and the cross reference table are written when the writer is closed.
+ *
+ * Unlike {@link COSWriter} this writer doesn't need the whole document in memory: the written
+ * objects are only remembered as long as they are reachable from somewhere else, so a page,
+ * its annotations and its resources can be garbage collected once the caller drops them,
+ * while resources which are kept and used again, like fonts, are written only once. Only
+ * the offset of every object and the object number of every page are kept until the end,
+ * which is a few bytes per object.
+ *
+ * The pages and their content streams can be created with a {@link org.apache.pdfbox.pdmodel.PDDocument}
+ * which serves as factory for the streams, but the pages must not be added to it. Objects
+ * must not be changed after the page referencing them was added, as they aren't written
+ * again. The content streams of a page are closed after they are written, which releases
+ * their buffers.
+ */
+public class StreamingPDFWriter implements ICOSVisitor, Closeable
+{
+    // the stream used to write standard cos data
+    private final COSStandardOutputStream output;
+
+    // the object numbers of the written objects, see the class comment
+    private final Map<COSBase, Long> objectNumbers = new WeakHashMap<COSBase, Long>();
+
+    // objects which got an object number but are not yet written
+    private final LinkedList<COSBase> objectsToWrite = new LinkedList<COSBase>();
+
+    // the offset of every object, by object number
+    private long[] offsets = new long[1024];
+
+    // the object numbers of the pages
+    private long[] pages = new long[256];
+    private int pageCount = 0;
+
+    // the current object number
+    private long number = 0;
+
+    private final COSDictionary pagesRoot = new COSDictionary();
+    private final long pagesRootNumber;
+    private PDDocumentInformation information;
+    private boolean closed = false;
+
+    /**
+     * Constructor, writes the header of the document.
+     *
+     * @param output The stream to write the document to, it is closed by {@link #close()}.
+     *
+     * @throws IOException If the header can't be written.
+     */
+    public StreamingPDFWriter(OutputStream output) throws IOException
+    {
+        this.output = new COSStandardOutputStream(output);
+        this.output.write(COSWriter.COMMENT);
+        this.output.write(COSWriter.VERSION);
+        this.output.writeEOL();
+        this.output.write(COSWriter.COMMENT);
+        this.output.write(COSWriter.GARBAGE);
+        this.output.writeEOL();
+        // the page tree root is referenced by every page, but only written at the end
+        pagesRootNumber = ++number;
+        objectNumbers.put(pagesRoot, pagesRootNumber);
+    }
+
+    /**
+     * This will set the document information which is written when the writer is closed.
+     *
+     * @param info The document information, may be null.
+     */
+    public void setDocumentInformation(PDDocumentInformation info)
+    {
+        information = info;
+    }
+
+    /**
+     * This will get the number of pages which were added so far.
+     *
+     * @return The number of pages.
+     */
+    public int getNumberOfPages()
+    {
+        return pageCount;
+    }
+
+    /**
+     * This will write a page and all objects it references which weren't written yet. The page
+     * is the next page of the document.
+     *
+     * @param page The page to add.
+     *
+     * @throws IOException If the page can't be written.
+     */
+    public void addPage(PDPage page) throws IOException
+    {
+        if (closed)
+        {
+            throw new IllegalStateException("Error: the writer is already closed");
+        }
+        COSDictionary pageDict = page.getCOSObject();
+        if (objectNumbers.containsKey(pageDict))
+        {
+            throw new IllegalArgumentException("Error: the page was already written");
+        }
+        pageDict.setItem(COSName.PARENT, pagesRoot);
+        long pageNumber = getObjectNumber(pageDict);
+        doWriteObjects();
+
+        if (pageCount == pages.length)
+        {
+            pages = Arrays.copyOf(pages, pageCount * 2);
+        }
+        pages[pageCount++] = pageNumber;
+
+        closeContents(pageDict.getDictionaryObject(COSName.CONTENTS));
+    }
+
+    private void closeContents(COSBase contents)
+    {
+        if (contents instanceof COSStream)
+        {
+            ((COSStream)contents).close();
+        }
+        else if (contents instanceof COSArray)
+        {
+            for (COSBase item : (COSArray)contents)
+            {
+                if (item instanceof COSObject)
+                {
+                    item = ((COSObject)item).getObject();
+                }
+                closeContents(item);
+            }
+        }
+    }
+
+    /**
+     * This will write the page tree, the catalog, the document information and the cross
+     * reference table and close the output. It does nothing if the writer is already closed.
+     *
+     * @throws IOException If the output can't be written.
+     */
+    public void close() throws IOException
+    {
+        if (closed)
+        {
+            return;
+        }
+        closed = true;
+        try
+        {
+            doWritePageTree();
+
+            COSDictionary catalog = new COSDictionary();
+            catalog.setItem(COSName.TYPE, COSName.CATALOG);
+            catalog.setItem(COSName.PAGES, pagesRoot);
+            COSDictionary trailer = new COSDictionary();
+            trailer.setItem(COSName.ROOT, catalog);
+            getObjectNumber(catalog);
+            if (information != null)
+            {
+                trailer.setItem(COSName.INFO, information.getDictionary());
+                getObjectNumber(information.getDictionary());
+            }
+            doWriteObjects();
+
+            long startxref = output.getPos();
+            doWriteXRef();
+            trailer.setLong(COSName.SIZE, number + 1);
+            trailer.setItem(COSName.ID, createID());
+            output.write(COSWriter.TRAILER);
+            output.writeEOL();
+            trailer.accept(this);
+            output.write(COSWriter.STARTXREF);
+            output.writeEOL();
+            output.write(String.valueOf(startxref).getBytes("ISO-8859-1"));
+            output.writeEOL();
+            output.write(COSWriter.EOF);
+            output.writeEOL();
+        }
+        finally
+        {
+            output.close();
+        }
+    }
+
+    private void doWritePageTree() throws IOException
+    {
+        setOffset(pagesRootNumber);
+        writeObjectHeader(pagesRootNumber);
+        output.write(COSWriter.DICT_OPEN);
+        output.writeEOL();
+        COSName.TYPE.writePDF(output);
+        output.write(COSWriter.SPACE);
+        COSName.PAGES.writePDF(output);
+        output.writeEOL();
+        COSName.KIDS.writePDF(output);
+        output.write(COSWriter.SPACE);
+        output.write(COSWriter.ARRAY_OPEN);
+        for (int i = 0; i < pageCount; i++)
+        {
+            if (i > 0)
+            {
+                if (i % 10 == 0)
+                {
+                    output.writeEOL();
+                }
+                else
+                {
+                    output.write(COSWriter.SPACE);
+                }
+            }
+            writeReference(pages[i]);
+        }
+        output.write(COSWriter.ARRAY_CLOSE);
+        output.writeEOL();
+        COSName.COUNT.writePDF(output);
+        output.write(COSWriter.SPACE);
+        output.write(String.valueOf(pageCount).getBytes("ISO-8859-1"));
+        output.writeEOL();
+        output.write(COSWriter.DICT_CLOSE);
+        output.writeEOL();
+        writeObjectTrailer();
+    }
+
+    private void doWriteXRef() throws IOException
+    {
+        output.write(COSWriter.XREF);
+        output.writeEOL();
+        output.write(("0 " + (number + 1)).getBytes("ISO-8859-1"));
+        output.writeEOL();
+        output.write("0000000000 65535 f".getBytes("ISO-8859-1"));
+        output.writeCRLF();
+        StringBuilder entry = new StringBuilder();
+        for (int i = 1; i <= number; i++)
+        {
+            entry.setLength(0);
+            String offset = String.valueOf(offsets[i]);
+            for (int j = offset.length(); j < 10; j++)
+            {
+                entry.append('0');
+            }
+            entry.append(offset).append(" 00000 n");
+            output.write(entry.toString().getBytes("ISO-8859-1"));
+            output.writeCRLF();
+        }
+    }
+
+    private COSArray createID() throws IOException
+    {
+        MessageDigest md5;
+        try
+        {
+            md5 = MessageDigest.getInstance("MD5");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            // should never happen
+            throw new RuntimeException(e);
+        }
+        md5.update(Long.toString(System.currentTimeMillis()).getBytes("ISO-8859-1"));
+        md5.update(Long.toString(output.getPos()).getBytes("ISO-8859-1"));
+        COSString id = new COSString(md5.digest());
+        COSArray idArray = new COSArray();
+        idArray.add(id);
+        idArray.add(id);
+        return idArray;
+    }
+
+    /**
+     * Returns the object number of an indirect object and schedules it for writing if it
+     * doesn't have one yet.
+     */
+    private long getObjectNumber(COSBase obj)
+    {
+        Long objectNumber = objectNumbers.get(obj);
+        if (objectNumber == null)
+        {
+            objectNumber = ++number;
+            objectNumbers.put(obj, objectNumber);
+            objectsToWrite.add(obj);
+        }
+        return objectNumber;
+    }
+
+    private void doWriteObjects() throws IOException
+    {
+        while (!objectsToWrite.isEmpty())
+        {
+            COSBase obj = objectsToWrite.removeFirst();
+            long objectNumber = objectNumbers.get(obj);
+            setOffset(objectNumber);
+            writeObjectHeader(objectNumber);
+            obj.accept(this);
+            writeObjectTrailer();
+        }
+    }
+
+    private void setOffset(long objectNumber)
+    {
+        if (objectNumber >= offsets.length)
+        {
+            offsets = Arrays.copyOf(offsets, (int)Math.max(offsets.length * 2, objectNumber + 1));
+        }
+        offsets[(int)objectNumber] = output.getPos();
+    }
+
+    private void writeObjectHeader(long objectNumber) throws IOException
+    {
+        output.write(String.valueOf(objectNumber).getBytes("ISO-8859-1"));
+        output.write(COSWriter.SPACE);
+        output.write('0');
+        output.write(COSWriter.SPACE);
+        output.write(COSWriter.OBJ);
+        output.writeEOL();
+    }
+
+    private void writeObjectTrailer() throws IOException
+    {
+        output.writeEOL();
+        output.write(COSWriter.ENDOBJ);
+        output.writeEOL();
+    }
+
+    private void writeReference(long objectNumber) throws IOException
+    {
+        output.write(String.valueOf(objectNumber).getBytes("ISO-8859-1"));
+        output.write(COSWriter.SPACE);
+        output.write('0');
+        output.write(COSWriter.SPACE);
+        output.write(COSWriter.REFERENCE);
+    }
+
+    /**
+     * Writes a value of an array or a dictionary. Dictionaries and streams are written as
+     * references unless they are direct, like {@link COSWriter} does.
+     */
+    private void writeValue(COSBase value) throws IOException
+    {
+        if (value instanceof COSObject)
+        {
+            value = ((COSObject)value).getObject();
+            if (value instanceof COSDictionary)
+            {
+                writeReference(getObjectNumber(value));
+                return;
+            }
+        }
+        else if (value instanceof COSStream
+                || value instanceof COSDictionary && !value.isDirect())
+        {
+            writeReference(getObjectNumber(value));
+            return;
+        }
+        if (value == null)
+        {
+            value = COSNull.NULL;
+        }
+        value.accept(this);
+    }
+
+    @Override
+    public Object visitFromArray(COSArray obj) throws IOException
+    {
+        output.write(COSWriter.ARRAY_OPEN);
+        int count = 0;
+        for (Iterator<COSBase> i = obj.iterator(); i.hasNext();)
+        {
+            writeValue(i.next());
+            count++;
+            if (i.hasNext())
+            {
+                if (count % 10 == 0)
+                {
+                    output.writeEOL();
+                }
+                else
+                {
+                    output.write(COSWriter.SPACE);
+                }
+            }
+        }
+        output.write(COSWriter.ARRAY_CLOSE);
+        output.writeEOL();
+        return null;
+    }
+
+    @Override
+    public Object visitFromBoolean(COSBoolean obj) throws IOException
+    {
+        obj.writePDF(output);
+        return null;
+    }
+
+    @Override
+    public Object visitFromDictionary(COSDictionary obj) throws IOException
+    {
+        output.write(COSWriter.DICT_OPEN);
+        output.writeEOL();
+        for (Map.Entry<COSName, COSBase> entry : obj.entrySet())
+        {
+            // dangling references are left out, like in COSWriter
+            if (entry.getValue() != null)
+            {
+                entry.getKey().writePDF(output);
+                output.write(COSWriter.SPACE);
+                writeValue(entry.getValue());
+                output.writeEOL();
+            }
+        }
+        output.write(COSWriter.DICT_CLOSE);
+        output.writeEOL();
+        return null;
+    }
+
+    /**
+     * Not supported, use {@link COSWriter} to write a whole document.
+     *
+     * @param doc The document.
+     * @return never.
+     */
+    @Override
+    public Object visitFromDocument(COSDocument doc)
+    {
+        throw new UnsupportedOperationException("Error: use COSWriter to write a whole document");
+    }
+
+    @Override
+    public Object visitFromFloat(COSFloat obj) throws IOException
+    {
+        obj.writePDF(output);
+        return null;
+    }
+
+    @Override
+    public Object visitFromInt(COSInteger obj) throws IOException
+    {
+        obj.writePDF(output);
+        return null;
+    }
+
+    @Override
+    public Object visitFromName(COSName obj) throws IOException
+    {
+        obj.writePDF(output);
+        return null;
+    }
+
+    @Override
+    public Object visitFromNull(COSNull obj) throws IOException
+    {
+        obj.writePDF(output);
+        return null;
+    }
+
+    @Override
+    public Object visitFromStream(COSStream obj) throws IOException
+    {
+        // the length is known, so it is written as direct object
+        COSInteger length = COSInteger.get(obj.getFilteredLength());
+        length.setDirect(true);
+        obj.setItem(COSName.LENGTH, length);
+        visitFromDictionary(obj);
+        output.write(COSWriter.STREAM);
+        output.writeCRLF();
+        InputStream input = obj.getFilteredStream();
+        try
+        {
+            byte[] buffer = new byte[4096];
+            int amountRead;
+            while ((amountRead = input.read(buffer)) != -1)
+            {
+                output.write(buffer, 0, amountRead);
+            }
+        }
+        finally
+        {
+            input.close();
+        }
+        output.writeCRLF();
+        output.write(COSWriter.ENDSTREAM);
+        output.writeEOL();
+        return null;
+    }
+
+    @Override
+    public Object visitFromString(COSString obj) throws IOException
+    {
+        COSWriter.writeString(obj, output);
+        return null;
+    }
+}
@@ -10,8 +10,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.pdfbox.cos.COSArray;
 import org.apache.pdfbox.cos.COSBase;
@@ -21,6 +23,7 @@ import org.apache.pdfbox.cos.COSInteger;
 import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.cos.COSObject;
 import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdfparser.BaseParser;
 import org.apache.pdfbox.pdfparser.NonSequentialPDFParser;
 import org.apache.pdfbox.pdfparser.PDFParser;
@@ -37,6 +40,8 @@ import org.apache.pdfbox.pdmodel.encryption.SecurityHandlerFactory;
 import org.apache.pdfbox.pdmodel.encryption.StandardDecryptionMaterial;
 import org.apache.pdfbox.pdmodel.encryption.StandardProtectionPolicy;
 import org.apache.pdfbox.pdmodel.encryption.StandardSecurityHandler;
+import org.apache.pdfbox.pdmodel.font.GlyphCache;
+import org.apache.pdfbox.pdmodel.font.PDFont;
 import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotation;
 import org.apache.pdfbox.pdmodel.interactive.annotation.PDAppearanceDictionary;
 import org.apache.pdfbox.pdmodel.interactive.annotation.PDAppearanceStream;
@@ -81,13 +86,33 @@ public class PDDocument implements Closeable
 	// the access permissions of the document
 	private AccessPermission accessPermission;
 
+	// the resources which are shared by the pages
+	private ResourceCache resourceCache = new ResourceCache();
+
+	// the glyph outlines which are shared by the pages when rendering
+	private GlyphCache glyphCache = new GlyphCache();
+
+	// the fonts which are subset when the document is saved
+	private final Set<PDFont> fontsToSubset = new LinkedHashSet<PDFont>();
+
 	/**
 	 * Creates an empty PDF document.
 	 * You need to add at least one page for the document to be valid.
 	 */
 	public PDDocument()
 	{
-		document = new COSDocument();
+		this(MemoryUsageSetting.setupMainMemoryOnly());
+	}
+
+	/**
+	 * Creates an empty PDF document.
+	 * You need to add at least one page for the document to be valid.
+	 * 
+	 * @param memUsageSetting defines how memory and temporary files are used to buffer streams
+	 */
+	public PDDocument(MemoryUsageSetting memUsageSetting)
+	{
+		document = new COSDocument(memUsageSetting);
 
 		// First we need a trailer
 		COSDictionary trailer = new COSDictionary();
@@ -870,6 +895,21 @@ public class PDDocument implements Closeable
 		return load(file, "", null, null, useScratchFiles);
 	}
 
+	/**
+	 * Parses PDF with non sequential parser.
+	 * 
+	 * @param file file to be loaded
+	 * @param memUsageSetting defines how memory and temporary files are used to buffer streams
+	 * 
+	 * @return loaded document
+	 * 
+	 * @throws IOException in case of a file reading or parsing error
+	 */
+	public static PDDocument load(File file, MemoryUsageSetting memUsageSetting) throws IOException
+	{
+		return load(file, "", null, null, memUsageSetting);
+	}
+
 	/**
 	 * Parses PDF with non sequential parser.
 	 * 
@@ -935,7 +975,65 @@ public class PDDocument implements Closeable
     public static PDDocument load(File file, String password, InputStream keyStore, String alias,
             boolean useScratchFiles) throws IOException
     {
-        NonSequentialPDFParser parser = new NonSequentialPDFParser(file, password, keyStore, alias, useScratchFiles);
+        return load(file, password, keyStore, alias, useScratchFiles, false);
+    }
+
+    /**
+     * Parses PDF with non sequential parser.
+     * 
+     * @param file file to be loaded
+     * @param password password to be used for decryption
+     * @param keyStore key store to be used for decryption when using public key security 
+     * @param alias alias to be used for decryption when using public key security
+     * @param memUsageSetting defines how memory and temporary files are used to buffer streams
+     * 
+     * @return loaded document
+     * 
+     * @throws IOException in case of a file reading or parsing error
+     */
+    public static PDDocument load(File file, String password, InputStream keyStore, String alias,
+            MemoryUsageSetting memUsageSetting) throws IOException
+    {
+        NonSequentialPDFParser parser = new NonSequentialPDFParser(file, password, keyStore, alias,
+                memUsageSetting);
+        parser.parse();
+        return parser.getPDDocument();
+    }
+
+    /**
+     * Parses PDF with non sequential parser. The file is read through a memory mapping, which avoids the
+     * page cache copies of the default file access and is recommended for very large files.
+     * 
+     * @param file file to be loaded
+     * 
+     * @return loaded document
+     * 
+     * @throws IOException in case of a file reading or parsing error
+     */
+    public static PDDocument loadMapped(File file) throws IOException
+    {
+        return load(file, "", null, null, false, true);
+    }
+
+    /**
+     * Parses PDF with non sequential parser.
+     * 
+     * @param file file to be loaded
+     * @param password password to be used for decryption
+     * @param keyStore key store to be used for decryption when using public key security 
+     * @param alias alias to be used for decryption when using public key security
+     * @param useScratchFiles enables the usage of a scratch file if set to true
+     * @param useMemoryMapping read the file through a memory mapping if set to true
+     * 
+     * @return loaded document
+     * 
+     * @throws IOException in case of a file reading or parsing error
+     */
+    public static PDDocument load(File file, String password, InputStream keyStore, String alias,
+            boolean useScratchFiles, boolean useMemoryMapping) throws IOException
+    {
+        NonSequentialPDFParser parser = new NonSequentialPDFParser(file, password, keyStore, alias,
+                useScratchFiles, useMemoryMapping);
 		parser.parse();
 		return parser.getPDDocument();
 	}
@@ -969,6 +1067,21 @@ public class PDDocument implements Closeable
 		return load(input, "", null, null, useScratchFiles);
 	}
 
+	/**
+	 * Parses PDF with non sequential parser.
+	 * 
+	 * @param input stream that contains the document.
+	 * @param memUsageSetting defines how memory and temporary files are used to buffer streams
+	 * 
+	 * @return loaded document
+	 * 
+	 * @throws IOException in case of a file reading or parsing error
+	 */
+	public static PDDocument load(InputStream input, MemoryUsageSetting memUsageSetting) throws IOException
+	{
+		return load(input, "", null, null, memUsageSetting);
+	}
+
 	/**
 	 * Parses PDF with non sequential parser.
 	 * 
@@ -1041,6 +1154,28 @@ public class PDDocument implements Closeable
 		return parser.getPDDocument();
 	}
 
+    /**
+     * Parses PDF with non sequential parser.
+     * 
+     * @param input stream that contains the document.
+     * @param password password to be used for decryption
+     * @param keyStore key store to be used for decryption when using public key security 
+     * @param alias alias to be used for decryption when using public key security
+     * @param memUsageSetting defines how memory and temporary files are used to buffer streams
+     * 
+     * @return loaded document
+     * 
+     * @throws IOException in case of a file reading or parsing error
+     */
+    public static PDDocument load(InputStream input, String password, InputStream keyStore,
+            String alias, MemoryUsageSetting memUsageSetting) throws IOException
+    {
+        NonSequentialPDFParser parser = new NonSequentialPDFParser(input, password, keyStore, alias,
+                memUsageSetting);
+        parser.parse();
+        return parser.getPDDocument();
+    }
+
 	/**
 	 * Save the document to a file.
 	 * 
@@ -1065,6 +1200,20 @@ public class PDDocument implements Closeable
 		save(new FileOutputStream(file));
 	}
 
+	/**
+	 * Save the document to a file.
+	 * 
+	 * @param file The file to save as.
+	 * @param compress If true, the objects which aren't streams are packed into compressed
+	 * object streams and a cross reference stream is written, see {@link COSWriter#setCompress(boolean)}.
+	 *
+	 * @throws IOException if the output could not be written
+	 */
+	public void save(File file, boolean compress) throws IOException
+	{
+		save(new FileOutputStream(file), compress);
+	}
+
 	/**
 	 * This will save the document to an output stream.
 	 * 
@@ -1073,15 +1222,37 @@ public class PDDocument implements Closeable
 	 * @throws IOException if the output could not be written
 	 */
 	public void save(OutputStream output) throws IOException
+	{
+		save(output, false);
+	}
+
+	/**
+	 * This will save the document to an output stream.
+	 * 
+	 * @param output The stream to write to.
+	 * @param compress If true, the objects which aren't streams are packed into compressed
+	 * object streams and a cross reference stream is written, see {@link COSWriter#setCompress(boolean)}.
+	 *
+	 * @throws IOException if the output could not be written
+	 */
+	public void save(OutputStream output, boolean compress) throws IOException
 	{
 		if (document == null)
 		{
 			throw new IOException("Cannot save a document which has been closed");
 		}
+
+		// the glyphs which are used are only known now
+		for (PDFont font : fontsToSubset)
+		{
+			font.subset();
+		}
+
 		COSWriter writer = null;
 		try
 		{
 			writer = new COSWriter(output);
+			writer.setCompress(compress);
 			writer.write(this);
 			writer.close();
 		}
@@ -1179,6 +1350,91 @@ public class PDDocument implements Closeable
 		return getDocumentCatalog().getPages().getCount();
 	}
 
+	/**
+	 * Returns the cache of the fonts, XObjects, graphics states and shadings of the pages, so
+	 * that a resource which is used on many pages is only created once. Resources which are
+	 * changed at the COS level must be removed from the cache.
+	 *
+	 * @return the resource cache, or null if resources aren't cached
+	 */
+	public ResourceCache getResourceCache()
+	{
+		return resourceCache;
+	}
+
+	/**
+	 * Sets the cache of the resources of the pages, null disables caching. Only pages which
+	 * are retrieved after this call use the new cache.
+	 *
+	 * @param resourceCache the resource cache, or null
+	 */
+	public void setResourceCache(ResourceCache resourceCache)
+	{
+		this.resourceCache = resourceCache;
+	}
+
+	/**
+	 * Returns the cache of the glyph outlines which are used to render the pages, so that a
+	 * glyph is only converted to a path once for all pages and renderers of this document.
+	 *
+	 * @return the glyph cache, or null if glyphs are only cached for a single page
+	 */
+	public GlyphCache getGlyphCache()
+	{
+		return glyphCache;
+	}
+
+	/**
+	 * Sets the cache of the glyph outlines, e.g. {@link GlyphCache#getInstance()} to share the
+	 * glyphs with other documents which use the same fonts. Null caches the glyphs only for a
+	 * single page.
+	 *
+	 * @param glyphCache the glyph cache, or null
+	 */
+	public void setGlyphCache(GlyphCache glyphCache)
+	{
+		this.glyphCache = glyphCache;
+	}
+
+	/**
+	 * Returns the fonts which were embedded into this document as a subset, the subsets are
+	 * written when the document is saved.
+	 *
+	 * @return the fonts to subset, which may be added to
+	 */
+	public Set<PDFont> getFontsToSubset()
+	{
+		return fontsToSubset;
+	}
+
+	/**
+	 * Makes this document read-only so it can be shared between threads, e.g. to render or to
+	 * extract the text of several pages at the same time. The catalog and the other lazily
+	 * created parts of the document are created here, see {@link COSDocument#freeze()}.
+	 * The document must not be modified after calling this method.
+	 */
+	public void freeze()
+	{
+		getDocumentCatalog();
+		if (document.getTrailer() != null && document.getTrailer().getDictionaryObject(COSName.INFO) != null)
+		{
+			getDocumentInformation();
+		}
+		getEncryption();
+		getCurrentAccessPermission();
+		document.freeze();
+	}
+
+	/**
+	 * Indicates if this document is read-only, see {@link #freeze()}.
+	 *
+	 * @return true if the document can't be modified anymore
+	 */
+	public boolean isFrozen()
+	{
+		return document.isFrozen();
+	}
+
 	/**
 	 * This will close the underlying COSDocument object.
 	 * 
@@ -1201,6 +1457,14 @@ public class PDDocument implements Closeable
 			parser = null;
 		}
 		accessPermission = null;
+		if (resourceCache != null)
+		{
+			resourceCache.clear();
+		}
+		if (glyphCache != null && glyphCache != GlyphCache.getInstance())
+		{
+			glyphCache.clear();
+		}
 	}
 
 	/**
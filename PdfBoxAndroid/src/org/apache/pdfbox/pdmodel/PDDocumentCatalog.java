@@ -37,6 +37,7 @@ public class PDDocumentCatalog implements COSObjectable
 	private final COSDictionary root;
 	private final PDDocument document;
 	private PDAcroForm cachedAcroForm;
+	private PDPageTree cachedPages;
 
 	/**
 	 * Constructor. Acroform.
@@ -104,8 +105,14 @@ public class PDDocumentCatalog implements COSObjectable
 	 */
 	public PDPageTree getPages()
 	{
-		// TODO cache me?
-		return new PDPageTree((COSDictionary)root.getDictionaryObject(COSName.PAGES));
+		// the page tree caches its page index, so keep it as long as the root of the tree stays the same
+		COSDictionary pages = (COSDictionary)root.getDictionaryObject(COSName.PAGES);
+		if (cachedPages == null || cachedPages.getCOSObject() != pages ||
+				cachedPages.getResourceCache() != document.getResourceCache())
+		{
+			cachedPages = new PDPageTree(pages, document.getResourceCache());
+		}
+		return cachedPages;
 	}
 
 	/**
@@ -37,6 +37,7 @@ public class PDPage implements COSObjectable, PDContentStream
 	private static final Log LOG = LogFactory.getLog(PDPage.class);
 
 	private final COSDictionary page;
+	private final ResourceCache resourceCache;
 	private PDResources pageResources;
 	private PDRectangle mediaBox;
 
@@ -58,6 +59,7 @@ public class PDPage implements COSObjectable, PDContentStream
 		page = new COSDictionary();
 		page.setItem(COSName.TYPE, COSName.PAGE);
 		page.setItem(COSName.MEDIA_BOX, mediaBox);
+		resourceCache = null;
 	}
 
 	/**
@@ -66,8 +68,20 @@ public class PDPage implements COSObjectable, PDContentStream
 	 * @param pageDictionary A page dictionary in a PDF document.
 	 */
 	public PDPage(COSDictionary pageDictionary)
+	{
+		this(pageDictionary, null);
+	}
+
+	/**
+	 * Creates a new instance of PDPage for reading, which shares the resources of the document.
+	 * 
+	 * @param pageDictionary A page dictionary in a PDF document.
+	 * @param resourceCache The resource cache of the document, or null.
+	 */
+	public PDPage(COSDictionary pageDictionary, ResourceCache resourceCache)
 	{
 		page = pageDictionary;
+		this.resourceCache = resourceCache;
 	}
 
 	/**
@@ -113,7 +127,7 @@ public class PDPage implements COSObjectable, PDContentStream
 			// note: it's an error for resources to not be present
 			if (resources != null)
 			{
-				pageResources = new PDResources(resources);
+				pageResources = new PDResources(resources, resourceCache);
 			}
 		}
 		return pageResources;
@@ -1,8 +1,9 @@
 package org.apache.pdfbox.pdmodel;
 
-import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
-import java.util.Queue;
+import java.util.Map;
 import org.apache.pdfbox.cos.COSArray;
 import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.cos.COSDictionary;
@@ -17,11 +18,21 @@ import java.util.List;
 /**
  * The page tree, which defines the ordering of pages in the document in an efficient manner.
  *
+ * The pages are looked up in a flattened copy of the tree. It is built again when the tree is
+ * changed through this class, or when the /Count of the root, its /Kids array or the size of
+ * that array has changed since it was built. Other changes of the tree at the COS level, e.g.
+ * replacing a page in /Kids or changing the kids of an intermediate node without updating the
+ * counts, aren't noticed; use a new PDPageTree after such changes.
+ *
  * @author John Hewson
  */
 public class PDPageTree implements COSObjectable, Iterable<PDPage>
 {
     private final COSDictionary root;
+    private final ResourceCache resourceCache;
+
+    // flattened page tree, built on first use and dropped when the tree is changed
+    private volatile PageIndex pageIndex;
 
     /**
      * Constructor for embedding.
@@ -32,6 +43,7 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
         root.setItem(COSName.TYPE, COSName.PAGES);
         root.setItem(COSName.KIDS, new COSArray());
         root.setItem(COSName.COUNT, COSInteger.ZERO);
+        resourceCache = null;
     }
 
     /**
@@ -40,12 +52,32 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
      * @param root A page tree root.
      */
     public PDPageTree(COSDictionary root)
+    {
+        this(root, null);
+    }
+
+    /**
+     * Constructor for reading, the pages share the resources of the document.
+     *
+     * @param root A page tree root.
+     * @param resourceCache The resource cache of the document, or null.
+     */
+    public PDPageTree(COSDictionary root, ResourceCache resourceCache)
     {
         if (root == null)
         {
             throw new IllegalArgumentException("root cannot be null");
         }
         this.root = root;
+        this.resourceCache = resourceCache;
+    }
+
+    /**
+     * Returns the resource cache of the pages, or null.
+     */
+    ResourceCache getResourceCache()
+    {
+        return resourceCache;
     }
 
     /**
@@ -78,7 +110,7 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
     @Override
     public Iterator<PDPage> iterator()
     {
-        return new PageIterator(root);
+        return new PageIterator(getPageIndex().pages, resourceCache);
     }
 
     /**
@@ -108,41 +140,28 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
     /**
      * Iterator which walks all pages in the tree, in order.
      */
-    private class PageIterator implements Iterator<PDPage>
+    private static final class PageIterator implements Iterator<PDPage>
     {
-        private final Queue<COSDictionary> queue = new ArrayDeque<COSDictionary>();
-
-        private PageIterator(COSDictionary node)
-        {
-            enqueueKids(node);
-        }
+        private final List<COSDictionary> pages;
+        private final ResourceCache resourceCache;
+        private int next;
 
-        private void enqueueKids(COSDictionary node)
+        private PageIterator(List<COSDictionary> pages, ResourceCache resourceCache)
         {
-            if (isPageTreeNode(node))
-            {
-                List<COSDictionary> kids = getKids(node);
-                for (COSDictionary kid : kids)
-                {
-                    enqueueKids(kid);
-                }
-            }
-            else
-            {
-                queue.add(node);
-            }
+            this.pages = pages;
+            this.resourceCache = resourceCache;
         }
 
         @Override
         public boolean hasNext()
         {
-            return !queue.isEmpty();
+            return next < pages.size();
         }
 
         @Override
         public PDPage next()
         {
-            COSDictionary next = queue.poll();
+            COSDictionary next = pages.get(this.next++);
 
             // sanity check
             if (next.getCOSName(COSName.TYPE) != COSName.PAGE)
@@ -150,7 +169,7 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
                 throw new IllegalStateException("Expected Page but got " + next);
             }
 
-            return new PDPage(next);
+            return new PDPage(next, resourceCache);
         }
 
         @Override
@@ -161,90 +180,100 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
     }
 
     /**
-     * Returns the page at the given index.
-     *
-     * @param index zero-based index
+     * The pages of the tree in order, and the index of every page.
      */
-    public PDPage get(int index)
+    private static final class PageIndex
     {
-        COSDictionary dict = get(index + 1, root, 0);
+        private final int count;
+        private final COSArray kids;
+        private final int kidsSize;
+        private final List<COSDictionary> pages;
+        private final Map<COSDictionary, Integer> indexes;
 
-        // sanity check
-        if (dict.getCOSName(COSName.TYPE) != COSName.PAGE)
+        private PageIndex(int count, COSArray kids, List<COSDictionary> pages)
         {
-            throw new IllegalStateException("Expected Page but got " + dict);
+            this.count = count;
+            this.kids = kids;
+            kidsSize = kids == null ? 0 : kids.size();
+            this.pages = Collections.unmodifiableList(pages);
+            indexes = new IdentityHashMap<COSDictionary, Integer>(pages.size());
+            for (int i = 0, size = pages.size(); i < size; i++)
+            {
+                indexes.put(pages.get(i), i);
+            }
         }
-
-        return new PDPage(dict);
     }
 
     /**
-     * Returns the given COS page using a depth-first search.
-     *
-     * @param pageNum 1-based page number
-     * @param node page tree node to search
-     * @param encountered number of pages encountered so far
-     * @return COS dictionary of the Page object
+     * Returns the page index, building it if this wasn't done yet or if the /Count or the /Kids
+     * of the root were changed since then, e.g. by another PDPageTree of the same document or
+     * at the COS level.
      */
-    private COSDictionary get(int pageNum, COSDictionary node, int encountered)
+    private PageIndex getPageIndex()
     {
-        if (pageNum < 0)
+        PageIndex index = pageIndex;
+        int count = getCount();
+        COSArray kids = (COSArray)root.getDictionaryObject(COSName.KIDS);
+        if (index == null || index.count != count || index.kids != kids ||
+            index.kidsSize != (kids == null ? 0 : kids.size()))
         {
-            throw new IndexOutOfBoundsException("Index out of bounds: " + pageNum);
+            List<COSDictionary> pages = new ArrayList<COSDictionary>(Math.max(count, 0));
+            collectPages(root, pages);
+            index = new PageIndex(count, kids, pages);
+            pageIndex = index;
         }
+        return index;
+    }
 
+    /**
+     * Adds the pages of the given node to the list, in order.
+     */
+    private void collectPages(COSDictionary node, List<COSDictionary> pages)
+    {
         if (isPageTreeNode(node))
         {
-            int count = node.getInt(COSName.COUNT, 0);
-            if (pageNum <= encountered + count)
+            for (COSDictionary kid : getKids(node))
             {
-                // it's a kid of this node
-                for (COSDictionary kid : getKids(node))
-                {
-                    // which kid?
-                    if (isPageTreeNode(kid))
-                    {
-                        int kidCount = kid.getInt(COSName.COUNT, 0);
-                        if (pageNum <= encountered + kidCount)
-                        {
-                            // it's this kid
-                            return get(pageNum, kid, encountered);
-                        }
-                        else
-                        {
-                            encountered += kidCount;
-                        }
-                    }
-                    else
-                    {
-                        // single page
-                        encountered++;
-                        if (pageNum == encountered)
-                        {
-                            // it's this page
-                            return get(pageNum, kid, encountered);
-                        }
-                    }
-                }
-
-                throw new IllegalStateException();
-            }
-            else
-            {
-                throw new IndexOutOfBoundsException("Index out of bounds: " + pageNum);
+                collectPages(kid, pages);
             }
         }
         else
         {
-            if (encountered == pageNum)
-            {
-                return node;
-            }
-            else
-            {
-                throw new IllegalStateException();
-            }
+            pages.add(node);
+        }
+    }
+
+    /**
+     * Returns the page at the given index.
+     *
+     * @param index zero-based index
+     */
+    public PDPage get(int index)
+    {
+        COSDictionary dict = getPageNode(index);
+
+        // sanity check
+        if (dict.getCOSName(COSName.TYPE) != COSName.PAGE)
+        {
+            throw new IllegalStateException("Expected Page but got " + dict);
+        }
+
+        return new PDPage(dict, resourceCache);
+    }
+
+    /**
+     * Returns the COS page with the given index.
+     *
+     * @param index zero-based index
+     */
+    private COSDictionary getPageNode(int index)
+    {
+        List<COSDictionary> pages = getPageIndex().pages;
+        if (index < 0 || index >= pages.size())
+        {
+            throw new IndexOutOfBoundsException("Index out of bounds: " + (index + 1));
         }
+        return pages.get(index);
     }
 
     /**
@@ -263,30 +292,8 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
      */
     public int indexOf(PDPage page)
     {
-        int num = 0;
-        COSDictionary node = page.getCOSObject();
-        do
-        {
-            if (isPageTreeNode(node))
-            {
-                // count kids up until this node
-                for (COSDictionary kid : getKids(node))
-                {
-                    if (kid == node)
-                    {
-                        break;
-                    }
-                    num++;
-                }
-            }
-            else
-            {
-                num++;
-            }
-            node = (COSDictionary) node.getDictionaryObject(COSName.PARENT, COSName.P);
-        }
-        while (node != null);
-        return num - 1;
+        Integer index = getPageIndex().indexes.get(page.getCOSObject());
+        return index == null ? -1 : index;
     }
 
     /**
@@ -310,8 +317,7 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
      */
     public void remove(int index)
     {
-        COSDictionary node = get(index + 1, root, 0);
-        remove(node);
+        remove(getPageNode(index));
     }
 
     /**
@@ -327,6 +333,8 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
      */
     private void remove(COSDictionary node)
     {
+        pageIndex = null;
+
         // remove from parent's kids
         COSDictionary parent = (COSDictionary) node.getDictionaryObject(COSName.PARENT, COSName.P);
         COSArray kids = (COSArray)parent.getDictionaryObject(COSName.KIDS);
@@ -349,6 +357,8 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
      */
     public void add(PDPage page)
     {
+        pageIndex = null;
+
         // set parent
         COSDictionary node = page.getCOSObject();
         node.setItem(COSName.PARENT, root);
@@ -27,6 +27,7 @@ import org.apache.pdfbox.pdmodel.graphics.state.PDExternalGraphicsState;
 public final class PDResources implements COSObjectable
 {
 	private final COSDictionary resources;
+	private final ResourceCache cache;
 
 	/**
 	 * Constructor for embedding.
@@ -34,6 +35,7 @@ public final class PDResources implements COSObjectable
 	public PDResources()
 	{
 		resources = new COSDictionary();
+		cache = null;
 	}
 
 	/**
@@ -45,12 +47,24 @@ public final class PDResources implements COSObjectable
 	//       also it should probably take a COSBase so that it is indirect-object aware.
 	//       It might also want to have some context, e.g. knowing what the parent of the resources is?
 	public PDResources(COSDictionary resourceDictionary)
+	{
+		this(resourceDictionary, null);
+	}
+
+	/**
+	 * Constructor for reading, with a cache of the indirect resources of the document.
+	 *
+	 * @param resourceDictionary The cos dictionary for this resource.
+	 * @param cache The resource cache of the document, or null.
+	 */
+	public PDResources(COSDictionary resourceDictionary, ResourceCache cache)
 	{
 		if (resourceDictionary == null)
 		{
 			throw new IllegalArgumentException("resourceDictionary is null");
 		}
 		resources = resourceDictionary;
+		this.cache = cache;
 	}
 
 	/**
@@ -61,17 +75,40 @@ public final class PDResources implements COSObjectable
 		return resources;
 	}
 
+	/**
+	 * Returns the resource cache of the document, or null.
+	 */
+	public ResourceCache getResourceCache()
+	{
+		return cache;
+	}
+
 	/**
 	 * Returns the font resource with the given name, or null if none exists.
 	 */
 	public PDFont getFont(COSName name) throws IOException
 	{
+		COSObject indirect = getIndirect(COSName.FONT, name);
+		if (indirect != null)
+		{
+			PDFont cached = cache.getFont(indirect);
+			if (cached != null)
+			{
+				return cached;
+			}
+		}
+
 		COSDictionary dict = (COSDictionary)get(COSName.FONT, name);
 		if (dict == null)
 		{
 			return null;
 		}
-		return PDFontFactory.createFont(dict);
+		PDFont font = PDFontFactory.createFont(dict);
+		if (indirect != null)
+		{
+			cache.put(indirect, font);
+		}
+		return font;
 	}
 
 	/**
@@ -105,12 +142,27 @@ public final class PDResources implements COSObjectable
 	 */
 	public PDExternalGraphicsState getExtGState(COSName name) throws IOException
 	{
+		COSObject indirect = getIndirect(COSName.EXT_G_STATE, name);
+		if (indirect != null)
+		{
+			PDExternalGraphicsState cached = cache.getExtGState(indirect);
+			if (cached != null)
+			{
+				return cached;
+			}
+		}
+
 		COSDictionary dict = (COSDictionary)get(COSName.EXT_G_STATE, name);
 		if (dict == null)
 		{
 			return null;
 		}
-		return new PDExternalGraphicsState(dict);
+		PDExternalGraphicsState extGState = new PDExternalGraphicsState(dict);
+		if (indirect != null)
+		{
+			cache.put(indirect, extGState);
+		}
+		return extGState;
 	}
 
 	/**
@@ -118,12 +170,27 @@ public final class PDResources implements COSObjectable
 	 */
 	public PDShading getShading(COSName name) throws IOException
 	{
+		COSObject indirect = getIndirect(COSName.SHADING, name);
+		if (indirect != null)
+		{
+			PDShading cached = cache.getShading(indirect);
+			if (cached != null)
+			{
+				return cached;
+			}
+		}
+
 		COSDictionary dict = (COSDictionary)get(COSName.SHADING, name);
 		if (dict == null)
 		{
 			return null;
 		}
-		return PDShading.create(dict);
+		PDShading shading = PDShading.create(dict);
+		if (indirect != null)
+		{
+			cache.put(indirect, shading);
+		}
+		return shading;
 	}
 
 	/**
@@ -153,7 +220,9 @@ public final class PDResources implements COSObjectable
 	}
 
 	/**
-	 * Returns the XObject resource with the given name, or null if none exists.
+	 * Returns the XObject resource with the given name, or null if none exists. The XObject is
+	 * not cached as it depends on its name and on these resources, an image XObject caches its
+	 * decoded image in the document's ResourceCache instead.
 	 */
 	public PDXObject getXObject(COSName name) throws IOException
 	{
@@ -189,6 +258,25 @@ public final class PDResources implements COSObjectable
 		return dict.getDictionaryObject(name);
 	}
 
+	/**
+	 * Returns the indirect object of the resource with the given name and kind, or null if the
+	 * resource is a direct object or there is no cache.
+	 */
+	private COSObject getIndirect(COSName kind, COSName name)
+	{
+		if (cache == null)
+		{
+			return null;
+		}
+		COSDictionary dict = (COSDictionary)resources.getDictionaryObject(kind);
+		if (dict == null)
+		{
+			return null;
+		}
+		COSBase item = dict.getItem(name);
+		return item instanceof COSObject ? (COSObject)item : null;
+	}
+
 	/**
 	 * Returns the names of the color space resources, if any.
 	 */
@@ -0,0 +1,140 @@
+package org.apache.pdfbox.pdmodel;
+
+import java.lang.ref.SoftReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.graphics.shading.PDShading;
+import org.apache.pdfbox.pdmodel.graphics.state.PDExternalGraphicsState;
+
+import android.graphics.Bitmap;
+
+/**
+ * Cache of the resources of a document, so that a resource which is shared by many pages, e.g.
+ * a font, is only created once. Only indirect objects are cached, they are found by the
+ * identity of their COSObject. These resources are kept until they are removed or the document
+ * is closed.
+ *
+ * XObjects themselves aren't cached, because a PDXObject keeps the name and the resources it
+ * was looked up with. Only the decoded image of an image XObject, which doesn't depend on the
+ * lookup, is cached. It is found by the identity of the image's COSStream and is softly
+ * referenced because images can be large. A cached image is shared and must not be modified.
+ *
+ * A cached resource which is changed at the COS level must be removed with
+ * {@link #remove(COSObject)}, or the whole cache must be cleared.
+ *
+ * The cache itself may be used by several threads at the same time. A cached font may also be
+ * used by several threads at once, e.g. by the workers of
+ * {@link org.apache.pdfbox.util.ParallelTextExtractor}, as the values it computes lazily are
+ * safely published. Shadings and external graphics states are shared between pages but must
+ * only be used by one thread at a time.
+ *
+ * @see PDDocument#getResourceCache()
+ */
+public final class ResourceCache
+{
+	private final Map<COSObject, PDFont> fonts = new ConcurrentHashMap<COSObject, PDFont>();
+	private final Map<COSObject, PDExternalGraphicsState> extGStates =
+			new ConcurrentHashMap<COSObject, PDExternalGraphicsState>();
+	private final Map<COSObject, PDShading> shadings = new ConcurrentHashMap<COSObject, PDShading>();
+	private final Map<COSStream, SoftReference<Bitmap>> images =
+			new ConcurrentHashMap<COSStream, SoftReference<Bitmap>>();
+
+	/**
+	 * Returns the cached font of the given indirect object, or null.
+	 */
+	public PDFont getFont(COSObject indirect)
+	{
+		return fonts.get(indirect);
+	}
+
+	/**
+	 * Caches the font of the given indirect object.
+	 */
+	public void put(COSObject indirect, PDFont font)
+	{
+		fonts.put(indirect, font);
+	}
+
+	/**
+	 * Returns the cached external graphics state of the given indirect object, or null.
+	 */
+	public PDExternalGraphicsState getExtGState(COSObject indirect)
+	{
+		return extGStates.get(indirect);
+	}
+
+	/**
+	 * Caches the external graphics state of the given indirect object.
+	 */
+	public void put(COSObject indirect, PDExternalGraphicsState extGState)
+	{
+		extGStates.put(indirect, extGState);
+	}
+
+	/**
+	 * Returns the cached shading of the given indirect object, or null.
+	 */
+	public PDShading getShading(COSObject indirect)
+	{
+		return shadings.get(indirect);
+	}
+
+	/**
+	 * Caches the shading of the given indirect object.
+	 */
+	public void put(COSObject indirect, PDShading shading)
+	{
+		shadings.put(indirect, shading);
+	}
+
+	/**
+	 * Returns the cached image decoded from the given image XObject stream, or null.
+	 */
+	public Bitmap getImage(COSStream stream)
+	{
+		SoftReference<Bitmap> ref = images.get(stream);
+		return ref == null ? null : ref.get();
+	}
+
+	/**
+	 * Caches the image decoded from the given image XObject stream.
+	 */
+	public void put(COSStream stream, Bitmap image)
+	{
+		images.put(stream, new SoftReference<Bitmap>(image));
+	}
+
+	/**
+	 * Removes the cached resources of the given indirect object, which has to be done when the
+	 * object is changed.
+	 *
+	 * @param indirect the indirect object of a resource
+	 */
+	public void remove(COSObject indirect)
+	{
+		fonts.remove(indirect);
+		extGStates.remove(indirect);
+		shadings.remove(indirect);
+		COSBase object = indirect.getObject();
+		if (object instanceof COSStream)
+		{
+			images.remove(object);
+		}
+	}
+
+	/**
+	 * Removes all cached resources.
+	 */
+	public void clear()
+	{
+		fonts.clear();
+		extGStates.clear();
+		shadings.clear();
+		images.clear();
+	}
+}
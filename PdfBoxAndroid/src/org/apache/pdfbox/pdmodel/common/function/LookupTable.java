@@ -0,0 +1,217 @@
+package org.apache.pdfbox.pdmodel.common.function;
+
+import java.io.IOException;
+
+import org.apache.pdfbox.cos.COSArray;
+
+/**
+ * A table of precomputed values of a function with one or two input values. The function is
+ * sampled at evenly spaced points of its domain, the values in between are interpolated
+ * linearly. A table is much faster to evaluate than most functions, e.g. for the many samples
+ * of a shading, but it is an approximation of functions which are not linear.
+ *
+ * A table is immutable and may be used by several threads at the same time.
+ *
+ * @see PDFunction#getLookupTable(int)
+ */
+public final class LookupTable
+{
+    private final int resolution;
+    private final int numberOfInputs;
+    private final int numberOfOutputs;
+    private final float[] domain;
+    private final float[] scale;
+    private final float[] samples;
+
+    private LookupTable(int resolution, float[] domain, int numberOfOutputs, float[] samples)
+    {
+        this.resolution = resolution;
+        this.numberOfInputs = domain.length / 2;
+        this.numberOfOutputs = numberOfOutputs;
+        this.domain = domain;
+        this.samples = samples;
+        scale = new float[numberOfInputs];
+        for (int i = 0; i < numberOfInputs; i++)
+        {
+            float width = domain[i * 2 + 1] - domain[i * 2];
+            scale[i] = width > 0 ? (resolution - 1) / width : 0;
+        }
+    }
+
+    /**
+     * Samples the given function. A function with one input value is sampled at the given number
+     * of points, a function with two input values at the square of it.
+     *
+     * @param function the function
+     * @param resolution the number of samples per input value, at least 2
+     * @return the table, or null if the function can't be sampled, e.g. because it has more than
+     * two input values or it fails for some of them
+     * @throws IOException if the function can't be evaluated
+     */
+    static LookupTable create(PDFunction function, int resolution) throws IOException
+    {
+        if (resolution < 2)
+        {
+            throw new IllegalArgumentException("The resolution must be at least 2: " + resolution);
+        }
+        if (function.getDictionary() == null)
+        {
+            // the identity function doesn't need a table
+            return null;
+        }
+        COSArray domainValues = function.getDomainValues();
+        if (domainValues == null)
+        {
+            return null;
+        }
+        float[] domain = domainValues.toFloatArray();
+        int numberOfInputs = domain.length / 2;
+        if (numberOfInputs != 1 && numberOfInputs != 2)
+        {
+            return null;
+        }
+
+        int rows = numberOfInputs == 2 ? resolution : 1;
+        float[] input = new float[numberOfInputs];
+        float[] samples = null;
+        int numberOfOutputs = 0;
+        try
+        {
+            for (int row = 0; row < rows; row++)
+            {
+                if (numberOfInputs == 2)
+                {
+                    input[1] = samplePoint(domain[2], domain[3], row, resolution);
+                }
+                for (int column = 0; column < resolution; column++)
+                {
+                    input[0] = samplePoint(domain[0], domain[1], column, resolution);
+                    float[] output = function.eval(input);
+                    if (samples == null)
+                    {
+                        numberOfOutputs = output.length;
+                        samples = new float[rows * resolution * numberOfOutputs];
+                    }
+                    else if (output.length != numberOfOutputs)
+                    {
+                        return null;
+                    }
+                    System.arraycopy(output, 0, samples,
+                            (row * resolution + column) * numberOfOutputs, numberOfOutputs);
+                }
+            }
+        }
+        catch (RuntimeException e)
+        {
+            // e.g. a type 4 function which fails for some input values, which are maybe never used
+            return null;
+        }
+        return new LookupTable(resolution, domain, numberOfOutputs, samples);
+    }
+
+    // the input value of the sample with the given index
+    private static float samplePoint(float min, float max, int index, int resolution)
+    {
+        if (index == resolution - 1)
+        {
+            // exactly the maximum, which may matter e.g. for the last function of a type 3 function
+            return max;
+        }
+        return min + index * (max - min) / (resolution - 1);
+    }
+
+    /**
+     * Returns the number of samples per input value.
+     *
+     * @return the resolution
+     */
+    public int getResolution()
+    {
+        return resolution;
+    }
+
+    /**
+     * Returns the number of input values of the function.
+     *
+     * @return 1 or 2
+     */
+    public int getNumberOfInputs()
+    {
+        return numberOfInputs;
+    }
+
+    /**
+     * Returns the number of output values of the function.
+     *
+     * @return the number of output values
+     */
+    public int getNumberOfOutputs()
+    {
+        return numberOfOutputs;
+    }
+
+    /**
+     * Evaluates the function at the given input by interpolating the samples. The input values
+     * are clipped to the domain of the function.
+     *
+     * @param input the input values
+     * @return the interpolated output values
+     */
+    public float[] eval(float[] input)
+    {
+        float[] result = new float[numberOfOutputs];
+        int n = numberOfOutputs;
+
+        float x = position(input[0], 0);
+        int column = cell(x);
+        float fx = x - column;
+        int i00 = column * n;
+        if (numberOfInputs == 1)
+        {
+            for (int j = 0; j < n; j++)
+            {
+                float v0 = samples[i00 + j];
+                result[j] = v0 + fx * (samples[i00 + n + j] - v0);
+            }
+            return result;
+        }
+
+        float y = position(input[1], 1);
+        int row = cell(y);
+        float fy = y - row;
+        i00 += row * resolution * n;
+        int i01 = i00 + resolution * n;
+        for (int j = 0; j < n; j++)
+        {
+            float v00 = samples[i00 + j];
+            float v01 = samples[i01 + j];
+            float v0 = v00 + fx * (samples[i00 + n + j] - v00);
+            float v1 = v01 + fx * (samples[i01 + n + j] - v01);
+            result[j] = v0 + fy * (v1 - v0);
+        }
+        return result;
+    }
+
+    // the position of the input value between the samples, from 0 to resolution - 1
+    private float position(float value, int inputIndex)
+    {
+        float min = domain[inputIndex * 2];
+        float max = domain[inputIndex * 2 + 1];
+        if (value <= min)
+        {
+            return 0;
+        }
+        if (value >= max)
+        {
+            return resolution - 1;
+        }
+        return (value - min) * scale[inputIndex];
+    }
+
+    // the index of the first of the two samples around the given position
+    private int cell(float position)
+    {
+        int index = (int)position;
+        return index < resolution - 1 ? index : resolution - 2;
+    }
+}
@@ -27,6 +27,10 @@ public abstract class PDFunction implements COSObjectable
     private COSArray range = null;
     private int numberOfInputValues = -1;
     private int numberOfOutputValues = -1;
+    private float[] domainArray = null;
+    private float[] rangeArray = null;
+    private LookupTable lookupTable = null;
+    private int lookupTableResolution = 0;
 
     /**
      * Constructor.
@@ -192,6 +196,8 @@ public abstract class PDFunction implements COSObjectable
     public void setRangeValues(COSArray rangeValues)
     {
         range = rangeValues;
+        rangeArray = null;
+        resetLookupTable();
         getDictionary().setItem(COSName.RANGE, rangeValues);
     }
 
@@ -235,6 +241,8 @@ public abstract class PDFunction implements COSObjectable
     public void setDomainValues(COSArray domainValues)
     {
         domain = domainValues;
+        domainArray = null;
+        resetLookupTable();
         getDictionary().setItem(COSName.DOMAIN, domainValues);
     }
 
@@ -282,7 +290,7 @@ public abstract class PDFunction implements COSObjectable
      * Required for all function types.
      * @return the domains array. 
      */
-    private COSArray getDomainValues()
+    COSArray getDomainValues()
     {
         if (domain == null) 
         {
@@ -291,6 +299,63 @@ public abstract class PDFunction implements COSObjectable
         return domain;
     }
 
+    /**
+     * Returns the domains of the input values as an array of min/max pairs, which is read once
+     * from the function dictionary. The array must not be modified.
+     * @return the domains array
+     */
+    protected float[] getDomainArray()
+    {
+        float[] array = domainArray;
+        if (array == null)
+        {
+            array = getDomainValues().toFloatArray();
+            domainArray = array;
+        }
+        return array;
+    }
+
+    /**
+     * Returns the ranges of the output values as an array of min/max pairs, which is read once
+     * from the function dictionary. The array must not be modified.
+     * @return the ranges array
+     */
+    protected float[] getRangeArray()
+    {
+        float[] array = rangeArray;
+        if (array == null)
+        {
+            array = getRangeValues().toFloatArray();
+            rangeArray = array;
+        }
+        return array;
+    }
+
+    /**
+     * Returns a lookup table of this function with the given number of samples per input value,
+     * which is created once and then reused as long as the resolution stays the same. Only
+     * functions with one or two input values can be sampled.
+     *
+     * @param resolution the number of samples per input value, at least 2
+     * @return the lookup table, or null if the function can't be sampled
+     * @throws IOException if the function can't be evaluated
+     */
+    public synchronized LookupTable getLookupTable(int resolution) throws IOException
+    {
+        if (lookupTableResolution != resolution)
+        {
+            lookupTable = LookupTable.create(this, resolution);
+            lookupTableResolution = resolution;
+        }
+        return lookupTable;
+    }
+
+    private synchronized void resetLookupTable()
+    {
+        lookupTable = null;
+        lookupTableResolution = 0;
+    }
+
     /**
      * Clip the given input values to the ranges.
      * 
@@ -303,7 +368,7 @@ public abstract class PDFunction implements COSObjectable
         float[] result;
         if (rangesArray != null) 
         {
-            float[] rangeValues = rangesArray.toFloatArray();
+            float[] rangeValues = getRangeArray();
             int numberOfRanges = rangeValues.length/2;
             result = new float[numberOfRanges];
             for (int i=0; i<numberOfRanges; i++)
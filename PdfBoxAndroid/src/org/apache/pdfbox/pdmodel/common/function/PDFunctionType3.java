@@ -3,7 +3,6 @@ package org.apache.pdfbox.pdmodel.common.function;
 import org.apache.pdfbox.cos.COSArray;
 import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.cos.COSName;
-import org.apache.pdfbox.pdmodel.common.PDRange;
 
 import java.io.IOException;
 
@@ -19,6 +18,9 @@ public class PDFunctionType3 extends PDFunction
     private COSArray functions = null;
     private COSArray encode = null;
     private COSArray bounds = null;
+    private PDFunction[] functionsArray = null;
+    private float[] encodeValues = null;
+    private float[] partitionValues = null;
     
     /**
      * Constructor.
@@ -48,39 +50,31 @@ public class PDFunctionType3 extends PDFunction
         //See PDF Reference section 3.9.3.
         PDFunction function = null;
         float x = input[0];
-        PDRange domain = getDomainForInput(0);
+        float[] domain = getDomainArray();
         // clip input value to domain
-        x = clipToRange(x, domain.getMin(), domain.getMax());
+        x = clipToRange(x, domain[0], domain[1]);
 
-        COSArray functionsArray = getFunctions();
-        int numberOfFunctions = functionsArray.size();
+        PDFunction[] functions = getFunctionsArray();
+        float[] encodeArray = getEncodeArray();
         // This doesn't make sense but it may happen ...
-        if (numberOfFunctions == 1) 
+        if (functions.length == 1) 
         {
-            function = PDFunction.create(functionsArray.get(0));
-            PDRange encRange = getEncodeForParameter(0);
-            x = interpolate(x, domain.getMin(), domain.getMax(), encRange.getMin(), encRange.getMax());
+            function = functions[0];
+            x = interpolate(x, domain[0], domain[1], encodeArray[0], encodeArray[1]);
         }
         else 
         {
-            float[] boundsValues = getBounds().toFloatArray();
-            int boundsSize = boundsValues.length;
-            // create a combined array containing the domain and the bounds values
-            // domain.min, bounds[0], bounds[1], ...., bounds[boundsSize-1], domain.max
-            float[] partitionValues = new float[boundsSize+2];
-            int partitionValuesSize = partitionValues.length;
-            partitionValues[0] = domain.getMin();
-            partitionValues[partitionValuesSize-1] = domain.getMax();
-            System.arraycopy(boundsValues, 0, partitionValues, 1, boundsSize);
+            float[] partitionArray = getPartitionArray();
+            int partitionValuesSize = partitionArray.length;
             // find the partition 
             for (int i=0; i < partitionValuesSize-1; i++)
             {
-                if ( x >= partitionValues[i] && 
-                        (x < partitionValues[i+1] || (i == partitionValuesSize - 2 && x == partitionValues[i+1])))
+                if ( x >= partitionArray[i] && 
+                        (x < partitionArray[i+1] || (i == partitionValuesSize - 2 && x == partitionArray[i+1])))
                 {
-                    function = PDFunction.create(functionsArray.get(i));
-                    PDRange encRange = getEncodeForParameter(i);
-                    x = interpolate(x, partitionValues[i], partitionValues[i+1], encRange.getMin(), encRange.getMax());
+                    function = functions[i];
+                    x = interpolate(x, partitionArray[i], partitionArray[i+1],
+                            encodeArray[i * 2], encodeArray[i * 2 + 1]);
                     break;
                 }
             }
@@ -135,16 +129,63 @@ public class PDFunctionType3 extends PDFunction
     }
     
     /**
-     * Get the encode for the input parameter.
-     *
-     * @param paramNum The function parameter number.
-     *
-     * @return The encode parameter range or null if none is set.
+     * Returns the child functions, which are created once.
+     */
+    private PDFunction[] getFunctionsArray() throws IOException
+    {
+        if (functionsArray == null)
+        {
+            COSArray functionsValues = getFunctions();
+            PDFunction[] array = new PDFunction[functionsValues.size()];
+            for (int i = 0; i < array.length; i++)
+            {
+                array[i] = PDFunction.create(functionsValues.get(i));
+            }
+            functionsArray = array;
+        }
+        return functionsArray;
+    }
+
+    /**
+     * Returns the encode values, a min/max pair per child function.
+     */
+    private float[] getEncodeArray()
+    {
+        if (encodeValues == null)
+        {
+            encodeValues = getEncode().toFloatArray();
+        }
+        return encodeValues;
+    }
+
+    /**
+     * {@inheritDoc}
      */
-    private PDRange getEncodeForParameter(int n) 
+    public void setDomainValues(COSArray domainValues)
     {
-        COSArray encodeValues = getEncode();
-        return new PDRange( encodeValues, n );
+        super.setDomainValues(domainValues);
+        // the partition array starts and ends with the domain
+        partitionValues = null;
+    }
+
+    /**
+     * Returns a combined array containing the domain and the bounds values:
+     * domain.min, bounds[0], bounds[1], ...., bounds[boundsSize-1], domain.max
+     */
+    private float[] getPartitionArray()
+    {
+        if (partitionValues == null)
+        {
+            float[] domain = getDomainArray();
+            float[] boundsValues = getBounds().toFloatArray();
+            int boundsSize = boundsValues.length;
+            float[] array = new float[boundsSize + 2];
+            array[0] = domain[0];
+            array[array.length - 1] = domain[1];
+            System.arraycopy(boundsValues, 0, array, 1, boundsSize);
+            partitionValues = array;
+        }
+        return partitionValues;
     }
 
 }
@@ -2,9 +2,11 @@ package org.apache.pdfbox.pdmodel.common.function;
 
 import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.pdmodel.common.PDRange;
+import org.apache.pdfbox.pdmodel.common.function.type4.CompiledSequence;
 import org.apache.pdfbox.pdmodel.common.function.type4.ExecutionContext;
 import org.apache.pdfbox.pdmodel.common.function.type4.InstructionSequence;
 import org.apache.pdfbox.pdmodel.common.function.type4.InstructionSequenceBuilder;
+import org.apache.pdfbox.pdmodel.common.function.type4.OperandStack;
 import org.apache.pdfbox.pdmodel.common.function.type4.Operators;
 
 import java.io.IOException;
@@ -21,8 +23,21 @@ public class PDFunctionType4 extends PDFunction
 
     private static final Operators OPERATORS = new Operators();
 
+    // the operand stacks of the compiled functions, reused by all functions of a thread
+    private static final ThreadLocal<OperandStack> STACKS = new ThreadLocal<OperandStack>()
+    {
+        @Override
+        protected OperandStack initialValue()
+        {
+            return new OperandStack();
+        }
+    };
+
     private final InstructionSequence instructions;
 
+    // null if the function has to be interpreted
+    private final CompiledSequence compiled;
+
     /**
      * Constructor.
      *
@@ -34,6 +49,7 @@ public class PDFunctionType4 extends PDFunction
         super( functionStream );
         this.instructions = InstructionSequenceBuilder.parse(
                 getPDStream().getInputStreamAsString());
+        this.compiled = CompiledSequence.compile(instructions);
     }
 
 
@@ -49,6 +65,47 @@ public class PDFunctionType4 extends PDFunction
     * {@inheritDoc}
     */
     public float[] eval(float[] input) throws IOException
+    {
+        if (compiled == null)
+        {
+            return interpret(input);
+        }
+
+        //Setup the input values
+        float[] domain = getDomainArray();
+        OperandStack stack = STACKS.get();
+        stack.clear();
+        for (int i = 0; i < input.length; i++)
+        {
+            stack.pushReal(clipToRange(input[i], domain[i * 2], domain[i * 2 + 1]));
+        }
+
+        //Execute the compiled type 4 function.
+        compiled.execute(stack);
+
+        //Extract the output values
+        int numberOfOutputValues = getNumberOfOutputParameters();
+        int numberOfActualOutputValues = stack.size();
+        if (numberOfActualOutputValues < numberOfOutputValues)
+        {
+            throw new IllegalStateException("The type 4 function returned "
+                    + numberOfActualOutputValues
+                    + " values but the Range entry indicates that "
+                    + numberOfOutputValues + " values be returned.");
+        }
+        float[] range = getRangeArray();
+        float[] outputValues = new float[numberOfOutputValues];
+        for (int i = numberOfOutputValues - 1; i >= 0; i--)
+        {
+            outputValues[i] = clipToRange(stack.popReal(), range[i * 2], range[i * 2 + 1]);
+        }
+        return outputValues;
+    }
+
+    /**
+     * Evaluates the function with the interpreter, for functions which can't be compiled.
+     */
+    private float[] interpret(float[] input)
     {
         //Setup the input values
         ExecutionContext context = new ExecutionContext(OPERATORS);
@@ -0,0 +1,638 @@
+package org.apache.pdfbox.pdmodel.common.function.type4;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An instruction sequence which is compiled into a flat array of opcodes, executed on a
+ * primitive {@link OperandStack}. The results are the same as those of
+ * {@link InstructionSequence#execute(ExecutionContext)}, but no objects are created while
+ * executing, and the operators aren't looked up by name.
+ *
+ * Procedures can only be compiled when they are the operands of "if" and "ifelse", they become
+ * conditional jumps. Sequences which use procedures in any other way, or unknown operators, can't
+ * be compiled and have to be interpreted.
+ */
+public final class CompiledSequence
+{
+    // opcodes, the values and jumps are followed by an operand
+    private static final int PUSH_INT = 0;
+    private static final int PUSH_REAL = 1;
+    private static final int PUSH_BOOL = 2;
+    private static final int JUMP = 3;
+    private static final int JUMP_UNLESS = 4;
+    private static final int ABS = 5;
+    private static final int ADD = 6;
+    private static final int ATAN = 7;
+    private static final int CEILING = 8;
+    private static final int COS = 9;
+    private static final int CVI = 10;
+    private static final int CVR = 11;
+    private static final int DIV = 12;
+    private static final int EXP = 13;
+    private static final int FLOOR = 14;
+    private static final int IDIV = 15;
+    private static final int LN = 16;
+    private static final int LOG = 17;
+    private static final int MOD = 18;
+    private static final int MUL = 19;
+    private static final int NEG = 20;
+    private static final int ROUND = 21;
+    private static final int SIN = 22;
+    private static final int SQRT = 23;
+    private static final int SUB = 24;
+    private static final int TRUNCATE = 25;
+    private static final int AND = 26;
+    private static final int BITSHIFT = 27;
+    private static final int EQ = 28;
+    private static final int FALSE = 29;
+    private static final int GE = 30;
+    private static final int GT = 31;
+    private static final int LE = 32;
+    private static final int LT = 33;
+    private static final int NE = 34;
+    private static final int NOT = 35;
+    private static final int OR = 36;
+    private static final int TRUE = 37;
+    private static final int XOR = 38;
+    private static final int COPY = 39;
+    private static final int DUP = 40;
+    private static final int EXCH = 41;
+    private static final int INDEX = 42;
+    private static final int POP = 43;
+    private static final int ROLL = 44;
+
+    private static final Map<String, Integer> OPCODES = new HashMap<String, Integer>();
+
+    static
+    {
+        OPCODES.put("abs", ABS);
+        OPCODES.put("add", ADD);
+        OPCODES.put("atan", ATAN);
+        OPCODES.put("ceiling", CEILING);
+        OPCODES.put("cos", COS);
+        OPCODES.put("cvi", CVI);
+        OPCODES.put("cvr", CVR);
+        OPCODES.put("div", DIV);
+        OPCODES.put("exp", EXP);
+        OPCODES.put("floor", FLOOR);
+        OPCODES.put("idiv", IDIV);
+        OPCODES.put("ln", LN);
+        OPCODES.put("log", LOG);
+        OPCODES.put("mod", MOD);
+        OPCODES.put("mul", MUL);
+        OPCODES.put("neg", NEG);
+        OPCODES.put("round", ROUND);
+        OPCODES.put("sin", SIN);
+        OPCODES.put("sqrt", SQRT);
+        OPCODES.put("sub", SUB);
+        OPCODES.put("truncate", TRUNCATE);
+        OPCODES.put("and", AND);
+        OPCODES.put("bitshift", BITSHIFT);
+        OPCODES.put("eq", EQ);
+        OPCODES.put("false", FALSE);
+        OPCODES.put("ge", GE);
+        OPCODES.put("gt", GT);
+        OPCODES.put("le", LE);
+        OPCODES.put("lt", LT);
+        OPCODES.put("ne", NE);
+        OPCODES.put("not", NOT);
+        OPCODES.put("or", OR);
+        OPCODES.put("true", TRUE);
+        OPCODES.put("xor", XOR);
+        OPCODES.put("copy", COPY);
+        OPCODES.put("dup", DUP);
+        OPCODES.put("exch", EXCH);
+        OPCODES.put("index", INDEX);
+        OPCODES.put("pop", POP);
+        OPCODES.put("roll", ROLL);
+    }
+
+    private final int[] code;
+
+    private CompiledSequence(int[] code)
+    {
+        this.code = code;
+    }
+
+    /**
+     * Compiles the given instruction sequence of a Type 4 function.
+     * @param sequence the instruction sequence
+     * @return the compiled sequence, or null if the sequence has to be interpreted
+     */
+    public static CompiledSequence compile(InstructionSequence sequence)
+    {
+        List<Object> instructions = sequence.getInstructions();
+        // a top-level proc, i.e. the braces around the function, is simply executed
+        if (instructions.size() == 1 && instructions.get(0) instanceof InstructionSequence)
+        {
+            sequence = (InstructionSequence)instructions.get(0);
+        }
+        Compiler compiler = new Compiler();
+        if (!compiler.compile(sequence))
+        {
+            return null;
+        }
+        return new CompiledSequence(compiler.getCode());
+    }
+
+    /**
+     * Executes the compiled sequence.
+     * @param stack the operand stack, with the input values of the function
+     */
+    public void execute(OperandStack stack)
+    {
+        final int[] code = this.code;
+        int pc = 0;
+        while (pc < code.length)
+        {
+            int opcode = code[pc++];
+            switch (opcode)
+            {
+                case PUSH_INT:
+                    stack.pushInt(code[pc++]);
+                    break;
+                case PUSH_REAL:
+                    stack.pushReal(Float.intBitsToFloat(code[pc++]));
+                    break;
+                case PUSH_BOOL:
+                    stack.pushBoolean(code[pc++] != 0);
+                    break;
+                case JUMP:
+                    pc = code[pc];
+                    break;
+                case JUMP_UNLESS:
+                    if (stack.popBoolean())
+                    {
+                        pc++;
+                    }
+                    else
+                    {
+                        pc = code[pc];
+                    }
+                    break;
+                case ABS:
+                    if (stack.type(0) == OperandStack.INT)
+                    {
+                        stack.pushInt(Math.abs(stack.popInt()));
+                    }
+                    else
+                    {
+                        stack.pushReal(Math.abs(stack.popReal()));
+                    }
+                    break;
+                case ADD:
+                    if (areInts(stack))
+                    {
+                        int num2 = stack.popInt();
+                        int num1 = stack.popInt();
+                        stack.pushIntOrReal((long)num1 + num2);
+                    }
+                    else
+                    {
+                        float num2 = stack.popReal();
+                        float num1 = stack.popReal();
+                        stack.pushReal(num1 + num2);
+                    }
+                    break;
+                case ATAN:
+                {
+                    float den = stack.popReal();
+                    float num = stack.popReal();
+                    float atan = (float)Math.atan2(num, den);
+                    atan = (float)Math.toDegrees(atan) % 360;
+                    if (atan < 0)
+                    {
+                        atan = atan + 360;
+                    }
+                    stack.pushReal(atan);
+                    break;
+                }
+                case CEILING:
+                    if (stack.type(0) != OperandStack.INT)
+                    {
+                        stack.pushReal((float)Math.ceil(stack.popDouble()));
+                    }
+                    break;
+                case COS:
+                    stack.pushReal((float)Math.cos(Math.toRadians(stack.popReal())));
+                    break;
+                case CVI:
+                    stack.pushInt(stack.popIntValue());
+                    break;
+                case CVR:
+                    stack.pushReal(stack.popReal());
+                    break;
+                case DIV:
+                {
+                    float num2 = stack.popReal();
+                    float num1 = stack.popReal();
+                    stack.pushReal(num1 / num2);
+                    break;
+                }
+                case EXP:
+                {
+                    double exp = stack.popDouble();
+                    double base = stack.popDouble();
+                    stack.pushReal((float)Math.pow(base, exp));
+                    break;
+                }
+                case FLOOR:
+                    if (stack.type(0) != OperandStack.INT)
+                    {
+                        stack.pushReal((float)Math.floor(stack.popDouble()));
+                    }
+                    break;
+                case IDIV:
+                {
+                    int num2 = stack.popInt();
+                    int num1 = stack.popInt();
+                    stack.pushInt(num1 / num2);
+                    break;
+                }
+                case LN:
+                    stack.pushReal((float)Math.log(stack.popDouble()));
+                    break;
+                case LOG:
+                    stack.pushReal((float)Math.log10(stack.popDouble()));
+                    break;
+                case MOD:
+                {
+                    int int2 = stack.popInt();
+                    int int1 = stack.popInt();
+                    stack.pushInt(int1 % int2);
+                    break;
+                }
+                case MUL:
+                    if (areInts(stack))
+                    {
+                        int num2 = stack.popInt();
+                        int num1 = stack.popInt();
+                        stack.pushIntOrReal((long)num1 * num2);
+                    }
+                    else
+                    {
+                        double num2 = stack.popDouble();
+                        double num1 = stack.popDouble();
+                        stack.pushReal((float)(num1 * num2));
+                    }
+                    break;
+                case NEG:
+                    if (stack.type(0) == OperandStack.INT)
+                    {
+                        int v = stack.popInt();
+                        if (v == Integer.MIN_VALUE)
+                        {
+                            stack.pushReal(-(float)v);
+                        }
+                        else
+                        {
+                            stack.pushInt(-v);
+                        }
+                    }
+                    else
+                    {
+                        stack.pushReal(-stack.popReal());
+                    }
+                    break;
+                case ROUND:
+                    if (stack.type(0) != OperandStack.INT)
+                    {
+                        stack.pushReal((float)Math.round(stack.popDouble()));
+                    }
+                    break;
+                case SIN:
+                    stack.pushReal((float)Math.sin(Math.toRadians(stack.popReal())));
+                    break;
+                case SQRT:
+                {
+                    float num = stack.popReal();
+                    if (num < 0)
+                    {
+                        throw new IllegalArgumentException("argument must be nonnegative");
+                    }
+                    stack.pushReal((float)Math.sqrt(num));
+                    break;
+                }
+                case SUB:
+                    if (areInts(stack))
+                    {
+                        int num2 = stack.popInt();
+                        int num1 = stack.popInt();
+                        stack.pushIntOrReal((long)num1 - num2);
+                    }
+                    else
+                    {
+                        float num2 = stack.popReal();
+                        float num1 = stack.popReal();
+                        stack.pushReal(num1 - num2);
+                    }
+                    break;
+                case TRUNCATE:
+                    if (stack.type(0) != OperandStack.INT)
+                    {
+                        stack.pushReal((int)stack.popReal());
+                    }
+                    break;
+                case AND:
+                case OR:
+                case XOR:
+                    executeLogical(opcode, stack);
+                    break;
+                case BITSHIFT:
+                {
+                    int shift = stack.popInt();
+                    int int1 = stack.popInt();
+                    stack.pushInt(shift < 0 ? int1 >> Math.abs(shift) : int1 << shift);
+                    break;
+                }
+                case EQ:
+                    stack.pushBoolean(isEqual(stack));
+                    break;
+                case NE:
+                    stack.pushBoolean(!isEqual(stack));
+                    break;
+                case FALSE:
+                    stack.pushBoolean(false);
+                    break;
+                case TRUE:
+                    stack.pushBoolean(true);
+                    break;
+                case GE:
+                case GT:
+                case LE:
+                case LT:
+                    stack.pushBoolean(compare(opcode, stack));
+                    break;
+                case NOT:
+                    if (stack.type(0) == OperandStack.BOOL)
+                    {
+                        stack.pushBoolean(!stack.popBoolean());
+                    }
+                    else if (stack.type(0) == OperandStack.INT)
+                    {
+                        stack.pushInt(-stack.popInt());
+                    }
+                    else
+                    {
+                        throw new ClassCastException("Operand must be bool or int");
+                    }
+                    break;
+                case COPY:
+                {
+                    int n = stack.popIntValue();
+                    if (n > 0)
+                    {
+                        int start = stack.size() - n;
+                        if (start < 0)
+                        {
+                            throw new IndexOutOfBoundsException("copy: " + n);
+                        }
+                        for (int i = 0; i < n; i++)
+                        {
+                            stack.pushCopy(start + i);
+                        }
+                    }
+                    break;
+                }
+                case DUP:
+                    stack.type(0);
+                    stack.pushCopy(stack.size() - 1);
+                    break;
+                case EXCH:
+                    stack.rotate(1, 1);
+                    break;
+                case INDEX:
+                {
+                    int n = stack.popIntValue();
+                    if (n < 0)
+                    {
+                        throw new IllegalArgumentException("rangecheck: " + n);
+                    }
+                    int index = stack.size() - n - 1;
+                    if (index < 0)
+                    {
+                        throw new ArrayIndexOutOfBoundsException(index);
+                    }
+                    stack.pushCopy(index);
+                    break;
+                }
+                case POP:
+                    stack.pop();
+                    break;
+                case ROLL:
+                {
+                    int j = stack.popIntValue();
+                    int n = stack.popIntValue();
+                    if (j == 0)
+                    {
+                        break;
+                    }
+                    if (n < 0)
+                    {
+                        throw new IllegalArgumentException("rangecheck: " + n);
+                    }
+                    // the same as the interpreter, which also handles |j| > n this way
+                    if (j < 0)
+                    {
+                        stack.rotate(Math.max(n + j, 0), -j);
+                    }
+                    else
+                    {
+                        stack.rotate(j, Math.max(n - j, 0));
+                    }
+                    break;
+                }
+                default:
+                    throw new IllegalStateException("Unknown opcode " + opcode);
+            }
+        }
+    }
+
+    // tells if the two values at the top of the stack are ints
+    private static boolean areInts(OperandStack stack)
+    {
+        return stack.type(0) == OperandStack.INT && stack.type(1) == OperandStack.INT;
+    }
+
+    private static void executeLogical(int opcode, OperandStack stack)
+    {
+        byte type = stack.type(0);
+        byte type1 = stack.type(1);
+        if (type == OperandStack.REAL || type != type1)
+        {
+            throw new ClassCastException("Operands must be bool/bool or int/int");
+        }
+        // booleans are kept as 0 and 1, so the bitwise operators work for them too
+        int op2 = type == OperandStack.INT ? stack.popInt() : stack.popBoolean() ? 1 : 0;
+        int op1 = type == OperandStack.INT ? stack.popInt() : stack.popBoolean() ? 1 : 0;
+        int result;
+        switch (opcode)
+        {
+            case AND:
+                result = op1 & op2;
+                break;
+            case OR:
+                result = op1 | op2;
+                break;
+            default:
+                result = op1 ^ op2;
+                break;
+        }
+        if (type == OperandStack.INT)
+        {
+            stack.pushInt(result);
+        }
+        else
+        {
+            stack.pushBoolean(result != 0);
+        }
+    }
+
+    // pops two numbers and compares them like the relational operators
+    private static boolean compare(int opcode, OperandStack stack)
+    {
+        // both operands are popped before they are checked
+        stack.type(1);
+        float num2 = stack.popReal();
+        float num1 = stack.popReal();
+        switch (opcode)
+        {
+            case GE:
+                return num1 >= num2;
+            case GT:
+                return num1 > num2;
+            case LE:
+                return num1 <= num2;
+            default:
+                return num1 < num2;
+        }
+    }
+
+    // pops two values and compares them like the "eq" operator
+    private static boolean isEqual(OperandStack stack)
+    {
+        boolean bool2 = stack.type(0) == OperandStack.BOOL;
+        boolean bool1 = stack.type(1) == OperandStack.BOOL;
+        if (!bool1 && !bool2)
+        {
+            float num2 = stack.popReal();
+            float num1 = stack.popReal();
+            return num1 == num2;
+        }
+        if (bool1 && bool2)
+        {
+            return stack.popBoolean() == stack.popBoolean();
+        }
+        // a number is never equal to a bool
+        stack.pop();
+        stack.pop();
+        return false;
+    }
+
+    /**
+     * Compiles instruction sequences into opcodes.
+     */
+    private static final class Compiler
+    {
+        private int[] code = new int[64];
+        private int length;
+
+        private boolean compile(InstructionSequence sequence)
+        {
+            List<Object> instructions = sequence.getInstructions();
+            for (int i = 0; i < instructions.size(); i++)
+            {
+                Object instruction = instructions.get(i);
+                if (instruction instanceof InstructionSequence)
+                {
+                    Object next = i + 1 < instructions.size() ? instructions.get(i + 1) : null;
+                    Object next2 = i + 2 < instructions.size() ? instructions.get(i + 2) : null;
+                    if ("if".equals(next))
+                    {
+                        int jump = emitJump(JUMP_UNLESS);
+                        if (!compile((InstructionSequence)instruction))
+                        {
+                            return false;
+                        }
+                        code[jump] = length;
+                        i++;
+                    }
+                    else if (next instanceof InstructionSequence && "ifelse".equals(next2))
+                    {
+                        int jumpToElse = emitJump(JUMP_UNLESS);
+                        if (!compile((InstructionSequence)instruction))
+                        {
+                            return false;
+                        }
+                        int jumpToEnd = emitJump(JUMP);
+                        code[jumpToElse] = length;
+                        if (!compile((InstructionSequence)next))
+                        {
+                            return false;
+                        }
+                        code[jumpToEnd] = length;
+                        i += 2;
+                    }
+                    else
+                    {
+                        // a proc which is used as a value
+                        return false;
+                    }
+                }
+                else if (instruction instanceof Integer)
+                {
+                    emit(PUSH_INT, (Integer)instruction);
+                }
+                else if (instruction instanceof Float)
+                {
+                    emit(PUSH_REAL, Float.floatToRawIntBits((Float)instruction));
+                }
+                else if (instruction instanceof Boolean)
+                {
+                    emit(PUSH_BOOL, (Boolean)instruction ? 1 : 0);
+                }
+                else
+                {
+                    Integer opcode = OPCODES.get(instruction);
+                    if (opcode == null)
+                    {
+                        // unknown operator, the interpreter throws when it is executed
+                        return false;
+                    }
+                    emit(opcode);
+                }
+            }
+            return true;
+        }
+
+        // emits a jump and returns the position of its target, which is set later
+        private int emitJump(int opcode)
+        {
+            emit(opcode, -1);
+            return length - 1;
+        }
+
+        private void emit(int opcode, int operand)
+        {
+            emit(opcode);
+            emit(operand);
+        }
+
+        private void emit(int value)
+        {
+            if (length == code.length)
+            {
+                code = Arrays.copyOf(code, length * 2);
+            }
+            code[length++] = value;
+        }
+
+        private int[] getCode()
+        {
+            return Arrays.copyOf(code, length);
+        }
+    }
+}
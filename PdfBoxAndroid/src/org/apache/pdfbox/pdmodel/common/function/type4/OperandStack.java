@@ -0,0 +1,237 @@
+package org.apache.pdfbox.pdmodel.common.function.type4;
+
+import java.util.Arrays;
+import java.util.EmptyStackException;
+
+/**
+ * The operand stack of a {@link CompiledSequence}. The values are kept in primitive arrays with a
+ * type per entry, so that executing a function doesn't box any values. A stack can be reused for
+ * any number of executions, but it may only be used by one thread at a time.
+ */
+public final class OperandStack
+{
+    static final byte INT = 0;
+    static final byte REAL = 1;
+    static final byte BOOL = 2;
+
+    byte[] types = new byte[16];
+    int[] ints = new int[16];
+    float[] reals = new float[16];
+    int size;
+
+    // scratch space of the "roll" operator
+    private byte[] rollTypes = new byte[16];
+    private int[] rollInts = new int[16];
+    private float[] rollReals = new float[16];
+
+    /**
+     * Removes all values.
+     */
+    public void clear()
+    {
+        size = 0;
+    }
+
+    /**
+     * Returns the number of values on the stack.
+     * @return the number of values
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Pushes a real value.
+     * @param value the value
+     */
+    public void pushReal(float value)
+    {
+        ensureCapacity(size + 1);
+        types[size] = REAL;
+        reals[size] = value;
+        size++;
+    }
+
+    /**
+     * Pops a number (int or real) from the stack and returns it as a real value. If the value is
+     * a boolean, a ClassCastException is thrown.
+     * @return the real value
+     */
+    public float popReal()
+    {
+        int i = top(0);
+        size--;
+        switch (types[i])
+        {
+            case INT:
+                return ints[i];
+            case REAL:
+                return reals[i];
+            default:
+                throw new ClassCastException("Operand must be a number");
+        }
+    }
+
+    void pushInt(int value)
+    {
+        ensureCapacity(size + 1);
+        types[size] = INT;
+        ints[size] = value;
+        size++;
+    }
+
+    void pushBoolean(boolean value)
+    {
+        ensureCapacity(size + 1);
+        types[size] = BOOL;
+        ints[size] = value ? 1 : 0;
+        size++;
+    }
+
+    // pushes the result of an int operation, which becomes a real if it doesn't fit into an int
+    void pushIntOrReal(long value)
+    {
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+        {
+            pushReal(value);
+        }
+        else
+        {
+            pushInt((int)value);
+        }
+    }
+
+    /**
+     * Returns the type of the value at the given depth, 0 is the top of the stack.
+     */
+    byte type(int depth)
+    {
+        return types[top(depth)];
+    }
+
+    int popInt()
+    {
+        int i = top(0);
+        if (types[i] != INT)
+        {
+            throw new ClassCastException("Operand must be an int");
+        }
+        size--;
+        return ints[i];
+    }
+
+    // like Number.intValue()
+    int popIntValue()
+    {
+        int i = top(0);
+        size--;
+        switch (types[i])
+        {
+            case INT:
+                return ints[i];
+            case REAL:
+                return (int)reals[i];
+            default:
+                throw new ClassCastException("Operand must be a number");
+        }
+    }
+
+    // like Number.doubleValue()
+    double popDouble()
+    {
+        int i = top(0);
+        size--;
+        switch (types[i])
+        {
+            case INT:
+                return ints[i];
+            case REAL:
+                return reals[i];
+            default:
+                throw new ClassCastException("Operand must be a number");
+        }
+    }
+
+    boolean popBoolean()
+    {
+        int i = top(0);
+        if (types[i] != BOOL)
+        {
+            throw new ClassCastException("Operand must be a bool");
+        }
+        size--;
+        return ints[i] != 0;
+    }
+
+    // removes the top value, whatever its type
+    void pop()
+    {
+        top(0);
+        size--;
+    }
+
+    // pushes a copy of the value at the given index
+    void pushCopy(int index)
+    {
+        ensureCapacity(size + 1);
+        types[size] = types[index];
+        ints[size] = ints[index];
+        reals[size] = reals[index];
+        size++;
+    }
+
+    /**
+     * Moves the upper values of the given window at the top of the stack below the lower ones.
+     *
+     * @param upper the number of upper values
+     * @param lower the number of lower values
+     */
+    void rotate(int upper, int lower)
+    {
+        // a negative count is the negation of Integer.MIN_VALUE, i.e. too large
+        if (upper < 0 || lower < 0 || (long)upper + lower > size)
+        {
+            throw new EmptyStackException();
+        }
+        int window = upper + lower;
+        if (rollTypes.length < window)
+        {
+            rollTypes = new byte[window];
+            rollInts = new int[window];
+            rollReals = new float[window];
+        }
+        int start = size - window;
+        System.arraycopy(types, start + lower, rollTypes, 0, upper);
+        System.arraycopy(ints, start + lower, rollInts, 0, upper);
+        System.arraycopy(reals, start + lower, rollReals, 0, upper);
+        System.arraycopy(types, start, rollTypes, upper, lower);
+        System.arraycopy(ints, start, rollInts, upper, lower);
+        System.arraycopy(reals, start, rollReals, upper, lower);
+        System.arraycopy(rollTypes, 0, types, start, window);
+        System.arraycopy(rollInts, 0, ints, start, window);
+        System.arraycopy(rollReals, 0, reals, start, window);
+    }
+
+    // returns the index of the value at the given depth
+    private int top(int depth)
+    {
+        int i = size - 1 - depth;
+        if (i < 0)
+        {
+            throw new EmptyStackException();
+        }
+        return i;
+    }
+
+    private void ensureCapacity(int capacity)
+    {
+        if (capacity > types.length)
+        {
+            int length = Math.max(capacity, types.length * 2);
+            types = Arrays.copyOf(types, length);
+            ints = Arrays.copyOf(ints, length);
+            reals = Arrays.copyOf(reals, length);
+        }
+    }
+}
@@ -24,6 +24,8 @@ import org.apache.pdfbox.pdmodel.graphics.PDXObject;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 import org.apache.pdfbox.util.Charsets;
 
+import android.graphics.Path;
+
 /**
  * This class is a convenience for creating page content streams. You MUST call close() when you
  * are finished with this object.
@@ -620,6 +622,15 @@ public class PDPageContentStream implements Closeable
         
         PDFont font = fontStack.peek();
         COSWriter.writeString(font.encode(text), output);
+        if (font.willBeSubset())
+        {
+            for (int offset = 0; offset < text.length(); )
+            {
+                int codePoint = text.codePointAt(offset);
+                font.addToSubset(codePoint);
+                offset += Character.charCount(codePoint);
+            }
+        }
         appendRawCommands(SPACE);
         appendRawCommands(SHOW_TEXT);
     }
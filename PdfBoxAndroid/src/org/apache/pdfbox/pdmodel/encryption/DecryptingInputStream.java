@@ -0,0 +1,200 @@
+package org.apache.pdfbox.pdmodel.encryption;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Decrypts the data of a stream while it is read, so that the decrypted data is never held as
+ * a whole. The data is decrypted with buffers of a fixed size, which are allocated once.
+ *
+ * @see SecurityHandler#decryptStream(org.apache.pdfbox.cos.COSStream, long, long)
+ */
+final class DecryptingInputStream extends InputStream
+{
+    private static final int BUFFER_SIZE = 8192;
+    private static final int AES_BLOCK_SIZE = 16;
+
+    private final InputStream encrypted;
+    private final byte[] key;
+    private final boolean aes;
+
+    private final byte[] input = new byte[BUFFER_SIZE];
+    // AES returns up to one block more than it is given
+    private final byte[] output = new byte[BUFFER_SIZE + AES_BLOCK_SIZE];
+    private int position;
+    private int limit;
+
+    // created when the data is read for the first time
+    private Cipher cipher;
+    private RC4Cipher rc4;
+    private boolean finished;
+
+    /**
+     * Constructor.
+     *
+     * @param encrypted the encrypted data, which starts with the initialization vector for AES
+     * @param key the key of the object the data belongs to
+     * @param aes true for AES, false for RC4
+     */
+    DecryptingInputStream(InputStream encrypted, byte[] key, boolean aes)
+    {
+        this.encrypted = encrypted;
+        this.key = key;
+        this.aes = aes;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        while (position == limit)
+        {
+            if (finished)
+            {
+                return -1;
+            }
+            fill();
+        }
+        return output[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        if (len == 0)
+        {
+            return 0;
+        }
+        while (position == limit)
+        {
+            if (finished)
+            {
+                return -1;
+            }
+            fill();
+        }
+        int n = Math.min(len, limit - position);
+        System.arraycopy(output, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    /**
+     * Returns the number of decrypted bytes which can be read without decrypting more data. As
+     * the encrypted data is already at hand, this is only 0 at the end of the data, which some
+     * filters rely on.
+     */
+    @Override
+    public int available() throws IOException
+    {
+        while (position == limit && !finished)
+        {
+            fill();
+        }
+        return limit - position;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        releaseCipher();
+        finished = true;
+        position = limit;
+        encrypted.close();
+    }
+
+    /**
+     * Decrypts the next chunk of the data.
+     */
+    private void fill() throws IOException
+    {
+        if (cipher == null && rc4 == null)
+        {
+            init();
+        }
+        int n = encrypted.read(input);
+        position = 0;
+        if (!aes)
+        {
+            if (n == -1)
+            {
+                finished = true;
+                limit = 0;
+            }
+            else
+            {
+                rc4.write(input, 0, n, output, 0);
+                limit = n;
+            }
+            return;
+        }
+        try
+        {
+            if (n == -1)
+            {
+                finished = true;
+                limit = cipher.doFinal(output, 0);
+                releaseCipher();
+            }
+            else
+            {
+                limit = cipher.update(input, 0, n, output, 0);
+            }
+        }
+        catch (GeneralSecurityException e)
+        {
+            finished = true;
+            limit = 0;
+            releaseCipher();
+            throw new IOException(e);
+        }
+    }
+
+    private void init() throws IOException
+    {
+        if (!aes)
+        {
+            rc4 = new RC4Cipher();
+            rc4.setKey(key);
+            return;
+        }
+
+        // read IV from stream
+        byte[] iv = new byte[AES_BLOCK_SIZE];
+        int ivLength = 0;
+        while (ivLength < iv.length)
+        {
+            int n = encrypted.read(iv, ivLength, iv.length - ivLength);
+            if (n == -1)
+            {
+                break;
+            }
+            ivLength += n;
+        }
+
+        cipher = SecurityHandler.acquireAESCipher();
+        try
+        {
+            cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(key, "AES"), new IvParameterSpec(iv));
+        }
+        catch (GeneralSecurityException e)
+        {
+            finished = true;
+            releaseCipher();
+            throw new IOException(e);
+        }
+    }
+
+    private void releaseCipher()
+    {
+        if (cipher != null)
+        {
+            SecurityHandler.releaseAESCipher(cipher);
+            cipher = null;
+        }
+    }
+}
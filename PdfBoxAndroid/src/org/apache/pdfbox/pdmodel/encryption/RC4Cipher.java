@@ -126,7 +126,9 @@ class RC4Cipher
         int amountRead = 0;
         while( (amountRead = data.read( buffer )) != -1 )
         {
-            write( buffer, 0, amountRead, output );
+            // the bytes can be encrypted in place
+            write( buffer, 0, amountRead, buffer, 0 );
+            output.write( buffer, 0, amountRead );
         }
     }
 
@@ -142,9 +144,29 @@ class RC4Cipher
      */
     public void write( byte[] data, int offset, int len, OutputStream output) throws IOException
     {
-        for( int i = offset; i < offset + len; i++ )
+        byte[] result = new byte[len];
+        write( data, offset, len, result, 0 );
+        output.write( result );
+    }
+
+    /**
+     * This will encrypt the data into the given array, which may be the same as the data.
+     *
+     * @param data The data to encrypt.
+     * @param offset The offset into the array to start reading data from.
+     * @param len The number of bytes to encrypt.
+     * @param output The array to write the encrypted bytes to.
+     * @param outputOffset The offset into the output array.
+     */
+    public void write( byte[] data, int offset, int len, byte[] output, int outputOffset )
+    {
+        for( int i = 0; i < len; i++ )
         {
-            write( data[i], output );
+            b = (b + 1) & 0xff;
+            c = (salt[b] + c) & 0xff;
+            swap( salt, b, c );
+            int saltIndex = (salt[b] + salt[c]) & 0xff;
+            output[outputOffset + i] = (byte)(data[offset + i] ^ salt[saltIndex]);
         }
     }
 }
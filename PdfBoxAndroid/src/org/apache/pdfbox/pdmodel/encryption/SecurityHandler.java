@@ -6,22 +6,17 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.security.GeneralSecurityException;
-import java.security.InvalidAlgorithmParameterException;
-import java.security.InvalidKeyException;
 import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
-import javax.crypto.CipherInputStream;
-import javax.crypto.IllegalBlockSizeException;
-import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
@@ -34,7 +29,7 @@ import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.cos.COSObject;
 import org.apache.pdfbox.cos.COSStream;
 import org.apache.pdfbox.cos.COSString;
-import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.cos.ICOSStreamDecryptor;
 import org.apache.pdfbox.pdmodel.PDDocument;
 
 /**
@@ -52,6 +47,42 @@ public abstract class SecurityHandler
 	// see 7.6.2, page 58, PDF 32000-1:2008
 	private static final byte[] AES_SALT = { (byte) 0x73, (byte) 0x41, (byte) 0x6c, (byte) 0x54 };
 
+	// the number of object keys which are kept, strings and streams of an object are usually
+	// decrypted one after the other
+	private static final int OBJECT_KEY_CACHE_SIZE = 64;
+
+	private static final int BUFFER_SIZE = 1024;
+
+	// ciphers and digests are expensive to create, they are reused by all handlers of a thread;
+	// a thread may read several encrypted streams at the same time, so it may need several ciphers
+	private static final int MAX_FREE_AES_CIPHERS = 4;
+	private static final ThreadLocal<List<Cipher>> FREE_AES_CIPHERS = new ThreadLocal<List<Cipher>>()
+	{
+		@Override
+		protected List<Cipher> initialValue()
+		{
+			return new ArrayList<Cipher>(MAX_FREE_AES_CIPHERS);
+		}
+	};
+
+	private static final ThreadLocal<RC4Cipher> RC4_CIPHERS = new ThreadLocal<RC4Cipher>()
+	{
+		@Override
+		protected RC4Cipher initialValue()
+		{
+			return new RC4Cipher();
+		}
+	};
+
+	private static final ThreadLocal<MessageDigest> MD5_DIGESTS = new ThreadLocal<MessageDigest>()
+	{
+		@Override
+		protected MessageDigest initialValue()
+		{
+			return MessageDigests.getMD5();
+		}
+	};
+
 	/** The value of V field of the Encryption dictionary. */
 	protected int version;
 
@@ -64,7 +95,13 @@ public abstract class SecurityHandler
 	/** The document whose security is handled by this security handler.*/
 	protected PDDocument document;
 
-	/** The RC4 implementation used for cryptographic functions. */
+	/**
+	 * The RC4 implementation used for cryptographic functions.
+	 *
+	 * @deprecated Not used anymore, the data is encrypted and decrypted with a cipher per thread.
+	 * Subclasses which need RC4 should create their own RC4Cipher.
+	 */
+	@Deprecated
 	protected RC4Cipher rc4 = new RC4Cipher();
 
 	/** indicates if the Metadata have to be decrypted of not */ 
@@ -75,6 +112,19 @@ public abstract class SecurityHandler
 
 	private boolean useAES;
 
+	// the keys of the last used objects, see getObjectKey()
+	private final Map<Long, byte[]> objectKeys = new LinkedHashMap<Long, byte[]>(16, 0.75f, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest)
+		{
+			return size() > OBJECT_KEY_CACHE_SIZE;
+		}
+	};
+	// the encryption key and algorithm the object keys were computed for
+	private byte[] objectKeysEncryptionKey;
+	private boolean objectKeysAES;
+
 	/**
 	 * The access permission granted to the current user for the document. These
 	 * permissions are computed during decryption and are in read only mode.
@@ -118,6 +168,10 @@ public abstract class SecurityHandler
 	 * This method must be called by an implementation of this class to really proceed
 	 * to decryption.
 	 *
+	 * All objects of the document are decrypted here, the strings right away. The data of
+	 * the streams is decrypted when it is read. The non sequential parser doesn't use this
+	 * method, it decrypts every object when the object is parsed.
+	 *
 	 * @throws IOException If there is an error in the decryption.
 	 */
 	protected void proceedDecryption() throws IOException
@@ -217,7 +271,28 @@ public abstract class SecurityHandler
 			OutputStream output, boolean decrypt) throws IOException
 	{
 		// Determine whether we're using Algorithm 1 (for RC4 and AES-128), or 1.A (for AES-256)
-		if (useAES && encryptionKey.length == 32)
+		if (useAES && !decrypt && encryptionKey.length != 32)
+		{
+			throw new IllegalArgumentException("AES encryption with key length other than 256 bits is not yet implemented.");
+		}
+		encryptData(getObjectKey(objectNumber, genNumber), useAES, data, output, decrypt);
+	}
+
+	/**
+	 * Encrypt or decrypt a set of data with the given key.
+	 *
+	 * @param key The key of the object the data belongs to.
+	 * @param aes true to use AES, false to use RC4
+	 * @param data The data to encrypt.
+	 * @param output The output to write the encrypted data to.
+	 * @param decrypt true to decrypt the data, false to encrypt it
+	 *
+	 * @throws IOException If there is an error reading the data.
+	 */
+	private void encryptData(byte[] key, boolean aes, InputStream data, OutputStream output,
+			boolean decrypt) throws IOException
+	{
+		if (aes)
 		{
 			byte[] iv = new byte[16];
 
@@ -234,35 +309,109 @@ public abstract class SecurityHandler
 				output.write(iv);
 			}
 
-			Cipher cipher;
+			Cipher cipher = acquireAESCipher();
 			try
 			{
-				cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
-				SecretKeySpec keySpec = new SecretKeySpec(encryptionKey, "AES");
-				IvParameterSpec ivSpec = new IvParameterSpec(iv);
-				cipher.init(decrypt ? Cipher.DECRYPT_MODE : Cipher.ENCRYPT_MODE, keySpec, ivSpec);
-
+				SecretKey aesKey = new SecretKeySpec(key, "AES");
+				IvParameterSpec ips = new IvParameterSpec(iv);
+				cipher.init(decrypt ? Cipher.DECRYPT_MODE : Cipher.ENCRYPT_MODE, aesKey, ips);
+
+				// AES returns up to one block more than it is given
+				byte[] buffer = new byte[BUFFER_SIZE];
+				byte[] result = new byte[BUFFER_SIZE + iv.length];
+				for (int n = 0; -1 != (n = data.read(buffer));)
+				{
+					output.write(result, 0, cipher.update(buffer, 0, n, result, 0));
+				}
+				output.write(result, 0, cipher.doFinal(result, 0));
 			}
 			catch (GeneralSecurityException e)
 			{
 				throw new IOException(e);
 			}
-
-			CipherInputStream cis = new CipherInputStream(data, cipher);
-			try
-			{
-				IOUtils.copy(cis, output);
-			}
 			finally
 			{
-				cis.close();
+				releaseAESCipher(cipher);
 			}
 		}
 		else
 		{
-			if (useAES && !decrypt)
+			RC4Cipher cipher = RC4_CIPHERS.get();
+			cipher.setKey(key);
+			cipher.write(data, output);
+		}
+		output.flush();
+	}
+
+	/**
+	 * Returns an AES cipher of the current thread, which has to be released after use.
+	 *
+	 * @return an uninitialized cipher
+	 */
+	static Cipher acquireAESCipher()
+	{
+		List<Cipher> ciphers = FREE_AES_CIPHERS.get();
+		if (!ciphers.isEmpty())
+		{
+			return ciphers.remove(ciphers.size() - 1);
+		}
+		try
+		{
+			return Cipher.getInstance("AES/CBC/PKCS5Padding");
+		}
+		catch (GeneralSecurityException e)
+		{
+			// should never happen
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Releases a cipher of {@link #acquireAESCipher()}, so that it can be reused by the current
+	 * thread.
+	 *
+	 * @param cipher the cipher, which mustn't be used anymore
+	 */
+	static void releaseAESCipher(Cipher cipher)
+	{
+		List<Cipher> ciphers = FREE_AES_CIPHERS.get();
+		if (ciphers.size() < MAX_FREE_AES_CIPHERS)
+		{
+			ciphers.add(cipher);
+		}
+	}
+
+	/**
+	 * Returns the key to encrypt or decrypt the data of the given object. For AES-256 this is the
+	 * encryption key (algorithm 1.A), otherwise it is derived from the encryption key and the
+	 * object number (algorithm 1). The derived keys of the last used objects are kept, so that
+	 * the strings of an object don't need a digest each.
+	 *
+	 * @param objectNumber The object number.
+	 * @param genNumber The generation number.
+	 * @return the key of the object
+	 */
+	private byte[] getObjectKey(long objectNumber, long genNumber)
+	{
+		if (useAES && encryptionKey.length == 32)
+		{
+			return encryptionKey;
+		}
+
+		// only these bytes of the numbers are part of the key
+		Long cacheKey = Long.valueOf((objectNumber & 0xffffff) << 16 | (genNumber & 0xffff));
+		synchronized (objectKeys)
+		{
+			if (objectKeysEncryptionKey != encryptionKey || objectKeysAES != useAES)
+			{
+				objectKeys.clear();
+				objectKeysEncryptionKey = encryptionKey;
+				objectKeysAES = useAES;
+			}
+			byte[] finalKey = objectKeys.get(cacheKey);
+			if (finalKey != null)
 			{
-				throw new IllegalArgumentException("AES encryption with key length other than 256 bits is not yet implemented.");
+				return finalKey;
 			}
 
 			byte[] newKey = new byte[encryptionKey.length + 5];
@@ -279,7 +428,8 @@ public abstract class SecurityHandler
 			newKey[newKey.length - 1] = (byte) (genNumber >> 8 & 0xff);
 
 			// step 3
-			MessageDigest md = MessageDigests.getMD5();
+			MessageDigest md = MD5_DIGESTS.get();
+			md.reset();
 			md.update(newKey);
 			if (useAES)
 			{
@@ -289,67 +439,11 @@ public abstract class SecurityHandler
 
 			// step 4
 			int length = Math.min(newKey.length, 16);
-			byte[] finalKey = new byte[length];
+			finalKey = new byte[length];
 			System.arraycopy(digestedKey, 0, finalKey, 0, length);
-
-			if (useAES)
-			{
-				byte[] iv = new byte[16];
-
-				data.read(iv);
-
-				try
-				{
-					Cipher decryptCipher;
-					try
-					{
-						decryptCipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
-					}
-					catch (NoSuchAlgorithmException e)
-					{
-						// should never happen
-						throw new RuntimeException(e);
-					}
-
-					SecretKey aesKey = new SecretKeySpec(finalKey, "AES");
-					IvParameterSpec ips = new IvParameterSpec(iv);
-					decryptCipher.init(decrypt ? Cipher.DECRYPT_MODE : Cipher.ENCRYPT_MODE, aesKey, ips);
-
-					byte[] buffer = new byte[256];
-					for (int n = 0; -1 != (n = data.read(buffer));)
-					{
-						output.write(decryptCipher.update(buffer,0, n ));
-					}
-					output.write(decryptCipher.doFinal());
-				}
-				catch (InvalidKeyException e)
-				{
-					throw new IOException(e);
-				}
-				catch (InvalidAlgorithmParameterException e)
-				{
-					throw new IOException(e);
-				}
-				catch (NoSuchPaddingException e)
-				{
-					throw new IOException(e);
-				}
-				catch (IllegalBlockSizeException e)
-				{
-					throw new IOException(e);
-				}
-				catch (BadPaddingException e)
-				{
-					throw new IOException(e);
-				}
-			}
-			else
-			{
-				rc4.setKey(finalKey);
-				rc4.write(data, output);
-			}
+			objectKeys.put(cacheKey, finalKey);
+			return finalKey;
 		}
-		output.flush();
 	}
 
 	/**
@@ -422,8 +516,29 @@ public abstract class SecurityHandler
 			return;
 		}
 		decryptDictionary(stream, objNum, genNum);
-		InputStream encryptedStream = stream.getFilteredStream();
-		encryptData(objNum, genNum, encryptedStream, stream.createFilteredStream(), true /* decrypt */);
+		// the data is decrypted when it is accessed, which may be never
+		stream.setDecryptor(new StreamDecryptor(getObjectKey(objNum, genNum), useAES));
+	}
+
+	/**
+	 * Decrypts the data of a stream while it is read. The key is kept because the encryption key
+	 * may change before, e.g. when the document is saved with a new encryption.
+	 */
+	private final class StreamDecryptor implements ICOSStreamDecryptor
+	{
+		private final byte[] key;
+		private final boolean aes;
+
+		private StreamDecryptor(byte[] key, boolean aes)
+		{
+			this.key = key;
+			this.aes = aes;
+		}
+
+		public InputStream decrypt(InputStream encrypted)
+		{
+			return new DecryptingInputStream(encrypted, key, aes);
+		}
 	}
 
 	/**
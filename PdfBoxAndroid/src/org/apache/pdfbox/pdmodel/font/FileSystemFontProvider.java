@@ -1,14 +1,25 @@
 package org.apache.pdfbox.pdmodel.font;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URI;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -30,15 +41,24 @@ final class FileSystemFontProvider extends FontProvider
 {
     private static final Log LOG = LogFactory.getLog(FileSystemFontProvider.class);
 
+    private static final String INDEX_FILE_NAME = "pdfbox.fontindex";
+    // to be changed when the font parsers change, so that the whole index is read again
+    private static final String INDEX_VERSION = "PDFBox font index 1";
+
     // cache of font files on the system (populated in constructor)
     private final Map<String, File> ttfFontFiles = new HashMap<String, File>();
     private final Map<String, File> cffFontFiles = new HashMap<String, File>();
     private final Map<String, File> type1FontFiles =  new HashMap<String, File>();
 
-    // cache of loaded fonts which are in use (populated on-the-fly)
-    private final Map<String, TrueTypeFont> ttfFonts = new HashMap<String, TrueTypeFont>();
-    private final Map<String, CFFFont> cffFonts = new HashMap<String, CFFFont>();
-    private final Map<String, Type1Font> type1Fonts = new HashMap<String, Type1Font>();
+    // cache of loaded fonts which are in use (populated on-the-fly), without a lock for the
+    // lookups, so two threads may both load a font which isn't loaded yet; the font which is
+    // stored first is used by both of them
+    private final ConcurrentMap<String, TrueTypeFont> ttfFonts =
+            new ConcurrentHashMap<String, TrueTypeFont>();
+    private final ConcurrentMap<String, CFFFont> cffFonts =
+            new ConcurrentHashMap<String, CFFFont>();
+    private final ConcurrentMap<String, Type1Font> type1Fonts =
+            new ConcurrentHashMap<String, Type1Font>();
 
     /**
      * Constructor.
@@ -50,6 +70,13 @@ final class FileSystemFontProvider extends FontProvider
             LOG.trace("Will search the local system for fonts");
         }
 
+        // the fonts which haven't changed since the index was written aren't parsed again
+        File indexFile = getIndexFile();
+        Map<String, FontInfo> index = readIndex(indexFile);
+        Map<String, FontInfo> newIndex = new LinkedHashMap<String, FontInfo>();
+        Map<String, File> fontFiles = new LinkedHashMap<String, File>();
+        Set<String> parsed = new HashSet<String>();
+
         int count = 0;
         FontFileFinder fontFileFinder = new FontFileFinder();
         List<URI> fonts = fontFileFinder.find();
@@ -57,22 +84,34 @@ final class FileSystemFontProvider extends FontProvider
         {
             count++;
             File fontFile = new File(font);
-            try
+            FontInfo info = index.get(fontFile.getPath());
+            if (info == null || info.length != fontFile.length() ||
+                info.lastModified != fontFile.lastModified())
             {
-                if (fontFile.getPath().toLowerCase().endsWith(".ttf") ||
-                    fontFile.getPath().toLowerCase().endsWith(".otf"))
-                {
-                    addOpenTypeFont(fontFile);
-                }
-                else if (fontFile.getPath().toLowerCase().endsWith(".pfb"))
-                {
-                    addType1Font(fontFile);
-                }
+                info = readFont(fontFile);
+                parsed.add(fontFile.getPath());
             }
-            catch (IOException e)
+            newIndex.put(fontFile.getPath(), info);
+            fontFiles.put(fontFile.getPath(), fontFile);
+        }
+
+        if (!parsed.isEmpty() || newIndex.size() != index.size())
+        {
+            // the index is rebuilt, so the fonts which couldn't be used before are tried again
+            for (Map.Entry<String, FontInfo> entry : newIndex.entrySet())
             {
-                LOG.error("Error parsing font " + fontFile.getPath(), e);
+                if (FontInfo.NONE.equals(entry.getValue().format) &&
+                    !parsed.contains(entry.getKey()))
+                {
+                    entry.setValue(readFont(fontFiles.get(entry.getKey())));
+                }
             }
+            writeIndex(indexFile, newIndex);
+        }
+
+        for (Map.Entry<String, FontInfo> entry : newIndex.entrySet())
+        {
+            addFont(entry.getValue(), fontFiles.get(entry.getKey()));
         }
 
         if (LOG.isTraceEnabled())
@@ -82,9 +121,60 @@ final class FileSystemFontProvider extends FontProvider
     }
 
     /**
-     * Adds an OTF or TTF font to the file cache. To reduce memory, the parsed font is not cached.
+     * Parses a font file and returns its index entry. A font which can't be used gets an entry
+     * too, so that it isn't parsed again until the index is rebuilt.
+     */
+    private FontInfo readFont(File fontFile)
+    {
+        FontInfo info = null;
+        try
+        {
+            if (fontFile.getPath().toLowerCase().endsWith(".ttf") ||
+                fontFile.getPath().toLowerCase().endsWith(".otf"))
+            {
+                info = readOpenTypeFont(fontFile);
+            }
+            else if (fontFile.getPath().toLowerCase().endsWith(".pfb"))
+            {
+                info = readType1Font(fontFile);
+            }
+        }
+        catch (IOException e)
+        {
+            LOG.error("Error parsing font " + fontFile.getPath(), e);
+        }
+        if (info == null)
+        {
+            info = new FontInfo(FontInfo.NONE, fontFile, null, null,
+                    Collections.<String>emptySet());
+        }
+        return info;
+    }
+
+    /**
+     * Adds the font file of an index entry to the file cache.
+     */
+    private void addFont(FontInfo info, File fontFile)
+    {
+        if (FontInfo.TTF.equals(info.format))
+        {
+            ttfFontFiles.putAll(toMap(info.names, fontFile));
+        }
+        else if (FontInfo.OTF.equals(info.format))
+        {
+            cffFontFiles.putAll(toMap(info.names, fontFile));
+        }
+        else if (FontInfo.PFB.equals(info.format))
+        {
+            type1FontFiles.putAll(toMap(info.names, fontFile));
+        }
+    }
+
+    /**
+     * Reads the index entry of an OTF or TTF font. To reduce memory, the parsed font is not
+     * cached.
      */
-    private void addOpenTypeFont(File otfFile) throws IOException
+    private FontInfo readOpenTypeFont(File otfFile) throws IOException
     {
         TTFParser ttfParser = new TTFParser(false, true);
         TrueTypeFont ttf = null;
@@ -100,6 +190,10 @@ final class FileSystemFontProvider extends FontProvider
         {
             LOG.error("Could not load font file: " + otfFile, e);
         }
+        if (ttf == null)
+        {
+            return null;
+        }
 
         try
         {
@@ -119,13 +213,11 @@ final class FileSystemFontProvider extends FontProvider
                     String format;
                     if (ttf.getTableMap().get("CFF ") != null)
                     {
-                        format = "OTF";
-                        cffFontFiles.putAll(toMap(getNames(ttf), otfFile));
+                        format = FontInfo.OTF;
                     }
                     else
                     {
-                        format = "TTF";
-                        ttfFontFiles.putAll(toMap(getNames(ttf), otfFile));
+                        format = FontInfo.TTF;
                     }
 
                     if (LOG.isTraceEnabled())
@@ -133,6 +225,8 @@ final class FileSystemFontProvider extends FontProvider
                         LOG.trace(format +": '" + psName + "' / '" + nameTable.getFontFamily() +
                                 "' / '" + nameTable.getFontSubFamily() + "'");
                     }
+                    return new FontInfo(format, otfFile, nameTable.getFontFamily(),
+                            nameTable.getFontSubFamily(), getNames(ttf));
                 }
                 else
                 {
@@ -147,12 +241,13 @@ final class FileSystemFontProvider extends FontProvider
                 ttf.close();
             }
         }
+        return null;
     }
 
     /**
-     * Adds a Type 1 font to the file cache. To reduce memory, the parsed font is not cached.
+     * Reads the index entry of a Type 1 font. To reduce memory, the parsed font is not cached.
      */
-    private void addType1Font(File pfbFile) throws IOException
+    private FontInfo readType1Font(File pfbFile) throws IOException
     {
         InputStream input = new FileInputStream(pfbFile);
         try
@@ -160,13 +255,14 @@ final class FileSystemFontProvider extends FontProvider
             Type1Font type1 = Type1Font.createWithPFB(input);
 
             String psName = type1.getFontName();
-            type1FontFiles.putAll(toMap(getNames(type1), pfbFile));
 
             if (LOG.isTraceEnabled())
             {
                 LOG.trace("PFB: '" + psName + "' / '" + type1.getFamilyName() + "' / '" +
                         type1.getWeight() + "'");
             }
+            return new FontInfo(FontInfo.PFB, pfbFile, type1.getFamilyName(), type1.getWeight(),
+                    getNames(type1));
         }
         finally
         {
@@ -174,8 +270,133 @@ final class FileSystemFontProvider extends FontProvider
         }
     }
 
+    /**
+     * Returns the file of the font index, in the directory given by the system property
+     * "org.apache.pdfbox.fontcache", or else a hidden file in the home directory of the user.
+     * Without a writable home directory, as on Android, the temporary directory is used, which
+     * is the private cache directory of the application on Android.
+     */
+    private static File getIndexFile()
+    {
+        String dir = System.getProperty("org.apache.pdfbox.fontcache");
+        if (dir != null)
+        {
+            return new File(dir, INDEX_FILE_NAME);
+        }
+        String home = System.getProperty("user.home");
+        if (home != null && home.length() > 0)
+        {
+            File homeDir = new File(home);
+            if (homeDir.isDirectory() && homeDir.canWrite())
+            {
+                return new File(homeDir, "." + INDEX_FILE_NAME);
+            }
+        }
+        dir = System.getProperty("java.io.tmpdir");
+        return dir == null ? null : new File(dir, INDEX_FILE_NAME);
+    }
+
+    /**
+     * Reads the font index, by path. A missing or unreadable index is empty.
+     */
+    private static Map<String, FontInfo> readIndex(File file)
+    {
+        Map<String, FontInfo> index = new HashMap<String, FontInfo>();
+        if (file == null || !file.isFile())
+        {
+            return index;
+        }
+        BufferedReader reader = null;
+        try
+        {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+            if (!INDEX_VERSION.equals(reader.readLine()))
+            {
+                return index;
+            }
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                FontInfo info = FontInfo.parse(line);
+                if (info != null)
+                {
+                    index.put(info.path, info);
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            LOG.warn("Could not read the font index " + file + ": " + e.getMessage());
+            index.clear();
+        }
+        finally
+        {
+            IOUtils.closeQuietly(reader);
+        }
+        return index;
+    }
+
+    /**
+     * Writes the font index. The index is only a cache, so failures are logged and ignored.
+     */
+    private static void writeIndex(File file, Map<String, FontInfo> index)
+    {
+        if (file == null)
+        {
+            return;
+        }
+        // write a new temporary file next to the index first and rename it, so that a
+        // concurrent reader never sees half an index and concurrent writers don't mix
+        File temp = null;
+        Writer writer = null;
+        try
+        {
+            temp = File.createTempFile(INDEX_FILE_NAME, ".tmp",
+                    file.getAbsoluteFile().getParentFile());
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temp), "UTF-8"));
+            writer.write(INDEX_VERSION);
+            writer.write('\n');
+            for (FontInfo info : index.values())
+            {
+                // the fields are separated by tabs
+                if (info.path.indexOf('\t') == -1 && info.path.indexOf('\n') == -1 &&
+                    info.path.indexOf('\r') == -1)
+                {
+                    writer.write(info.toString());
+                    writer.write('\n');
+                }
+            }
+            writer.close();
+            writer = null;
+            // the rename replaces the old index atomically where the platform allows it (POSIX,
+            // Android), elsewhere the old index has to be deleted first
+            if (!temp.renameTo(file))
+            {
+                file.delete();
+                if (!temp.renameTo(file))
+                {
+                    throw new IOException("Could not rename " + temp + " to " + file);
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            LOG.warn("Could not write the font index " + file + ": " + e.getMessage());
+            IOUtils.closeQuietly(writer);
+            writer = null;
+            if (temp != null)
+            {
+                temp.delete();
+            }
+        }
+        finally
+        {
+            IOUtils.closeQuietly(writer);
+        }
+    }
+
     @Override
-    public synchronized TrueTypeFont getTrueTypeFont(String postScriptName)
+    public TrueTypeFont getTrueTypeFont(String postScriptName)
     {
         TrueTypeFont ttf = ttfFonts.get(postScriptName);
         if (ttf != null)
@@ -191,9 +412,23 @@ final class FileSystemFontProvider extends FontProvider
             {
                 ttf = ttfParser.parse(file);
 
+                TrueTypeFont loaded = ttfFonts.putIfAbsent(postScriptName, ttf);
+                if (loaded != null)
+                {
+                    // another thread has loaded it in the meantime, release our file
+                    try
+                    {
+                        ttf.close();
+                    }
+                    catch (IOException e)
+                    {
+                        LOG.warn("Could not close font file: " + file, e);
+                    }
+                    return loaded;
+                }
                 for (String name : getNames(ttf))
                 {
-                    ttfFonts.put(name, ttf);
+                    ttfFonts.putIfAbsent(name, ttf);
                 }
                 if (LOG.isDebugEnabled())
                 {
@@ -214,7 +449,7 @@ final class FileSystemFontProvider extends FontProvider
     }
 
     @Override
-    public synchronized CFFFont getCFFFont(String postScriptName)
+    public CFFFont getCFFFont(String postScriptName)
     {
         CFFFont cff = cffFonts.get(postScriptName);
         if (cff != null)
@@ -232,9 +467,14 @@ final class FileSystemFontProvider extends FontProvider
                 byte[] bytes = IOUtils.toByteArray(input);
                 CFFParser cffParser = new CFFParser();
                 cff = cffParser.parse(bytes).get(0);
+                CFFFont loaded = cffFonts.putIfAbsent(postScriptName, cff);
+                if (loaded != null)
+                {
+                    return loaded;
+                }
                 for (String name : getNames(cff))
                 {
-                    cffFonts.put(name, cff);
+                    cffFonts.putIfAbsent(name, cff);
                 }
                 if (LOG.isDebugEnabled())
                 {
@@ -255,7 +495,7 @@ final class FileSystemFontProvider extends FontProvider
     }
 
     @Override
-    public synchronized Type1Font getType1Font(String postScriptName)
+    public Type1Font getType1Font(String postScriptName)
     {
         Type1Font type1 = type1Fonts.get(postScriptName);
         if (type1 != null)
@@ -271,9 +511,14 @@ final class FileSystemFontProvider extends FontProvider
             {
                 input = new FileInputStream(file);
                 type1 = Type1Font.createWithPFB(input);
+                Type1Font loaded = type1Fonts.putIfAbsent(postScriptName, type1);
+                if (loaded != null)
+                {
+                    return loaded;
+                }
                 for (String name : getNames(type1))
                 {
-                    type1Fonts.put(name, type1);
+                    type1Fonts.putIfAbsent(name, type1);
                 }
                 if (LOG.isDebugEnabled())
                 {
@@ -336,4 +581,92 @@ final class FileSystemFontProvider extends FontProvider
         }
         return sb.toString();
     }
+
+    /**
+     * An entry of the font index: a font file and the names of its font, so that the file
+     * doesn't have to be parsed to find a font by name. One line per font file, with tab
+     * separated fields.
+     */
+    private static final class FontInfo
+    {
+        private static final String TTF = "TTF";
+        private static final String OTF = "OTF";
+        private static final String PFB = "PFB";
+        // a font file which can't be used
+        private static final String NONE = "-";
+
+        private final String format;
+        private final String path;
+        private final long length;
+        private final long lastModified;
+        private final String family;
+        private final String weight;
+        private final Set<String> names;
+
+        private FontInfo(String format, File file, String family, String weight, Set<String> names)
+        {
+            this(format, file.getPath(), file.length(), file.lastModified(), family, weight,
+                    names);
+        }
+
+        private FontInfo(String format, String path, long length, long lastModified,
+                String family, String weight, Set<String> names)
+        {
+            this.format = format;
+            this.path = path;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.family = family;
+            this.weight = weight;
+            this.names = names;
+        }
+
+        /**
+         * Parses a line of the index, returns null if the line is damaged.
+         */
+        private static FontInfo parse(String line)
+        {
+            String[] fields = line.split("\t", -1);
+            if (fields.length < 6)
+            {
+                return null;
+            }
+            try
+            {
+                Set<String> names = new HashSet<String>();
+                for (int i = 6; i < fields.length; i++)
+                {
+                    names.add(fields[i]);
+                }
+                return new FontInfo(fields[0], fields[1], Long.parseLong(fields[2]),
+                        Long.parseLong(fields[3]), fields[4], fields[5], names);
+            }
+            catch (NumberFormatException e)
+            {
+                return null;
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            StringBuilder sb = new StringBuilder();
+            sb.append(format).append('\t');
+            sb.append(path).append('\t');
+            sb.append(length).append('\t');
+            sb.append(lastModified).append('\t');
+            sb.append(clean(family)).append('\t');
+            sb.append(clean(weight));
+            for (String name : names)
+            {
+                sb.append('\t').append(clean(name));
+            }
+            return sb.toString();
+        }
+
+        private static String clean(String value)
+        {
+            return value == null ? "" : value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+        }
+    }
 }
@@ -0,0 +1,330 @@
+package org.apache.pdfbox.pdmodel.font;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.fontbox.cff.CFFFont;
+import org.apache.fontbox.cff.CFFParser;
+import org.apache.fontbox.ttf.OTFParser;
+import org.apache.fontbox.ttf.OpenTypeFont;
+import org.apache.fontbox.ttf.TTFParser;
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.apache.fontbox.type1.Type1Font;
+
+/**
+ * Process wide cache of parsed embedded fonts, shared by all documents. The fonts are found by
+ * a SHA-256 hash of the font file, so a font which is embedded in many documents is parsed once
+ * as long as it stays in the cache.
+ *
+ * The cache is bounded by the total size of the cached font files, the least recently used
+ * fonts are evicted first. It is split into segments with a lock of their own, fonts are parsed
+ * without holding any lock.
+ */
+public final class FontCache
+{
+	/** default maximum size of the cached font files, in bytes */
+	public static final long DEFAULT_MAXIMUM_SIZE = 16 * 1024 * 1024;
+
+	private static final int SEGMENT_COUNT = 16;
+
+	// font file formats, part of the key because the same bytes parse differently
+	private static final int TRUE_TYPE = 0;
+	private static final int OPEN_TYPE = 1;
+	private static final int CFF = 2;
+	private static final int TYPE1 = 3;
+
+	private static final FontCache INSTANCE = new FontCache();
+
+	private final Segment[] segments = new Segment[SEGMENT_COUNT];
+	private final AtomicLong size = new AtomicLong();
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong evictionCount = new AtomicLong();
+	private volatile long maximumSize = DEFAULT_MAXIMUM_SIZE;
+
+	private FontCache()
+	{
+		for (int i = 0; i < segments.length; i++)
+		{
+			segments[i] = new Segment();
+		}
+	}
+
+	/**
+	 * Returns the cache which is shared by all documents.
+	 *
+	 * @return the font cache
+	 */
+	public static FontCache getInstance()
+	{
+		return INSTANCE;
+	}
+
+	/**
+	 * Sets the maximum total size of the cached font files. Fonts are evicted when the cache
+	 * grows beyond the size, 0 disables the cache.
+	 *
+	 * @param bytes the maximum size in bytes
+	 */
+	public void setMaximumSize(long bytes)
+	{
+		maximumSize = bytes;
+		evict(0);
+	}
+
+	/**
+	 * Returns the maximum total size of the cached font files.
+	 *
+	 * @return the maximum size in bytes
+	 */
+	public long getMaximumSize()
+	{
+		return maximumSize;
+	}
+
+	/**
+	 * Returns the total size of the cached font files.
+	 *
+	 * @return the size in bytes
+	 */
+	public long getSize()
+	{
+		return size.get();
+	}
+
+	/**
+	 * Returns the number of fonts which were found in the cache.
+	 *
+	 * @return the number of hits
+	 */
+	public long getHitCount()
+	{
+		return hitCount.get();
+	}
+
+	/**
+	 * Returns the number of fonts which had to be parsed.
+	 *
+	 * @return the number of misses
+	 */
+	public long getMissCount()
+	{
+		return missCount.get();
+	}
+
+	/**
+	 * Returns the number of fonts which were evicted to keep the cache within its size.
+	 *
+	 * @return the number of evictions
+	 */
+	public long getEvictionCount()
+	{
+		return evictionCount.get();
+	}
+
+	/**
+	 * Removes all fonts from the cache.
+	 */
+	public void clear()
+	{
+		for (Segment segment : segments)
+		{
+			synchronized (segment)
+			{
+				for (Entry entry : segment.entries.values())
+				{
+					size.addAndGet(-entry.weight);
+				}
+				segment.entries.clear();
+			}
+		}
+	}
+
+	/**
+	 * Returns the embedded TrueType font (FontFile2) with the given data.
+	 */
+	TrueTypeFont getTrueTypeFont(byte[] data) throws IOException
+	{
+		return (TrueTypeFont)get(TRUE_TYPE, data, null);
+	}
+
+	/**
+	 * Returns the embedded OpenType font (FontFile3 of subtype OpenType) with the given data.
+	 */
+	OpenTypeFont getOpenTypeFont(byte[] data) throws IOException
+	{
+		return (OpenTypeFont)get(OPEN_TYPE, data, null);
+	}
+
+	/**
+	 * Returns the first font of the embedded CFF font (FontFile3) with the given data.
+	 */
+	CFFFont getCFFFont(byte[] data) throws IOException
+	{
+		return (CFFFont)get(CFF, data, null);
+	}
+
+	/**
+	 * Returns the embedded Type 1 font (FontFile) with the given cleartext and binary segments.
+	 */
+	Type1Font getType1Font(byte[] segment1, byte[] segment2) throws IOException
+	{
+		return (Type1Font)get(TYPE1, segment1, segment2);
+	}
+
+	private Object get(int format, byte[] data, byte[] data2) throws IOException
+	{
+		long weight = data.length + (data2 == null ? 0 : data2.length);
+		if (weight > maximumSize)
+		{
+			missCount.incrementAndGet();
+			return parse(format, data, data2);
+		}
+
+		Key key = new Key(format, data, data2);
+		int index = (key.hashCode() & 0x7fffffff) % SEGMENT_COUNT;
+		Segment segment = segments[index];
+		synchronized (segment)
+		{
+			Entry entry = segment.entries.get(key);
+			if (entry != null)
+			{
+				hitCount.incrementAndGet();
+				return entry.font;
+			}
+		}
+
+		// parse without the lock, another thread may have added the same font in the meantime
+		missCount.incrementAndGet();
+		Object font = parse(format, data, data2);
+		synchronized (segment)
+		{
+			Entry entry = segment.entries.get(key);
+			if (entry != null)
+			{
+				return entry.font;
+			}
+			segment.entries.put(key, new Entry(font, weight));
+		}
+		size.addAndGet(weight);
+		evict(index);
+		return font;
+	}
+
+	private static Object parse(int format, byte[] data, byte[] data2) throws IOException
+	{
+		switch (format)
+		{
+			case TRUE_TYPE:
+				return new TTFParser(true).parse(new ByteArrayInputStream(data));
+			case OPEN_TYPE:
+				return new OTFParser(true).parse(new ByteArrayInputStream(data));
+			case CFF:
+				return new CFFParser().parse(data).get(0);
+			default:
+				return Type1Font.createWithSegments(data, data2);
+		}
+	}
+
+	/**
+	 * Evicts the least recently used fonts of the segments, starting with the given one, until
+	 * the cache is within its size. Only one segment is locked at a time.
+	 */
+	private void evict(int start)
+	{
+		for (int i = 0; i < SEGMENT_COUNT && size.get() > maximumSize; i++)
+		{
+			Segment segment = segments[(start + i) % SEGMENT_COUNT];
+			synchronized (segment)
+			{
+				Iterator<Entry> it = segment.entries.values().iterator();
+				while (size.get() > maximumSize && it.hasNext())
+				{
+					Entry entry = it.next();
+					it.remove();
+					size.addAndGet(-entry.weight);
+					evictionCount.incrementAndGet();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Fonts in the order of their last use.
+	 */
+	private static final class Segment
+	{
+		private final Map<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+	}
+
+	private static final class Entry
+	{
+		private final Object font;
+		private final long weight;
+
+		private Entry(Object font, long weight)
+		{
+			this.font = font;
+			this.weight = weight;
+		}
+	}
+
+	/**
+	 * The format and the SHA-256 hash of a font file.
+	 */
+	private static final class Key
+	{
+		private final int format;
+		private final byte[] digest;
+		private final int hash;
+
+		private Key(int format, byte[] data, byte[] data2)
+		{
+			MessageDigest md;
+			try
+			{
+				md = MessageDigest.getInstance("SHA-256");
+			}
+			catch (NoSuchAlgorithmException e)
+			{
+				// every Java platform must support SHA-256
+				throw new RuntimeException(e);
+			}
+			md.update(data);
+			if (data2 != null)
+			{
+				// the length of the first segment, so that moving bytes between them matters
+				md.update(new byte[] { (byte)(data.length >>> 24), (byte)(data.length >>> 16),
+						(byte)(data.length >>> 8), (byte)data.length });
+				md.update(data2);
+			}
+			this.format = format;
+			this.digest = md.digest();
+			this.hash = 31 * Arrays.hashCode(digest) + format;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (!(obj instanceof Key))
+			{
+				return false;
+			}
+			Key other = (Key)obj;
+			return format == other.format && Arrays.equals(digest, other.digest);
+		}
+	}
+}
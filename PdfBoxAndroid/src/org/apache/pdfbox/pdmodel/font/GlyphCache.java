@@ -0,0 +1,326 @@
+package org.apache.pdfbox.pdmodel.font;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import android.graphics.Path;
+
+/**
+ * Cache of glyph outlines for rendering, so that the glyphs of a font are only converted to
+ * paths once and not again for every page. The glyphs are found by the identity of the font
+ * program they come from, e.g. the parsed TrueType or CFF font, and their GID, CID or name.
+ * Because embedded font programs are shared by {@link FontCache}, a cache which is shared by
+ * several documents also shares their glyphs.
+ *
+ * Every document has a cache of its own, see
+ * {@link org.apache.pdfbox.pdmodel.PDDocument#getGlyphCache()}, {@link #getInstance()} returns a
+ * cache which may be shared by all documents. The cache is bounded by the number of glyphs, the
+ * least recently used glyphs are evicted first. It may be used by several threads at the same
+ * time, so the cached paths must not be modified.
+ */
+public final class GlyphCache
+{
+	/** default maximum number of cached glyphs */
+	public static final int DEFAULT_MAXIMUM_SIZE = 4096;
+
+	private static final int SEGMENT_COUNT = 16;
+
+	private static final GlyphCache INSTANCE = new GlyphCache();
+
+	private final Segment[] segments = new Segment[SEGMENT_COUNT];
+	private final AtomicLong size = new AtomicLong();
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong evictionCount = new AtomicLong();
+	private volatile int maximumSize;
+
+	/**
+	 * Creates a cache of at most {@link #DEFAULT_MAXIMUM_SIZE} glyphs.
+	 */
+	public GlyphCache()
+	{
+		this(DEFAULT_MAXIMUM_SIZE);
+	}
+
+	/**
+	 * Creates a cache of at most the given number of glyphs.
+	 *
+	 * @param maximumSize the maximum number of glyphs, 0 disables the cache
+	 */
+	public GlyphCache(int maximumSize)
+	{
+		this.maximumSize = maximumSize;
+		for (int i = 0; i < segments.length; i++)
+		{
+			segments[i] = new Segment();
+		}
+	}
+
+	/**
+	 * Returns the cache which may be shared by all documents.
+	 *
+	 * @return the glyph cache
+	 */
+	public static GlyphCache getInstance()
+	{
+		return INSTANCE;
+	}
+
+	/**
+	 * Sets the maximum number of cached glyphs. Glyphs are evicted when the cache grows beyond
+	 * the size, 0 disables the cache.
+	 *
+	 * @param maximumSize the maximum number of glyphs
+	 */
+	public void setMaximumSize(int maximumSize)
+	{
+		this.maximumSize = maximumSize;
+		evict(0);
+	}
+
+	/**
+	 * Returns the maximum number of cached glyphs.
+	 *
+	 * @return the maximum number of glyphs
+	 */
+	public int getMaximumSize()
+	{
+		return maximumSize;
+	}
+
+	/**
+	 * Returns the number of cached glyphs.
+	 *
+	 * @return the number of glyphs
+	 */
+	public int getSize()
+	{
+		return (int)size.get();
+	}
+
+	/**
+	 * Returns the number of glyphs which were found in the cache.
+	 *
+	 * @return the number of hits
+	 */
+	public long getHitCount()
+	{
+		return hitCount.get();
+	}
+
+	/**
+	 * Returns the number of glyphs which were not found in the cache.
+	 *
+	 * @return the number of misses
+	 */
+	public long getMissCount()
+	{
+		return missCount.get();
+	}
+
+	/**
+	 * Returns the number of glyphs which were evicted to keep the cache within its size.
+	 *
+	 * @return the number of evictions
+	 */
+	public long getEvictionCount()
+	{
+		return evictionCount.get();
+	}
+
+	/**
+	 * Returns the cached path of the glyph with the given GID or CID, or null.
+	 *
+	 * @param font the font program of the glyph
+	 * @param gid the GID or CID of the glyph
+	 * @return the path or null
+	 */
+	public Path get(Object font, int gid)
+	{
+		return get(new Key(font, gid, null));
+	}
+
+	/**
+	 * Returns the cached path of the glyph with the given name, or null.
+	 *
+	 * @param font the font program of the glyph
+	 * @param name the PostScript name of the glyph
+	 * @return the path or null
+	 */
+	public Path get(Object font, String name)
+	{
+		return get(new Key(font, 0, name));
+	}
+
+	/**
+	 * Caches the path of the glyph with the given GID or CID.
+	 *
+	 * @param font the font program of the glyph
+	 * @param gid the GID or CID of the glyph
+	 * @param path the path, which must not be modified afterwards
+	 */
+	public void put(Object font, int gid, Path path)
+	{
+		put(new Key(font, gid, null), path);
+	}
+
+	/**
+	 * Caches the path of the glyph with the given name.
+	 *
+	 * @param font the font program of the glyph
+	 * @param name the PostScript name of the glyph
+	 * @param path the path, which must not be modified afterwards
+	 */
+	public void put(Object font, String name, Path path)
+	{
+		put(new Key(font, 0, name), path);
+	}
+
+	/**
+	 * Removes the cached glyphs of the given font program.
+	 *
+	 * @param font the font program
+	 */
+	public void remove(Object font)
+	{
+		for (Segment segment : segments)
+		{
+			synchronized (segment)
+			{
+				Iterator<Key> it = segment.paths.keySet().iterator();
+				while (it.hasNext())
+				{
+					if (it.next().font == font)
+					{
+						it.remove();
+						size.decrementAndGet();
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes all glyphs from the cache.
+	 */
+	public void clear()
+	{
+		for (Segment segment : segments)
+		{
+			synchronized (segment)
+			{
+				size.addAndGet(-segment.paths.size());
+				segment.paths.clear();
+			}
+		}
+	}
+
+	private Path get(Key key)
+	{
+		Segment segment = segments[(key.hash & 0x7fffffff) % SEGMENT_COUNT];
+		Path path;
+		synchronized (segment)
+		{
+			path = segment.paths.get(key);
+		}
+		if (path != null)
+		{
+			hitCount.incrementAndGet();
+		}
+		else
+		{
+			missCount.incrementAndGet();
+		}
+		return path;
+	}
+
+	private void put(Key key, Path path)
+	{
+		if (maximumSize <= 0)
+		{
+			return;
+		}
+		int index = (key.hash & 0x7fffffff) % SEGMENT_COUNT;
+		Segment segment = segments[index];
+		synchronized (segment)
+		{
+			if (segment.paths.put(key, path) != null)
+			{
+				return;
+			}
+		}
+		size.incrementAndGet();
+		evict(index);
+	}
+
+	/**
+	 * Evicts the least recently used glyphs of the segments, starting with the given one, until
+	 * the cache is within its size. Only one segment is locked at a time.
+	 */
+	private void evict(int start)
+	{
+		for (int i = 0; i < SEGMENT_COUNT && size.get() > maximumSize; i++)
+		{
+			Segment segment = segments[(start + i) % SEGMENT_COUNT];
+			synchronized (segment)
+			{
+				Iterator<Path> it = segment.paths.values().iterator();
+				while (size.get() > maximumSize && it.hasNext())
+				{
+					it.next();
+					it.remove();
+					size.decrementAndGet();
+					evictionCount.incrementAndGet();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Glyphs in the order of their last use.
+	 */
+	private static final class Segment
+	{
+		private final Map<Key, Path> paths = new LinkedHashMap<Key, Path>(16, 0.75f, true);
+	}
+
+	/**
+	 * The identity of a font program and the GID, CID or name of one of its glyphs.
+	 */
+	private static final class Key
+	{
+		private final Object font;
+		private final int gid;
+		private final String name;
+		private final int hash;
+
+		private Key(Object font, int gid, String name)
+		{
+			this.font = font;
+			this.gid = gid;
+			this.name = name;
+			int h = 31 * System.identityHashCode(font) + (name == null ? gid : name.hashCode());
+			this.hash = h ^ (h >>> 16);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (!(obj instanceof Key))
+			{
+				return false;
+			}
+			Key other = (Key)obj;
+			return font == other.font && gid == other.gid &&
+					(name == null ? other.name == null : name.equals(other.name));
+		}
+	}
+}
@@ -9,7 +9,6 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.fontbox.cff.CFFCIDFont;
 import org.apache.fontbox.cff.CFFFont;
-import org.apache.fontbox.cff.CFFParser;
 import org.apache.fontbox.cff.CFFType1Font;
 import org.apache.fontbox.cff.Type2CharString;
 import org.apache.fontbox.util.BoundingBox;
@@ -36,7 +35,7 @@ public class PDCIDFontType0 extends PDCIDFont
 	private final boolean isEmbedded;
 	private final boolean isDamaged;
 
-	private Float avgWidth = null;
+	private volatile Float avgWidth = null;
 	private Matrix fontMatrix;
 	private android.graphics.Matrix fontMatrixTransform;
 
@@ -63,12 +62,11 @@ public class PDCIDFontType0 extends PDCIDFont
 		if (bytes != null)
 		{
 			// embedded
-			CFFParser cffParser = new CFFParser();
 			boolean fontIsDamaged = false;
 			CFFFont cffFont = null;
 			try
 			{
-				cffFont = cffParser.parse(bytes).get(0);
+				cffFont = FontCache.getInstance().getCFFFont(bytes);
 			}
 			catch (IOException e)
 			{
@@ -10,9 +10,7 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.fontbox.cmap.CMap;
 import org.apache.fontbox.ttf.CmapSubtable;
 import org.apache.fontbox.ttf.CmapTable;
-import org.apache.fontbox.ttf.OTFParser;
 import org.apache.fontbox.ttf.OpenTypeFont;
-import org.apache.fontbox.ttf.TTFParser;
 import org.apache.fontbox.ttf.TrueTypeFont;
 import org.apache.fontbox.util.BoundingBox;
 import org.apache.pdfbox.cos.COSBase;
@@ -63,8 +61,8 @@ public class PDCIDFontType2 extends PDCIDFont
 			try
 			{
 				// embedded
-				TTFParser ttfParser = new TTFParser(true);
-				ttfFont = ttfParser.parse(ff2Stream.createInputStream());
+				byte[] bytes = IOUtils.toByteArray(ff2Stream.createInputStream());
+				ttfFont = FontCache.getInstance().getTrueTypeFont(bytes);
 			}
 			catch (NullPointerException e) // TTF parser is buggy
 			{
@@ -82,8 +80,8 @@ public class PDCIDFontType2 extends PDCIDFont
 			try
 			{
 				// embedded
-				OTFParser otfParser = new OTFParser(true);
-				OpenTypeFont otf = otfParser.parse(ff3Stream.createInputStream());
+				byte[] bytes = IOUtils.toByteArray(ff3Stream.createInputStream());
+				OpenTypeFont otf = FontCache.getInstance().getOpenTypeFont(bytes);
 				ttfFont = otf;
 
 				if (otf.isPostScript())
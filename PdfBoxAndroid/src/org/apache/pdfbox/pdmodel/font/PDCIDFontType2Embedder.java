@@ -4,6 +4,12 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 import org.apache.pdfbox.cos.COSArray;
 import org.apache.pdfbox.cos.COSDictionary;
@@ -31,12 +37,13 @@ final class PDCIDFontType2Embedder extends TrueTypeEmbedder
      * @param dict font dictionary
      * @param ttfStream TTF stream
      * @param parent parent Type 0 font
+     * @param embedSubset true if only the glyphs which are used are embedded
      * @throws IOException if the TTF could not be read
      */
     PDCIDFontType2Embedder(PDDocument document, COSDictionary dict, InputStream ttfStream,
-                           PDType0Font parent) throws IOException
+                           PDType0Font parent, boolean embedSubset) throws IOException
     {
-        super(document, dict, ttfStream);
+        super(document, dict, ttfStream, embedSubset);
         this.parent = parent;
 
         // parent Type 0 font
@@ -51,15 +58,68 @@ final class PDCIDFontType2Embedder extends TrueTypeEmbedder
         dict.setItem(COSName.DESCENDANT_FONTS, descendantFonts);
 
         // oUnicode CMap
-        dict.setItem(COSName.TO_UNICODE, createToUnicodeCMap(document));
+        int max = ttf.getMaximumProfile().getNumGlyphs();
+        List<Integer> gids = new ArrayList<Integer>(max);
+        for (int gid = 1; gid <= max; gid++)
+        {
+            gids.add(gid);
+        }
+        dict.setItem(COSName.TO_UNICODE, createToUnicodeCMap(gids));
     }
 
-    private PDStream createToUnicodeCMap(PDDocument document) throws IOException
+    @Override
+    protected void buildSubset(String name, Map<Integer, Integer> gidMap) throws IOException
+    {
+        // the CIDs which were written to the content streams are the GIDs of the whole font,
+        // the CIDToGIDMap maps them to the GIDs of the subset
+        SortedMap<Integer, Integer> cidToGid = new TreeMap<Integer, Integer>();
+        for (Map.Entry<Integer, Integer> entry : gidMap.entrySet())
+        {
+            cidToGid.put(entry.getValue(), entry.getKey());
+        }
+        byte[] map = new byte[(cidToGid.lastKey() + 1) * 2];
+        for (Map.Entry<Integer, Integer> entry : cidToGid.entrySet())
+        {
+            int cid = entry.getKey();
+            int gid = entry.getValue();
+            map[cid * 2] = (byte)(gid >> 8 & 0xff);
+            map[cid * 2 + 1] = (byte)(gid & 0xff);
+        }
+        PDStream stream = new PDStream(document, new ByteArrayInputStream(map), false);
+        stream.addCompression();
+        cidFont.setItem(COSName.CID_TO_GID_MAP, stream);
+        cidFont.setName(COSName.BASE_FONT, name);
+
+        // widths and ToUnicode of the glyphs in the subset only
+        int[] gidwidths = new int[cidToGid.size() * 2];
+        int i = 0;
+        for (int cid : cidToGid.keySet())
+        {
+            gidwidths[i++] = cid;
+            gidwidths[i++] = ttf.getHorizontalMetrics().getAdvanceWidth(cid);
+        }
+        cidFont.setItem(COSName.W, getWidths(gidwidths));
+        if (cidToGid.size() > 1)
+        {
+            dict.setItem(COSName.TO_UNICODE, createToUnicodeCMap(cidToGid.keySet()));
+        }
+        else
+        {
+            // no glyph but notdef is used
+            dict.removeItem(COSName.TO_UNICODE);
+        }
+    }
+
+    private PDStream createToUnicodeCMap(Collection<Integer> gids) throws IOException
     {
     	ToUnicodeWriter toUniWriter = new ToUnicodeWriter("Adobe", "Identity", 0);
     	boolean hasSurrogates = false;
-    	for (int gid = 1, max = ttf.getMaximumProfile().getNumGlyphs(); gid <= max; gid++)
+    	for (int gid : gids)
     	{
+    		if (gid == 0)
+    		{
+    			continue;
+    		}
     		Integer codePoint = cmap.getCharacterCode(gid);
     		// skip composite glyph components that have no code point
     		if (codePoint != null)
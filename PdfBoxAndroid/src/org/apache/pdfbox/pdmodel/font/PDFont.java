@@ -37,12 +37,14 @@ public abstract class PDFont implements COSObjectable, PDFontLike
 	protected final COSDictionary dict;
 	private final CMap toUnicodeCMap;
 	private final FontMetrics afmStandard14; // AFM for standard 14 fonts
-	private PDFontDescriptor fontDescriptor;
+	private volatile PDFontDescriptor fontDescriptor;
 
-	private List<Integer> widths;
-	private float avgFontWidth;
-	private float fontWidthOfSpace = -1f;
-	private Boolean isSymbolic;
+	// lazily computed values, each published with a single volatile write so that an instance
+	// shared through the document's ResourceCache can be used by several threads
+	private volatile List<Integer> widths;
+	private volatile float avgFontWidth;
+	private volatile float fontWidthOfSpace = -1f;
+	private volatile Boolean isSymbolic;
 
 	/**
 	 * Constructor for embedding.
@@ -267,6 +269,42 @@ public abstract class PDFont implements COSObjectable, PDFontLike
 	 */
 	protected abstract byte[] encode(int unicode) throws IOException;
 
+	/**
+	 * Returns true if only the glyphs which are used are embedded when the document is saved,
+	 * see {@link #subset()}.
+	 *
+	 * @return true if the font will be subset
+	 */
+	public boolean willBeSubset()
+	{
+		return false;
+	}
+
+	/**
+	 * Adds the given Unicode code point to the glyphs which are embedded when the font is
+	 * subset. This is called for the text which is shown with the font, e.g. by
+	 * {@link org.apache.pdfbox.pdmodel.edit.PDPageContentStream#drawString(String)}.
+	 *
+	 * @param codePoint Unicode code point.
+	 * @throws UnsupportedOperationException if the font is not subset
+	 */
+	public void addToSubset(int codePoint)
+	{
+		throw new UnsupportedOperationException("This font is not subset: " + getName());
+	}
+
+	/**
+	 * Replaces the embedded font program by a subset with the glyphs which were added, see
+	 * {@link #addToSubset(int)}. This is called when the document is saved.
+	 *
+	 * @throws IOException If the subset could not be embedded.
+	 * @throws UnsupportedOperationException if the font is not subset
+	 */
+	public void subset() throws IOException
+	{
+		throw new UnsupportedOperationException("This font is not subset: " + getName());
+	}
+
 	/**
 	 * Returns the width of the given Unicode string.
 	 *
@@ -295,12 +333,8 @@ public abstract class PDFont implements COSObjectable, PDFontLike
 	// todo: this method is highly suspicious, the average glyph width is not usually a good metric
 	public float getAverageFontWidth()
 	{
-		float average;
-		if (avgFontWidth != 0.0f)
-		{
-			average = avgFontWidth;
-		}
-		else
+		float average = avgFontWidth;
+		if (average == 0.0f)
 		{
 			float totalWidth = 0.0f;
 			float characterCount = 0.0f;
@@ -406,20 +440,18 @@ public abstract class PDFont implements COSObjectable, PDFontLike
 	 */
 	public final boolean isSymbolic()
 	{
-		if (isSymbolic == null)
+		Boolean symbolic = isSymbolic;
+		if (symbolic == null)
 		{
-			Boolean result = isFontSymbolic();
-			if (result != null)
-			{
-				isSymbolic = result;
-			}
-			else
+			symbolic = isFontSymbolic();
+			if (symbolic == null)
 			{
 				// unless we can prove that the font is symbolic, we assume that it is not
-				isSymbolic = true;
+				symbolic = true;
 			}
+			isSymbolic = symbolic;
 		}
-		return isSymbolic;
+		return symbolic;
 	}
 
 	/**
@@ -458,19 +490,21 @@ public abstract class PDFont implements COSObjectable, PDFontLike
 	 */
 	protected final List<Integer> getWidths()
 	{
-		if (widths == null)
+		List<Integer> result = widths;
+		if (result == null)
 		{
 			COSArray array = (COSArray) dict.getDictionaryObject(COSName.WIDTHS);
 			if (array != null)
 			{
-				widths = COSArrayList.convertIntegerCOSArrayToList(array);
+				result = COSArrayList.convertIntegerCOSArrayToList(array);
 			}
 			else
 			{
-				widths = Collections.emptyList();
+				result = Collections.emptyList();
 			}
+			widths = result;
 		}
-		return widths;
+		return result;
 	}
 
 	@Override
@@ -486,7 +520,8 @@ public abstract class PDFont implements COSObjectable, PDFontLike
 	 */
 	public float getSpaceWidth()
 	{
-		if (fontWidthOfSpace == -1f)
+		float spaceWidth = fontWidthOfSpace;
+		if (spaceWidth == -1f)
 		{
 			COSBase toUnicode = dict.getDictionaryObject(COSName.TO_UNICODE);
 			try
@@ -496,26 +531,27 @@ public abstract class PDFont implements COSObjectable, PDFontLike
 					int spaceMapping = toUnicodeCMap.getSpaceMapping();
 					if (spaceMapping > -1)
 					{
-						fontWidthOfSpace = getWidth(spaceMapping);
+						spaceWidth = getWidth(spaceMapping);
 					}
 				}
 				else
 				{
-					fontWidthOfSpace = getWidth(32);
+					spaceWidth = getWidth(32);
 				}
 				// use the average font width as fall back
-				if (fontWidthOfSpace <= 0)
+				if (spaceWidth <= 0)
 				{
-					fontWidthOfSpace = getAverageFontWidth();
+					spaceWidth = getAverageFontWidth();
 				}
 			}
 			catch (Exception e)
 			{
 				LOG.error("Can't determine the width of the space character, assuming 250", e);
-				fontWidthOfSpace = 250f;
+				spaceWidth = 250f;
 			}
+			fontWidthOfSpace = spaceWidth;
 		}
-		return fontWidthOfSpace;
+		return spaceWidth;
 	}
 
 	/**
@@ -12,11 +12,11 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.fontbox.ttf.CmapSubtable;
 import org.apache.fontbox.ttf.CmapTable;
 import org.apache.fontbox.ttf.GlyphData;
-import org.apache.fontbox.ttf.TTFParser;
 import org.apache.fontbox.ttf.TrueTypeFont;
 import org.apache.fontbox.util.BoundingBox;
 import org.apache.pdfbox.cos.COSDictionary;
 import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.io.IOUtils;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.common.PDStream;
 import org.apache.pdfbox.pdmodel.font.encoding.Encoding;
@@ -50,7 +50,8 @@ public class PDTrueTypeFont extends PDSimpleFont
 	}
 
 	/**
-	 * Loads a TTF to be embedded into a document.
+	 * Loads a TTF to be embedded into a document. Only the glyphs which are used are embedded
+	 * when the document is saved.
 	 *
 	 * @param doc The PDF document that will hold the embedded font.
 	 * @param file a ttf file.
@@ -59,11 +60,12 @@ public class PDTrueTypeFont extends PDSimpleFont
 	 */
 	public static PDTrueTypeFont loadTTF(PDDocument doc, File file) throws IOException
 	{
-		return new PDTrueTypeFont(doc, new FileInputStream(file));
+		return new PDTrueTypeFont(doc, new FileInputStream(file), true);
 	}
 
 	/**
-	 * Loads a TTF to be embedded into a document.
+	 * Loads a TTF to be embedded into a document. Only the glyphs which are used are embedded
+	 * when the document is saved.
 	 *
 	 * @param doc The PDF document that will hold the embedded font.
 	 * @param input a ttf file stream
@@ -72,17 +74,35 @@ public class PDTrueTypeFont extends PDSimpleFont
 	 */
 	public static PDTrueTypeFont loadTTF(PDDocument doc, InputStream input) throws IOException
 	{
-		return new PDTrueTypeFont(doc, input);
+		return new PDTrueTypeFont(doc, input, true);
+	}
+
+	/**
+	 * Loads a TTF to be embedded into a document.
+	 *
+	 * @param doc The PDF document that will hold the embedded font.
+	 * @param input a ttf file stream
+	 * @param embedSubset true if only the glyphs which are used are embedded when the document
+	 * is saved, false to embed the whole font.
+	 * @return a PDTrueTypeFont instance.
+	 * @throws IOException If there is an error loading the data.
+	 */
+	public static PDTrueTypeFont loadTTF(PDDocument doc, InputStream input, boolean embedSubset)
+			throws IOException
+	{
+		return new PDTrueTypeFont(doc, input, embedSubset);
 	}
 
 	private CmapSubtable cmapWinUnicode = null;
 	private CmapSubtable cmapWinSymbol = null;
 	private CmapSubtable cmapMacRoman = null;
-	private boolean cmapInitialized = false;
+	// written last, after the subtables above, so that a thread which sees it set also sees them
+	private volatile boolean cmapInitialized = false;
 
 	private final TrueTypeFont ttf;
 	private final boolean isEmbedded;
 	private final boolean isDamaged;
+	private PDTrueTypeFontEmbedder embedder;
 
 	/**
 	 * Creates a new TrueType font from a Font dictionary.
@@ -104,8 +124,8 @@ public class PDTrueTypeFont extends PDSimpleFont
 				try
 				{
 					// embedded
-					TTFParser ttfParser = new TTFParser(true);
-					ttfFont = ttfParser.parse(ff2Stream.createInputStream());
+					byte[] bytes = IOUtils.toByteArray(ff2Stream.createInputStream());
+					ttfFont = FontCache.getInstance().getTrueTypeFont(bytes);
 				}
 				catch (NullPointerException e) // TTF parser is buggy
 				{
@@ -157,15 +177,46 @@ public class PDTrueTypeFont extends PDSimpleFont
 	/**
 	 * Creates a new TrueType font for embedding.
 	 */
-	private PDTrueTypeFont(PDDocument document, InputStream ttfStream) throws IOException
+	private PDTrueTypeFont(PDDocument document, InputStream ttfStream, boolean embedSubset)
+			throws IOException
 	{
-		PDTrueTypeFontEmbedder embedder = new PDTrueTypeFontEmbedder(document, dict, ttfStream);
+		embedder = new PDTrueTypeFontEmbedder(document, dict, ttfStream, embedSubset);
 		encoding = embedder.getFontEncoding();
 		ttf = embedder.getTrueTypeFont();
 		setFontDescriptor(embedder.getFontDescriptor());
 		isEmbedded = true;
 		isDamaged = false;
 		glyphList = GlyphList.getAdobeGlyphList();
+		if (embedSubset)
+		{
+			document.getFontsToSubset().add(this);
+		}
+	}
+
+	@Override
+	public boolean willBeSubset()
+	{
+		return embedder != null && embedder.needsSubset();
+	}
+
+	@Override
+	public void addToSubset(int codePoint)
+	{
+		if (!willBeSubset())
+		{
+			throw new UnsupportedOperationException("This font is not subset: " + getName());
+		}
+		embedder.addToSubset(codePoint);
+	}
+
+	@Override
+	public void subset() throws IOException
+	{
+		if (!willBeSubset())
+		{
+			throw new UnsupportedOperationException("This font is not subset: " + getName());
+		}
+		embedder.subset();
 	}
 
 	@Override
@@ -356,6 +407,9 @@ public class PDTrueTypeFont extends PDSimpleFont
 			return;
 		}
 
+		CmapSubtable winUnicode = null;
+		CmapSubtable winSymbol = null;
+		CmapSubtable macRoman = null;
 		CmapTable cmapTable = ttf.getCmap();
 		if (cmapTable != null)
 		{
@@ -367,22 +421,26 @@ public class PDTrueTypeFont extends PDSimpleFont
 				{
 					if (CmapTable.ENCODING_WIN_UNICODE == cmap.getPlatformEncodingId())
 					{
-						cmapWinUnicode = cmap;
+						winUnicode = cmap;
 					}
 					else if (CmapTable.ENCODING_WIN_SYMBOL == cmap.getPlatformEncodingId())
 					{
-						cmapWinSymbol = cmap;
+						winSymbol = cmap;
 					}
 				}
 				else if (CmapTable.PLATFORM_MACINTOSH == cmap.getPlatformId())
 				{
 					if (CmapTable.ENCODING_MAC_ROMAN == cmap.getPlatformEncodingId())
 					{
-						cmapMacRoman = cmap;
+						macRoman = cmap;
 					}
 				}
 			}
 		}
+		// two threads may both get here, they find the same subtables
+		cmapWinUnicode = winUnicode;
+		cmapWinSymbol = winSymbol;
+		cmapMacRoman = macRoman;
 		cmapInitialized = true;
 	}
 }
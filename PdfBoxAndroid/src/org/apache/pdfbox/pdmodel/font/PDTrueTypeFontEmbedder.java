@@ -32,14 +32,23 @@ final class PDTrueTypeFontEmbedder extends TrueTypeEmbedder
      * @param document parent document
      * @param dict font dictionary
      * @param ttfStream TTF stream
+     * @param embedSubset true if only the glyphs which are used are embedded
      * @throws IOException if the TTF could not be read
      */
-    PDTrueTypeFontEmbedder(PDDocument document, COSDictionary dict, InputStream ttfStream)
-            throws IOException
+    PDTrueTypeFontEmbedder(PDDocument document, COSDictionary dict, InputStream ttfStream,
+                           boolean embedSubset) throws IOException
     {
-        super(document, dict, ttfStream);
+        super(document, dict, ttfStream, embedSubset);
         dict.setItem(COSName.SUBTYPE, COSName.TRUE_TYPE);
 
+        if (embedSubset)
+        {
+            // the 'cmap' of a subset only has a (3, 1) subtable, which is used to find the
+            // glyphs of a nonsymbolic font by the names of the encoding
+            fontDescriptor.setSymbolic(false);
+            fontDescriptor.setNonSymbolic(true);
+        }
+
         // only support WinAnsiEncoding encoding right now
         Encoding encoding = new WinAnsiEncoding();
         GlyphList glyphList = GlyphList.getAdobeGlyphList();
@@ -95,6 +104,13 @@ final class PDTrueTypeFontEmbedder extends TrueTypeEmbedder
         font.setItem(COSName.WIDTHS, COSArrayList.converterToCOSArray(widths));
     }
 
+    @Override
+    protected void buildSubset(String name, Map<Integer, Integer> gidMap)
+    {
+        // the character codes and their widths don't change, the glyphs are found by their
+        // Unicode values in the 'cmap' of the subset
+    }
+
     /**
      * Returns the font's encoding.
      */
@@ -31,9 +31,11 @@ public class PDType0Font extends PDFont
 	private final PDCIDFont descendantFont;
 	private CMap cMap, cMapUCS2;
 	private boolean isCMapPredefined;
+	private PDCIDFontType2Embedder embedder;
 
 	/**
-	 * Loads a TTF to be embedded into a document.
+	 * Loads a TTF to be embedded into a document. Only the glyphs which are used are embedded
+	 * when the document is saved.
 	 *
 	 * @param doc The PDF document that will hold the embedded font.
 	 * @param file A TrueType font.
@@ -42,11 +44,12 @@ public class PDType0Font extends PDFont
 	 */
 	public static PDType0Font load(PDDocument doc, File file) throws IOException
 	{
-		return new PDType0Font(doc, new FileInputStream(file));
+		return new PDType0Font(doc, new FileInputStream(file), true);
 	}
 
 	/**
-	 * Loads a TTF to be embedded into a document.
+	 * Loads a TTF to be embedded into a document. Only the glyphs which are used are embedded
+	 * when the document is saved.
 	 *
 	 * @param doc The PDF document that will hold the embedded font.
 	 * @param input A TrueType font.
@@ -55,7 +58,23 @@ public class PDType0Font extends PDFont
 	 */
 	public static PDType0Font load(PDDocument doc, InputStream input) throws IOException
 	{
-		return new PDType0Font(doc, input);
+		return new PDType0Font(doc, input, true);
+	}
+
+	/**
+	 * Loads a TTF to be embedded into a document.
+	 *
+	 * @param doc The PDF document that will hold the embedded font.
+	 * @param input A TrueType font.
+	 * @param embedSubset True if only the glyphs which are used are embedded when the document
+	 * is saved, false to embed the whole font.
+	 * @return A Type0 font with a CIDFontType2 descendant.
+	 * @throws IOException If there is an error reading the font stream.
+	 */
+	public static PDType0Font load(PDDocument doc, InputStream input, boolean embedSubset)
+			throws IOException
+	{
+		return new PDType0Font(doc, input, embedSubset);
 	}
 
 	/**
@@ -88,13 +107,43 @@ public class PDType0Font extends PDFont
 	/**
 	 * Private. Creates a new TrueType font for embedding.
 	 */
-	private PDType0Font(PDDocument document, InputStream ttfStream) throws IOException
+	private PDType0Font(PDDocument document, InputStream ttfStream, boolean embedSubset)
+			throws IOException
 	{
-		PDCIDFontType2Embedder embedder =
-				new PDCIDFontType2Embedder(document, dict, ttfStream, this);
+		embedder = new PDCIDFontType2Embedder(document, dict, ttfStream, this, embedSubset);
 		descendantFont = embedder.getCIDFont();
 		readEncoding();
 		fetchCMapUCS2();
+		if (embedSubset)
+		{
+			document.getFontsToSubset().add(this);
+		}
+	}
+
+	@Override
+	public boolean willBeSubset()
+	{
+		return embedder != null && embedder.needsSubset();
+	}
+
+	@Override
+	public void addToSubset(int codePoint)
+	{
+		if (!willBeSubset())
+		{
+			throw new UnsupportedOperationException("This font is not subset: " + getName());
+		}
+		embedder.addToSubset(codePoint);
+	}
+
+	@Override
+	public void subset() throws IOException
+	{
+		if (!willBeSubset())
+		{
+			throw new UnsupportedOperationException("This font is not subset: " + getName());
+		}
+		embedder.subset();
 	}
 
 	/**
@@ -8,7 +8,6 @@ import java.util.Map;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.apache.fontbox.cff.CFFParser;
 import org.apache.fontbox.cff.CFFType1Font;
 import org.apache.fontbox.ttf.Type1Equivalent;
 import org.apache.fontbox.util.BoundingBox;
@@ -34,7 +33,7 @@ public class PDType1CFont extends PDSimpleFont implements PDType1Equivalent
 	private static final Log LOG = LogFactory.getLog(PDType1CFont.class);
 
 	private final Map<String, Float> glyphHeights = new HashMap<String, Float>();
-	private Float avgWidth = null;
+	private volatile Float avgWidth = null;
 	private final PDRectangle fontBBox = null;
 	private Matrix fontMatrix;
 	private final android.graphics.Matrix fontMatrixTransform;
@@ -70,8 +69,7 @@ public class PDType1CFont extends PDSimpleFont implements PDType1Equivalent
 		try
 		{
 			// note: this could be an OpenType file, fortunately CFFParser can handle that
-			CFFParser cffParser = new CFFParser();
-			cffEmbedded = (CFFType1Font)cffParser.parse(bytes).get(0);
+			cffEmbedded = (CFFType1Font)FontCache.getInstance().getCFFFont(bytes);
 		}
 		catch (IOException e)
 		{
@@ -73,7 +73,7 @@ public class PDType1Font extends PDSimpleFont implements PDType1Equivalent
 	private final boolean isDamaged;
 	private Matrix fontMatrix;
 	
-	private Map<String, Integer> invertedEncoding; // for writing
+	private volatile Map<String, Integer> invertedEncoding; // for writing
 
 	/**
 	 * Creates a Type 1 standard 14 font for embedding.
@@ -152,7 +152,7 @@ public class PDType1Font extends PDSimpleFont implements PDType1Equivalent
 					byte[] segment1 = Arrays.copyOfRange(bytes, 0, length1);
 					byte[] segment2 = Arrays.copyOfRange(bytes, length1, length1 + length2);
 
-					t1 =  Type1Font.createWithSegments(segment1, segment2);
+					t1 = FontCache.getInstance().getType1Font(segment1, segment2);
 				}
 				catch (DamagedFontException e)
 				{
@@ -285,21 +285,24 @@ public class PDType1Font extends PDSimpleFont implements PDType1Equivalent
 	 */
 	private Map<String, Integer> getInvertedEncoding()
 	{
-		if (invertedEncoding != null)
+		Map<String, Integer> inverted = invertedEncoding;
+		if (inverted != null)
 		{
-			return invertedEncoding;
+			return inverted;
 		}
 
-		invertedEncoding = new HashMap<String, Integer>();
+		// filled before it is published, the font may be shared between threads
+		inverted = new HashMap<String, Integer>();
 		Map<Integer, String> codeToName = MacOSRomanEncoding.INSTANCE.getCodeToNameMap();
 		for (Map.Entry<Integer, String> entry : codeToName.entrySet())
 		{
-			if (!invertedEncoding.containsKey(entry.getValue()))
+			if (!inverted.containsKey(entry.getValue()))
 			{
-				invertedEncoding.put(entry.getValue(), entry.getKey());
+				inverted.put(entry.getValue(), entry.getKey());
 			}
 		}
-		return invertedEncoding;
+		invertedEncoding = inverted;
+		return inverted;
 	}
 
 	@Override
@@ -25,8 +25,8 @@ public class PDType3Font extends PDSimpleFont
 {
 	private static final Log LOG = LogFactory.getLog(PDType3Font.class);
 
-	private PDResources resources;
-	private COSDictionary charProcs;
+	private volatile PDResources resources;
+	private volatile COSDictionary charProcs;
 	private Matrix fontMatrix;
 
 	/**
@@ -182,15 +182,17 @@ public class PDType3Font extends PDSimpleFont
 	 */
 	public PDResources getResources()
 	{
-		if (resources == null)
+		PDResources result = resources;
+		if (result == null)
 		{
 			COSDictionary resources = (COSDictionary) dict.getDictionaryObject(COSName.RESOURCES);
 			if (resources != null)
 			{
-				this.resources = new PDResources(resources);
+				result = new PDResources(resources);
+				this.resources = result;
 			}
 		}
-		return resources;
+		return result;
 	}
 
 	/**
@@ -10,6 +10,7 @@ import java.util.Map;
 import java.util.Set;
 
 import org.apache.fontbox.afm.AFMParser;
+import org.apache.fontbox.afm.BinaryFontMetrics;
 import org.apache.fontbox.afm.FontMetrics;
 
 /**
@@ -26,78 +27,86 @@ class Standard14Fonts
 
 	private final static Set<String> STANDARD_14_NAMES = new HashSet<String>();
 	private final static Map<String, String> STANDARD_14_MAPPING = new HashMap<String, String>();
-	private static final Map<String, FontMetrics> STANDARD14_AFM_MAP;
+	// the metrics are loaded on first use, by AFM name
+	private static final Map<String, FontMetrics> STANDARD14_AFM_MAP = new HashMap<String, FontMetrics>();
 	static
 	{
-		try
-		{
-			STANDARD14_AFM_MAP = new HashMap<String, FontMetrics>();
-			addAFM("Courier-Bold");
-			addAFM("Courier-BoldOblique");
-			addAFM("Courier");
-			addAFM("Courier-Oblique");
-			addAFM("Helvetica");
-			addAFM("Helvetica-Bold");
-			addAFM("Helvetica-BoldOblique");
-			addAFM("Helvetica-Oblique");
-			addAFM("Symbol");
-			addAFM("Times-Bold");
-			addAFM("Times-BoldItalic");
-			addAFM("Times-Italic");
-			addAFM("Times-Roman");
-			addAFM("ZapfDingbats");
+		addAFM("Courier-Bold");
+		addAFM("Courier-BoldOblique");
+		addAFM("Courier");
+		addAFM("Courier-Oblique");
+		addAFM("Helvetica");
+		addAFM("Helvetica-Bold");
+		addAFM("Helvetica-BoldOblique");
+		addAFM("Helvetica-Oblique");
+		addAFM("Symbol");
+		addAFM("Times-Bold");
+		addAFM("Times-BoldItalic");
+		addAFM("Times-Italic");
+		addAFM("Times-Roman");
+		addAFM("ZapfDingbats");
 
-			// alternative names from Adobe Supplement to the ISO 32000
-			addAFM("CourierCourierNew", "Courier");
-			addAFM("CourierNew", "Courier");
-			addAFM("CourierNew,Italic", "Courier-Oblique");
-			addAFM("CourierNew,Bold", "Courier-Bold");
-			addAFM("CourierNew,BoldItalic", "Courier-BoldOblique");
-			addAFM("Arial", "Helvetica");
-			addAFM("Arial,Italic", "Helvetica-Oblique");
-			addAFM("Arial,Bold", "Helvetica-Bold");
-			addAFM("Arial,BoldItalic", "Helvetica-BoldOblique");
-			addAFM("TimesNewRoman", "Times-Roman");
-			addAFM("TimesNewRoman,Italic", "Times-Italic");
-			addAFM("TimesNewRoman,Bold", "Times-Bold");
-			addAFM("TimesNewRoman,BoldItalic", "Times-BoldItalic");
+		// alternative names from Adobe Supplement to the ISO 32000
+		addAFM("CourierCourierNew", "Courier");
+		addAFM("CourierNew", "Courier");
+		addAFM("CourierNew,Italic", "Courier-Oblique");
+		addAFM("CourierNew,Bold", "Courier-Bold");
+		addAFM("CourierNew,BoldItalic", "Courier-BoldOblique");
+		addAFM("Arial", "Helvetica");
+		addAFM("Arial,Italic", "Helvetica-Oblique");
+		addAFM("Arial,Bold", "Helvetica-Bold");
+		addAFM("Arial,BoldItalic", "Helvetica-BoldOblique");
+		addAFM("TimesNewRoman", "Times-Roman");
+		addAFM("TimesNewRoman,Italic", "Times-Italic");
+		addAFM("TimesNewRoman,Bold", "Times-Bold");
+		addAFM("TimesNewRoman,BoldItalic", "Times-BoldItalic");
 
-			// Acrobat treats these fonts as "standard 14" too (at least Acrobat preflight says so)
-			addAFM("Symbol,Italic", "Symbol");
-			addAFM("Symbol,Bold", "Symbol");
-			addAFM("Symbol,BoldItalic", "Symbol");
-		}
-		catch (IOException e)
-		{
-			throw new RuntimeException(e);
-		}
+		// Acrobat treats these fonts as "standard 14" too (at least Acrobat preflight says so)
+		addAFM("Symbol,Italic", "Symbol");
+		addAFM("Symbol,Bold", "Symbol");
+		addAFM("Symbol,BoldItalic", "Symbol");
 	}
 
-	private static void addAFM(String fontName) throws IOException
+	private static void addAFM(String fontName)
 	{
 		addAFM(fontName, fontName);
 	}
 
-	private static void addAFM(String fontName, String afmName) throws IOException
+	private static void addAFM(String fontName, String afmName)
 	{
 		STANDARD_14_NAMES.add(fontName);
 		STANDARD_14_MAPPING.put(fontName, afmName);
+	}
 
-		if (STANDARD14_AFM_MAP.containsKey(afmName))
+	/**
+	 * Loads the metrics of a font from the precompiled binary file, see {@link BinaryFontMetrics},
+	 * or from the AFM file if there is no binary file.
+	 */
+	private static FontMetrics loadAFM(String afmName) throws IOException
+	{
+		String resourceName = "org/apache/pdfbox/resources/afm/" + afmName;
+		ClassLoader loader = PDType1Font.class.getClassLoader();
+		URL url = loader.getResource(resourceName + ".afmb");
+		if (url != null)
 		{
-			STANDARD14_AFM_MAP.put(fontName, STANDARD14_AFM_MAP.get(afmName));
+			InputStream binaryStream = url.openStream();
+			try
+			{
+				return BinaryFontMetrics.read(binaryStream);
+			}
+			finally
+			{
+				binaryStream.close();
+			}
 		}
-
-		String resourceName = "org/apache/pdfbox/resources/afm/" + afmName + ".afm";
-		URL url = PDType1Font.class.getClassLoader().getResource(resourceName);
+		url = loader.getResource(resourceName + ".afm");
 		if (url != null)
 		{
 			InputStream afmStream = url.openStream();
 			try
 			{
 				AFMParser parser = new AFMParser(afmStream);
-				FontMetrics metric = parser.parse();
-				STANDARD14_AFM_MAP.put(fontName, metric);
+				return parser.parse();
 			}
 			finally
 			{
@@ -106,17 +115,39 @@ class Standard14Fonts
 		}
 		else
 		{
-			throw new IOException(resourceName + " not found");
+			throw new IOException(resourceName + ".afm not found");
 		}
 	}
 
 	/**
-	 * Returns the AFM for the given font.
+	 * Returns the AFM for the given font. The AFM is loaded on first use and shared by all
+	 * names of the font.
 	 * @param baseName base name of font
 	 */
 	public static FontMetrics getAFM(String baseName)
 	{
-		return STANDARD14_AFM_MAP.get(baseName);
+		String afmName = STANDARD_14_MAPPING.get(baseName);
+		if (afmName == null)
+		{
+			return null;
+		}
+		synchronized (STANDARD14_AFM_MAP)
+		{
+			FontMetrics metrics = STANDARD14_AFM_MAP.get(afmName);
+			if (metrics == null)
+			{
+				try
+				{
+					metrics = loadAFM(afmName);
+				}
+				catch (IOException e)
+				{
+					throw new RuntimeException(e);
+				}
+				STANDARD14_AFM_MAP.put(afmName, metrics);
+			}
+			return metrics;
+		}
 	}
 
 	/**
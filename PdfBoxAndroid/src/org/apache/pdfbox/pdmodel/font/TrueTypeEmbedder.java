@@ -1,7 +1,12 @@
 package org.apache.pdfbox.pdmodel.font;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.fontbox.ttf.CmapSubtable;
 import org.apache.fontbox.ttf.CmapTable;
@@ -10,6 +15,7 @@ import org.apache.fontbox.ttf.HorizontalHeaderTable;
 import org.apache.fontbox.ttf.OS2WindowsMetricsTable;
 import org.apache.fontbox.ttf.PostScriptTable;
 import org.apache.fontbox.ttf.TTFParser;
+import org.apache.fontbox.ttf.TTFSubsetter;
 import org.apache.fontbox.ttf.TrueTypeFont;
 import org.apache.pdfbox.cos.COSDictionary;
 import org.apache.pdfbox.cos.COSName;
@@ -29,16 +35,26 @@ abstract class TrueTypeEmbedder
     private static final int ITALIC = 1;
     private static final int OBLIQUE = 256;
 
+    protected final PDDocument document;
     protected final TrueTypeFont ttf;
     protected final PDFontDescriptor fontDescriptor;
     protected final CmapSubtable cmap;
+    protected final COSDictionary dict;
+
+    private final boolean embedSubset;
+    private final Set<Integer> subsetCodePoints = new HashSet<Integer>();
 
     /**
      * Creates a new TrueType font for embedding.
+     *
+     * @param embedSubset true if only the glyphs which are used are embedded, see {@link #subset()}
      */
-    TrueTypeEmbedder(PDDocument document, COSDictionary dict, InputStream ttfStream)
-                           throws IOException
+    TrueTypeEmbedder(PDDocument document, COSDictionary dict, InputStream ttfStream,
+                     boolean embedSubset) throws IOException
                            {
+    	this.document = document;
+    	this.dict = dict;
+    	this.embedSubset = embedSubset;
     	PDStream stream = new PDStream(document, ttfStream, false);
     	stream.getStream().setInt(COSName.LENGTH1, stream.getByteArray().length);
     	stream.addCompression();
@@ -70,6 +86,19 @@ abstract class TrueTypeEmbedder
         cmap = getUnicodeCmap(ttf.getCmap());
                            }
 
+    /**
+     * Returns true if the fsType in the OS/2 table permits subsetting.
+     */
+    private boolean isSubsettingPermitted(TrueTypeFont ttf) throws IOException
+    {
+        if (ttf.getOS2Windows() != null)
+        {
+            int fsType = ttf.getOS2Windows().getFsType();
+            return (fsType & OS2WindowsMetricsTable.FSTYPE_NO_SUBSETTING) == 0;
+        }
+        return true;
+    }
+
     /**
      * Returns true if the fsType in the OS/2 table permits embedding.
      */
@@ -205,6 +234,87 @@ abstract class TrueTypeEmbedder
     }
 
 
+    /**
+     * Returns true if only the glyphs which are used are embedded when the document is saved.
+     */
+    public boolean needsSubset()
+    {
+        return embedSubset;
+    }
+
+    /**
+     * Adds the given Unicode code point to the glyphs which are embedded.
+     */
+    public void addToSubset(int codePoint)
+    {
+        subsetCodePoints.add(codePoint);
+    }
+
+    /**
+     * Replaces the embedded font program by a subset with the glyphs of the code points which
+     * were added. The subset is always made from the whole font, so that glyphs which are used
+     * after a document was saved are embedded when it is saved again. The font program is kept
+     * if the font doesn't permit subsetting.
+     *
+     * @throws IOException if the subset could not be written
+     */
+    public void subset() throws IOException
+    {
+        if (!isSubsettingPermitted(ttf))
+        {
+            return;
+        }
+
+        TTFSubsetter subsetter = new TTFSubsetter(ttf, null, cmap);
+        for (int codePoint : subsetCodePoints)
+        {
+            subsetter.addCharCode(codePoint);
+        }
+        Map<Integer, Integer> gidMap = subsetter.getGIDMap();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        subsetter.writeToStream(out);
+        byte[] subsetData = out.toByteArray();
+
+        PDStream stream = new PDStream(document, new ByteArrayInputStream(subsetData), false);
+        stream.getStream().setInt(COSName.LENGTH1, subsetData.length);
+        stream.addCompression();
+        fontDescriptor.setFontFile2(stream);
+
+        // the name of a subset starts with a tag of six uppercase letters
+        String name = getTag(gidMap) + ttf.getName();
+        fontDescriptor.setFontName(name);
+        dict.setName(COSName.BASE_FONT, name);
+
+        buildSubset(name, gidMap);
+    }
+
+    /**
+     * Updates the font dictionaries for the subset which was just embedded.
+     *
+     * @param name the name of the subset, including the tag
+     * @param gidMap the GIDs of the whole font by the GIDs of the subset
+     * @throws IOException if the font could not be read
+     */
+    protected abstract void buildSubset(String name, Map<Integer, Integer> gidMap)
+            throws IOException;
+
+    /**
+     * Returns a tag of six uppercase letters and a plus sign, which is the same for the same
+     * subset of glyphs.
+     */
+    private static String getTag(Map<Integer, Integer> gidMap)
+    {
+        long num = gidMap.hashCode() & 0xFFFFFFFFL;
+        char[] tag = new char[6];
+        for (int i = 0; i < tag.length; i++)
+        {
+            tag[i] = (char)('A' + num % 26);
+            num /= 26;
+        }
+        return new String(tag) + "+";
+    }
+
     /**
      * Returns the FontBox font.
      */
@@ -9,6 +9,7 @@ import org.apache.pdfbox.cos.COSNumber;
 import org.apache.pdfbox.cos.COSStream;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.ResourceCache;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.common.PDStream;
 import org.apache.pdfbox.pdmodel.graphics.PDXObject;
@@ -40,6 +41,9 @@ public class PDFormXObject extends PDXObject implements PDContentStream
 
 	private PDGroup group;
 
+	// resource cache of the document, if the form was read from its resources
+	private ResourceCache resourceCache;
+
 	/**
 	 * Creates a Form XObject for reading.
 	 * @param stream The XObject stream
@@ -60,6 +64,19 @@ public class PDFormXObject extends PDXObject implements PDContentStream
 		this.name = name;
 	}
 
+	/**
+	 * Creates a Form XObject for reading, which shares the resources of the document.
+	 * @param stream The XObject stream
+	 * @param name The name of the form XObject, to prevent recursion.
+	 * @param resourceCache The resource cache of the document, or null.
+	 */
+	public PDFormXObject(PDStream stream, String name, ResourceCache resourceCache)
+	{
+		super(stream, COSName.FORM);
+		this.name = name;
+		this.resourceCache = resourceCache;
+	}
+
 	/**
 	 * Creates a Form Image XObject for writing, in the given document.
 	 * @param document The current document
@@ -122,7 +139,7 @@ public class PDFormXObject extends PDXObject implements PDContentStream
 		COSDictionary resources = (COSDictionary) getCOSStream().getDictionaryObject(COSName.RESOURCES);
 		if (resources != null)
 		{
-			return new PDResources(resources);
+			return new PDResources(resources, resourceCache);
 		}
 		return null;
 	}
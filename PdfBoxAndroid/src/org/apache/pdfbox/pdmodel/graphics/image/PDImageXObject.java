@@ -13,6 +13,7 @@ import org.apache.pdfbox.cos.COSStream;
 import org.apache.pdfbox.filter.DecodeResult;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.ResourceCache;
 import org.apache.pdfbox.pdmodel.common.PDMetadata;
 import org.apache.pdfbox.pdmodel.common.PDStream;
 import org.apache.pdfbox.pdmodel.graphics.PDXObject;
@@ -154,7 +155,8 @@ public final class PDImageXObject extends PDXObject implements PDImage
 
     /**
      * {@inheritDoc}
-     * The returned images are cached for the lifetime of this XObject.
+     * The returned images are cached for the lifetime of this XObject, and softly in the
+     * resource cache of the document so that other lookups of the same image share them.
      */
     @Override
     public Bitmap getImage() throws IOException
@@ -164,6 +166,15 @@ public final class PDImageXObject extends PDXObject implements PDImage
         {
             return cachedImage;
         }
+        ResourceCache cache = resources == null ? null : resources.getResourceCache();
+        if (cache != null)
+        {
+            cachedImage = cache.getImage(getCOSStream());
+            if (cachedImage != null)
+            {
+                return cachedImage;
+            }
+        }
 
         // get image as RGB
         Bitmap image = SampledImageReader.getRGBImage(this, getColorKeyMask());
@@ -185,6 +196,10 @@ public final class PDImageXObject extends PDXObject implements PDImage
 //        } TODO
 
         cachedImage = image;
+        if (cache != null)
+        {
+            cache.put(getCOSStream(), image);
+        }
         return image;
     }
 
@@ -24,6 +24,7 @@ import org.apache.pdfbox.cos.COSDictionary;
 import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.pdmodel.common.COSObjectable;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.common.function.LookupTable;
 import org.apache.pdfbox.pdmodel.common.function.PDFunction;
 
 /**
@@ -39,6 +40,8 @@ public abstract class PDShading implements COSObjectable
 //    private PDColorSpace colorSpace = null;TODO
     private PDFunction function = null;
     private PDFunction[] functionArray = null;
+    private LookupTable[] lookupTables = null;
+    private int lookupTableResolution = 0;
 
     /**
      * shading type 1 = function based shading.
@@ -305,6 +308,7 @@ public abstract class PDShading implements COSObjectable
     public void setFunction(PDFunction newFunction)
     {
         functionArray = null;
+        lookupTables = null;
         function = newFunction;
         if (newFunction == null)
         {
@@ -324,6 +328,7 @@ public abstract class PDShading implements COSObjectable
     public void setFunction(COSArray newFunctions)
     {
         functionArray = null;
+        lookupTables = null;
         function = null;
         if (newFunctions == null)
         {
@@ -384,6 +389,61 @@ public abstract class PDShading implements COSObjectable
         return functionArray;
     }
 
+    /**
+     * Sets the number of samples per input value of the lookup tables of the shading functions.
+     * If it is not 0, {@link #evalFunction(float[])} interpolates the values of the tables
+     * instead of evaluating the functions every time. Functions with more than two input
+     * values are always evaluated. The default is 0, the functions are evaluated exactly.
+     *
+     * @param resolution the number of samples, at least 2, or 0 to evaluate the functions
+     */
+    public void setLookupTableResolution(int resolution)
+    {
+        if (resolution != 0 && resolution < 2)
+        {
+            throw new IllegalArgumentException("The resolution must be at least 2: " + resolution);
+        }
+        lookupTableResolution = resolution;
+        lookupTables = null;
+    }
+
+    /**
+     * Returns the number of samples per input value of the lookup tables of the shading
+     * functions.
+     *
+     * @return the number of samples, or 0 if the functions are evaluated
+     */
+    public int getLookupTableResolution()
+    {
+        return lookupTableResolution;
+    }
+
+    /**
+     * Provide the lookup tables of the function(s), null if they aren't used. A table is null if
+     * the function can't be sampled.
+     *
+     * @return an array containing the lookup tables
+     * @throws IOException if something went wrong
+     */
+    private LookupTable[] getLookupTables() throws IOException
+    {
+        if (lookupTableResolution == 0)
+        {
+            return null;
+        }
+        if (lookupTables == null)
+        {
+            PDFunction[] functions = getFunctionsArray();
+            LookupTable[] tables = new LookupTable[functions.length];
+            for (int i = 0; i < functions.length; i++)
+            {
+                tables[i] = functions[i].getLookupTable(lookupTableResolution);
+            }
+            lookupTables = tables;
+        }
+        return lookupTables;
+    }
+
     /**
      * Convert the input value using the functions of the shading dictionary.
      *
@@ -409,18 +469,19 @@ public abstract class PDShading implements COSObjectable
     public float[] evalFunction(float[] input) throws IOException
     {
         PDFunction[] functions = getFunctionsArray();
+        LookupTable[] tables = getLookupTables();
         int numberOfFunctions = functions.length;
         float[] returnValues = null;
         if (numberOfFunctions == 1)
         {
-            returnValues = functions[0].eval(input);
+            returnValues = eval(functions, tables, 0, input);
         }
         else
         {
             returnValues = new float[numberOfFunctions];
             for (int i = 0; i < numberOfFunctions; i++)
             {
-                float[] newValue = functions[i].eval(input);
+                float[] newValue = eval(functions, tables, i, input);
                 returnValues[i] = newValue[0];
             }
         }
@@ -441,6 +502,17 @@ public abstract class PDShading implements COSObjectable
         return returnValues;
     }
 
+    // evaluates the function with the given index, or interpolates its lookup table
+    private static float[] eval(PDFunction[] functions, LookupTable[] tables, int index,
+            float[] input) throws IOException
+    {
+        if (tables != null && tables[index] != null)
+        {
+            return tables[index].eval(input);
+        }
+        return functions[index].eval(input);
+    }
+
     /**
      * Returns an AWT paint which corresponds to this shading
      *
@@ -13,6 +13,14 @@ public class PDShadingType2 extends PDShading
     private COSArray domain = null;
     private COSArray extend = null;
 
+    /**
+     * A number of samples for the lookup tables of the shading functions which is suitable for
+     * axial and radial shadings, as their color only depends on t and the interpolation error
+     * is hardly visible. The functions are evaluated exactly unless it is set with
+     * {@link #setLookupTableResolution(int)}.
+     */
+    public static final int SUGGESTED_LOOKUP_TABLE_RESOLUTION = 256;
+
     /**
      * Constructor using the given shading dictionary.
      *
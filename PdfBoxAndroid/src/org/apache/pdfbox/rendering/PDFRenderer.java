@@ -21,7 +21,7 @@ import android.graphics.Paint;
 public class PDFRenderer
 {
 	protected final PDDocument document;
-	// TODO keep rendering state such as caches here
+	// the glyph paths are cached by the document, see PDDocument.getGlyphCache()
 	
 	/**
 	 * Creates a new PDFRenderer.
@@ -53,24 +53,176 @@ public class PDFRenderer
 	public Bitmap renderImage(int pageIndex, float scale) throws IOException
 	{
 		PDPage page = document.getPage(pageIndex);
-
-        PDRectangle cropbBox = page.getCropBox();
-        float widthPt = cropbBox.getWidth();
-        float heightPt = cropbBox.getHeight();
-        int widthPx = Math.round(widthPt * scale);
-        int heightPx = Math.round(heightPt * scale);
-        int rotationAngle = page.getRotation();
-
-        // swap width and height
-        Bitmap image;
-        if (rotationAngle == 90 || rotationAngle == 270)
-        {
-            image = Bitmap.createBitmap(heightPx, widthPx, Bitmap.Config.RGB_565);
-        }
-        else
-        {
-            image = Bitmap.createBitmap(widthPx, heightPx, Bitmap.Config.RGB_565);
-        }
+		return renderRegion(page, scale, 0, 0, getImageWidth(page, scale),
+				getImageHeight(page, scale), null);
+	}
+	
+	/**
+	 * Returns a region of the given page as an RGB image at the given scale. The image is the
+	 * part of the image of {@link #renderImage(int, float)} which shows the region, only the
+	 * content which is inside of the region is drawn.
+	 * @param pageIndex the zero-based index of the page to be converted
+	 * @param scale the scaling factor, where 1 = 72 DPI
+	 * @param region the region to render, in default user space like the crop box
+	 * @return the rendered region image
+	 * @throws IOException if the PDF cannot be read
+	 */
+	public Bitmap renderImageRegion(int pageIndex, float scale, PDRectangle region)
+			throws IOException
+	{
+		PDPage page = document.getPage(pageIndex);
+		float[] p1 = toImage(page, scale, region.getLowerLeftX(), region.getLowerLeftY());
+		float[] p2 = toImage(page, scale, region.getUpperRightX(), region.getUpperRightY());
+		int left = Math.max((int) Math.floor(Math.min(p1[0], p2[0])), 0);
+		int top = Math.max((int) Math.floor(Math.min(p1[1], p2[1])), 0);
+		int right = Math.min((int) Math.ceil(Math.max(p1[0], p2[0])), getImageWidth(page, scale));
+		int bottom = Math.min((int) Math.ceil(Math.max(p1[1], p2[1])), getImageHeight(page, scale));
+		if (right <= left || bottom <= top)
+		{
+			throw new IllegalArgumentException("The region " + region + " is outside of page " +
+					pageIndex);
+		}
+		return renderRegion(page, scale, left, top, right - left, bottom - top, region);
+	}
+	
+	/**
+	 * Returns a tile of the given page as an RGB image at the given scale. The image of
+	 * {@link #renderImage(int, float)} is split into square tiles of the given size, the tiles
+	 * in the last column and row are smaller if the image size isn't a multiple of the tile
+	 * size. Only the content which is inside of the tile is drawn.
+	 * @param pageIndex the zero-based index of the page to be converted
+	 * @param scale the scaling factor, where 1 = 72 DPI
+	 * @param column the zero-based column of the tile
+	 * @param row the zero-based row of the tile
+	 * @param tileSize the width and height of the tiles, in pixels
+	 * @return the rendered tile image
+	 * @throws IOException if the PDF cannot be read
+	 */
+	public Bitmap renderTile(int pageIndex, float scale, int column, int row, int tileSize)
+			throws IOException
+	{
+		PDPage page = document.getPage(pageIndex);
+		int left = column * tileSize;
+		int top = row * tileSize;
+		int right = Math.min(left + tileSize, getImageWidth(page, scale));
+		int bottom = Math.min(top + tileSize, getImageHeight(page, scale));
+		if (tileSize <= 0 || column < 0 || row < 0 || right <= left || bottom <= top)
+		{
+			throw new IllegalArgumentException("There is no tile " + column + "," + row +
+					" of size " + tileSize + " on page " + pageIndex);
+		}
+		float[] p1 = toUserSpace(page, scale, left, top);
+		float[] p2 = toUserSpace(page, scale, right, bottom);
+		PDRectangle region = new PDRectangle(Math.min(p1[0], p2[0]), Math.min(p1[1], p2[1]),
+				Math.abs(p2[0] - p1[0]), Math.abs(p2[1] - p1[1]));
+		return renderRegion(page, scale, left, top, right - left, bottom - top, region);
+	}
+	
+	/**
+	 * Returns the width of the image of the given page at the given scale.
+	 * @param pageIndex the zero-based index of the page
+	 * @param scale the scaling factor, where 1 = 72 DPI
+	 * @return the width in pixels
+	 */
+	public int getImageWidth(int pageIndex, float scale)
+	{
+		return getImageWidth(document.getPage(pageIndex), scale);
+	}
+	
+	/**
+	 * Returns the height of the image of the given page at the given scale.
+	 * @param pageIndex the zero-based index of the page
+	 * @param scale the scaling factor, where 1 = 72 DPI
+	 * @return the height in pixels
+	 */
+	public int getImageHeight(int pageIndex, float scale)
+	{
+		return getImageHeight(document.getPage(pageIndex), scale);
+	}
+	
+	private static int getImageWidth(PDPage page, float scale)
+	{
+		PDRectangle cropBox = page.getCropBox();
+		// swap width and height
+		float widthPt = isRotatedSideways(page) ? cropBox.getHeight() : cropBox.getWidth();
+		return Math.round(widthPt * scale);
+	}
+	
+	private static int getImageHeight(PDPage page, float scale)
+	{
+		PDRectangle cropBox = page.getCropBox();
+		float heightPt = isRotatedSideways(page) ? cropBox.getWidth() : cropBox.getHeight();
+		return Math.round(heightPt * scale);
+	}
+	
+	private static boolean isRotatedSideways(PDPage page)
+	{
+		int rotationAngle = page.getRotation();
+		return rotationAngle == 90 || rotationAngle == 270;
+	}
+	
+	/**
+	 * Transforms a point in default user space to the pixels of the page image.
+	 */
+	private static float[] toImage(PDPage page, float scale, float x, float y)
+	{
+		PDRectangle cropBox = page.getCropBox();
+		float width = cropBox.getWidth() * scale;
+		float height = cropBox.getHeight() * scale;
+		// unrotated image, with the y-axis pointing down
+		float u = (x - cropBox.getLowerLeftX()) * scale;
+		float v = height - (y - cropBox.getLowerLeftY()) * scale;
+		switch (page.getRotation())
+		{
+			case 90:
+				return new float[] { height - v, u };
+			case 180:
+				return new float[] { width - u, height - v };
+			case 270:
+				return new float[] { v, width - u };
+			default:
+				return new float[] { u, v };
+		}
+	}
+	
+	/**
+	 * Transforms a point in the pixels of the page image to default user space.
+	 */
+	private static float[] toUserSpace(PDPage page, float scale, float px, float py)
+	{
+		PDRectangle cropBox = page.getCropBox();
+		float width = cropBox.getWidth() * scale;
+		float height = cropBox.getHeight() * scale;
+		float u;
+		float v;
+		switch (page.getRotation())
+		{
+			case 90:
+				u = py;
+				v = height - px;
+				break;
+			case 180:
+				u = width - px;
+				v = height - py;
+				break;
+			case 270:
+				u = width - py;
+				v = px;
+				break;
+			default:
+				u = px;
+				v = py;
+				break;
+		}
+		return new float[] { u / scale + cropBox.getLowerLeftX(),
+				(height - v) / scale + cropBox.getLowerLeftY() };
+	}
+	
+	// renders the given pixels of the page image, only the content in the region is drawn
+	private Bitmap renderRegion(PDPage page, float scale, int left, int top, int width,
+			int height, PDRectangle region) throws IOException
+	{
+        Bitmap image = Bitmap.createBitmap(width, height, Bitmap.Config.RGB_565);
 
         // use a transparent background if the imageType supports alpha
 //        Graphics2D g = image.createGraphics();
@@ -83,7 +235,9 @@ public class PDFRenderer
             canvas.drawRect(0, 0, image.getWidth(), image.getHeight(), paint);
 //        }
 
-        renderPage(page, paint, canvas, image.getWidth(), image.getHeight(), scale, scale);
+        // move the region to the origin of the image
+        canvas.translate(-left, -top);
+        renderPage(page, paint, canvas, image.getWidth(), image.getHeight(), scale, scale, region);
 //        g.dispose();
 
         return image;
@@ -91,7 +245,7 @@ public class PDFRenderer
 	
 	// renders a page to the given graphics
     private void renderPage(PDPage page, Paint paint, Canvas canvas, int width, int height, float scaleX,
-                            float scaleY) throws IOException
+                            float scaleY, PDRectangle region) throws IOException
     {
 //        graphics.clearRect(0, 0, width, height);
 
@@ -119,10 +273,10 @@ public class PDFRenderer
                     break;
             }
             canvas.translate(translateX, translateY);
-            canvas.rotate((float) Math.toRadians(rotationAngle));
+            canvas.rotate(rotationAngle); // in degrees, unlike AWT
         }
 
         PageDrawer drawer = new PageDrawer(this, page);
-        drawer.drawPage(paint, canvas, cropBox);
+        drawer.drawPage(paint, canvas, cropBox, region);
     }
 }
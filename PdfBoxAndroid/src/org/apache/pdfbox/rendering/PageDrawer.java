@@ -10,6 +10,7 @@ import org.apache.pdfbox.contentstream.PDFGraphicsStreamEngine;
 import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.GlyphCache;
 import org.apache.pdfbox.pdmodel.font.PDCIDFontType0;
 import org.apache.pdfbox.pdmodel.font.PDCIDFontType2;
 import org.apache.pdfbox.pdmodel.font.PDFont;
@@ -49,6 +50,9 @@ public final class PageDrawer extends PDFGraphicsStreamEngine
 {
 	private static final Log LOG = LogFactory.getLog(PageDrawer.class);
 	
+	// images are drawn into the unit square of their CTM
+	private static final PDRectangle UNIT_SQUARE = new PDRectangle(1, 1);
+	
 	// parent document renderer
 	private final PDFRenderer renderer;
 	
@@ -64,6 +68,12 @@ public final class PageDrawer extends PDFGraphicsStreamEngine
     private int clipWindingRule = -1;
     private Path linePath = new Path();
 
+    // bounds of the control points of linePath, in user space
+    private float[] pathBounds = new float[4];
+
+    // the part of the page which is drawn, operators outside of it are skipped, null for all
+    private PDRectangle region;
+
     // last clipping path
 //    private Area lastClip;TODO
 
@@ -71,6 +81,9 @@ public final class PageDrawer extends PDFGraphicsStreamEngine
 //    private Area textClippingArea;TODO
 
     private final Map<PDFont, Glyph2D> fontGlyph2D = new HashMap<PDFont, Glyph2D>();
+
+    // glyph paths, shared by all pages of the document if it has a glyph cache
+    private final GlyphCache glyphCache;
 	
 	/**
 	 * Constructor.
@@ -83,6 +96,9 @@ public final class PageDrawer extends PDFGraphicsStreamEngine
 	{
 		super(page);
 		this.renderer = renderer;
+		resetPathBounds();
+		GlyphCache documentGlyphs = renderer.document.getGlyphCache();
+		glyphCache = documentGlyphs != null ? documentGlyphs : new GlyphCache();
 	}
 	
 	/**
@@ -105,6 +121,23 @@ public final class PageDrawer extends PDFGraphicsStreamEngine
 	 */
 	public void drawPage(Paint p, Canvas c, PDRectangle pageSize) throws IOException
 	{
+		drawPage(p, c, pageSize, null);
+	}
+	
+	/**
+	 * Draws the given region of the page. Paths, glyphs, images and forms which are outside of
+	 * the region are skipped, the canvas has to be set up so that only the region is visible.
+	 * 
+	 * @param p the paint to draw with
+	 * @param c the canvas to draw to
+	 * @param pageSize the page box to draw
+	 * @param region the region to draw in default user space, or null to draw the whole page
+	 * @throws IOException If there is an error drawing the page.
+	 */
+	public void drawPage(Paint p, Canvas c, PDRectangle pageSize, PDRectangle region)
+			throws IOException
+	{
+		this.region = region;
 		paint = p;
 		canvas = c;
 		xform = canvas.getMatrix();
@@ -274,6 +307,17 @@ public final class PageDrawer extends PDFGraphicsStreamEngine
         RenderingMode renderingMode = state.getTextState().getRenderingMode();
 
         Path path = glyph2D.getPathForCharacterCode(code);
+        if (path != null && region != null)
+        {
+            // skip glyphs outside of the region
+            RectF bounds = new RectF();
+            path.computeBounds(bounds, false);
+            at.mapRect(bounds);
+            if (!isVisible(bounds.left, bounds.top, bounds.right, bounds.bottom))
+            {
+                return;
+            }
+        }
         if (path != null)
         {
             // stretch non-embedded glyph if it does not match the width contained in the PDF
@@ -342,23 +386,23 @@ public final class PageDrawer extends PDFGraphicsStreamEngine
         if (font instanceof PDTrueTypeFont)
         {
             PDTrueTypeFont ttfFont = (PDTrueTypeFont)font;
-            glyph2D = new TTFGlyph2D(ttfFont);  // TTF is never null
+            glyph2D = new TTFGlyph2D(ttfFont, glyphCache);  // TTF is never null
         }
         else if (font instanceof PDType1Font)
         {
             PDType1Font pdType1Font = (PDType1Font)font;
-            glyph2D = new Type1Glyph2D(pdType1Font); // T1 is never null
+            glyph2D = new Type1Glyph2D(pdType1Font, glyphCache); // T1 is never null
         }
         else if (font instanceof PDType1CFont)
         {
             PDType1CFont type1CFont = (PDType1CFont)font;
             if (type1CFont.getCFFType1Font() != null)
             {
-                glyph2D = new Type1Glyph2D(type1CFont);
+                glyph2D = new Type1Glyph2D(type1CFont, glyphCache);
             }
             else
             {
-                glyph2D = new Type1Glyph2D(type1CFont); // fallback to T1-equivalent
+                glyph2D = new Type1Glyph2D(type1CFont, glyphCache); // fallback to T1-equivalent
             }
         }
         else if (font instanceof PDType0Font)
@@ -366,13 +410,13 @@ public final class PageDrawer extends PDFGraphicsStreamEngine
             PDType0Font type0Font = (PDType0Font) font;
             if (type0Font.getDescendantFont() instanceof PDCIDFontType2)
             {
-                glyph2D = new TTFGlyph2D(type0Font); // TTF is never null
+                glyph2D = new TTFGlyph2D(type0Font, glyphCache); // TTF is never null
             }
             else if (type0Font.getDescendantFont() instanceof PDCIDFontType0)
             {
                 // a Type0 CIDFont contains CFF font
                 PDCIDFontType0 cidType0Font = (PDCIDFontType0)type0Font.getDescendantFont();
-                glyph2D = new CIDType0Glyph2D(cidType0Font); // todo: could be null (need incorporate fallback)
+                glyph2D = new CIDType0Glyph2D(cidType0Font, glyphCache); // todo: could be null (need incorporate fallback)
             }
         }
         else
@@ -400,10 +444,14 @@ public final class PageDrawer extends PDFGraphicsStreamEngine
     {
         // to ensure that the path is created in the right direction, we have to create
         // it by combining single lines instead of creating a simple rectangle
-        linePath.moveTo((float) p0.x, (float) p0.y);
-        linePath.lineTo((float) p1.x, (float) p1.y);
-        linePath.lineTo((float) p2.x, (float) p2.y);
-        linePath.lineTo((float) p3.x, (float) p3.y);
+        linePath.moveTo(p0.x, p0.y);
+        linePath.lineTo(p1.x, p1.y);
+        linePath.lineTo(p2.x, p2.y);
+        linePath.lineTo(p3.x, p3.y);
+        addToPathBounds(p0.x, p0.y);
+        addToPathBounds(p1.x, p1.y);
+        addToPathBounds(p2.x, p2.y);
+        addToPathBounds(p3.x, p3.y);
 
         // close the subpath instead of adding the last line so that a possible set line
         // cap style isn't taken into account at the "beginning" of the rectangle
@@ -500,17 +548,25 @@ public final class PageDrawer extends PDFGraphicsStreamEngine
     @Override
     public void strokePath() throws IOException
     {
-//        graphics.setComposite(getGraphicsState().getStrokingJavaComposite());
-//        graphics.setPaint(getStrokingPaint());
-//        graphics.setStroke(getStroke());
-        setClip();
-//        graphics.draw(linePath);
+        if (isPathVisible(getStrokePadding()))
+        {
+//            graphics.setComposite(getGraphicsState().getStrokingJavaComposite());
+//            graphics.setPaint(getStrokingPaint());
+//            graphics.setStroke(getStroke());
+            setClip();
+//            graphics.draw(linePath);
+        }
         linePath.reset();
+        resetPathBounds();
     }
 
     @Override
     public void fillPath(int windingRule) throws IOException
     {
+        if (!isPathVisible(0))
+        {
+            return;
+        }
 //        graphics.setComposite(getGraphicsState().getNonStrokingJavaComposite());
 //        graphics.setPaint(getNonStrokingPaint());
         setClip();
@@ -604,8 +660,10 @@ public final class PageDrawer extends PDFGraphicsStreamEngine
     {
         // TODO can we avoid cloning the path?
         Path path = new Path(linePath);
+        float[] bounds = pathBounds.clone();
         fillPath(windingRule);
         linePath = path;
+        pathBounds = bounds;
         strokePath();
     }
 
@@ -620,18 +678,24 @@ public final class PageDrawer extends PDFGraphicsStreamEngine
     public void moveTo(float x, float y)
     {
         linePath.moveTo(x, y);
+        addToPathBounds(x, y);
     }
 
     @Override
     public void lineTo(float x, float y)
     {
         linePath.lineTo(x, y);
+        addToPathBounds(x, y);
     }
 
     @Override
     public void curveTo(float x1, float y1, float x2, float y2, float x3, float y3)
     {
         linePath.cubicTo(x1, y1, x2, y2, x3, y3); // TODO: check if this should be relative
+        // a Bezier curve lies within the convex hull of its control points
+        addToPathBounds(x1, y1);
+        addToPathBounds(x2, y2);
+        addToPathBounds(x3, y3);
     }
 
     @Override
@@ -658,12 +722,101 @@ public final class PageDrawer extends PDFGraphicsStreamEngine
 //            clipWindingRule = -1;
 //        }
         linePath.reset();
+        resetPathBounds();
+    }
+
+    // starts the bounds of a new path
+    private void resetPathBounds()
+    {
+        pathBounds[0] = Float.POSITIVE_INFINITY;
+        pathBounds[1] = Float.POSITIVE_INFINITY;
+        pathBounds[2] = Float.NEGATIVE_INFINITY;
+        pathBounds[3] = Float.NEGATIVE_INFINITY;
+    }
+
+    private void addToPathBounds(float x, float y)
+    {
+        pathBounds[0] = Math.min(pathBounds[0], x);
+        pathBounds[1] = Math.min(pathBounds[1], y);
+        pathBounds[2] = Math.max(pathBounds[2], x);
+        pathBounds[3] = Math.max(pathBounds[3], y);
+    }
+
+    /**
+     * Returns true if the current path, grown by the given padding, is inside of the region.
+     */
+    private boolean isPathVisible(float padding)
+    {
+        return isVisible(pathBounds[0] - padding, pathBounds[1] - padding,
+                         pathBounds[2] + padding, pathBounds[3] + padding);
+    }
+
+    /**
+     * Returns the distance by which a stroke may extend beyond the path, in user space.
+     */
+    private float getStrokePadding()
+    {
+        PDGraphicsState state = getGraphicsState();
+        org.apache.pdfbox.util.Matrix ctm = state.getCurrentTransformationMatrix();
+        // the lengths of the transformed unit vectors, which also holds for rotated pages
+        float scaleX = (float) Math.sqrt(ctm.getScaleX() * ctm.getScaleX() +
+                ctm.getShearY() * ctm.getShearY());
+        float scaleY = (float) Math.sqrt(ctm.getShearX() * ctm.getShearX() +
+                ctm.getScaleY() * ctm.getScaleY());
+        float scale = Math.max(scaleX, scaleY);
+        // a miter join extends at most half the line width times the miter limit
+        float halfWidth = state.getLineWidth() * scale / 2;
+        return Math.max(halfWidth * Math.max(state.getMiterLimit(), 1), 1);
+    }
+
+    /**
+     * Returns true if the given rectangle in user space is transformed into the region.
+     */
+    private boolean isVisible(PDRectangle rect, org.apache.pdfbox.util.Matrix matrix)
+    {
+        if (region == null || rect == null)
+        {
+            return true;
+        }
+        float minX = Float.POSITIVE_INFINITY;
+        float minY = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY;
+        float maxY = Float.NEGATIVE_INFINITY;
+        float[] xs = { rect.getLowerLeftX(), rect.getUpperRightX() };
+        float[] ys = { rect.getLowerLeftY(), rect.getUpperRightY() };
+        for (float x : xs)
+        {
+            for (float y : ys)
+            {
+                PointF p = matrix.transformPoint(x, y);
+                minX = Math.min(minX, p.x);
+                minY = Math.min(minY, p.y);
+                maxX = Math.max(maxX, p.x);
+                maxY = Math.max(maxY, p.y);
+            }
+        }
+        return isVisible(minX, minY, maxX, maxY);
     }
-    
+
+    /**
+     * Returns true if the given bounds in user space intersect the region.
+     */
+    private boolean isVisible(float minX, float minY, float maxX, float maxY)
+    {
+        return region == null ||
+               minX <= region.getUpperRightX() && maxX >= region.getLowerLeftX() &&
+               minY <= region.getUpperRightY() && maxY >= region.getLowerLeftY();
+    }
+
     @Override
     public void drawImage(PDImage pdImage) throws IOException
     {
         org.apache.pdfbox.util.Matrix ctm = getGraphicsState().getCurrentTransformationMatrix();
+        if (!isVisible(UNIT_SQUARE, ctm))
+        {
+            // don't decode images outside of the region
+            return;
+        }
         android.graphics.Matrix at = ctm.createAffineTransform();
 
         if (pdImage.isStencil())
@@ -748,6 +901,30 @@ public final class PageDrawer extends PDFGraphicsStreamEngine
 //        graphics.fill(getGraphicsState().getCurrentClippingPath());
     }
 
+    @Override
+    public void showForm(PDFormXObject form) throws IOException
+    {
+        if (isFormVisible(form))
+        {
+            super.showForm(form);
+        }
+    }
+
+    /**
+     * Returns true if the bounding box of the given form is inside of the region, the form
+     * is clipped to its bounding box so nothing outside of it is drawn.
+     */
+    private boolean isFormVisible(PDFormXObject form)
+    {
+        if (region == null)
+        {
+            return true;
+        }
+        org.apache.pdfbox.util.Matrix matrix = getGraphicsState().getCurrentTransformationMatrix().clone();
+        matrix.concatenate(form.getMatrix());
+        return isVisible(form.getBBox(), matrix);
+    }
+
     @Override
     public void showAnnotation(PDAnnotation annotation) throws IOException
     {
@@ -758,6 +935,10 @@ public final class PageDrawer extends PDFGraphicsStreamEngine
     @Override
     public void showTransparencyGroup(PDFormXObject form) throws IOException
     {
+        if (!isFormVisible(form))
+        {
+            return;
+        }
         TransparencyGroup group = new TransparencyGroup(form, false);
 
 //        graphics.setComposite(getGraphicsState().getNonStrokingJavaComposite());
@@ -1,11 +1,11 @@
 package org.apache.pdfbox.rendering.font;
 
 import java.io.IOException;
-import java.util.HashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.fontbox.cff.Type2CharString;
+import org.apache.pdfbox.pdmodel.font.GlyphCache;
 import org.apache.pdfbox.pdmodel.font.PDCIDFontType0;
 
 import android.graphics.Path;
@@ -18,7 +18,7 @@ import android.graphics.Path;
 public class CIDType0Glyph2D implements Glyph2D
 {
 	private static final Log LOG = LogFactory.getLog(CIDType0Glyph2D.class);
-	private final HashMap<Integer, Path> cache = new HashMap<Integer, Path>();
+	private final GlyphCache cache;
 	private final PDCIDFontType0 font;
 	private final String fontName;
 	/**
@@ -27,17 +27,30 @@ public class CIDType0Glyph2D implements Glyph2D
 	 * @param font Type 0 CIDFont
 	 */
 	public CIDType0Glyph2D(PDCIDFontType0 font) // todo: what about PDCIDFontType2?
+	{
+		this(font, new GlyphCache());
+	}
+	/**
+	 * Constructor.
+	 *
+	 * @param font Type 0 CIDFont
+	 * @param cache the cache of the glyph paths
+	 */
+	public CIDType0Glyph2D(PDCIDFontType0 font, GlyphCache cache)
 	{
 		this.font = font;
+		this.cache = cache;
 		fontName = font.getBaseFont();
 	}
 	@Override
 	public Path getPathForCharacterCode(int code)
 	{
 		int cid = font.getParent().codeToCID(code);
-		if (cache.containsKey(code))
+		// cache, by the CID in the CFF font
+		Path cached = cache.get(font.getCFFFont(), cid);
+		if (cached != null)
 		{
-			return cache.get(code);
+			return cached;
 		}
 		try
 		{
@@ -48,7 +61,7 @@ public class CIDType0Glyph2D implements Glyph2D
 				LOG.warn("No glyph for " + code + " (CID " + cidHex + ") in font " + fontName);
 			}
 			Path path = charString.getPath();
-			cache.put(code, path);
+			cache.put(font.getCFFFont(), cid, path);
 			return path;
 		}
 		catch (IOException e)
@@ -60,6 +73,6 @@ public class CIDType0Glyph2D implements Glyph2D
 	@Override
 	public void dispose()
 	{
-		cache.clear();
+		cache.remove(font.getCFFFont());
 	}
 }
\ No newline at end of file
@@ -18,7 +18,7 @@ public interface Glyph2D {
 	 */
 	public Path getPathForCharacterCode(int code) throws IOException;
 	/**
-	 * Remove all cached resources.
+	 * Remove all cached resources, including the glyphs of the font in a shared glyph cache.
 	 */
 	public void dispose();
 }
@@ -1,8 +1,6 @@
 package org.apache.pdfbox.rendering.font;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -10,6 +8,7 @@ import org.apache.fontbox.ttf.GlyphData;
 import org.apache.fontbox.ttf.HeaderTable;
 import org.apache.fontbox.ttf.TrueTypeFont;
 import org.apache.pdfbox.pdmodel.font.PDCIDFontType2;
+import org.apache.pdfbox.pdmodel.font.GlyphCache;
 import org.apache.pdfbox.pdmodel.font.PDFont;
 import org.apache.pdfbox.pdmodel.font.PDTrueTypeFont;
 import org.apache.pdfbox.pdmodel.font.PDType0Font;
@@ -26,7 +25,7 @@ public class TTFGlyph2D implements Glyph2D
 	private final TrueTypeFont ttf;
 	private float scale = 1.0f;
 	private boolean hasScaling;
-	private final Map<Integer, Path> glyphs = new HashMap<Integer, Path>();
+	private final GlyphCache glyphs;
 	private final boolean isCIDFont;
 	/**
 	 * Constructor.
@@ -35,7 +34,17 @@ public class TTFGlyph2D implements Glyph2D
 	 */
 	public TTFGlyph2D(PDTrueTypeFont ttfFont) throws IOException
 	{
-		this(ttfFont.getTrueTypeFont(), ttfFont, false);
+		this(ttfFont, new GlyphCache());
+	}
+	/**
+	 * Constructor.
+	 *
+	 * @param ttfFont TrueType font
+	 * @param glyphs the cache of the glyph paths
+	 */
+	public TTFGlyph2D(PDTrueTypeFont ttfFont, GlyphCache glyphs) throws IOException
+	{
+		this(ttfFont.getTrueTypeFont(), ttfFont, false, glyphs);
 	}
 	/**
 	 * Constructor.
@@ -44,14 +53,31 @@ public class TTFGlyph2D implements Glyph2D
 	 */
 	public TTFGlyph2D(PDType0Font type0Font) throws IOException
 	{
-		this(((PDCIDFontType2)type0Font.getDescendantFont()).getTrueTypeFont(), type0Font, true);
+		this(type0Font, new GlyphCache());
+	}
+	/**
+	 * Constructor.
+	 *
+	 * @param type0Font Type0 font, with CIDFontType2 descendant
+	 * @param glyphs the cache of the glyph paths
+	 */
+	public TTFGlyph2D(PDType0Font type0Font, GlyphCache glyphs) throws IOException
+	{
+		this(((PDCIDFontType2)type0Font.getDescendantFont()).getTrueTypeFont(), type0Font, true,
+				glyphs);
 	}
 	public TTFGlyph2D(TrueTypeFont ttf, PDFont font, boolean isCIDFont)
 			throws IOException
+	{
+		this(ttf, font, isCIDFont, new GlyphCache());
+	}
+	public TTFGlyph2D(TrueTypeFont ttf, PDFont font, boolean isCIDFont, GlyphCache glyphs)
+			throws IOException
 	{
 		this.font = font;
 		this.ttf = ttf;
 		this.isCIDFont = isCIDFont;
+		this.glyphs = glyphs;
 		// get units per em, which is used as scaling factor
 		HeaderTable header = this.ttf.getHeader();
 		if (header != null && header.getUnitsPerEm() != 1000)
@@ -90,12 +116,9 @@ public class TTFGlyph2D implements Glyph2D
 	 */
 	public Path getPathForGID(int gid, int code) throws IOException
 	{
-		Path glyphPath;
-		if (glyphs.containsKey(gid))
-		{
-			glyphPath = glyphs.get(gid);
-		}
-		else
+		// the glyphs are cached per TrueType font, which may be shared by several PDFonts
+		Path glyphPath = glyphs.get(ttf, gid);
+		if (glyphPath == null)
 		{
 			if (gid == 0 || gid >= ttf.getMaximumProfile().getNumGlyphs())
 			{
@@ -111,17 +134,18 @@ public class TTFGlyph2D implements Glyph2D
 					LOG.warn("No glyph for " + code + " in font " + font.getName());
 				}
 			}
-			GlyphData glyph = ttf.getGlyph().getGlyph(gid);
 			// Acrobat only draws GID 0 for embedded or "Standard 14" fonts, see PDFBOX-2372
 			if (gid == 0 && !font.isEmbedded() && !font.isStandard14())
 			{
-				glyph = null;
+				// depends on the PDFont, so it isn't cached
+				return new Path();
 			}
+			GlyphData glyph = ttf.getGlyph().getGlyph(gid);
 			if (glyph == null)
 			{
 				// empty glyph (e.g. space, newline)
 				glyphPath = new Path();
-				glyphs.put(gid, glyphPath);
+				glyphs.put(ttf, gid, glyphPath);
 			}
 			else
 			{
@@ -132,7 +156,7 @@ public class TTFGlyph2D implements Glyph2D
 					atScale.setScale(scale, scale);
 					glyphPath.transform(atScale);
 				}
-				glyphs.put(gid, glyphPath);
+				glyphs.put(ttf, gid, glyphPath);
 			}
 		}
 		return glyphPath != null ? new Path(glyphPath) : null; // todo: expensive
@@ -140,6 +164,6 @@ public class TTFGlyph2D implements Glyph2D
 	@Override
 	public void dispose()
 	{
-		glyphs.clear();
+		glyphs.remove(ttf);
 	}
 }
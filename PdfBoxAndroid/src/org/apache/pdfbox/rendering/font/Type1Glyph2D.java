@@ -1,10 +1,10 @@
 package org.apache.pdfbox.rendering.font;
 
 import java.io.IOException;
-import java.util.HashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.pdfbox.pdmodel.font.GlyphCache;
 import org.apache.pdfbox.pdmodel.font.PDType1Equivalent;
 
 import android.graphics.Path;
@@ -15,7 +15,7 @@ import android.graphics.Path;
 public class Type1Glyph2D implements Glyph2D
 {
 	private static final Log LOG = LogFactory.getLog(Type1Glyph2D.class);
-	private final HashMap<Integer, Path> cache = new HashMap<Integer, Path>();
+	private final GlyphCache cache;
 	private final PDType1Equivalent font;
 	/**
 	 * Constructor.
@@ -23,32 +23,44 @@ public class Type1Glyph2D implements Glyph2D
 	 * @param font PDF Type1 font.
 	 */
 	public Type1Glyph2D(PDType1Equivalent font)
+	{
+		this(font, new GlyphCache());
+	}
+	/**
+	 * Constructor.
+	 *
+	 * @param font PDF Type1 font.
+	 * @param cache the cache of the glyph paths
+	 */
+	public Type1Glyph2D(PDType1Equivalent font, GlyphCache cache)
 	{
 		this.font = font;
+		this.cache = cache;
 	}
 	@Override
 	public Path getPathForCharacterCode(int code)
 	{
-		// cache
-		if (cache.containsKey(code))
-		{
-			return cache.get(code);
-		}
-		// fetch
 		try
 		{
 			String name = font.codeToName(code);
+			// cache, by the name of the glyph in the Type 1-equivalent font
+			Path path = cache.get(font.getType1Equivalent(), name);
+			if (path != null)
+			{
+				return path;
+			}
+			// fetch
 			if (name.equals(".notdef"))
 			{
 				LOG.warn("No glyph for " + code + " (" + name + ") in font " + font.getName());
 			}
 			// todo: can this happen? should it be encapsulated?
-			Path path = font.getPath(name);
+			path = font.getPath(name);
 			if (path == null)
 			{
 				path = font.getPath(".notdef");
 			}
-			cache.put(code, path);
+			cache.put(font.getType1Equivalent(), name, path);
 			return path;
 		}
 		catch (IOException e)
@@ -60,6 +72,6 @@ public class Type1Glyph2D implements Glyph2D
 	@Override
 	public void dispose()
 	{
-		cache.clear();
+		cache.remove(font.getType1Equivalent());
 	}
 }
\ No newline at end of file
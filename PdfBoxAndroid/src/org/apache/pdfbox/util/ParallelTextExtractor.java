@@ -0,0 +1,163 @@
+package org.apache.pdfbox.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+/**
+ * Extracts the text of a document with several threads. The page range is split
+ * into runs of consecutive pages, each run is stripped by its own
+ * {@link PDFTextStripper} on the given {@link ExecutorService}, and the text of the
+ * runs is put together in page order.
+ *
+ * All workers read the same loaded document, so it must not be modified while the
+ * extraction is running. The document has to be frozen with {@link PDDocument#freeze()}
+ * before its text is extracted. The result is the same as the result of a single
+ * stripper as long as the stripper doesn't write anything in
+ * {@link PDFTextStripper#startDocument(PDDocument)} or
+ * {@link PDFTextStripper#endDocument(PDDocument)}; override
+ * {@link #createStripper()} to use a configured stripper.
+ */
+public class ParallelTextExtractor
+{
+	private final ExecutorService executor;
+	private int pagesPerTask = 10;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param executor The executor which runs the extraction of the page runs.
+	 */
+	public ParallelTextExtractor(ExecutorService executor)
+	{
+		this.executor = executor;
+	}
+
+	/**
+	 * This will get the number of consecutive pages which are stripped by one task.
+	 *
+	 * @return The number of pages per task.
+	 */
+	public int getPagesPerTask()
+	{
+		return pagesPerTask;
+	}
+
+	/**
+	 * This will set the number of consecutive pages which are stripped by one task.
+	 * The default is 10.
+	 *
+	 * @param pagesPerTask The number of pages per task.
+	 */
+	public void setPagesPerTask(int pagesPerTask)
+	{
+		if (pagesPerTask <= 0)
+		{
+			throw new IllegalArgumentException("Error pages per task must be at least one page.");
+		}
+		this.pagesPerTask = pagesPerTask;
+	}
+
+	/**
+	 * This will create the stripper for one task. Every task gets a new stripper,
+	 * the start and end page are set by this class. Subclasses may override this to
+	 * use other settings.
+	 *
+	 * @return A new stripper.
+	 * @throws IOException If the stripper can't be created.
+	 */
+	protected PDFTextStripper createStripper() throws IOException
+	{
+		return new PDFTextStripper();
+	}
+
+	/**
+	 * This will return the text of all pages of a document.
+	 *
+	 * @param doc The document to get the text from.
+	 * @return The text of the PDF document.
+	 * @throws IOException If the text of a page can't be extracted.
+	 * @throws IllegalStateException If the document isn't frozen.
+	 */
+	public String getText(PDDocument doc) throws IOException
+	{
+		return getText(doc, 1, doc.getNumberOfPages());
+	}
+
+	/**
+	 * This will return the text of the given pages of a document.
+	 *
+	 * @param doc The document to get the text from.
+	 * @param startPage The first page to extract, 1 based.
+	 * @param endPage The last page to extract, 1 based.
+	 * @return The text of the pages.
+	 * @throws IOException If the text of a page can't be extracted.
+	 * @throws IllegalStateException If the document isn't frozen.
+	 */
+	public String getText(final PDDocument doc, int startPage, int endPage) throws IOException
+	{
+		if (!doc.isFrozen())
+		{
+			throw new IllegalStateException("Error the document must be frozen before its text is extracted in parallel");
+		}
+		List<Future<String>> results = new ArrayList<Future<String>>();
+		try
+		{
+			for (int first = Math.max(startPage, 1); first <= endPage; first += pagesPerTask)
+			{
+				final PDFTextStripper stripper = createStripper();
+				stripper.setStartPage(first);
+				stripper.setEndPage((int)Math.min((long)first + pagesPerTask - 1, endPage));
+				results.add(executor.submit(new Callable<String>()
+				{
+					public String call() throws IOException
+					{
+						return stripper.getText(doc);
+					}
+				}));
+			}
+			StringBuilder text = new StringBuilder();
+			for (Future<String> result : results)
+			{
+				text.append(result.get());
+			}
+			return text.toString();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while extracting text", e);
+		}
+		catch (ExecutionException e)
+		{
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException)
+			{
+				throw (IOException)cause;
+			}
+			if (cause instanceof RuntimeException)
+			{
+				throw (RuntimeException)cause;
+			}
+			if (cause instanceof Error)
+			{
+				throw (Error)cause;
+			}
+			throw new IOException(cause);
+		}
+		finally
+		{
+			// don't leave any work behind if one of the tasks failed
+			for (Future<String> result : results)
+			{
+				result.cancel(true);
+			}
+		}
+	}
+}